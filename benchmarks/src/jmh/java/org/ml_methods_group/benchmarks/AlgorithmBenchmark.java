@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017 Machine Learning Methods in Software Engineering Group of JetBrains Research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ml_methods_group.benchmarks;
+
+import org.ml_methods_group.algorithm.AlgorithmResult;
+import org.ml_methods_group.algorithm.entity.EntitySearchResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs every algorithm end to end on a synthetic project, using all available processors. If
+ * {@code entitiesFile} is set, the entities of a real project cached by the plugin are used instead and
+ * the generator parameters are ignored.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AlgorithmBenchmark {
+
+    @Param({"ARI", "MRI", "AKMeans", "CCDA", "HAC", "Leiden"})
+    public String algorithm;
+
+    @Param({"50", "200"})
+    public int classCount;
+
+    @Param({"10"})
+    public int methodsPerClass;
+
+    @Param({"5"})
+    public int fanOut;
+
+    @Param({"0.8"})
+    public double skew;
+
+    @Param({""})
+    public String entitiesFile;
+
+    private EntitySearchResult entities;
+    private ExecutorService service;
+
+    @Setup
+    public void setUp() {
+        BenchmarkUtil.disableLogging();
+        if (entitiesFile.isEmpty()) {
+            entities = new SyntheticEntityGenerator(classCount, methodsPerClass, 2, fanOut, skew, 42).generate();
+        } else {
+            entities = BenchmarkUtil.loadEntities(entitiesFile);
+        }
+        service = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * HAC and AKMeans keep their similarity graph in the entities, so it has to be built again in every invocation.
+     */
+    @Setup(Level.Invocation)
+    public void releaseSimilarityGraph() {
+        entities.releaseSimilarityGraph();
+    }
+
+    @TearDown
+    public void tearDown() {
+        service.shutdownNow();
+    }
+
+    @Benchmark
+    public AlgorithmResult execute() {
+        return BenchmarkUtil.run(algorithm, entities, service);
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2017 Machine Learning Methods in Software Engineering Group of JetBrains Research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ml_methods_group.benchmarks;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.LogManager;
+import org.ml_methods_group.algorithm.*;
+import org.ml_methods_group.algorithm.entity.EntitySearchCache;
+import org.ml_methods_group.algorithm.entity.EntitySearchResult;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ExecutorService;
+
+final class BenchmarkUtil {
+    private BenchmarkUtil() {}
+
+    static void disableLogging() {
+        // algorithms log every run, which would dominate the measurements
+        LogManager.getLoggerRepository().setThreshold(Level.OFF);
+    }
+
+    /**
+     * Loads the entities written by the plugin (see {@link EntitySearchCache}) with the vectors of its last search.
+     */
+    static EntitySearchResult loadEntities(String path) {
+        try {
+            return EntitySearchCache.read(new File(path)).toSearchResult();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load entities from " + path, e);
+        }
+    }
+
+    static Algorithm createAlgorithm(String name) {
+        switch (name) {
+            case "ARI":
+                return new ARI();
+            case "MRI":
+                return new MRI();
+            case "AKMeans":
+                return new AKMeans();
+            case "CCDA":
+                return new CCDA();
+            case "HAC":
+                return new HAC();
+            case "Leiden":
+                return new Leiden();
+            default:
+                throw new IllegalArgumentException("Unknown algorithm: " + name);
+        }
+    }
+
+    static AlgorithmResult run(String algorithm, EntitySearchResult entities, ExecutorService service) {
+        final AlgorithmResult result = createAlgorithm(algorithm).execute(entities, service, true);
+        if (result.getException() != null) {
+            throw new IllegalStateException(algorithm + " failed", result.getException());
+        }
+        return result;
+    }
+}
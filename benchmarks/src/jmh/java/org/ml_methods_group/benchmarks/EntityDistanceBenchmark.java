@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017 Machine Learning Methods in Software Engineering Group of JetBrains Research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ml_methods_group.benchmarks;
+
+import org.ml_methods_group.algorithm.entity.ClassEntity;
+import org.ml_methods_group.algorithm.entity.EntitySearchResult;
+import org.ml_methods_group.algorithm.entity.MethodEntity;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EntityDistanceBenchmark {
+    private static final int PAIRS = 1024;
+
+    @Param({"100", "1000"})
+    public int classCount;
+
+    @Param({"10"})
+    public int methodsPerClass;
+
+    @Param({"5", "20"})
+    public int fanOut;
+
+    @Param({"0.8"})
+    public double skew;
+
+    private MethodEntity[] methods;
+    private ClassEntity[] classes;
+
+    @Setup
+    public void setUp() {
+        final EntitySearchResult entities =
+                new SyntheticEntityGenerator(classCount, methodsPerClass, 2, fanOut, skew, 42).generate();
+        final List<MethodEntity> allMethods = entities.getMethods();
+        final List<ClassEntity> allClasses = entities.getClasses();
+        final Random random = new Random(42);
+        methods = new MethodEntity[PAIRS];
+        classes = new ClassEntity[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            methods[i] = allMethods.get(random.nextInt(allMethods.size()));
+            classes[i] = allClasses.get(random.nextInt(allClasses.size()));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public double methodToClassDistance() {
+        double sum = 0;
+        for (int i = 0; i < PAIRS; i++) {
+            sum += methods[i].distance(classes[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public double methodToMethodDistance() {
+        double sum = 0;
+        for (int i = 0; i < PAIRS; i++) {
+            sum += methods[i].distance(methods[PAIRS - 1 - i]);
+        }
+        return sum;
+    }
+}
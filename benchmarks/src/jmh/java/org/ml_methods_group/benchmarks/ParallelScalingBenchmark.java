@@ -0,0 +1,73 @@
+/*
+ * Copyright 2017 Machine Learning Methods in Software Engineering Group of JetBrains Research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ml_methods_group.benchmarks;
+
+import org.ml_methods_group.algorithm.AlgorithmResult;
+import org.ml_methods_group.algorithm.entity.EntitySearchResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how the parallel parts of the algorithms ({@code Algorithm.runParallel}) scale with the number of
+ * threads. Work is still split into one block per processor; the size of the pool bounds how many blocks run
+ * at the same time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ParallelScalingBenchmark {
+
+    @Param({"ARI", "MRI", "AKMeans", "CCDA", "HAC", "Leiden"})
+    public String algorithm;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    @Param({"200"})
+    public int classCount;
+
+    private EntitySearchResult entities;
+    private ExecutorService service;
+
+    @Setup
+    public void setUp() {
+        BenchmarkUtil.disableLogging();
+        entities = new SyntheticEntityGenerator(classCount, 10, 2, 5, 0.8, 42).generate();
+        service = Executors.newFixedThreadPool(threads);
+    }
+
+    /**
+     * HAC and AKMeans keep their similarity graph in the entities, so it has to be built again in every invocation.
+     */
+    @Setup(Level.Invocation)
+    public void releaseSimilarityGraph() {
+        entities.releaseSimilarityGraph();
+    }
+
+    @TearDown
+    public void tearDown() {
+        service.shutdownNow();
+    }
+
+    @Benchmark
+    public AlgorithmResult execute() {
+        return BenchmarkUtil.run(algorithm, entities, service);
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2017 Machine Learning Methods in Software Engineering Group of JetBrains Research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ml_methods_group.benchmarks;
+
+import org.ml_methods_group.algorithm.entity.ClassEntity;
+import org.ml_methods_group.algorithm.entity.Entity;
+import org.ml_methods_group.algorithm.entity.EntitySearchResult;
+import org.ml_methods_group.algorithm.entity.FieldEntity;
+import org.ml_methods_group.algorithm.entity.MethodEntity;
+import org.ml_methods_group.algorithm.entity.RelevantProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Builds {@link EntitySearchResult} instances without PSI. Classes are spread over packages of
+ * {@code CLASSES_PER_PACKAGE} classes and their properties follow the shape produced by EntitySearcher:
+ * a class knows its own methods and fields, a method or field knows itself and its class, and every method
+ * additionally references {@code fanOut} members of other classes.
+ * <p>
+ * {@code skew} is the probability that such a reference stays inside the method's own class. A skew close to 1
+ * gives well separated clusters, a skew of 0 spreads references uniformly over the project.
+ * The same parameters and seed always produce the same result.
+ */
+public class SyntheticEntityGenerator {
+    private static final int CLASSES_PER_PACKAGE = 20;
+
+    private final int classCount;
+    private final int methodsPerClass;
+    private final int fieldsPerClass;
+    private final int fanOut;
+    private final double skew;
+    private final long seed;
+
+    public SyntheticEntityGenerator(int classCount, int methodsPerClass, int fieldsPerClass, int fanOut,
+                                    double skew, long seed) {
+        if (classCount <= 0 || methodsPerClass <= 0 || fieldsPerClass < 0 || fanOut < 0) {
+            throw new IllegalArgumentException("Class and method counts should be positive, "
+                    + "field count and fan-out non-negative");
+        }
+        if (skew < 0 || skew > 1) {
+            throw new IllegalArgumentException("Skew should be in [0, 1], got " + skew);
+        }
+        this.classCount = classCount;
+        this.methodsPerClass = methodsPerClass;
+        this.fieldsPerClass = fieldsPerClass;
+        this.fanOut = fanOut;
+        this.skew = skew;
+        this.seed = seed;
+    }
+
+    public EntitySearchResult generate() {
+        final Random random = new Random(seed);
+        final List<ClassEntity> classes = new ArrayList<>(classCount);
+        final List<MethodEntity> methods = new ArrayList<>(classCount * methodsPerClass);
+        final List<FieldEntity> fields = new ArrayList<>(classCount * fieldsPerClass);
+        final double[] memberVector = new double[Entity.getVectorDimension()];
+        final double[] classVector = new double[Entity.getVectorDimension()];
+        // class vectors hold the number of methods and the number of added attributes
+        classVector[0] = methodsPerClass;
+        classVector[1] = fieldsPerClass;
+        for (int aClass = 0; aClass < classCount; aClass++) {
+            final String className = className(aClass);
+            final RelevantProperties classProperties = new RelevantProperties();
+            classProperties.addClass(className);
+            for (int method = 0; method < methodsPerClass; method++) {
+                final String methodName = methodName(aClass, method);
+                classProperties.addMethod(methodName);
+                final RelevantProperties methodProperties = new RelevantProperties();
+                methodProperties.addMethod(methodName);
+                methodProperties.addClass(className);
+                for (int i = 0; i < fanOut; i++) {
+                    addReference(methodProperties, aClass, random);
+                }
+                methods.add(new MethodEntity(methodName, methodProperties, memberVector, true));
+            }
+            for (int field = 0; field < fieldsPerClass; field++) {
+                final String fieldName = fieldName(aClass, field);
+                classProperties.addField(fieldName);
+                final RelevantProperties fieldProperties = new RelevantProperties();
+                fieldProperties.addField(fieldName);
+                fieldProperties.addClass(className);
+                fields.add(new FieldEntity(fieldName, fieldProperties, memberVector, false));
+            }
+            classes.add(new ClassEntity(className, classProperties, classVector));
+        }
+        return new EntitySearchResult(classes, methods, fields, 0);
+    }
+
+    private void addReference(RelevantProperties properties, int ownerClass, Random random) {
+        final int target = random.nextDouble() < skew ? ownerClass : random.nextInt(classCount);
+        final int memberCount = methodsPerClass + fieldsPerClass;
+        final int member = random.nextInt(memberCount);
+        if (member < methodsPerClass) {
+            properties.addMethod(methodName(target, member));
+        } else {
+            properties.addField(fieldName(target, member - methodsPerClass));
+        }
+        properties.addClass(className(target));
+    }
+
+    private static String className(int aClass) {
+        return "pkg" + aClass / CLASSES_PER_PACKAGE + ".Class" + aClass;
+    }
+
+    private static String methodName(int aClass, int method) {
+        return className(aClass) + ".method" + method + "()";
+    }
+
+    private static String fieldName(int aClass, int field) {
+        return className(aClass) + ".field" + field;
+    }
+}
@@ -80,6 +80,25 @@ public interface Metric {
     @Nullable
     String getHelpDisplayString();
 
+    /**
+     * Whether a value of this metric for a package, module or the project can be combined from the values calculated
+     * for disjoint sets of its files, by adding counts, or numerators and denominators of averages and ratios.  That
+     * isn't the case for scores, nor for metrics which count distinct elements, like packages or dependencies.
+     * @return true if the values of the parts may be added.
+     */
+    default boolean isAdditive() {
+        return getType() != MetricType.Score;
+    }
+
+    /**
+     * Whether the value of an element depends on the code of other files, such as the calls of a method or the
+     * dependents of a class, and not only on the declarations in them.  Values of such metrics can't be kept until
+     * the file of the element changes.
+     * @return true if edits in other files may change the values of this metric.
+     */
+    default boolean dependsOnOtherFiles() {
+        return false;
+    }
 
     /**
      * Create a calculator for this method.  The calculator returned is used for the duration of one entire metrics run.
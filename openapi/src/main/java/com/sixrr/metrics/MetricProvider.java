@@ -19,6 +19,7 @@ package com.sixrr.metrics;
 import com.intellij.openapi.extensions.ExtensionPointName;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -39,6 +40,48 @@ public interface MetricProvider {
     @NotNull
     List<Metric> getMetrics();
 
+    /**
+     * Returns the fully qualified class names of the metrics provided by this provider. Metrics are created from
+     * these names only when they are first used, so providers of many metrics should override this method instead
+     * of creating every metric up front. Every metric class must have a public no-argument constructor.
+     * @return the metric class names for this provider
+     */
+    @NotNull
+    default List<String> getMetricClassNames() {
+        final List<String> result = new ArrayList<String>();
+        for (Metric metric : getMetrics()) {
+            result.add(metric.getClass().getName());
+        }
+        return result;
+    }
+
+    /**
+     * Creates a metric of the given provider by its class name, using the class loader of the provider.
+     * @throws IllegalArgumentException if the metric can't be created
+     */
+    @NotNull
+    static Metric createMetric(@NotNull MetricProvider provider, @NotNull String className) {
+        try {
+            final Class<?> metricClass = Class.forName(className, true, provider.getClass().getClassLoader());
+            return metricClass.asSubclass(Metric.class).newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new IllegalArgumentException("Could not create metric " + className, e);
+        }
+    }
+
+    /**
+     * Creates all metrics listed by {@link #getMetricClassNames()}, for providers which override it.
+     */
+    @NotNull
+    static List<Metric> createMetrics(@NotNull MetricProvider provider) {
+        final List<String> classNames = provider.getMetricClassNames();
+        final List<Metric> metrics = new ArrayList<Metric>(classNames.size());
+        for (String className : classNames) {
+            metrics.add(createMetric(provider, className));
+        }
+        return metrics;
+    }
+
     /**
      * Returns the list of prebuilt metrics profiles provided by this provider.
      * @return the prebuilt metrics profiles for this provider.
@@ -17,8 +17,10 @@
 package com.sixrr.metrics;
 
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Computable;
 import com.intellij.openapi.util.UserDataHolder;
 import com.intellij.analysis.AnalysisScope;
+import org.jetbrains.annotations.NotNull;
 
 /**
  * The MetricsExecutionContext is used .  One MetricsExecutionContext is created for each metrics run, and shared by
@@ -37,4 +39,15 @@ public interface MetricsExecutionContext extends UserDataHolder {
      */
     AnalysisScope getScope();
 
+    /**
+     * Builds a data structure shared between MetricsCalculators, such as the dependency map.  The context may
+     * measure the build separately from the calculator which triggered it.
+     * @param name  the name of the structure, used in timing reports.
+     * @param builder  computes the structure.
+     * @return  the result of the builder.
+     */
+    default <T> T buildSharedStructure(@NotNull String name, @NotNull Computable<T> builder) {
+        return builder.compute();
+    }
+
 }
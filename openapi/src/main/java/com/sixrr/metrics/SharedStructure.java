@@ -0,0 +1,27 @@
+/*
+ * Copyright 2005-2017 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics;
+
+import com.intellij.openapi.util.ModificationTracker;
+
+/**
+ * A structure shared between MetricsCalculators through the user data of a {@link MetricsExecutionContext}, which
+ * tells on what changes it depends.  Contexts which keep shared structures longer than one metrics run drop such a
+ * structure once its modification count has changed.  Other structures are dropped on every PSI change.
+ */
+public interface SharedStructure extends ModificationTracker {
+}
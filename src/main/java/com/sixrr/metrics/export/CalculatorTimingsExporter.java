@@ -0,0 +1,79 @@
+/*
+ * Copyright 2005-2017 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.export;
+
+import com.google.gson.stream.JsonWriter;
+import com.sixrr.metrics.Metric;
+import com.sixrr.metrics.metricModel.CalculatorTimings;
+import com.sixrr.metrics.metricModel.CalculatorTimings.Entry;
+import com.sixrr.metrics.metricModel.CalculatorTimings.Phase;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Writes calculator timings as a JSON array, the most expensive calculator first. Times are in milliseconds,
+ * {@code allocatedBytes} is omitted if the JVM does not count allocations.
+ */
+public class CalculatorTimingsExporter {
+
+    private static final double NANOS_PER_MILLI = 1.0e6;
+
+    private final CalculatorTimings timings;
+
+    public CalculatorTimingsExporter(CalculatorTimings timings) {
+        this.timings = timings;
+    }
+
+    public void export(String fileName) throws IOException {
+        try (PrintWriter writer = new PrintWriter(fileName)) {
+            export(writer);
+        }
+    }
+
+    public void export(PrintWriter writer) throws IOException {
+        final JsonWriter json = new JsonWriter(writer);
+        json.setIndent("  ");
+        json.beginArray();
+        for (Entry entry : timings.getSortedEntries()) {
+            json.beginObject();
+            final Metric metric = entry.getMetric();
+            if (metric == null) {
+                json.name("sharedStructure").value(entry.getName());
+            } else {
+                json.name("id").value(metric.getID());
+                json.name("name").value(entry.getName());
+                json.name("category").value(metric.getCategory().name());
+                json.name("beginRun").value(toMillis(entry.getTime(Phase.BEGIN_RUN)));
+                json.name("processFiles").value(toMillis(entry.getTime(Phase.PROCESS_FILES)));
+                json.name("endRun").value(toMillis(entry.getTime(Phase.END_RUN)));
+            }
+            json.name("total").value(toMillis(entry.getTotalTime()));
+            if (timings.isAllocationMeasured()) {
+                json.name("allocatedBytes").value(entry.getAllocatedBytes());
+            }
+            json.endObject();
+        }
+        json.endArray();
+        json.flush();
+        writer.println();
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / NANOS_PER_MILLI;
+    }
+}
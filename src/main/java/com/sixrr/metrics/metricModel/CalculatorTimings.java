@@ -0,0 +1,191 @@
+/*
+ * Copyright 2005-2017 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.metricModel;
+
+import com.intellij.openapi.util.Computable;
+import com.sixrr.metrics.Metric;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
+
+/**
+ * Time and memory spent by each calculator of a metrics run, split into {@code beginMetricsRun}, all
+ * {@code processFile} calls and {@code endMetricsRun}. Structures shared between calculators (dependency map,
+ * method call map etc.) are measured on their own and not charged to the calculator which happened to trigger
+ * their build. Allocated bytes are only reported if the JVM supports per-thread allocation counters.
+ * <p>
+ * Not thread safe: all measurements are expected to come from the thread running the calculators.
+ */
+public class CalculatorTimings {
+
+    public enum Phase {
+        BEGIN_RUN, PROCESS_FILES, END_RUN, BUILD
+    }
+
+    @Nullable
+    private final com.sun.management.ThreadMXBean allocationCounter = getAllocationCounter();
+    private final List<Entry> calculators = new ArrayList<>();
+    private final Map<String, Entry> sharedStructures = new LinkedHashMap<>();
+
+    private long sectionStartTime;
+    private long sectionStartBytes;
+    private long sharedTimeInSection;
+    private long sharedBytesInSection;
+    private int sharedDepth = 0;
+
+    @NotNull
+    public Entry addCalculator(@NotNull Metric metric) {
+        final Entry entry = new Entry(metric, metric.getDisplayName());
+        calculators.add(entry);
+        return entry;
+    }
+
+    public void startSection() {
+        sharedTimeInSection = 0;
+        sharedBytesInSection = 0;
+        sectionStartBytes = allocatedBytes();
+        sectionStartTime = System.nanoTime();
+    }
+
+    public void finishSection(@NotNull Entry entry, @NotNull Phase phase) {
+        final long time = System.nanoTime() - sectionStartTime;
+        final long bytes = allocatedBytes() - sectionStartBytes;
+        entry.add(phase, time - sharedTimeInSection, bytes - sharedBytesInSection);
+    }
+
+    /**
+     * Builds a shared structure, recording its build under the given name. Nested builds are counted
+     * as part of the outermost one.
+     */
+    public <T> T measureShared(@NotNull String name, @NotNull Computable<T> builder) {
+        if (sharedDepth > 0) {
+            return builder.compute();
+        }
+        final long startBytes = allocatedBytes();
+        final long startTime = System.nanoTime();
+        sharedDepth++;
+        try {
+            return builder.compute();
+        } finally {
+            sharedDepth--;
+            final long time = System.nanoTime() - startTime;
+            final long bytes = allocatedBytes() - startBytes;
+            sharedTimeInSection += time;
+            sharedBytesInSection += bytes;
+            Entry entry = sharedStructures.get(name);
+            if (entry == null) {
+                entry = new Entry(null, name);
+                sharedStructures.put(name, entry);
+            }
+            entry.add(Phase.BUILD, time, bytes);
+        }
+    }
+
+    public boolean isAllocationMeasured() {
+        return allocationCounter != null;
+    }
+
+    /**
+     * @return calculators and shared structures, the most expensive first.
+     */
+    public List<Entry> getSortedEntries() {
+        final List<Entry> result = new ArrayList<>(calculators.size() + sharedStructures.size());
+        result.addAll(calculators);
+        result.addAll(sharedStructures.values());
+        result.sort(Comparator.comparingLong(Entry::getTotalTime).reversed());
+        return result;
+    }
+
+    private long allocatedBytes() {
+        if (allocationCounter == null) {
+            return 0;
+        }
+        return allocationCounter.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    @Nullable
+    private static com.sun.management.ThreadMXBean getAllocationCounter() {
+        final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        final com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) bean;
+        if (!counter.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        if (!counter.isThreadAllocatedMemoryEnabled()) {
+            counter.setThreadAllocatedMemoryEnabled(true);
+        }
+        return counter;
+    }
+
+    public static final class Entry {
+        @Nullable
+        private final Metric metric;
+        private final String name;
+        private final long[] times = new long[Phase.values().length];
+        private long allocatedBytes = 0;
+
+        private Entry(@Nullable Metric metric, String name) {
+            this.metric = metric;
+            this.name = name;
+        }
+
+        private void add(Phase phase, long time, long bytes) {
+            times[phase.ordinal()] += time;
+            allocatedBytes += bytes;
+        }
+
+        /**
+         * @return the measured metric, or null for a shared structure.
+         */
+        @Nullable
+        public Metric getMetric() {
+            return metric;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isSharedStructure() {
+            return metric == null;
+        }
+
+        /**
+         * @return time in nanoseconds.
+         */
+        public long getTime(Phase phase) {
+            return times[phase.ordinal()];
+        }
+
+        public long getTotalTime() {
+            long total = 0;
+            for (long time : times) {
+                total += time;
+            }
+            return total;
+        }
+
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2005-2017 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.metricModel;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.PsiNamedElement;
+import com.intellij.psi.PsiRecursiveElementWalkingVisitor;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Objects;
+
+/**
+ * Cheap replacement for a smart pointer: remembers the file, start offset, class and name of a measured element,
+ * and finds the element again only when it is needed for navigation. Unlike a smart pointer it does not follow
+ * edits of the file. An element found at the old offset is accepted only if its name is unchanged; otherwise
+ * the only element of the same class and name in the file is taken, and nothing is found if there are several.
+ */
+final class ElementLocator {
+
+    private final Project project;
+    private final VirtualFile file;
+    private final int offset;
+    private final Class<? extends PsiElement> kind;
+    @Nullable
+    private final String name;
+
+    private ElementLocator(Project project, VirtualFile file, int offset, Class<? extends PsiElement> kind,
+                           @Nullable String name) {
+        this.project = project;
+        this.file = file;
+        this.offset = offset;
+        this.kind = kind;
+        this.name = name;
+    }
+
+    @Nullable
+    static ElementLocator create(PsiElement element) {
+        final PsiFile containingFile = element.getContainingFile();
+        if (containingFile == null) {
+            return null;
+        }
+        final VirtualFile virtualFile = containingFile.getVirtualFile();
+        final TextRange range = element.getTextRange();
+        if (virtualFile == null || range == null) {
+            return null;
+        }
+        return new ElementLocator(element.getProject(), virtualFile, range.getStartOffset(), element.getClass(),
+                getName(element));
+    }
+
+    @Nullable
+    PsiElement findElement() {
+        if (project.isDisposed() || !file.isValid()) {
+            return null;
+        }
+        final PsiFile psiFile = PsiManager.getInstance(project).findFile(file);
+        if (psiFile == null) {
+            return null;
+        }
+        PsiElement element = psiFile.findElementAt(offset);
+        while (element != null && !(element instanceof PsiFile)) {
+            if (matches(element) && element.getTextRange().getStartOffset() == offset) {
+                return element;
+            }
+            element = element.getParent();
+        }
+        return findByName(psiFile);
+    }
+
+    @Nullable
+    private PsiElement findByName(PsiFile psiFile) {
+        if (name == null) {
+            return null;
+        }
+        final PsiElement[] found = new PsiElement[1];
+        final boolean[] ambiguous = new boolean[1];
+        psiFile.accept(new PsiRecursiveElementWalkingVisitor() {
+            @Override
+            public void visitElement(PsiElement element) {
+                if (matches(element)) {
+                    if (found[0] != null) {
+                        ambiguous[0] = true;
+                        stopWalking();
+                        return;
+                    }
+                    found[0] = element;
+                }
+                super.visitElement(element);
+            }
+        });
+        return ambiguous[0] ? null : found[0];
+    }
+
+    private boolean matches(PsiElement element) {
+        return kind.isInstance(element) && Objects.equals(name, getName(element));
+    }
+
+    @Nullable
+    private static String getName(PsiElement element) {
+        return element instanceof PsiNamedElement ? ((PsiNamedElement) element).getName() : null;
+    }
+}
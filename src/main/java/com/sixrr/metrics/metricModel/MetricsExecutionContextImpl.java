@@ -26,6 +26,7 @@ import com.intellij.openapi.progress.Task;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.roots.ProjectFileIndex;
 import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.util.Computable;
 import com.intellij.openapi.util.Key;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiCompiledElement;
@@ -49,6 +50,7 @@ public class MetricsExecutionContextImpl implements MetricsExecutionContext {
 
     protected final Project project;
     protected final AnalysisScope scope;
+    private final CalculatorTimings timings = new CalculatorTimings();
 
     public MetricsExecutionContextImpl(Project project, AnalysisScope scope) {
         this.project = project;
@@ -78,6 +80,17 @@ public class MetricsExecutionContextImpl implements MetricsExecutionContext {
     }
 
     public void calculateMetrics(MetricsProfile profile, final MetricsResultsHolder resultsHolder) {
+        try {
+            runCalculators(profile, resultsHolder);
+        } finally {
+            if (resultsHolder instanceof MetricsRun) {
+                // the run may be kept (e.g. by the tool window) long after the PSI of its members is gone
+                ((MetricsRun) resultsHolder).getSymbolTable().releaseMembers();
+            }
+        }
+    }
+
+    private void runCalculators(MetricsProfile profile, final MetricsResultsHolder resultsHolder) {
         final ProgressIndicator indicator;
         if (ApplicationManager.getApplication().isUnitTestMode()) {
             indicator = new EmptyProgressIndicator();
@@ -89,6 +102,7 @@ public class MetricsExecutionContextImpl implements MetricsExecutionContext {
         final int numFiles = scope.getFileCount();
         final int numMetrics = metrics.size();
         final List<MetricCalculator> calculators = new ArrayList<MetricCalculator>(numMetrics);
+        final List<CalculatorTimings.Entry> entries = new ArrayList<CalculatorTimings.Entry>(numMetrics);
         for (final MetricInstance metricInstance : metrics) {
             indicator.checkCanceled();
             if (!metricInstance.isEnabled()) {
@@ -97,8 +111,12 @@ public class MetricsExecutionContextImpl implements MetricsExecutionContext {
             final Metric metric = metricInstance.getMetric();
             final MetricCalculator calculator = metric.createCalculator();
 
+            final CalculatorTimings.Entry entry = timings.addCalculator(metric);
             calculators.add(calculator);
+            entries.add(entry);
+            timings.startSection();
             calculator.beginMetricsRun(metric, resultsHolder, this);
+            timings.finishSection(entry, CalculatorTimings.Phase.BEGIN_RUN);
         }
 
         scope.accept(new PsiElementVisitor() {
@@ -124,19 +142,30 @@ public class MetricsExecutionContextImpl implements MetricsExecutionContext {
                 indicator.setText(MetricsReloadedBundle.message("analyzing.progress.string", fileName));
                 mainTraversalProgress++;
 
-                for (MetricCalculator calculator : calculators) {
-                    calculator.processFile(file);
+                for (int i = 0; i < calculators.size(); i++) {
+                    timings.startSection();
+                    calculators.get(i).processFile(file);
+                    timings.finishSection(entries.get(i), CalculatorTimings.Phase.PROCESS_FILES);
                 }
                 indicator.setFraction((double) mainTraversalProgress / (double) numFiles);
             }
         });
         indicator.setText(MetricsReloadedBundle.message("tabulating.results.progress.string"));
-        for (MetricCalculator calculator : calculators) {
+        for (int i = 0; i < calculators.size(); i++) {
             indicator.checkCanceled();
-            calculator.endMetricsRun();
+            timings.startSection();
+            calculators.get(i).endMetricsRun();
+            timings.finishSection(entries.get(i), CalculatorTimings.Phase.END_RUN);
         }
     }
 
+    /**
+     * @return time and memory spent by each calculator of this metrics run.
+     */
+    public CalculatorTimings getCalculatorTimings() {
+        return timings;
+    }
+
     public void onFinish() {
     }
 
@@ -153,6 +182,11 @@ public class MetricsExecutionContextImpl implements MetricsExecutionContext {
         return scope;
     }
 
+    @Override
+    public <T> T buildSharedStructure(@NotNull String name, @NotNull Computable<T> builder) {
+        return timings.measureShared(name, builder);
+    }
+
     private Map userData = new HashMap();
 
     @Override
@@ -0,0 +1,275 @@
+/*
+ * Copyright 2005-2017 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.metricModel;
+
+import com.intellij.analysis.AnalysisScope;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.fileTypes.FileType;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.*;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.util.containers.ContainerUtil;
+import com.sixrr.metrics.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Answers the value of a single class, interface or method metric without a metrics run over a scope, e.g. for
+ * editor features. The calculator of the metric processes only the file containing the element, and the values
+ * of all elements of that file are cached until the file or the Java structure of the project changes, or until
+ * any PSI change for metrics which {@linkplain Metric#dependsOnOtherFiles() depend on other files}. Cached values
+ * are softly reachable and get evicted under memory pressure. Structures shared between calculators are kept
+ * until their {@link SharedStructure} modification count changes, other structures until the next PSI change.
+ * Cached values are looked up without locking; calculators run one at a time, since they share structures which
+ * aren't thread-safe.
+ */
+public class MetricsQueryService {
+
+    private final Project project;
+    private final ConcurrentMap<PsiFile, FileValues> cache = ContainerUtil.createConcurrentWeakKeySoftValueMap();
+    private final Object calculationLock = new Object();
+    // guarded by calculationLock
+    private final Map<Key<?>, SharedValue> sharedData = new HashMap<Key<?>, SharedValue>();
+
+    public MetricsQueryService(Project project) {
+        this.project = project;
+    }
+
+    public static MetricsQueryService getInstance(Project project) {
+        return ServiceManager.getService(project, MetricsQueryService.class);
+    }
+
+    /**
+     * Must be called in a read action.
+     *
+     * @return the value of the metric for the element, or null if the metric doesn't measure such elements or
+     * the element has no value.
+     */
+    @Nullable
+    public Double valueOf(@NotNull Metric metric, @NotNull PsiElement element) {
+        if (!isMeasurable(metric.getCategory(), element)) {
+            return null;
+        }
+        final PsiFile file = element.getContainingFile();
+        if (file == null || file instanceof PsiCompiledElement) {
+            return null;
+        }
+        final PsiModificationTracker tracker = PsiModificationTracker.SERVICE.getInstance(project);
+        final long fileStamp = file.getModificationStamp();
+        final long structureStamp = tracker.getJavaStructureModificationCount();
+        FileValues fileValues = cache.get(file);
+        if (fileValues == null || fileValues.fileStamp != fileStamp || fileValues.structureStamp != structureStamp) {
+            fileValues = new FileValues(fileStamp, structureStamp);
+            cache.put(file, fileValues);
+        }
+        // the file and structure stamps of the file values cover the metrics which only depend on this file
+        final long metricStamp = metric.dependsOnOtherFiles() ? tracker.getModificationCount() : 0L;
+        MetricValues values = fileValues.values.get(metric);
+        if (values == null || values.stamp != metricStamp) {
+            synchronized (calculationLock) {
+                values = fileValues.values.get(metric);
+                if (values == null || values.stamp != metricStamp) {
+                    values = new MetricValues(calculate(metric, file), metricStamp);
+                    fileValues.values.put(metric, values);
+                }
+            }
+        }
+        return values.values.get(element);
+    }
+
+    private long getStamp(Object sharedValue) {
+        if (sharedValue instanceof SharedStructure) {
+            return ((SharedStructure) sharedValue).getModificationCount();
+        }
+        // structures may depend on code blocks, e.g. on the references in method bodies
+        return PsiModificationTracker.SERVICE.getInstance(project).getModificationCount();
+    }
+
+    private static boolean isMeasurable(MetricCategory category, PsiElement element) {
+        switch (category) {
+            case Class:
+            case Interface:
+                return element instanceof PsiClass;
+            case Method:
+                return element instanceof PsiMethod;
+            default:
+                return false;
+        }
+    }
+
+    private Map<PsiElement, Double> calculate(Metric metric, PsiFile file) {
+        final ElementValuesHolder resultsHolder = new ElementValuesHolder();
+        final MetricCalculator calculator = metric.createCalculator();
+        calculator.beginMetricsRun(metric, resultsHolder, new QueryExecutionContext(new AnalysisScope(file)));
+        calculator.processFile(file);
+        calculator.endMetricsRun();
+        return resultsHolder.values;
+    }
+
+    private static final class FileValues {
+        private final long fileStamp;
+        private final long structureStamp;
+        private final Map<Metric, MetricValues> values = new ConcurrentHashMap<Metric, MetricValues>();
+
+        FileValues(long fileStamp, long structureStamp) {
+            this.fileStamp = fileStamp;
+            this.structureStamp = structureStamp;
+        }
+    }
+
+    private static final class MetricValues {
+        private final Map<PsiElement, Double> values;
+        private final long stamp;
+
+        MetricValues(Map<PsiElement, Double> values, long stamp) {
+            this.values = values;
+            this.stamp = stamp;
+        }
+    }
+
+    private static final class SharedValue {
+        private final Object value;
+        private final long stamp;
+
+        SharedValue(Object value, long stamp) {
+            this.value = value;
+            this.stamp = stamp;
+        }
+    }
+
+    private class QueryExecutionContext implements MetricsExecutionContext {
+        private final AnalysisScope scope;
+
+        QueryExecutionContext(AnalysisScope scope) {
+            this.scope = scope;
+        }
+
+        @Override
+        public Project getProject() {
+            return project;
+        }
+
+        @Override
+        public AnalysisScope getScope() {
+            return scope;
+        }
+
+        @Nullable
+        @Override
+        public <T> T getUserData(@NotNull Key<T> key) {
+            final SharedValue sharedValue = sharedData.get(key);
+            if (sharedValue == null) {
+                return null;
+            }
+            if (sharedValue.stamp != getStamp(sharedValue.value)) {
+                sharedData.remove(key);
+                return null;
+            }
+            return (T) sharedValue.value;
+        }
+
+        @Override
+        public <T> void putUserData(@NotNull Key<T> key, @Nullable T value) {
+            if (value == null) {
+                sharedData.remove(key);
+            } else {
+                sharedData.put(key, new SharedValue(value, getStamp(value)));
+            }
+        }
+    }
+
+    /**
+     * Keeps the values of classes, interfaces and methods, values of aggregates are dropped.
+     */
+    private static class ElementValuesHolder implements MetricsResultsHolder {
+        private final Map<PsiElement, Double> values = new HashMap<PsiElement, Double>();
+
+        @Override
+        public void postProjectMetric(Metric metric, double value) {
+        }
+
+        @Override
+        public void postFileTypeMetric(Metric metric, FileType fileType, double value) {
+        }
+
+        @Override
+        public void postModuleMetric(Metric metric, Module module, double value) {
+        }
+
+        @Override
+        public void postPackageMetric(Metric metric, PsiPackage aPackage, double value) {
+        }
+
+        @Override
+        public void postClassMetric(Metric metric, PsiClass aClass, double value) {
+            values.put(aClass, value);
+        }
+
+        @Override
+        public void postInterfaceMetric(Metric metric, PsiClass anInterface, double value) {
+            values.put(anInterface, value);
+        }
+
+        @Override
+        public void postMethodMetric(Metric metric, PsiMethod method, double value) {
+            values.put(method, value);
+        }
+
+        @Override
+        public void postProjectMetric(Metric metric, double numerator, double denominator) {
+        }
+
+        @Override
+        public void postFileTypeMetric(Metric metric, FileType fileType, double numerator, double denominator) {
+        }
+
+        @Override
+        public void postModuleMetric(Metric metric, Module module, double numerator, double denominator) {
+        }
+
+        @Override
+        public void postPackageMetric(Metric metric, PsiPackage aPackage, double numerator, double denominator) {
+        }
+
+        @Override
+        public void postClassMetric(Metric metric, PsiClass aClass, double numerator, double denominator) {
+            values.put(aClass, getValue(numerator, denominator));
+        }
+
+        @Override
+        public void postInterfaceMetric(Metric metric, PsiClass anInterface, double numerator, double denominator) {
+            values.put(anInterface, getValue(numerator, denominator));
+        }
+
+        @Override
+        public void postMethodMetric(Metric metric, PsiMethod method, double numerator, double denominator) {
+            values.put(method, getValue(numerator, denominator));
+        }
+
+        private static double getValue(double numerator, double denominator) {
+            // same convention as StringToFractionMap
+            return denominator == 0.0 ? 1.0 : numerator / denominator;
+        }
+    }
+}
@@ -18,7 +18,9 @@ package com.sixrr.metrics.metricModel;
 
 import com.intellij.psi.PsiElement;
 import com.sixrr.metrics.Metric;
+import com.sixrr.metrics.profile.MetricInstance;
 import com.sixrr.metrics.profile.MetricsProfile;
+import com.sixrr.metrics.utils.StringToFractionMap;
 import org.jetbrains.annotations.Nullable;
 
 public interface MetricsResult {
@@ -30,6 +32,11 @@ public interface MetricsResult {
     @Nullable
     Double getValueForMetric(Metric metric, String measured);
 
+    /**
+     * Passes the numerator and denominator of every value posted for the metric to the procedure.
+     */
+    void forEachValue(Metric metric, StringToFractionMap.EntryProcedure procedure);
+
     String[] getMeasuredObjects();
 
     Metric[] getMetrics();
@@ -53,5 +60,10 @@ public interface MetricsResult {
 
     boolean hasWarnings(MetricsProfile profile);
 
+    /**
+     * @return the number of measured objects whose values violate the thresholds of the metric instance.
+     */
+    int countViolations(MetricInstance metricInstance);
+
     MetricsResult filterRowsWithoutWarnings(MetricsProfile profile);
 }
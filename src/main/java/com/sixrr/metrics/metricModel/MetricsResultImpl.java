@@ -27,17 +27,16 @@ import com.sixrr.metrics.profile.MetricsProfile;
 import com.sixrr.metrics.utils.StringToFractionMap;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
 
 public class MetricsResultImpl implements MetricsResult {
     private final Map<Metric, StringToFractionMap> values = new HashMap<Metric, StringToFractionMap>(32);
     private final Set<String> measuredObjects = new HashSet<String>(32);
     private final Set<Metric> metrics = new HashSet<Metric>(32);
+    private final Map<String, ElementLocator> locators = new HashMap<String, ElementLocator>(1024);
     private final Map<String, SmartPsiElementPointer<PsiElement>> elements =
-            new HashMap<String, SmartPsiElementPointer<PsiElement>>(1024);
+            new HashMap<String, SmartPsiElementPointer<PsiElement>>();
+    private ThresholdViolationIndex violationIndex = null;
 
     @Override
     public void postValue(Metric metric, String measured, double value) {
@@ -57,6 +56,7 @@ public class MetricsResultImpl implements MetricsResult {
         metricValues.put(measured, numerator, denominator);
         measuredObjects.add(measured);
         metrics.add(metric);
+        violationIndex = null;
     }
 
     @Override
@@ -69,6 +69,14 @@ public class MetricsResultImpl implements MetricsResult {
         return metricValues.containsKey(measured) ? Double.valueOf(metricValues.get(measured)) : null;
     }
 
+    @Override
+    public void forEachValue(Metric metric, StringToFractionMap.EntryProcedure procedure) {
+        final StringToFractionMap metricValues = values.get(metric);
+        if (metricValues != null) {
+            metricValues.forEachEntry(procedure);
+        }
+    }
+
     @Override
     public String[] getMeasuredObjects() {
         return measuredObjects.toArray(new String[measuredObjects.size()]);
@@ -129,79 +137,91 @@ public class MetricsResultImpl implements MetricsResult {
 
     @Override
     public void setElementForMeasuredObject(String measuredObject, PsiElement element) {
-        final Project project = element.getProject();
-        final SmartPointerManager pointerManager = SmartPointerManager.getInstance(project);
-        final SmartPsiElementPointer<PsiElement> pointer = pointerManager.createSmartPsiElementPointer(element);
-        elements.put(measuredObject, pointer);
+        if (locators.containsKey(measuredObject) || elements.containsKey(measuredObject)) {
+            return;
+        }
+        final ElementLocator locator = ElementLocator.create(element);
+        if (locator != null) {
+            locators.put(measuredObject, locator);
+        } else {
+            elements.put(measuredObject, createPointer(element));
+        }
     }
 
     @Override
     @Nullable
     public PsiElement getElementForMeasuredObject(String measuredObject) {
         final SmartPsiElementPointer<PsiElement> pointer = elements.get(measuredObject);
-        if (pointer == null) {
+        if (pointer != null) {
+            return pointer.getElement();
+        }
+        final ElementLocator locator = locators.get(measuredObject);
+        if (locator == null) {
             return null;
         }
-        return pointer.getElement();
+        final PsiElement element = locator.findElement();
+        if (element != null) {
+            // from now on follow edits of the element
+            locators.remove(measuredObject);
+            elements.put(measuredObject, createPointer(element));
+        }
+        return element;
+    }
+
+    private static SmartPsiElementPointer<PsiElement> createPointer(PsiElement element) {
+        final Project project = element.getProject();
+        final SmartPointerManager pointerManager = SmartPointerManager.getInstance(project);
+        return pointerManager.createSmartPsiElementPointer(element);
+    }
+
+    private synchronized ThresholdViolationIndex getViolationIndex() {
+        if (violationIndex == null) {
+            violationIndex = new ThresholdViolationIndex(measuredObjects, values);
+        }
+        return violationIndex;
     }
 
     @Override
     public boolean hasWarnings(MetricsProfile profile) {
-        for (Metric metric : metrics) {
-            final MetricInstance metricInstance = profile.getMetricInstance(metric);
-            assert metricInstance != null : "no instance found for " + metric.getID();
-            final StringToFractionMap valuesForMetric = values.get(metric);
-            for (String measuredObject : measuredObjects) {
-                final double value = valuesForMetric.get(measuredObject);
-                if (metricInstance.isUpperThresholdEnabled() && value > metricInstance.getUpperThreshold()) {
-                    return true;
-                }
-                if (metricInstance.isLowerThresholdEnabled() && value < metricInstance.getLowerThreshold()) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return !getViolationIndex().getViolations(profile).isEmpty();
+    }
+
+    @Override
+    public int countViolations(MetricInstance metricInstance) {
+        return getViolationIndex().getViolations(metricInstance).cardinality();
     }
 
     @Override
     public MetricsResult filterRowsWithoutWarnings(MetricsProfile profile) {
-        final MetricsResult out = new MetricsResultImpl();
-        for (String measuredObject : measuredObjects) {
-            boolean found = false;
-            for (Metric metric : metrics) {
-                final MetricInstance metricInstance = profile.getMetricInstance(metric);
-                assert metricInstance != null : "no instance found for " + metric.getID();
-                if (!metricInstance.isEnabled()) {
-                    continue;
-                }
-                final StringToFractionMap valuesForMetric = values.get(metric);
-                if (!valuesForMetric.containsKey(measuredObject)) {
-                    continue;
-                }
-                final double value = valuesForMetric.get(measuredObject);
-                if (metricInstance.isUpperThresholdEnabled() && value > metricInstance.getUpperThreshold()) {
-                    found = true;
-                    break;
-                }
-                if (metricInstance.isLowerThresholdEnabled() && value < metricInstance.getLowerThreshold()) {
-                    found = true;
-                    break;
-                }
-            }
-            if (found) {
-                for (Metric metric : metrics) {
-                    final StringToFractionMap valuesForMetric = values.get(metric);
-                    final double value = valuesForMetric.get(measuredObject);
-                    out.postValue(metric, measuredObject, value, 1.0); //not quite right
+        final ThresholdViolationIndex index = getViolationIndex();
+        final BitSet violations = index.getViolations(profile);
+        final Set<String> objectsWithWarnings = new HashSet<String>(violations.cardinality());
+        for (int i = violations.nextSetBit(0); i >= 0; i = violations.nextSetBit(i + 1)) {
+            objectsWithWarnings.add(index.getObject(i));
+        }
+        final MetricsResultImpl out = new MetricsResultImpl();
+        out.measuredObjects.addAll(objectsWithWarnings);
+        out.metrics.addAll(metrics);
+        for (Map.Entry<Metric, StringToFractionMap> entry : values.entrySet()) {
+            final StringToFractionMap filteredValues = new StringToFractionMap();
+            entry.getValue().forEachEntry((measuredObject, numerator, denominator) -> {
+                if (objectsWithWarnings.contains(measuredObject)) {
+                    filteredValues.put(measuredObject, numerator, denominator);
                 }
-                final PsiElement elementForMeasuredObject = getElementForMeasuredObject(measuredObject);
-                if (elementForMeasuredObject != null) {
-                    out.setElementForMeasuredObject(measuredObject, elementForMeasuredObject);
+            });
+            out.values.put(entry.getKey(), filteredValues);
+        }
+        for (String measuredObject : objectsWithWarnings) {
+            final ElementLocator locator = locators.get(measuredObject);
+            if (locator != null) {
+                out.locators.put(measuredObject, locator);
+            } else {
+                final SmartPsiElementPointer<PsiElement> pointer = elements.get(measuredObject);
+                if (pointer != null) {
+                    out.elements.put(measuredObject, pointer);
                 }
             }
         }
         return out;
-
     }
 }
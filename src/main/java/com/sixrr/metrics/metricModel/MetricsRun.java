@@ -21,7 +21,9 @@ import com.sixrr.metrics.Metric;
 import com.sixrr.metrics.MetricCategory;
 import com.sixrr.metrics.MetricsResultsHolder;
 import com.sixrr.metrics.profile.MetricsProfile;
+import com.sixrr.metrics.utils.SymbolTable;
 import org.jetbrains.annotations.NonNls;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.List;
 
@@ -39,5 +41,16 @@ public interface MetricsRun extends MetricsResultsHolder {
 
     AnalysisScope getContext();
 
+    /**
+     * @return names and ids of the classes and methods measured in this run.
+     */
+    SymbolTable getSymbolTable();
+
+    /**
+     * @return time and memory spent by each calculator, or null if the run was not timed (e.g. loaded from a file).
+     */
+    @Nullable
+    CalculatorTimings getCalculatorTimings();
+
     MetricsRun filterRowsWithoutWarnings(MetricsProfile profile);
 }
@@ -17,6 +17,7 @@
 package com.sixrr.metrics.metricModel;
 
 import com.intellij.analysis.AnalysisScope;
+import com.intellij.ide.plugins.IdeaPluginDescriptor;
 import com.intellij.ide.plugins.PluginManager;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.extensions.PluginId;
@@ -32,11 +33,13 @@ import com.sixrr.metrics.MetricCategory;
 import com.sixrr.metrics.profile.MetricRepository;
 import com.sixrr.metrics.profile.MetricsProfile;
 import com.sixrr.metrics.profile.MetricsProfileRepository;
-import com.sixrr.metrics.utils.MethodUtils;
+import com.sixrr.metrics.utils.SymbolTable;
+import gnu.trove.TDoubleArrayList;
 import org.jdom.Document;
 import org.jdom.Element;
 import org.jdom.input.SAXBuilder;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
@@ -52,6 +55,8 @@ public class MetricsRunImpl implements MetricsRun {
     private String profileName = null;
     private AnalysisScope context = null;
     private TimeStamp timestamp = null;
+    private SymbolTable symbolTable = new SymbolTable();
+    private CalculatorTimings calculatorTimings = null;
 
     public MetricsRunImpl() {
         final MetricCategory[] categories = MetricCategory.values();
@@ -105,7 +110,7 @@ public class MetricsRunImpl implements MetricsRun {
     @Override
     public void postClassMetric(@NotNull Metric metric, @NotNull PsiClass aClass, double value) {
         final MetricsResult results = getResultsForCategory(MetricCategory.Class);
-        final String qualifiedName = aClass.getQualifiedName();
+        final String qualifiedName = symbolTable.getName(aClass);
         results.postValue(metric, qualifiedName, value);
         results.setElementForMeasuredObject(qualifiedName, aClass);
     }
@@ -113,7 +118,7 @@ public class MetricsRunImpl implements MetricsRun {
     @Override
     public void postInterfaceMetric(@NotNull Metric metric, @NotNull PsiClass anInterface, double value) {
         final MetricsResult results = getResultsForCategory(MetricCategory.Interface);
-        final String qualifiedName = anInterface.getQualifiedName();
+        final String qualifiedName = symbolTable.getName(anInterface);
         results.postValue(metric, qualifiedName, value);
         results.setElementForMeasuredObject(qualifiedName, anInterface);
     }
@@ -121,7 +126,7 @@ public class MetricsRunImpl implements MetricsRun {
     @Override
     public void postMethodMetric(@NotNull Metric metric, @NotNull PsiMethod method, double value) {
         final MetricsResult results = getResultsForCategory(MetricCategory.Method);
-        final String signature = MethodUtils.calculateSignature(method);
+        final String signature = symbolTable.getName(method);
         results.postValue(metric, signature, value);
         results.setElementForMeasuredObject(signature, method);
     }
@@ -156,21 +161,21 @@ public class MetricsRunImpl implements MetricsRun {
     public void postClassMetric(@NotNull Metric metric, @NotNull PsiClass aClass,
                                 double numerator, double denominator) {
         final MetricsResult results = getResultsForCategory(MetricCategory.Class);
-        results.postValue(metric, aClass.getQualifiedName(), numerator, denominator);
+        results.postValue(metric, symbolTable.getName(aClass), numerator, denominator);
     }
 
     @Override
     public void postInterfaceMetric(@NotNull Metric metric, @NotNull PsiClass anInterface,
                                     double numerator, double denominator) {
         final MetricsResult results = getResultsForCategory(MetricCategory.Interface);
-        results.postValue(metric, anInterface.getQualifiedName(), numerator, denominator);
+        results.postValue(metric, symbolTable.getName(anInterface), numerator, denominator);
     }
 
     @Override
     public void postMethodMetric(@NotNull Metric metric, @NotNull PsiMethod method,
                                  double numerator, double denominator) {
         final MetricsResult results = getResultsForCategory(MetricCategory.Method);
-        final String signature = MethodUtils.calculateSignature(method);
+        final String signature = symbolTable.getName(method);
         results.postValue(metric, signature, numerator, denominator);
         results.setElementForMeasuredObject(signature, method);
     }
@@ -181,6 +186,12 @@ public class MetricsRunImpl implements MetricsRun {
         result.postValue(metric, measured, value);
     }
 
+    void postRawMetric(@NotNull Metric metric, @NotNull String measured, double numerator, double denominator) {
+        final MetricCategory category = metric.getCategory();
+        final MetricsResult result = metricResults.get(category);
+        result.postValue(metric, measured, numerator, denominator);
+    }
+
     @Override
     public MetricsResult getResultsForCategory(@NotNull MetricCategory category) {
         return metricResults.get(category);
@@ -201,8 +212,11 @@ public class MetricsRunImpl implements MetricsRun {
                 writer.writeStartElement("SNAPSHOT");
                 writer.writeAttribute("profile", profileName);
                 writer.writeAttribute("timestamp", timestamp.toString());
-                final String version = PluginManager.getPlugin(PluginId.getId("MetricsReloaded")).getVersion();
-                writer.writeAttribute("version", version);
+                final PluginId pluginId = PluginManager.getPluginByClassName(MetricsRunImpl.class.getName());
+                final IdeaPluginDescriptor plugin = pluginId == null ? null : PluginManager.getPlugin(pluginId);
+                if (plugin != null) {
+                    writer.writeAttribute("version", plugin.getVersion());
+                }
                 writer.writeCharacters("\n");
                 final MetricCategory[] categories = MetricCategory.values();
                 for (MetricCategory category : categories) {
@@ -251,12 +265,29 @@ public class MetricsRunImpl implements MetricsRun {
         return context;
     }
 
+    @Override
+    @Nullable
+    public CalculatorTimings getCalculatorTimings() {
+        return calculatorTimings;
+    }
+
+    public void setCalculatorTimings(@Nullable CalculatorTimings calculatorTimings) {
+        this.calculatorTimings = calculatorTimings;
+    }
+
+    @Override
+    public SymbolTable getSymbolTable() {
+        return symbolTable;
+    }
+
     @Override
     public MetricsRun filterRowsWithoutWarnings(@NotNull MetricsProfile profile) {
         final MetricsRunImpl out = new MetricsRunImpl();
         out.context = context;
         out.profileName = profileName;
         out.timestamp = timestamp;
+        out.symbolTable = symbolTable;
+        out.calculatorTimings = calculatorTimings;
 
         final Set<MetricCategory> categories = metricResults.keySet();
         for (MetricCategory category : categories) {
@@ -279,20 +310,32 @@ public class MetricsRunImpl implements MetricsRun {
     private static void writeResultsForMetric(Metric metric, MetricsResult results, XMLStreamWriter writer)
             throws XMLStreamException {
         final Class<?> metricClass = metric.getClass();
-        final String[] measuredObjects = results.getMeasuredObjects();
+        final List<String> measuredObjects = new ArrayList<String>();
+        final TDoubleArrayList numerators = new TDoubleArrayList();
+        final TDoubleArrayList denominators = new TDoubleArrayList();
+        results.forEachValue(metric, (measuredObject, numerator, denominator) -> {
+            measuredObjects.add(measuredObject);
+            numerators.add(numerator);
+            denominators.add(denominator);
+        });
         writer.writeCharacters("  ");
         writer.writeStartElement("METRIC");
         writer.writeAttribute("class_name", metricClass.getName());
         writer.writeCharacters("\n");
-        for (final String measuredObject : measuredObjects) {
-            writeValue(results, metric, measuredObject, writer);
+        for (int i = 0; i < measuredObjects.size(); i++) {
+            writeValue(results, metric, measuredObjects.get(i), numerators.get(i), denominators.get(i), writer);
         }
         writer.writeCharacters("  ");
         writer.writeEndElement();
         writer.writeCharacters("\n");
     }
 
-    private static void writeValue(MetricsResult results, Metric metric, String measuredObject, XMLStreamWriter writer)
+    /**
+     * Writes the value together with its numerator and denominator unless the denominator is 1, so that
+     * snapshots of several runs can be merged exactly by {@link MetricsRunMerger}.
+     */
+    private static void writeValue(MetricsResult results, Metric metric, String measuredObject,
+                                   double numerator, double denominator, XMLStreamWriter writer)
             throws XMLStreamException {
         final Double value = results.getValueForMetric(metric, measuredObject);
         if (value != null) {
@@ -300,6 +343,10 @@ public class MetricsRunImpl implements MetricsRun {
             writer.writeEmptyElement("VALUE");
             writer.writeAttribute("measured", measuredObject);
             writer.writeAttribute("value", value.toString());
+            if (denominator != 1.0) {
+                writer.writeAttribute("numerator", Double.toString(numerator));
+                writer.writeAttribute("denominator", Double.toString(denominator));
+            }
             writer.writeCharacters("\n");
         }
     }
@@ -361,9 +408,16 @@ public class MetricsRunImpl implements MetricsRun {
                 final List<Element> values = metricElement.getChildren("VALUE");
                 for (final Element valueElement : values) {
                     final String measured = valueElement.getAttributeValue("measured");
-                    final String valueString = valueElement.getAttributeValue("value");
-                    final double value = Double.parseDouble(valueString);
-                    run.postRawMetric(metric, measured, value);
+                    final String numerator = valueElement.getAttributeValue("numerator");
+                    final String denominator = valueElement.getAttributeValue("denominator");
+                    if (numerator != null && denominator != null) {
+                        run.postRawMetric(metric, measured, Double.parseDouble(numerator),
+                                Double.parseDouble(denominator));
+                    } else {
+                        final String valueString = valueElement.getAttributeValue("value");
+                        final double value = Double.parseDouble(valueString);
+                        run.postRawMetric(metric, measured, value);
+                    }
                 }
             }
         } catch (Exception e) {
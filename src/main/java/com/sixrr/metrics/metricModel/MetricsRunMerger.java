@@ -0,0 +1,137 @@
+/*
+ * Copyright 2005-2017 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.metricModel;
+
+import com.sixrr.metrics.Metric;
+import com.sixrr.metrics.MetricCategory;
+import com.sixrr.metrics.MetricType;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * Combines runs calculated for disjoint parts of a project (see the {@code --shard} and {@code --modules} options
+ * of the metrics command line) into one run. Classes, interfaces and methods are measured by exactly one part,
+ * so their values are copied. Values of packages, modules, file types and the project reported by several parts
+ * are combined from the partial sums if the metric is {@link Metric#isAdditive() additive}: counts are added,
+ * while averages and ratios get the sum of the numerators divided by the sum of the denominators. Other metrics,
+ * such as scores, the number of packages or the distance from the main sequence, have no such decomposition; the
+ * largest partial value is kept and the metric is reported by {@link #getInexactMetrics()}.
+ */
+public class MetricsRunMerger {
+
+    private final Map<Metric, Map<String, Fraction>> values = new LinkedHashMap<Metric, Map<String, Fraction>>();
+    private final Set<Metric> inexactMetrics = new LinkedHashSet<Metric>();
+    private String profileName = null;
+
+    public void add(@NotNull MetricsRun run) {
+        if (profileName == null) {
+            profileName = run.getProfileName();
+        }
+        for (MetricCategory category : MetricCategory.values()) {
+            final MetricsResult results = run.getResultsForCategory(category);
+            for (final Metric metric : results.getMetrics()) {
+                Map<String, Fraction> metricValues = values.get(metric);
+                if (metricValues == null) {
+                    metricValues = new HashMap<String, Fraction>();
+                    values.put(metric, metricValues);
+                }
+                final Map<String, Fraction> target = metricValues;
+                results.forEachValue(metric, (measuredObject, numerator, denominator) -> {
+                    final Fraction fraction = target.get(measuredObject);
+                    if (fraction == null) {
+                        target.put(measuredObject, new Fraction(numerator, denominator));
+                    } else if (!metric.isAdditive()) {
+                        fraction.keepMaximum(numerator, denominator);
+                        inexactMetrics.add(metric);
+                    } else if (!fraction.add(metric.getType(), numerator, denominator)) {
+                        inexactMetrics.add(metric);
+                    }
+                });
+            }
+        }
+    }
+
+    @NotNull
+    public MetricsRunImpl merge() {
+        final MetricsRunImpl run = new MetricsRunImpl();
+        run.setProfileName(profileName);
+        run.setTimestamp(new TimeStamp());
+        for (Map.Entry<Metric, Map<String, Fraction>> entry : values.entrySet()) {
+            final Metric metric = entry.getKey();
+            for (Map.Entry<String, Fraction> value : entry.getValue().entrySet()) {
+                final Fraction fraction = value.getValue();
+                run.postRawMetric(metric, value.getKey(), fraction.numerator, fraction.denominator);
+            }
+        }
+        return run;
+    }
+
+    /**
+     * @return the non-additive metrics whose values were reported by several parts for the same measured object.
+     */
+    @NotNull
+    public Set<Metric> getInexactMetrics() {
+        return Collections.unmodifiableSet(inexactMetrics);
+    }
+
+    static final class Fraction {
+        double numerator;
+        double denominator;
+
+        Fraction(double numerator, double denominator) {
+            this.numerator = numerator;
+            this.denominator = denominator;
+        }
+
+        /**
+         * @return false if the values can't be combined exactly.
+         */
+        boolean add(MetricType type, double otherNumerator, double otherDenominator) {
+            switch (type) {
+                case Count:
+                case RecursiveCount:
+                    numerator = getValue(numerator, denominator) + getValue(otherNumerator, otherDenominator);
+                    denominator = 1.0;
+                    return true;
+                case Average:
+                case Ratio:
+                case RecursiveRatio:
+                    numerator += otherNumerator;
+                    denominator += otherDenominator;
+                    return true;
+                default:
+                    keepMaximum(otherNumerator, otherDenominator);
+                    return false;
+            }
+        }
+
+        void keepMaximum(double otherNumerator, double otherDenominator) {
+            numerator = Math.max(getValue(numerator, denominator), getValue(otherNumerator, otherDenominator));
+            denominator = 1.0;
+        }
+
+        double getValue() {
+            return getValue(numerator, denominator);
+        }
+
+        private static double getValue(double numerator, double denominator) {
+            // same convention as StringToFractionMap
+            return denominator == 0.0 ? 1.0 : numerator / denominator;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2005-2017 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.metricModel;
+
+import com.sixrr.metrics.Metric;
+import com.sixrr.metrics.profile.MetricInstance;
+import com.sixrr.metrics.profile.MetricsProfile;
+import com.sixrr.metrics.utils.StringToFractionMap;
+import gnu.trove.TObjectIntHashMap;
+
+import java.util.*;
+
+/**
+ * Threshold violations of one {@link MetricsResult}. Measured objects get dense indices and the values of every
+ * metric are copied into a primitive column once, then the rows violating the thresholds of a metric are kept
+ * as a {@link BitSet}. Violations of a metric are recalculated only when its thresholds change, so warning
+ * checks and filtering reduce to bitset operations.
+ */
+final class ThresholdViolationIndex {
+    private final String[] objects;
+    private final Map<Metric, Column> columns = new HashMap<>();
+
+    ThresholdViolationIndex(Collection<String> measuredObjects, Map<Metric, StringToFractionMap> values) {
+        objects = measuredObjects.toArray(new String[measuredObjects.size()]);
+        final TObjectIntHashMap<String> indices = new TObjectIntHashMap<>(objects.length);
+        for (int i = 0; i < objects.length; i++) {
+            indices.put(objects[i], i);
+        }
+        for (Map.Entry<Metric, StringToFractionMap> entry : values.entrySet()) {
+            final Column column = new Column(objects.length);
+            entry.getValue().forEachEntry((key, numerator, denominator) -> {
+                final int index = indices.get(key);
+                column.values[index] = denominator == 0.0 ? 1.0 : numerator / denominator;
+                column.present.set(index);
+            });
+            columns.put(entry.getKey(), column);
+        }
+    }
+
+    String getObject(int index) {
+        return objects[index];
+    }
+
+    /**
+     * @return rows violating the thresholds of the metric instance, whether or not the instance is enabled.
+     */
+    synchronized BitSet getViolations(MetricInstance metricInstance) {
+        final Column column = columns.get(metricInstance.getMetric());
+        if (column == null) {
+            return new BitSet();
+        }
+        return (BitSet) column.getViolations(new Thresholds(metricInstance)).clone();
+    }
+
+    /**
+     * @return rows violating the thresholds of at least one metric enabled in the profile.
+     */
+    synchronized BitSet getViolations(MetricsProfile profile) {
+        final BitSet result = new BitSet(objects.length);
+        for (Map.Entry<Metric, Column> entry : columns.entrySet()) {
+            final MetricInstance metricInstance = profile.getMetricInstance(entry.getKey());
+            assert metricInstance != null : "no instance found for " + entry.getKey().getID();
+            if (metricInstance.isEnabled()) {
+                result.or(entry.getValue().getViolations(new Thresholds(metricInstance)));
+            }
+        }
+        return result;
+    }
+
+    private static class Column {
+        private final double[] values;
+        private final BitSet present;
+        private Thresholds thresholds;
+        private BitSet violations;
+
+        Column(int size) {
+            values = new double[size];
+            present = new BitSet(size);
+        }
+
+        BitSet getViolations(Thresholds newThresholds) {
+            if (!newThresholds.equals(thresholds)) {
+                thresholds = newThresholds;
+                violations = new BitSet(values.length);
+                if (thresholds.lowerEnabled || thresholds.upperEnabled) {
+                    for (int i = present.nextSetBit(0); i >= 0; i = present.nextSetBit(i + 1)) {
+                        if (thresholds.isViolatedBy(values[i])) {
+                            violations.set(i);
+                        }
+                    }
+                }
+            }
+            return violations;
+        }
+    }
+
+    private static class Thresholds {
+        private final boolean lowerEnabled;
+        private final double lower;
+        private final boolean upperEnabled;
+        private final double upper;
+
+        Thresholds(MetricInstance metricInstance) {
+            lowerEnabled = metricInstance.isLowerThresholdEnabled();
+            lower = metricInstance.getLowerThreshold();
+            upperEnabled = metricInstance.isUpperThresholdEnabled();
+            upper = metricInstance.getUpperThreshold();
+        }
+
+        boolean isViolatedBy(double value) {
+            return upperEnabled && value > upper || lowerEnabled && value < lower;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Thresholds)) {
+                return false;
+            }
+            final Thresholds other = (Thresholds) o;
+            return lowerEnabled == other.lowerEnabled && Double.compare(lower, other.lower) == 0
+                    && upperEnabled == other.upperEnabled && Double.compare(upper, other.upper) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(lowerEnabled, lower, upperEnabled, upper);
+        }
+    }
+}
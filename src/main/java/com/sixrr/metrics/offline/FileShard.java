@@ -0,0 +1,78 @@
+/*
+ * Copyright 2005-2017 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.offline;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.search.DelegatingGlobalSearchScope;
+import com.intellij.psi.search.GlobalSearchScope;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * One of {@code count} parts of a project, containing the files whose path relative to the project directory
+ * hashes to {@code index}. The partition only depends on the paths, so independent processes working on the same
+ * checkout agree on it.
+ */
+final class FileShard {
+
+    private final int index;
+    private final int count;
+
+    FileShard(int index, int count) {
+        if (count <= 0 || index < 0 || index >= count) {
+            throw new IllegalArgumentException("Expected 0 <= index < count, but found " + index + "/" + count);
+        }
+        this.index = index;
+        this.count = count;
+    }
+
+    /**
+     * Parses a shard in the form {@code <index>/<count>}, e.g. {@code 0/4}.
+     */
+    static FileShard parse(String text) {
+        final int separator = text.indexOf('/');
+        if (separator == -1) {
+            throw new IllegalArgumentException("Expected <index>/<count>, but found " + text);
+        }
+        return new FileShard(Integer.parseInt(text.substring(0, separator).trim()),
+                Integer.parseInt(text.substring(separator + 1).trim()));
+    }
+
+    boolean contains(@NotNull String relativePath) {
+        return Math.floorMod(relativePath.hashCode(), count) == index;
+    }
+
+    GlobalSearchScope restrict(@NotNull GlobalSearchScope scope, @NotNull Project project) {
+        final VirtualFile baseDir = project.getBaseDir();
+        return new DelegatingGlobalSearchScope(scope, this) {
+            @Override
+            public boolean contains(@NotNull VirtualFile file) {
+                if (!super.contains(file)) {
+                    return false;
+                }
+                final String relativePath = baseDir == null ? null : VfsUtilCore.getRelativePath(file, baseDir);
+                return FileShard.this.contains(relativePath == null ? file.getPath() : relativePath);
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return index + "/" + count;
+    }
+}
@@ -26,6 +26,8 @@ import com.intellij.openapi.application.ApplicationStarter;
 import com.intellij.openapi.application.ex.ApplicationEx;
 import com.intellij.openapi.application.ex.ApplicationInfoEx;
 import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.module.ModuleManager;
 import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.progress.util.ProgressIndicatorBase;
 import com.intellij.openapi.project.Project;
@@ -34,9 +36,11 @@ import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.openapi.vfs.VirtualFileManager;
 import com.intellij.psi.PsiDirectory;
 import com.intellij.psi.PsiManager;
+import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.search.GlobalSearchScopesCore;
 import com.intellij.psi.search.scope.packageSet.NamedScope;
 import com.intellij.psi.search.scope.packageSet.NamedScopesHolder;
+import com.sixrr.metrics.export.CalculatorTimingsExporter;
 import com.sixrr.metrics.export.Exporter;
 import com.sixrr.metrics.export.XMLExporter;
 import com.sixrr.metrics.metricModel.MetricsExecutionContextImpl;
@@ -51,6 +55,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.io.PrintWriter;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -77,6 +82,21 @@ public class MetricsCommandLine implements ApplicationStarter {
             usage = "name of scope to calculate metrics for, default is the whole project")
     private String scope = null;
 
+    @Option(name = "-m", aliases = "--modules", metaVar = "<names>", forbids = {"-d", "-s"},
+            usage = "comma separated modules to calculate metrics for, writes a snapshot for metrics-merge")
+    private String modules = null;
+
+    @Option(name = "--shard", metaVar = "<index>/<count>", forbids = {"-d", "-s"},
+            usage = "calculate metrics only for the files whose path hashes to the given part, e.g. 0/4, " +
+                    "writes a snapshot for metrics-merge")
+    private String shardSpec = null;
+
+    private FileShard shard = null;
+
+    @Option(name = "-t", aliases = "--timings", metaVar = "<path>",
+            usage = "write the time spent by each calculator as JSON to the given file")
+    private String timingsPath = null;
+
     @Option(name = "-v", aliases = "--verbose", usage = "show more progress information", forbids = "-q")
     private boolean verbose = false;
 
@@ -110,6 +130,16 @@ public class MetricsCommandLine implements ApplicationStarter {
                 printUsage(parser, System.out);
                 System.exit(0);
             }
+            if (shardSpec != null) {
+                try {
+                    shard = FileShard.parse(shardSpec);
+                } catch (IllegalArgumentException e) {
+                    throw new CmdLineException(parser, "Wrong shard: " + e.getMessage());
+                }
+            }
+            if (isSharded() && outputXmlPath == null) {
+                throw new CmdLineException(parser, "Output path is required for a snapshot");
+            }
         } catch (CmdLineException e) {
             System.err.println(e.getMessage());
             printUsage(parser, System.err);
@@ -126,6 +156,12 @@ public class MetricsCommandLine implements ApplicationStarter {
                 error("Could not find directory " + parentFile.getAbsolutePath());
             }
         }
+        if (timingsPath != null) {
+            final File parentFile = new File(timingsPath).getParentFile();
+            if (parentFile != null && !parentFile.exists()) {
+                error("Could not find directory " + parentFile.getAbsolutePath());
+            }
+        }
         final ApplicationEx application = (ApplicationEx) ApplicationManager.getApplication();
         try {
             final ApplicationInfoEx applicationInfo = (ApplicationInfoEx) ApplicationInfo.getInstance();
@@ -175,6 +211,8 @@ public class MetricsCommandLine implements ApplicationStarter {
                         error("Directory not found: " + directory);
                     }
                     analysisScope = new AnalysisScope(psiDirectory);
+                } else if (isSharded()) {
+                    analysisScope = new AnalysisScope(createShardScope(project), project);
                 } else {
                     analysisScope = new AnalysisScope(project);
                 }
@@ -188,16 +226,18 @@ public class MetricsCommandLine implements ApplicationStarter {
                         final MetricsExecutionContextImpl metricsExecutionContext =
                                 new MetricsExecutionContextImpl(project, analysisScope);
                         metricsExecutionContext.calculateMetrics(profile, metricsRun);
-                        final Exporter exporter = new XMLExporter(metricsRun);
-                        try {
-                            if (outputXmlPath == null) {
-                                final PrintWriter writer = new PrintWriter(System.out, true);
-                                exporter.export(writer);
-                            } else {
-                                exporter.export(outputXmlPath);
+                        if (isSharded()) {
+                            metricsRun.writeToFile(outputXmlPath);
+                        } else {
+                            export(metricsRun);
+                        }
+                        if (timingsPath != null) {
+                            try {
+                                new CalculatorTimingsExporter(metricsExecutionContext.getCalculatorTimings())
+                                        .export(timingsPath);
+                            } catch (IOException e) {
+                                error(e.getMessage());
                             }
-                        } catch (IOException e) {
-                            error(e.getMessage());
                         }
                     }
                 }, new ProgressIndicatorBase() {
@@ -223,6 +263,46 @@ public class MetricsCommandLine implements ApplicationStarter {
         }
     }
 
+    private boolean isSharded() {
+        return modules != null || shard != null;
+    }
+
+    private GlobalSearchScope createShardScope(Project project) {
+        GlobalSearchScope searchScope;
+        if (modules != null) {
+            final ModuleManager moduleManager = ModuleManager.getInstance(project);
+            final List<GlobalSearchScope> moduleScopes = new ArrayList<>();
+            for (String name : modules.split(",")) {
+                final Module module = moduleManager.findModuleByName(name.trim());
+                if (module == null) {
+                    error("Module not found: " + name.trim());
+                }
+                moduleScopes.add(GlobalSearchScope.moduleScope(module));
+            }
+            searchScope = GlobalSearchScope.union(moduleScopes.toArray(new GlobalSearchScope[moduleScopes.size()]));
+        } else {
+            searchScope = GlobalSearchScope.projectScope(project);
+        }
+        if (shard != null) {
+            searchScope = shard.restrict(searchScope, project);
+        }
+        return searchScope;
+    }
+
+    private void export(MetricsRunImpl metricsRun) {
+        final Exporter exporter = new XMLExporter(metricsRun);
+        try {
+            if (outputXmlPath == null) {
+                final PrintWriter writer = new PrintWriter(System.out, true);
+                exporter.export(writer);
+            } else {
+                exporter.export(outputXmlPath);
+            }
+        } catch (IOException e) {
+            error(e.getMessage());
+        }
+    }
+
     private static MetricsProfile getMetricsProfile(String profileName) {
         final MetricsProfileRepository repository = MetricsProfileRepository.getInstance();
         final List<String> metricsProfileNames = Arrays.asList(repository.getProfileNames());
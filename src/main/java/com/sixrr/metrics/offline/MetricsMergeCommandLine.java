@@ -0,0 +1,156 @@
+/*
+ * Copyright 2005-2017 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.offline;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ApplicationNamesInfo;
+import com.intellij.openapi.application.ApplicationStarter;
+import com.intellij.openapi.application.ex.ApplicationEx;
+import com.intellij.openapi.diagnostic.Logger;
+import com.sixrr.metrics.Metric;
+import com.sixrr.metrics.export.XMLExporter;
+import com.sixrr.metrics.metricModel.MetricsRun;
+import com.sixrr.metrics.metricModel.MetricsRunImpl;
+import com.sixrr.metrics.metricModel.MetricsRunMerger;
+import org.jetbrains.annotations.Contract;
+import org.kohsuke.args4j.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Combines the snapshots written by {@code metrics --shard} or {@code metrics --modules} into one result,
+ * see {@link MetricsRunMerger}.
+ */
+public class MetricsMergeCommandLine implements ApplicationStarter {
+
+    private static final Logger LOG = Logger.getInstance("MetricsReloaded");
+
+    @Argument(index = 0, required = true, metaVar = "<output_path>", usage = "the path to write the output xml to")
+    private String outputPath = null;
+
+    @Argument(index = 1, required = true, multiValued = true, metaVar = "<snapshot_path>...",
+            usage = "the snapshots to merge")
+    private List<String> snapshotPaths = new ArrayList<>();
+
+    @Option(name = "--snapshot", usage = "write the merged result as a snapshot instead of the output xml")
+    private boolean snapshot = false;
+
+    @Option(name = "-q", aliases = "--quiet", usage = "show less information")
+    private boolean quiet = false;
+
+    @Option(name = "-h", aliases = "--help", usage = "show this message", help = true)
+    private boolean help = false;
+
+    @Override
+    public String getCommandName() {
+        return "metrics-merge";
+    }
+
+    private static void printUsage(CmdLineParser parser, PrintStream out) {
+        final String scriptName = ApplicationNamesInfo.getInstance().getScriptName();
+        out.println("Usage: " + scriptName + " metrics-merge [options] <output_path> <snapshot_path>...");
+        parser.printUsage(out);
+    }
+
+    @Override
+    public void premain(String[] args) {
+        final ParserProperties properties = ParserProperties.defaults()
+                .withShowDefaults(false)
+                .withOptionSorter(null);
+        final CmdLineParser parser = new CmdLineParser(this, properties);
+        try {
+            parser.parseArgument(Arrays.copyOfRange(args, 1, args.length));
+            if (help) {
+                printUsage(parser, System.out);
+                System.exit(0);
+            }
+        } catch (CmdLineException e) {
+            System.err.println(e.getMessage());
+            printUsage(parser, System.err);
+            System.exit(1);
+        }
+    }
+
+    @Override
+    public void main(String[] args) {
+        final File parentFile = new File(outputPath).getParentFile();
+        if (parentFile != null && !parentFile.exists()) {
+            error("Could not find directory " + parentFile.getAbsolutePath());
+        }
+        final ApplicationEx application = (ApplicationEx) ApplicationManager.getApplication();
+        try {
+            application.doNotSave();
+            final MetricsRunMerger merger = new MetricsRunMerger();
+            for (String snapshotPath : snapshotPaths) {
+                final File file = new File(snapshotPath);
+                if (!file.exists()) {
+                    error("Snapshot not found: " + snapshotPath);
+                }
+                final MetricsRun run = MetricsRunImpl.readFromFile(file);
+                if (run == null) {
+                    error("Unable to read snapshot: " + snapshotPath);
+                }
+                info("Merging " + snapshotPath);
+                merger.add(run);
+            }
+            for (Metric metric : merger.getInexactMetrics()) {
+                System.err.println("Warning: " + metric.getDisplayName() +
+                        " can't be merged exactly, the largest value of the snapshots is used");
+            }
+            final MetricsRunImpl mergedRun = merger.merge();
+            if (snapshot) {
+                mergedRun.writeToFile(outputPath);
+            } else {
+                try {
+                    new XMLExporter(mergedRun).export(outputPath);
+                } catch (IOException e) {
+                    error(e.getMessage());
+                }
+            }
+            info("Finished.");
+            application.exit(true, true);
+        } catch (Exception e) {
+            LOG.error(e);
+            error(e);
+        }
+    }
+
+    @Contract("_ -> fail")
+    private static void error(Throwable throwable) {
+        System.err.println(throwable.getMessage());
+        LOG.error(throwable);
+        System.exit(1);
+    }
+
+    @Contract("_ -> fail")
+    private static void error(String message) {
+        System.err.println(message);
+        System.exit(1);
+    }
+
+    private void info(String message) {
+        if (quiet) {
+            return;
+        }
+        System.out.println(message);
+    }
+}
@@ -37,6 +37,12 @@ import java.io.File;
 import java.io.IOException;
 import java.util.*;
 
+/**
+ * Metrics of all providers and the metrics profiles. Metrics are registered by class name and created on first
+ * use, profiles are registered by name and parsed, reconciled with the metrics and merged with the prebuilt
+ * profiles of the same name only when they are first requested. Creating the repository therefore neither
+ * creates the metrics nor reads the profile files.
+ */
 public final class MetricsProfileRepository implements MetricRepository, ExportableComponent {
 
     private static final Logger LOG = Logger.getInstance("#com.sixrr.metrics.profile.MetricsProfileRepository");
@@ -44,9 +50,12 @@ public final class MetricsProfileRepository implements MetricRepository, Exporta
     @NonNls
     private static final String METRIC_PROFILE_DIR = PathManager.getConfigPath() + File.separator + "metrics";
 
-    private final Map<String, MetricsProfile> profiles = new LinkedHashMap<String, MetricsProfile>(20);
+    @NonNls
+    private static final String PROFILE_EXTENSION = ".xml";
+
+    private final Map<String, ProfileEntry> profiles = new LinkedHashMap<String, ProfileEntry>(20);
     private String selectedProfile = "";
-    private final Map<String, Metric> metrics = new HashMap();
+    private final Map<String, MetricDescriptor> metrics = new LinkedHashMap<String, MetricDescriptor>();
 
     private MetricsProfileRepository() {
         initialize();
@@ -85,29 +94,41 @@ public final class MetricsProfileRepository implements MetricRepository, Exporta
     }
 
     private void initialize() {
-        loadMetricsFromProviders();
-        loadProfiles();
-        reconcileProfiles();
-        addPrebuiltProfiles();
+        registerMetrics();
+        registerProfiles();
+        registerPrebuiltProfiles();
         final String previouslySelectedProfile = MetricsReloadedConfig.getInstance().getSelectedProfile();
         selectedProfile = profiles.containsKey(previouslySelectedProfile)
                 ? previouslySelectedProfile
                 : profiles.keySet().iterator().next();
     }
 
-    private void loadMetricsFromProviders() {
+    private static MetricProvider[] getMetricProviders() {
         final Application application = ApplicationManager.getApplication();
-        final MetricProvider[] metricProviders = application.getExtensions(MetricProvider.EXTENSION_POINT_NAME);
-        for (MetricProvider provider : metricProviders) {
-            final List<Metric> metrics = provider.getMetrics();
-            for (Metric metric : metrics) {
-                this.metrics.put(metric.getClass().getName(), metric);
+        return application.getExtensions(MetricProvider.EXTENSION_POINT_NAME);
+    }
+
+    private void registerMetrics() {
+        for (MetricProvider provider : getMetricProviders()) {
+            for (String className : provider.getMetricClassNames()) {
+                metrics.put(className, new MetricDescriptor(provider, className));
             }
         }
     }
 
+    private List<Metric> getAllMetrics() {
+        final List<Metric> result = new ArrayList<Metric>(metrics.size());
+        for (MetricDescriptor descriptor : metrics.values()) {
+            final Metric metric = descriptor.getMetric();
+            if (metric != null) {
+                result.add(metric);
+            }
+        }
+        return result;
+    }
+
     private void reconcile(MetricsProfile profile) {
-        for (final Metric metric : metrics.values()) {
+        for (final Metric metric : getAllMetrics()) {
             if (profile.getMetricInstance(metric) == null) {
                 profile.addMetricInstance(new MetricInstanceImpl(metric));
             }
@@ -115,28 +136,29 @@ public final class MetricsProfileRepository implements MetricRepository, Exporta
     }
 
     private MetricsProfile buildProfile(String name) {
-        final List<MetricInstance> result = new ArrayList<MetricInstance>(metrics.size());
-        for (final Metric metric : metrics.values()) {
+        final List<Metric> allMetrics = getAllMetrics();
+        final List<MetricInstance> result = new ArrayList<MetricInstance>(allMetrics.size());
+        for (final Metric metric : allMetrics) {
             result.add(new MetricInstanceImpl(metric));
         }
         return new MetricsProfileImpl(name, result);
     }
 
-    private void addPrebuiltProfiles() {
-        final Application application = ApplicationManager.getApplication();
-        final MetricProvider[] metricProviders = application.getExtensions(MetricProvider.EXTENSION_POINT_NAME);
-        for (MetricProvider provider : metricProviders) {
-            final List<PrebuiltMetricProfile> prebuiltProfiles = provider.getPrebuiltProfiles();
-            for (PrebuiltMetricProfile prebuiltProfile : prebuiltProfiles) {
-                addPrebuiltProfile(prebuiltProfile);
+    private void registerPrebuiltProfiles() {
+        for (MetricProvider provider : getMetricProviders()) {
+            for (PrebuiltMetricProfile prebuiltProfile : provider.getPrebuiltProfiles()) {
+                final String name = prebuiltProfile.getProfileName();
+                final ProfileEntry existingEntry = profiles.get(name);
+                if (existingEntry != null) {
+                    existingEntry.prebuiltProfile = prebuiltProfile;
+                } else {
+                    profiles.put(name, new ProfileEntry(null, prebuiltProfile));
+                }
             }
         }
     }
 
-    private void addPrebuiltProfile(PrebuiltMetricProfile builtInProfile) {
-        final String name = builtInProfile.getProfileName();
-        final MetricsProfile existingProfile = profiles.get(name);
-        final MetricsProfile profile = (existingProfile != null) ? existingProfile : buildProfile(name);
+    private static void applyPrebuiltProfile(MetricsProfile profile, PrebuiltMetricProfile builtInProfile) {
         final Set<String> metricIDs = builtInProfile.getMetricIDs();
         for (String metricID : metricIDs) {
             final MetricInstance instance = profile.getMetricInstance(metricID);
@@ -154,7 +176,45 @@ public final class MetricsProfileRepository implements MetricRepository, Exporta
             }
         }
         profile.setBuiltIn(true);
-        profiles.put(name, profile);
+    }
+
+    /**
+     * Returns the profile with the given name, loading it on first request. A profile file which can't be parsed
+     * is dropped from the repository.
+     */
+    @Nullable
+    private synchronized MetricsProfile loadProfile(String name) {
+        final ProfileEntry entry = profiles.get(name);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.profile == null) {
+            MetricsProfile profile = null;
+            if (entry.file != null) {
+                profile = MetricsProfileImpl.loadFromFile(entry.file, this);
+                if (profile == null) {
+                    LOG.warn("Could not load metrics profile from " + entry.file);
+                } else {
+                    // profiles are stored in files named after them
+                    profile.setName(name);
+                    reconcile(profile);
+                }
+            }
+            if (profile == null && entry.prebuiltProfile == null) {
+                profiles.remove(name);
+                return null;
+            }
+            if (profile == null) {
+                profile = buildProfile(name);
+            }
+            if (entry.prebuiltProfile != null) {
+                applyPrebuiltProfile(profile, entry.prebuiltProfile);
+            }
+            entry.profile = profile;
+            entry.file = null;
+            entry.prebuiltProfile = null;
+        }
+        return entry.profile;
     }
 
     public String generateNewProfileName() {
@@ -173,7 +233,7 @@ public final class MetricsProfileRepository implements MetricRepository, Exporta
         return newName;
     }
 
-    private void loadProfiles() {
+    private void registerProfiles() {
         final File metricsDir = new File(METRIC_PROFILE_DIR);
         if (!metricsDir.exists()) {
             return;
@@ -183,25 +243,19 @@ public final class MetricsProfileRepository implements MetricRepository, Exporta
             return;
         }
         for (File file : files) {
-            final MetricsProfile profile = MetricsProfileImpl.loadFromFile(file, this);
-            if (profile != null) {
-                final String profileName = profile.getName();
-                profiles.put(profileName, profile);
+            final String fileName = file.getName();
+            if (file.isFile() && fileName.endsWith(PROFILE_EXTENSION)) {
+                final String profileName = fileName.substring(0, fileName.length() - PROFILE_EXTENSION.length());
+                profiles.put(profileName, new ProfileEntry(file, null));
             }
         }
     }
 
-    private void reconcileProfiles() {
-        final Collection<MetricsProfile> existingProfiles = profiles.values();
-        for (final MetricsProfile profile : existingProfiles) {
-            reconcile(profile);
-        }
-    }
-
     @Override
     @Nullable
     public Metric getMetric(String fqName) {
-        return metrics.get(fqName);
+        final MetricDescriptor descriptor = metrics.get(fqName);
+        return descriptor == null ? null : descriptor.getMetric();
     }
 
     public String[] getProfileNames() {
@@ -213,8 +267,14 @@ public final class MetricsProfileRepository implements MetricRepository, Exporta
     }
 
     @Nullable
-    public MetricsProfile getCurrentProfile() {
-        return profiles.get(selectedProfile);
+    public synchronized MetricsProfile getCurrentProfile() {
+        MetricsProfile profile = loadProfile(selectedProfile);
+        while (profile == null && !profiles.isEmpty()) {
+            // the selected profile could not be loaded, fall back to the first one like on startup
+            selectedProfile = profiles.keySet().iterator().next();
+            profile = loadProfile(selectedProfile);
+        }
+        return profile;
     }
 
     public void setSelectedProfile(String profileName) {
@@ -235,7 +295,7 @@ public final class MetricsProfileRepository implements MetricRepository, Exporta
         final File profileFile = getFileForProfile(profile);
         final MetricsProfile newProfile = MetricsProfileImpl.loadFromFile(profileFile, this);
         if (newProfile != null) {
-            profiles.put(newProfile.getName(),  newProfile);
+            profiles.put(newProfile.getName(), new ProfileEntry(newProfile));
         }
     }
 
@@ -251,7 +311,7 @@ public final class MetricsProfileRepository implements MetricRepository, Exporta
     @NonNls
     private static File getFileForProfile(MetricsProfile profile) {
         final String profileName = profile.getName();
-        return new File(METRIC_PROFILE_DIR, profileName + ".xml");
+        return new File(METRIC_PROFILE_DIR, profileName + PROFILE_EXTENSION);
     }
 
     public void duplicateCurrentProfile(String newProfileName) {
@@ -264,14 +324,14 @@ public final class MetricsProfileRepository implements MetricRepository, Exporta
             return;
         }
         newProfile.setName(newProfileName);
-        profiles.put(newProfileName, newProfile);
+        profiles.put(newProfileName, new ProfileEntry(newProfile));
         persistProfile(newProfile);
         setSelectedProfile(newProfileName);
     }
 
     public void createEmptyProfile(String newProfileName) {
         final MetricsProfile newProfile = buildProfile(newProfileName);
-        profiles.put(newProfileName, newProfile);
+        profiles.put(newProfileName, new ProfileEntry(newProfile));
         persistProfile(newProfile);
         setSelectedProfile(newProfileName);
     }
@@ -286,17 +346,17 @@ public final class MetricsProfileRepository implements MetricRepository, Exporta
     }
 
     public MetricsProfile getProfileForName(String profileName) {
-        return profiles.get(profileName);
+        return loadProfile(profileName);
     }
 
     public void addProfile(MetricsProfile profile) {
         final String newProfileName = profile.getName();
-        profiles.put(newProfileName, profile);
+        profiles.put(newProfileName, new ProfileEntry(profile));
         setSelectedProfile(newProfileName);
     }
 
     public void printMetricsDescriptions() {
-        final Collection<Metric> metrics = this.metrics.values();
+        final Collection<Metric> metrics = getAllMetrics();
 
         System.out.println(metrics.size() + "  metrics");
         MetricCategory currentCategory = null;
@@ -309,4 +369,54 @@ public final class MetricsProfileRepository implements MetricRepository, Exporta
             System.out.println("    " + metric.getDisplayName());
         }
     }
+
+    /**
+     * A metric registered by its class name. The metric is created on first request and shared afterwards.
+     */
+    private static final class MetricDescriptor {
+        private final MetricProvider provider;
+        private final String className;
+        private Metric metric = null;
+        private boolean failed = false;
+
+        MetricDescriptor(MetricProvider provider, String className) {
+            this.provider = provider;
+            this.className = className;
+        }
+
+        @Nullable
+        synchronized Metric getMetric() {
+            if (metric == null && !failed) {
+                try {
+                    metric = MetricProvider.createMetric(provider, className);
+                } catch (IllegalArgumentException e) {
+                    failed = true;
+                    LOG.error(e);
+                }
+            }
+            return metric;
+        }
+    }
+
+    /**
+     * A profile which is either loaded already or still has to be read from its file and/or built from the prebuilt
+     * profile of the same name.
+     */
+    private static final class ProfileEntry {
+        @Nullable
+        private File file;
+        @Nullable
+        private PrebuiltMetricProfile prebuiltProfile;
+        @Nullable
+        private MetricsProfile profile = null;
+
+        ProfileEntry(@Nullable File file, @Nullable PrebuiltMetricProfile prebuiltProfile) {
+            this.file = file;
+            this.prebuiltProfile = prebuiltProfile;
+        }
+
+        ProfileEntry(@NotNull MetricsProfile profile) {
+            this.profile = profile;
+        }
+    }
 }
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2005-2017 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.ui.dialogs;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.DialogWrapper;
+import com.intellij.ui.ScrollPaneFactory;
+import com.intellij.ui.table.JBTable;
+import com.sixrr.metrics.metricModel.CalculatorTimings;
+import com.sixrr.metrics.utils.MetricsReloadedBundle;
+import org.jetbrains.annotations.NonNls;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.*;
+
+/**
+ * Shows the time spent by each calculator of a metrics run, the most expensive first.
+ */
+public class CalculatorTimingsDialog extends DialogWrapper {
+
+    private final JBTable timingsTable;
+
+    public CalculatorTimingsDialog(Project project, String profileName, CalculatorTimings timings) {
+        super(project, false);
+        timingsTable = new JBTable(new CalculatorTimingsTableModel(timings));
+        timingsTable.setAutoCreateRowSorter(true);
+        setTitle(MetricsReloadedBundle.message("calculator.timings.dialog.title", profileName));
+        setModal(false);
+        init();
+    }
+
+    @Override
+    @NonNls
+    protected String getDimensionServiceKey() {
+        return "MetricsReloaded.CalculatorTimingsDialog";
+    }
+
+    @NotNull
+    @Override
+    protected Action[] createActions() {
+        return new Action[]{getOKAction()};
+    }
+
+    @Override
+    @Nullable
+    protected JComponent createCenterPanel() {
+        return ScrollPaneFactory.createScrollPane(timingsTable);
+    }
+}
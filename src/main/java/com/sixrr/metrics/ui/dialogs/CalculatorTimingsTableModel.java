@@ -0,0 +1,114 @@
+/*
+ * Copyright 2005-2017 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.ui.dialogs;
+
+import com.sixrr.metrics.Metric;
+import com.sixrr.metrics.metricModel.CalculatorTimings;
+import com.sixrr.metrics.metricModel.CalculatorTimings.Entry;
+import com.sixrr.metrics.metricModel.CalculatorTimings.Phase;
+import com.sixrr.metrics.utils.MetricsReloadedBundle;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.List;
+
+public class CalculatorTimingsTableModel extends AbstractTableModel {
+
+    private static final double NANOS_PER_MILLI = 1.0e6;
+
+    private final List<Entry> entries;
+    private final boolean allocationMeasured;
+
+    public CalculatorTimingsTableModel(CalculatorTimings timings) {
+        entries = timings.getSortedEntries();
+        allocationMeasured = timings.isAllocationMeasured();
+    }
+
+    @Override
+    public int getRowCount() {
+        return entries.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return allocationMeasured ? 7 : 6;
+    }
+
+    @Override
+    public String getColumnName(int columnNum) {
+        switch (columnNum) {
+            case 0:
+                return MetricsReloadedBundle.message("calculator");
+            case 1:
+                return MetricsReloadedBundle.message("abbreviation");
+            case 2:
+                return MetricsReloadedBundle.message("begin.run.time");
+            case 3:
+                return MetricsReloadedBundle.message("process.files.time");
+            case 4:
+                return MetricsReloadedBundle.message("end.run.time");
+            case 5:
+                return MetricsReloadedBundle.message("total.time");
+            case 6:
+                return MetricsReloadedBundle.message("allocated.memory");
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public Class<?> getColumnClass(int columnNum) {
+        switch (columnNum) {
+            case 0:
+            case 1:
+                return String.class;
+            case 6:
+                return Long.class;
+            default:
+                return Double.class;
+        }
+    }
+
+    @Override
+    public Object getValueAt(int rowNum, int columnNum) {
+        final Entry entry = entries.get(rowNum);
+        final Metric metric = entry.getMetric();
+        switch (columnNum) {
+            case 0:
+                return entry.isSharedStructure()
+                        ? MetricsReloadedBundle.message("shared.structure", entry.getName())
+                        : entry.getName();
+            case 1:
+                return metric == null ? "" : metric.getAbbreviation();
+            case 2:
+                return toMillis(entry.getTime(Phase.BEGIN_RUN));
+            case 3:
+                return toMillis(entry.getTime(Phase.PROCESS_FILES));
+            case 4:
+                return toMillis(entry.getTime(Phase.END_RUN));
+            case 5:
+                return toMillis(entry.getTotalTime());
+            case 6:
+                return entry.getAllocatedBytes() / 1024;
+            default:
+                return null;
+        }
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / NANOS_PER_MILLI * 100.0) / 100.0;
+    }
+}
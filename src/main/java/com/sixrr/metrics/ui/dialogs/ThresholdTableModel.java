@@ -40,12 +40,12 @@ public class ThresholdTableModel extends AbstractTableModel {
 
     @Override
     public int getColumnCount() {
-        return 6;
+        return 7;
     }
 
     @Override
     public boolean isCellEditable(int rowNum, int columnNum) {
-        return columnNum > 3;
+        return columnNum == 4 || columnNum == 5;
     }
 
     @Override
@@ -63,6 +63,8 @@ public class ThresholdTableModel extends AbstractTableModel {
                 return MetricsReloadedBundle.message("warn.if.less.than1");
             case 5:
                 return MetricsReloadedBundle.message("warn.if.greater.than1");
+            case 6:
+                return MetricsReloadedBundle.message("violations");
             default:
                 return null;
         }
@@ -94,6 +96,8 @@ public class ThresholdTableModel extends AbstractTableModel {
                 return instance.isLowerThresholdEnabled() ? Double.toString(instance.getLowerThreshold()) : "";
             case 5:
                 return instance.isUpperThresholdEnabled() ? Double.toString(instance.getUpperThreshold()) : "";
+            case 6:
+                return Integer.toString(result.countViolations(instance));
             default:
                 return null;
         }
@@ -140,5 +144,6 @@ public class ThresholdTableModel extends AbstractTableModel {
                 }
             }
         }
+        fireTableRowsUpdated(rowNum, rowNum);
     }
 }
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2005-2017 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.ui.metricdisplay;
+
+import com.intellij.openapi.util.text.StringUtil;
+import com.sixrr.metrics.Metric;
+import com.sixrr.metrics.metricModel.MetricsResult;
+import gnu.trove.TObjectIntHashMap;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Values of one metric for all measured objects of a table, taken from {@link MetricsResult} once.
+ * Rows are sorted through ranks: equal values share a rank and missing values get rank 0, so sorting a column
+ * is a sort of {@code long} keys made of the rank and the row index. {@link Arrays#parallelSort} falls back to
+ * a sequential sort for small tables.
+ */
+final class MetricColumn {
+    private final double[] values;
+    private final BitSet present;
+    private int[] ranks;
+
+    MetricColumn(double[] values, BitSet present) {
+        this.values = values;
+        this.present = present;
+    }
+
+    static MetricColumn create(MetricsResult results, Metric metric, String[] measuredObjects) {
+        final double[] values = new double[measuredObjects.length];
+        final BitSet present = new BitSet(measuredObjects.length);
+        for (int i = 0; i < measuredObjects.length; i++) {
+            final Double value = results.getValueForMetric(metric, measuredObjects[i]);
+            if (value != null) {
+                values[i] = value.doubleValue();
+                present.set(i);
+            }
+        }
+        return new MetricColumn(values, present);
+    }
+
+    boolean hasValue(int row) {
+        return present.get(row);
+    }
+
+    double getDoubleValue(int row) {
+        return values[row];
+    }
+
+    @Nullable
+    Double getValue(int row) {
+        return present.get(row) ? Double.valueOf(values[row]) : null;
+    }
+
+    int[] getRanks() {
+        if (ranks == null) {
+            ranks = calculateRanks(values, present);
+        }
+        return ranks;
+    }
+
+    static int[] calculateRanks(double[] values, BitSet present) {
+        final double[] sorted = new double[present.cardinality()];
+        int size = 0;
+        for (int i = present.nextSetBit(0); i >= 0; i = present.nextSetBit(i + 1)) {
+            sorted[size++] = values[i];
+        }
+        Arrays.parallelSort(sorted);
+        int distinct = 0;
+        for (int i = 0; i < size; i++) {
+            if (distinct == 0 || Double.compare(sorted[distinct - 1], sorted[i]) != 0) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        final int[] result = new int[values.length];
+        for (int i = present.nextSetBit(0); i >= 0; i = present.nextSetBit(i + 1)) {
+            result[i] = Arrays.binarySearch(sorted, 0, distinct, values[i]) + 1;
+        }
+        return result;
+    }
+
+    /**
+     * Ranks names in natural order, see {@link StringUtil#naturalCompare}.
+     */
+    static int[] calculateRanks(String[] names) {
+        final String[] sorted = names.clone();
+        Arrays.parallelSort(sorted, StringUtil::naturalCompare);
+        final TObjectIntHashMap<String> rankOfName = new TObjectIntHashMap<>(sorted.length);
+        int rank = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || StringUtil.naturalCompare(sorted[i - 1], sorted[i]) != 0) {
+                rank++;
+            }
+            rankOfName.put(sorted[i], rank);
+        }
+        final int[] result = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            result[i] = rankOfName.get(names[i]);
+        }
+        return result;
+    }
+
+    /**
+     * @return row indices ordered by rank. Rows of equal rank keep their relative order in both directions.
+     */
+    static int[] sortByRanks(int[] ranks, boolean ascending) {
+        final long[] keys = new long[ranks.length];
+        for (int i = 0; i < ranks.length; i++) {
+            final int rank = ascending ? ranks[i] : Integer.MAX_VALUE - ranks[i];
+            keys[i] = ((long) rank << 32) | i;
+        }
+        Arrays.parallelSort(keys);
+        final int[] result = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            result[i] = (int) keys[i];
+        }
+        return result;
+    }
+}
@@ -18,6 +18,7 @@ package com.sixrr.metrics.ui.metricdisplay;
 
 import com.intellij.openapi.util.Pair;
 import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.util.containers.ContainerUtil;
 import com.intellij.psi.PsiElement;
 import com.sixrr.metrics.Metric;
 import com.sixrr.metrics.profile.MetricInstance;
@@ -26,6 +27,7 @@ import com.sixrr.metrics.metricModel.MetricsResult;
 import com.sixrr.metrics.profile.MetricTableSpecification;
 import com.sixrr.metrics.profile.MetricsProfile;
 import com.sixrr.metrics.profile.MetricsProfileRepository;
+import com.sixrr.metrics.ui.SearchUtil;
 import com.sixrr.metrics.utils.MetricsReloadedBundle;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -42,7 +44,14 @@ class MetricTableModel extends AbstractTableModel {
     private MetricInstance[] metricsInstances;
     private MetricsResult prevResults;
     private MetricsResult results;
+    private MetricColumn[] columns;
+    private MetricColumn[] prevColumns;
+    private int[] nameRanks;
     private int[] rowPermutation;
+    private int[] visibleRows;
+    private final BitSet visibleObjects = new BitSet();
+    private List<String> filterTokens = Collections.emptyList();
+    private boolean onlyWarnings = false;
 
     MetricTableModel(@NotNull MetricsResult results, @NotNull String type,
                      @NotNull MetricTableSpecification tableSpecification) {
@@ -110,7 +119,7 @@ class MetricTableModel extends AbstractTableModel {
             columnPermutation[columnCount] = position;
             columnCount++;
         }
-        rowPermutation = new int[measuredObjects.length];
+        takeSnapshot();
         sort();
     }
 
@@ -152,10 +161,10 @@ class MetricTableModel extends AbstractTableModel {
 
     @Nullable
     public PsiElement getElementAtRow(int row) {
-        if (row >= rowPermutation.length) {
+        if (row >= visibleRows.length) {
             return null;
         }
-        final String measuredObject = measuredObjects[rowPermutation[row]];
+        final String measuredObject = measuredObjects[visibleRows[row]];
 
         return results.getElementForMeasuredObject(measuredObject);
     }
@@ -177,7 +186,7 @@ class MetricTableModel extends AbstractTableModel {
         results = newResults;
         tabulateMetrics();
         tabulateMeasuredObjects();
-        rowPermutation = new int[measuredObjects.length];
+        takeSnapshot();
         sort();
         fireTableStructureChanged();
         fireTableDataChanged();
@@ -185,7 +194,11 @@ class MetricTableModel extends AbstractTableModel {
 
     @Override
     public int getRowCount() {
-        return hasSummaryRows() ? measuredObjects.length + 2 : measuredObjects.length;
+        return hasSummaryRows() ? visibleRows.length + 2 : visibleRows.length;
+    }
+
+    public boolean isEmpty() {
+        return measuredObjects.length == 0;
     }
 
     public int getSortColumn() {
@@ -198,7 +211,7 @@ class MetricTableModel extends AbstractTableModel {
         final int permutedColumn = columnPermutation[columnIndex];
 
         if (hasSummaryRows()) {
-            if (rowIndex == measuredObjects.length) {
+            if (rowIndex == visibleRows.length) {
                 if (permutedColumn == 0) {
                     return MetricsReloadedBundle.message("total");
                 } else if (prevResults == null) {
@@ -211,7 +224,7 @@ class MetricTableModel extends AbstractTableModel {
                     return Pair.create(value, prevValue);
                 }
             }
-            if (rowIndex == measuredObjects.length + 1) {
+            if (rowIndex == visibleRows.length + 1) {
                 if (permutedColumn == 0) {
                     return MetricsReloadedBundle.message("average");
                 } else if (prevResults == null) {
@@ -225,16 +238,14 @@ class MetricTableModel extends AbstractTableModel {
                 }
             }
         }
-        final String measuredObject = measuredObjects[rowPermutation[rowIndex]];
+        final int row = visibleRows[rowIndex];
         if (permutedColumn == 0) {
-            return measuredObject;
-        } else if (prevResults == null) {
-            final MetricInstance metricInstance = metricsInstances[permutedColumn - 1];
-            return results.getValueForMetric(metricInstance.getMetric(), measuredObject);
+            return measuredObjects[row];
+        } else if (prevColumns == null) {
+            return columns[permutedColumn - 1].getValue(row);
         } else {
-            final MetricInstance metric = metricsInstances[permutedColumn - 1];
-            final Double value = results.getValueForMetric(metric.getMetric(), measuredObject);
-            final Double prevValue = prevResults.getValueForMetric(metric.getMetric(), measuredObject);
+            final Double value = columns[permutedColumn - 1].getValue(row);
+            final Double prevValue = prevColumns[permutedColumn - 1].getValue(row);
             return Pair.create(value, prevValue);
         }
     }
@@ -255,7 +266,7 @@ class MetricTableModel extends AbstractTableModel {
         prevResults = newResults;
         tabulateMetrics();
         tabulateMeasuredObjects();
-        rowPermutation = new int[measuredObjects.length];
+        takeSnapshot();
         sort();
         fireTableStructureChanged();
         fireTableDataChanged();
@@ -269,25 +280,103 @@ class MetricTableModel extends AbstractTableModel {
             tableSpecification.setSortColumn(0);
             sortColumn = 0;
         }
-        final Pair<Integer, ? extends Comparable<?>>[] tempArray = new Pair[rowPermutation.length];
         final int permutedColumn = columnPermutation[sortColumn];
+        final int[] ranks;
         if (permutedColumn == 0) {
-            for (int i = 0; i < rowPermutation.length; i++) {
-                final String name = measuredObjects[i];
-                tempArray[i] = Pair.create(Integer.valueOf(i), name);
+            if (nameRanks == null) {
+                nameRanks = MetricColumn.calculateRanks(measuredObjects);
             }
+            ranks = nameRanks;
         } else {
-            for (int i = 0; i < rowPermutation.length; i++) {
-                final String name = measuredObjects[i];
-                final MetricInstance metricInstance = metricsInstances[permutedColumn - 1];
-                final Double value = results.getValueForMetric(metricInstance.getMetric(), name);
-                tempArray[i] = Pair.create(Integer.valueOf(i), value);
+            ranks = columns[permutedColumn - 1].getRanks();
+        }
+        rowPermutation = MetricColumn.sortByRanks(ranks, tableSpecification.isAscending());
+        updateVisibleRows();
+    }
+
+    /**
+     * Copies values of all metrics into primitive columns, so that rendering, sorting and filtering don't
+     * look them up in the results again.
+     */
+    private void takeSnapshot() {
+        columns = new MetricColumn[metricsInstances.length];
+        prevColumns = prevResults == null ? null : new MetricColumn[metricsInstances.length];
+        for (int i = 0; i < metricsInstances.length; i++) {
+            final Metric metric = metricsInstances[i].getMetric();
+            columns[i] = MetricColumn.create(results, metric, measuredObjects);
+            if (prevResults != null) {
+                prevColumns[i] = MetricColumn.create(prevResults, metric, measuredObjects);
             }
         }
-        Arrays.sort(tempArray, new PairComparator(tableSpecification.isAscending()));
-        for (int i = 0; i < tempArray.length; i++) {
-            rowPermutation[i] = tempArray[i].getFirst().intValue();
+        nameRanks = null;
+        visibleObjects.clear();
+        visibleObjects.set(0, measuredObjects.length);
+        applyFilter();
+    }
+
+    /**
+     * Shows only the rows whose names contain every token of the filter (see {@link SearchUtil#tokenizeFilter})
+     * and, if {@code onlyWarnings} is set, which exceed a threshold of some enabled metric. When the new filter
+     * is narrower than the current one, only the rows shown now are checked.
+     */
+    public void setFilter(@NotNull String filter, boolean onlyWarnings) {
+        final List<String> tokens = ContainerUtil.map(SearchUtil.tokenizeFilter(filter), String::toLowerCase);
+        final boolean isNarrower = (onlyWarnings || !this.onlyWarnings) && isNarrower(tokens, filterTokens);
+        filterTokens = tokens;
+        this.onlyWarnings = onlyWarnings;
+        if (!isNarrower) {
+            visibleObjects.set(0, measuredObjects.length);
         }
+        applyFilter();
+        updateVisibleRows();
+        fireTableDataChanged();
+    }
+
+    private static boolean isNarrower(List<String> tokens, List<String> previousTokens) {
+        return previousTokens.stream().allMatch(previous -> tokens.stream().anyMatch(t -> t.contains(previous)));
+    }
+
+    private void applyFilter() {
+        for (int i = visibleObjects.nextSetBit(0); i >= 0; i = visibleObjects.nextSetBit(i + 1)) {
+            if (!matchesFilter(i)) {
+                visibleObjects.clear(i);
+            }
+        }
+    }
+
+    private boolean matchesFilter(int row) {
+        for (String token : filterTokens) {
+            if (!StringUtil.containsIgnoreCase(measuredObjects[row], token)) {
+                return false;
+            }
+        }
+        return !onlyWarnings || exceedsThreshold(row);
+    }
+
+    private boolean exceedsThreshold(int row) {
+        for (int i = 0; i < metricsInstances.length; i++) {
+            final MetricInstance metricInstance = metricsInstances[i];
+            if (!metricInstance.isEnabled() || !columns[i].hasValue(row)) {
+                continue;
+            }
+            final double value = columns[i].getDoubleValue(row);
+            if (metricInstance.isUpperThresholdEnabled() && value > metricInstance.getUpperThreshold() ||
+                    metricInstance.isLowerThresholdEnabled() && value < metricInstance.getLowerThreshold()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void updateVisibleRows() {
+        final int[] rows = new int[visibleObjects.cardinality()];
+        int count = 0;
+        for (int row : rowPermutation) {
+            if (visibleObjects.get(row)) {
+                rows[count++] = row;
+            }
+        }
+        visibleRows = rows;
     }
 
     private void tabulateMeasuredObjects() {
@@ -313,36 +402,4 @@ class MetricTableModel extends AbstractTableModel {
         metricsInstances = allMetrics.toArray(new MetricInstance[allMetrics.size()]);
         Arrays.sort(metricsInstances, new MetricInstanceAbbreviationComparator());
     }
-
-    private static class PairComparator implements Comparator<Pair> {
-        private final boolean ascending;
-
-        PairComparator(boolean ascending) {
-            this.ascending = ascending;
-        }
-
-        @Override
-        public int compare(Pair pair1, Pair pair2) {
-            final Object value1 = pair1.getSecond();
-            final Object value2 = pair2.getSecond();
-            if (value1 == null && value2 == null) {
-                return 0;
-            }
-            final int comparison;
-            if (value1 == null) {
-                comparison = -1;
-            } else if (value2 == null) {
-                comparison = 1;
-            } else {
-                if (value1 instanceof String && value2 instanceof String) {
-                    final String s1 = (String) value1;
-                    final String s2 = (String) value2;
-                    comparison = StringUtil.naturalCompare(s1, s2);
-                } else {
-                    comparison = ((Comparable) value1).compareTo(value2);
-                }
-            }
-            return ascending ? comparison : -comparison;
-        }
-    }
 }
@@ -47,6 +47,8 @@ import java.util.List;
 public class MetricsDisplay {
     
     private boolean hasOverlay = false;
+    private String filter = "";
+    private boolean onlyWarnings = false;
     private final Map<MetricCategory, JTable> tables = new EnumMap<MetricCategory, JTable>(MetricCategory.class);
     private final JTabbedPane tabbedPane = new JTabbedPane();
 
@@ -105,9 +107,12 @@ public class MetricsDisplay {
                     displaySpecification.getSpecification(category);
             final MetricsResult results = run.getResultsForCategory(category);
             final MetricTableModel model = new MetricTableModel(results, type, tableSpecification);
+            if (!filter.isEmpty() || onlyWarnings) {
+                model.setFilter(filter, onlyWarnings);
+            }
             table.setModel(model);
             final Container tab = table.getParent().getParent();
-            if (model.getRowCount() == 0) {
+            if (model.isEmpty()) {
                 tabbedPane.remove(tab);
                 continue;
             }
@@ -151,7 +156,7 @@ public class MetricsDisplay {
             model.setPrevResults(prevResults);
             model.setResults(results.getResultsForCategory(category));
             final Container tab = table.getParent().getParent();
-            if (model.getRowCount() == 0) {
+            if (model.isEmpty()) {
                 tabbedPane.remove(tab);
                 continue;
             }
@@ -174,7 +179,7 @@ public class MetricsDisplay {
             final MetricTableModel model = (MetricTableModel) table.getModel();
             model.setPrevResults(prevRun.getResultsForCategory(category));
             final Container tab = table.getParent().getParent();
-            if (model.getRowCount() == 0) {
+            if (model.isEmpty()) {
                 tabbedPane.remove(tab);
                 continue;
             }
@@ -196,7 +201,7 @@ public class MetricsDisplay {
             final MetricTableModel model = (MetricTableModel) table.getModel();
             model.setPrevResults(null);
             final Container tab = table.getParent().getParent();
-            if (model.getRowCount() == 0) {
+            if (model.isEmpty()) {
                 tabbedPane.remove(tab);
                 continue;
             }
@@ -275,6 +280,28 @@ public class MetricsDisplay {
         }
     }
 
+    /**
+     * Filters rows of all tables, see {@link MetricTableModel#setFilter}. The filter is kept for new results.
+     */
+    public void setFilter(@NotNull String filter, boolean onlyWarnings) {
+        this.filter = filter;
+        this.onlyWarnings = onlyWarnings;
+        for (JTable table : tables.values()) {
+            final TableModel model = table.getModel();
+            if (model instanceof MetricTableModel) {
+                ((MetricTableModel) model).setFilter(filter, onlyWarnings);
+            }
+        }
+    }
+
+    public String getFilter() {
+        return filter;
+    }
+
+    public boolean isOnlyWarnings() {
+        return onlyWarnings;
+    }
+
     public JTabbedPane getTabbedPane() {
         return tabbedPane;
     }
@@ -25,6 +25,8 @@ import com.intellij.openapi.util.IconLoader;
 import com.intellij.openapi.wm.ToolWindow;
 import com.intellij.openapi.wm.ToolWindowAnchor;
 import com.intellij.openapi.wm.ToolWindowManager;
+import com.intellij.ui.DocumentAdapter;
+import com.intellij.ui.SearchTextField;
 import com.sixrr.metrics.MetricCategory;
 import com.sixrr.metrics.metricModel.MetricsRun;
 import com.sixrr.metrics.profile.MetricDisplaySpecification;
@@ -33,6 +35,7 @@ import com.sixrr.metrics.utils.MetricsReloadedBundle;
 import org.jetbrains.annotations.NotNull;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
 import java.awt.*;
 
 @SuppressWarnings({"ThisEscapedInObjectConstruction"})
@@ -48,19 +51,29 @@ public final class MetricsToolWindowImpl extends MetricsToolWindow {
 
     private MetricsToolWindowImpl(@NotNull Project project) {
         this.project = project;
+        metricsDisplay = new MetricsDisplay(project);
         final DefaultActionGroup toolbarGroup = new DefaultActionGroup();
         toolbarGroup.add(new UpdateWithDiffAction(this, project));
         toolbarGroup.add(new ToggleAutoscrollAction());
+        toolbarGroup.add(new ShowOnlyWarningsAction(metricsDisplay));
         toolbarGroup.add(new ExportAction(this, project));
         toolbarGroup.add(new CreateSnapshotAction(this, project));
         toolbarGroup.add(new DiffSnapshotAction(this, project));
         toolbarGroup.add(new RemoveDiffAction(this));
         toolbarGroup.add(new EditThresholdsAction(this));
+        toolbarGroup.add(new ShowCalculatorTimingsAction(this, project));
         toolbarGroup.add(new CloseMetricsViewAction(this));
         final ActionManager actionManager = ActionManager.getInstance();
         final ActionToolbar toolbar = actionManager.createActionToolbar(METRICS_TOOL_WINDOW_ID, toolbarGroup, false);
         myContentPanel = new JPanel(new BorderLayout());
-        metricsDisplay = new MetricsDisplay(project);
+        final SearchTextField filterField = new SearchTextField();
+        filterField.addDocumentListener(new DocumentAdapter() {
+            @Override
+            protected void textChanged(DocumentEvent e) {
+                metricsDisplay.setFilter(filterField.getText(), metricsDisplay.isOnlyWarnings());
+            }
+        });
+        myContentPanel.add(filterField, BorderLayout.NORTH);
         myContentPanel.add(toolbar.getComponent(), BorderLayout.WEST);
         myContentPanel.add(metricsDisplay.getTabbedPane(), BorderLayout.CENTER);
         register();
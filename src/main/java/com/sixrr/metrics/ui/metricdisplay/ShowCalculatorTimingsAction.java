@@ -0,0 +1,55 @@
+/*
+ * Copyright 2005-2017 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.ui.metricdisplay;
+
+import com.intellij.icons.AllIcons;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.project.Project;
+import com.sixrr.metrics.metricModel.CalculatorTimings;
+import com.sixrr.metrics.metricModel.MetricsRun;
+import com.sixrr.metrics.ui.dialogs.CalculatorTimingsDialog;
+import com.sixrr.metrics.utils.MetricsReloadedBundle;
+
+class ShowCalculatorTimingsAction extends AnAction {
+
+    private final MetricsToolWindow toolWindow;
+    private final Project project;
+
+    ShowCalculatorTimingsAction(MetricsToolWindow toolWindow, Project project) {
+        super(MetricsReloadedBundle.message("calculator.timings.action"),
+                MetricsReloadedBundle.message("show.time.spent.by.each.calculator"),
+                AllIcons.General.Information);
+        this.toolWindow = toolWindow;
+        this.project = project;
+    }
+
+    @Override
+    public void actionPerformed(AnActionEvent event) {
+        final MetricsRun run = toolWindow.getCurrentRun();
+        final CalculatorTimings timings = run.getCalculatorTimings();
+        if (timings != null) {
+            new CalculatorTimingsDialog(project, run.getProfileName(), timings).show();
+        }
+    }
+
+    @Override
+    public void update(AnActionEvent event) {
+        final MetricsRun run = toolWindow.getCurrentRun();
+        event.getPresentation().setEnabled(run != null && run.getCalculatorTimings() != null);
+    }
+}
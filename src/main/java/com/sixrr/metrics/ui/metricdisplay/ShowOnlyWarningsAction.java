@@ -0,0 +1,43 @@
+/*
+ * Copyright 2005-2017 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.ui.metricdisplay;
+
+import com.intellij.icons.AllIcons;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.ToggleAction;
+import com.sixrr.metrics.utils.MetricsReloadedBundle;
+
+class ShowOnlyWarningsAction extends ToggleAction {
+
+    private final MetricsDisplay metricsDisplay;
+
+    ShowOnlyWarningsAction(MetricsDisplay metricsDisplay) {
+        super(MetricsReloadedBundle.message("show.only.warnings.action"),
+                MetricsReloadedBundle.message("show.only.warnings.description"), AllIcons.General.Filter);
+        this.metricsDisplay = metricsDisplay;
+    }
+
+    @Override
+    public boolean isSelected(AnActionEvent event) {
+        return metricsDisplay.isOnlyWarnings();
+    }
+
+    @Override
+    public void setSelected(AnActionEvent event, boolean b) {
+        metricsDisplay.setFilter(metricsDisplay.getFilter(), b);
+    }
+}
@@ -50,6 +50,7 @@ class UpdateMetricsViewAction extends AnAction {
                 metricsRun.setProfileName(currentProfile.getName());
                 metricsRun.setContext(currentScope);
                 metricsRun.setTimestamp(new TimeStamp());
+                metricsRun.setCalculatorTimings(getCalculatorTimings());
                 toolWindow.update(metricsRun);
             }
         }.execute(currentProfile, metricsRun);
@@ -50,6 +50,7 @@ class UpdateWithDiffAction extends AnAction {
                 metricsRun.setContext(scope);
                 metricsRun.setProfileName(currentProfile.getName());
                 metricsRun.setTimestamp(new TimeStamp());
+                metricsRun.setCalculatorTimings(getCalculatorTimings());
                 toolWindow.updateWithDiff(metricsRun);
             }
         }.execute(currentProfile, metricsRun);
@@ -19,6 +19,7 @@ package org.ml_methods_group.algorithm;
 import org.apache.log4j.Logger;
 import org.ml_methods_group.algorithm.entity.Entity;
 import org.ml_methods_group.algorithm.entity.EntitySearchResult;
+import org.ml_methods_group.algorithm.entity.SimilarityGraph;
 import org.ml_methods_group.config.Logging;
 import org.ml_methods_group.utils.AlgorithmsUtil;
 
@@ -31,6 +32,7 @@ import static org.ml_methods_group.utils.AlgorithmsUtil.getDensityBasedAccuracyR
 public class AKMeans extends Algorithm {
     private static final Logger LOGGER = Logging.getLogger(AKMeans.class);
     private static final double ACCURACY = 1;
+    static final int DEFAULT_STEPS = 25;
 
     private final List<Entity> points = new ArrayList<>();
     private final List<Integer> indexes = new ArrayList<>();
@@ -38,6 +40,8 @@ public class AKMeans extends Algorithm {
     private final List<Set<Entity>> communities = new ArrayList<>();
     private final int steps;
     private int numberOfClasses = 0;
+    private SimilarityGraph graph;
+    private ExecutionContext context;
 
     public AKMeans(int steps) {
         super("AKMeans", true);
@@ -45,7 +49,7 @@ public class AKMeans extends Algorithm {
     }
 
     public AKMeans() {
-        this(25);
+        this(DEFAULT_STEPS);
     }
 
     private void init(EntitySearchResult entities) {
@@ -80,20 +84,30 @@ public class AKMeans extends Algorithm {
 
     @Override
     protected List<Refactoring> calculateRefactorings(ExecutionContext context, boolean enableFieldRefactorings) {
-        init(context.getEntities());
-        context.checkCanceled();
-        initializeCenters();
+        final ExecutionTrace trace = context.getTrace();
+        trace.measure("initialization", () -> {
+            init(context.getEntities());
+            context.checkCanceled();
+            initializeCenters();
+        });
         context.checkCanceled();
+        // the graph of HAC, distances of pairs missing from it are calculated when needed
+        graph = context.getSimilarityGraph(1);
+        this.context = context;
 
         for (int step = 0; step < steps; step++) {
             LOGGER.info("Start step " + step);
             reportProgress((double) step / steps, context);
             context.checkCanceled();
-            final Map<Integer, Integer> movements =
-                    runParallel(indexes, context, HashMap::new, this::findNearestCommunity, AlgorithmsUtil::combineMaps);
-            for (Entry<Integer, Integer> movement : movements.entrySet()) {
-                moveToCommunity(movement.getKey(), movement.getValue());
-            }
+            final Map<Integer, Integer> movements = trace.measure("step", () -> {
+                final Map<Integer, Integer> found = runParallel(indexes, context, HashMap::new,
+                        this::findNearestCommunity, AlgorithmsUtil::combineMaps);
+                for (Entry<Integer, Integer> movement : found.entrySet()) {
+                    moveToCommunity(movement.getKey(), movement.getValue());
+                }
+                return found;
+            });
+            trace.count("movements", movements.size());
             LOGGER.info(movements.size() + " movements found");
             if (movements.size() == 0) {
                 break;
@@ -112,15 +126,17 @@ public class AKMeans extends Algorithm {
                             e.isField()))
                     .forEach(refactorings::add);
         }
+        graph = null;
+        this.context = null;
         return refactorings;
     }
 
     private Map<Integer, Integer> findNearestCommunity(int entityID, Map<Integer, Integer> accumulator) {
         double minDistance = Double.POSITIVE_INFINITY;
         int targetID = -1;
-        final Entity entity = points.get(entityID);
+        final int node = graph.getIndex(points.get(entityID));
         for (int centerID = 0; centerID < communities.size(); centerID++) {
-            double distance = distToCommunity(entity, centerID);
+            double distance = distToCommunity(node, centerID);
             if (distance < minDistance) {
                 minDistance = distance;
                 targetID = centerID;
@@ -132,14 +148,19 @@ public class AKMeans extends Algorithm {
         return accumulator;
     }
 
-    private double distToCommunity(Entity entity, int centerID) {
+    private double distToCommunity(int node, int centerID) {
         final Set<Entity> community = communities.get(centerID);
         if (community.isEmpty()) {
             return Double.POSITIVE_INFINITY;
         }
+        final Entity entity = graph.getEntity(node);
         double maxDistance = 0.0;
         for (Entity point : community) {
-            final double distance = entity.distance(point);
+            double distance = graph.getDistance(node, graph.getIndex(point));
+            if (distance == Double.POSITIVE_INFINITY) {
+                // the graph has no loops and keeps only the pairs closer than its cutoff
+                distance = context.distance(entity, point);
+            }
             maxDistance = Math.max(distance, maxDistance);
             if (maxDistance == Double.POSITIVE_INFINITY) {
                 break;
@@ -20,6 +20,7 @@ import org.apache.log4j.Logger;
 import org.ml_methods_group.algorithm.entity.ClassEntity;
 import org.ml_methods_group.algorithm.entity.Entity;
 import org.ml_methods_group.algorithm.entity.EntitySearchResult;
+import org.ml_methods_group.algorithm.entity.MinHashIndex;
 import org.ml_methods_group.config.Logging;
 import org.ml_methods_group.utils.AlgorithmsUtil;
 
@@ -35,6 +36,7 @@ public class ARI extends Algorithm {
     private final List<ClassEntity> classEntities = new ArrayList<>();
     private final AtomicInteger progressCount = new AtomicInteger();
     private ExecutionContext context;
+    private MinHashIndex classIndex;
 
     public ARI() {
         super("ARI", true);
@@ -52,6 +54,16 @@ public class ARI extends Algorithm {
         }
         progressCount.set(0);
         this.context = context;
+        classIndex = null;
+        final LSHParameters approximation = context.getApproximation();
+        if (approximation != null) {
+            final ExecutionTrace trace = context.getTrace();
+            classIndex = trace.measure("MinHash index", () -> new MinHashIndex(classEntities, approximation));
+            final double recall = trace.measure("recall estimation",
+                    () -> classIndex.estimateRecall(units, this::findNearestClass));
+            trace.count("LSH recall, %", Math.round(recall * 100));
+            LOGGER.info("Approximate mode " + approximation + ", estimated recall is " + recall);
+        }
         return runParallel(units, context, ArrayList<Refactoring>::new, this::findRefactoring, AlgorithmsUtil::combineLists);
     }
 
@@ -64,9 +76,9 @@ public class ARI extends Algorithm {
         double minDistance = Double.POSITIVE_INFINITY;
         double difference = Double.POSITIVE_INFINITY;
         ClassEntity targetClass = null;
-        for (final ClassEntity classEntity : classEntities) {
+        for (final ClassEntity classEntity : getCandidates(entity)) {
 
-            final double distance = entity.distance(classEntity);
+            final double distance = context.distance(entity, classEntity);
             if (distance < minDistance) {
                 difference = minDistance - distance;
                 minDistance = distance;
@@ -88,4 +100,29 @@ public class ARI extends Algorithm {
         }
         return accumulator;
     }
+
+    private List<ClassEntity> getCandidates(Entity entity) {
+        if (classIndex == null) {
+            return classEntities;
+        }
+        final int[] candidates = classIndex.getCandidates(entity);
+        final List<ClassEntity> result = new ArrayList<>(candidates.length);
+        for (int candidate : candidates) {
+            result.add(classEntities.get(candidate));
+        }
+        return result;
+    }
+
+    private int[] findNearestClass(Entity entity) {
+        double minDistance = Double.POSITIVE_INFINITY;
+        int nearest = -1;
+        for (int i = 0; i < classEntities.size(); i++) {
+            final double distance = context.distance(entity, classEntities.get(i));
+            if (distance < minDistance) {
+                minDistance = distance;
+                nearest = i;
+            }
+        }
+        return nearest == -1 ? new int[0] : new int[]{nearest};
+    }
 }
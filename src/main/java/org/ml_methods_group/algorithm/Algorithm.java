@@ -16,13 +16,18 @@
 
 package org.ml_methods_group.algorithm;
 
+import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.progress.EmptyProgressIndicator;
 import com.intellij.openapi.progress.ProcessCanceledException;
 import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.ProgressManager;
 import org.apache.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
+import org.ml_methods_group.algorithm.entity.Entity;
 import org.ml_methods_group.algorithm.entity.EntitySearchResult;
+import org.ml_methods_group.algorithm.entity.SimilarityGraph;
 import org.ml_methods_group.config.Logging;
+import org.ml_methods_group.utils.AlgorithmsUtil;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -30,6 +35,7 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.BiFunction;
 import java.util.function.BinaryOperator;
 import java.util.function.Supplier;
@@ -51,10 +57,25 @@ public abstract class Algorithm {
     }
 
     public final AlgorithmResult execute(EntitySearchResult entities, ExecutorService service, boolean enableFieldRefactorings) {
+        return execute(entities, service, enableFieldRefactorings, null);
+    }
+
+    /**
+     * @param approximation if not null, algorithms comparing all pairs of entities (see {@link ARI}, {@link HAC})
+     *                      compare only the candidate pairs found by MinHash. Other algorithms ignore it.
+     */
+    public final AlgorithmResult execute(EntitySearchResult entities, ExecutorService service,
+                                         boolean enableFieldRefactorings, @Nullable LSHParameters approximation) {
+        return execute(entities, service, enableFieldRefactorings, approximation, ExecutionLimits.NONE);
+    }
+
+    public final AlgorithmResult execute(EntitySearchResult entities, ExecutorService service,
+                                         boolean enableFieldRefactorings, @Nullable LSHParameters approximation,
+                                         ExecutionLimits limits) {
         LOGGER.info(name + " started");
         final long startTime = System.currentTimeMillis();
         final ProgressIndicator indicator;
-        if (ProgressManager.getInstance().hasProgressIndicator()) {
+        if (ApplicationManager.getApplication() != null && ProgressManager.getInstance().hasProgressIndicator()) {
             indicator = ProgressManager.getInstance().getProgressIndicator();
         } else {
             indicator = new EmptyProgressIndicator();
@@ -62,8 +83,9 @@ public abstract class Algorithm {
         indicator.pushState();
         indicator.setText("Running " + name + "...");
         indicator.setFraction(0);
-        final ExecutionContext context =
-                new ExecutionContext(enableParallelExecution ? requireNonNull(service) : null, indicator, entities);
+        final ExecutionTrace trace = new ExecutionTrace();
+        final ExecutionContext context = new ExecutionContext(enableParallelExecution ? requireNonNull(service) : null,
+                indicator, entities, trace, approximation, limits, startTime);
         final List<Refactoring> refactorings;
         try {
             refactorings = calculateRefactorings(context, enableFieldRefactorings);
@@ -75,8 +97,11 @@ public abstract class Algorithm {
         }
         final long time = System.currentTimeMillis() - startTime;
         indicator.popState();
-        final AlgorithmResult result = new AlgorithmResult(refactorings, name, time, context.usedThreads);
-        LOGGER.info(name + " successfully finished");
+        trace.count(ExecutionTrace.DISTANCE_CALLS_COUNTER, context.distanceCalls.sum());
+        final AlgorithmResult result =
+                new AlgorithmResult(refactorings, name, time, context.usedThreads, trace, context.isPartial,
+                        context.dendrogram);
+        LOGGER.info(name + (context.isPartial ? " stopped early" : " successfully finished"));
         LOGGER.info(result.getReport());
         return result;
     }
@@ -140,23 +165,111 @@ public abstract class Algorithm {
         private final ExecutorService service;
         private final ProgressIndicator indicator;
         private final EntitySearchResult entities;
+        private final ExecutionTrace trace;
+        private final LSHParameters approximation;
+        private final ExecutionLimits limits;
+        private final long deadline;
+        private final LongAdder distanceCalls = new LongAdder();
         private int usedThreads = 1; // default thread
+        private boolean isPartial = false;
+        private Dendrogram dendrogram = null;
 
         private ExecutionContext(ExecutorService service, ProgressIndicator indicator,
-                                 EntitySearchResult entities) {
+                                 EntitySearchResult entities, ExecutionTrace trace,
+                                 @Nullable LSHParameters approximation, ExecutionLimits limits, long startTime) {
             this.service = service;
             this.indicator = indicator;
             this.entities = entities;
+            this.trace = trace;
+            this.approximation = approximation;
+            this.limits = limits;
+            deadline = limits.getTimeLimit() == 0 ? Long.MAX_VALUE : startTime + limits.getTimeLimit();
         }
 
         public EntitySearchResult getEntities() {
             return entities;
         }
 
+        public ExecutionTrace getTrace() {
+            return trace;
+        }
+
+        @Nullable
+        public LSHParameters getApproximation() {
+            return approximation;
+        }
+
+        /**
+         * @return distance between the entities, counted in the trace of this run.
+         */
+        public double distance(Entity first, Entity second) {
+            distanceCalls.increment();
+            return first.distance(second);
+        }
+
+        /**
+         * Returns the graph of all entity pairs closer than the cutoff, building it on first request.
+         * The graph is shared with other algorithms run on the same entities.
+         */
+        public SimilarityGraph getSimilarityGraph(double cutoff) {
+            return entities.getSimilarityGraph(cutoff, () -> trace.measure("similarity graph", () -> {
+                final SimilarityGraph.Builder builder = new SimilarityGraph.Builder(entities, cutoff);
+                final List<SimilarityGraph.Row> rows;
+                if (service == null) {
+                    rows = new ArrayList<>();
+                    for (int node : builder.getNodes()) {
+                        calculateRow(builder, node, rows);
+                    }
+                } else {
+                    rows = runParallel(builder.getNodes(), this, ArrayList::new,
+                            (node, accumulator) -> calculateRow(builder, node, accumulator),
+                            AlgorithmsUtil::combineLists);
+                }
+                final SimilarityGraph graph = builder.build(rows);
+                trace.count("similarity graph edges", graph.getEdgesCount());
+                return graph;
+            }));
+        }
+
+        private List<SimilarityGraph.Row> calculateRow(SimilarityGraph.Builder builder, int node,
+                                                       List<SimilarityGraph.Row> accumulator) {
+            checkCanceled();
+            accumulator.add(builder.calculateRow(node, distanceCalls));
+            return accumulator;
+        }
+
         public void checkCanceled() {
             indicator.checkCanceled();
         }
 
+        /**
+         * Should be called by iterative algorithms before each iteration, while their state is consistent.
+         * Throws {@link ProcessCanceledException} on cancellation unless the limits allow partial results.
+         *
+         * @param iteration number of iterations done so far.
+         * @return true if the algorithm should stop and return the refactorings of its current state.
+         */
+        public boolean isStopRequested(int iteration) {
+            if (limits.isPartialOnCancel() && indicator.isCanceled()) {
+                isPartial = true;
+                return true;
+            }
+            indicator.checkCanceled();
+            if ((limits.getMaxIterations() != 0 && iteration >= limits.getMaxIterations())
+                    || System.currentTimeMillis() >= deadline) {
+                isPartial = true;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Stores the merge history of a hierarchical algorithm with its result.
+         */
+        void setDendrogram(@Nullable Dendrogram dendrogram) {
+            this.dendrogram = dendrogram;
+        }
+
         private void reportAdditionalThreadsUsed(int count) {
             usedThreads = Math.max(usedThreads, 1 + count);
         }
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2017 Machine Learning Methods in Software Engineering Group of JetBrains Research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ml_methods_group.algorithm;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.ml_methods_group.algorithm.entity.EntitySearchResult;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+
+/**
+ * An algorithm with fixed parameters, one point of a parameter sweep. Configurations are created by
+ * {@link #parseGrid(String)} and can be run concurrently on the same {@link EntitySearchResult}.
+ */
+public final class AlgorithmConfiguration {
+    private static final String EXACT = "exact";
+
+    private final String algorithm;
+    private final String name;
+    private final Function<AlgorithmConfiguration, Algorithm> factory;
+    private final int steps;
+    private final double eps;
+    private final LSHParameters approximation;
+
+    private AlgorithmConfiguration(String algorithm, String name, Function<AlgorithmConfiguration, Algorithm> factory,
+                                   int steps, double eps, @Nullable LSHParameters approximation) {
+        this.algorithm = algorithm;
+        this.name = name;
+        this.factory = factory;
+        this.steps = steps;
+        this.eps = eps;
+        this.approximation = approximation;
+    }
+
+    /**
+     * Parses a grid of configurations, e.g. {@code AKMeans:steps=10,25,50;CCDA:eps=1e-3,5e-4;HAC:lsh=exact,20x2;MRI}.
+     * Entries are separated by {@code ;}, the parameters of an entry by {@code :}; every combination of the listed
+     * parameter values becomes a configuration. Supported parameters are {@code steps} of AKMeans, {@code eps}
+     * of CCDA and {@code lsh} ({@code exact} or {@code <bands>x<rows>}) of ARI and HAC.
+     */
+    public static List<AlgorithmConfiguration> parseGrid(String text) {
+        final List<AlgorithmConfiguration> configurations = new ArrayList<>();
+        for (String entry : text.split(";")) {
+            if (entry.trim().isEmpty()) {
+                continue;
+            }
+            final String[] parts = entry.split(":");
+            final String algorithm = parts[0].trim();
+            final AlgorithmConfiguration base = createDefault(algorithm);
+            List<AlgorithmConfiguration> expanded = Collections.singletonList(base);
+            for (int i = 1; i < parts.length; i++) {
+                expanded = expand(expanded, parts[i]);
+            }
+            configurations.addAll(expanded);
+        }
+        if (configurations.isEmpty()) {
+            throw new IllegalArgumentException("No configurations in " + text);
+        }
+        return configurations;
+    }
+
+    private static AlgorithmConfiguration createDefault(String algorithm) {
+        switch (algorithm) {
+            case "AKMeans":
+                return new AlgorithmConfiguration(algorithm, algorithm, c -> new AKMeans(c.steps),
+                        AKMeans.DEFAULT_STEPS, 0, null);
+            case "CCDA":
+                return new AlgorithmConfiguration(algorithm, algorithm, c -> new CCDA(c.eps),
+                        0, CCDA.DEFAULT_EPS, null);
+            case "ARI":
+                return new AlgorithmConfiguration(algorithm, algorithm, c -> new ARI(), 0, 0, null);
+            case "HAC":
+                return new AlgorithmConfiguration(algorithm, algorithm, c -> new HAC(), 0, 0, null);
+            case "MRI":
+                return new AlgorithmConfiguration(algorithm, algorithm, c -> new MRI(), 0, 0, null);
+            case "Leiden":
+                return new AlgorithmConfiguration(algorithm, algorithm, c -> new Leiden(), 0, 0, null);
+            default:
+                throw new IllegalArgumentException("Unknown algorithm: " + algorithm);
+        }
+    }
+
+    private static List<AlgorithmConfiguration> expand(List<AlgorithmConfiguration> configurations,
+                                                       String parameter) {
+        final int separator = parameter.indexOf('=');
+        if (separator == -1) {
+            throw new IllegalArgumentException("Expected <parameter>=<values>, but found " + parameter);
+        }
+        final String key = parameter.substring(0, separator).trim();
+        final List<AlgorithmConfiguration> result = new ArrayList<>();
+        for (AlgorithmConfiguration configuration : configurations) {
+            for (String value : parameter.substring(separator + 1).split(",")) {
+                result.add(configuration.with(key, value.trim()));
+            }
+        }
+        return result;
+    }
+
+    private AlgorithmConfiguration with(String key, String value) {
+        final String newName = name + " " + key + "=" + value;
+        if ("steps".equals(key) && "AKMeans".equals(algorithm)) {
+            final int newSteps = Integer.parseInt(value);
+            if (newSteps <= 0) {
+                throw new IllegalArgumentException("Steps must be positive: " + value);
+            }
+            return new AlgorithmConfiguration(algorithm, newName, factory, newSteps, eps, approximation);
+        }
+        if ("eps".equals(key) && "CCDA".equals(algorithm)) {
+            final double newEps = Double.parseDouble(value);
+            if (newEps <= 0) {
+                throw new IllegalArgumentException("Eps must be positive: " + value);
+            }
+            return new AlgorithmConfiguration(algorithm, newName, factory, steps, newEps, approximation);
+        }
+        if ("lsh".equals(key) && ("ARI".equals(algorithm) || "HAC".equals(algorithm))) {
+            final LSHParameters newApproximation = EXACT.equals(value) ? null : LSHParameters.parse(value);
+            return new AlgorithmConfiguration(algorithm, newName, factory, steps, eps, newApproximation);
+        }
+        throw new IllegalArgumentException("Unknown parameter of " + algorithm + ": " + key);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Runs a new instance of the configured algorithm. The result is named after the configuration.
+     */
+    @NotNull
+    public AlgorithmResult execute(EntitySearchResult entities, ExecutorService service,
+                                   boolean enableFieldRefactorings, ExecutionLimits limits) {
+        final Algorithm algorithm = factory.apply(this);
+        final AlgorithmResult result = algorithm.execute(entities, service, enableFieldRefactorings, approximation,
+                limits);
+        return new AlgorithmResult(result, name);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
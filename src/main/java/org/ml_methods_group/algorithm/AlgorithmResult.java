@@ -28,14 +28,21 @@ public class AlgorithmResult {
     private final long executionTime;
     private final int threadUsed;
     private final Exception exception;
+    private final ExecutionTrace trace;
+    private final boolean isPartial;
+    private final Dendrogram dendrogram;
 
     AlgorithmResult(@NotNull List<Refactoring> refactorings, String algorithmName, long executionTime,
-                    int threadUsed) {
+                    int threadUsed, @NotNull ExecutionTrace trace, boolean isPartial,
+                    @Nullable Dendrogram dendrogram) {
         this.refactorings = refactorings;
         this.algorithmName = algorithmName;
         this.executionTime = executionTime;
         this.threadUsed = threadUsed;
         this.exception = null;
+        this.trace = trace;
+        this.isPartial = isPartial;
+        this.dendrogram = dendrogram;
     }
 
     AlgorithmResult(String algorithmName, @NotNull Exception exception) {
@@ -44,6 +51,23 @@ public class AlgorithmResult {
         this.executionTime = 0;
         this.threadUsed = 0;
         this.exception = exception;
+        this.trace = new ExecutionTrace();
+        this.isPartial = false;
+        this.dendrogram = null;
+    }
+
+    /**
+     * Copies the result under another name, e.g. the name of the configuration which produced it.
+     */
+    AlgorithmResult(@NotNull AlgorithmResult result, String algorithmName) {
+        this.refactorings = result.refactorings;
+        this.algorithmName = algorithmName;
+        this.executionTime = result.executionTime;
+        this.threadUsed = result.threadUsed;
+        this.exception = result.exception;
+        this.trace = result.trace;
+        this.isPartial = result.isPartial;
+        this.dendrogram = result.dendrogram;
     }
 
     public List<Refactoring> getRefactorings() {
@@ -62,6 +86,14 @@ public class AlgorithmResult {
         return threadUsed;
     }
 
+    /**
+     * @return time spent in the phases of the algorithm and its counters.
+     */
+    @NotNull
+    public ExecutionTrace getTrace() {
+        return trace;
+    }
+
     @Nullable
     public Exception getException() {
         return exception;
@@ -71,10 +103,28 @@ public class AlgorithmResult {
         return exception == null;
     }
 
+    /**
+     * @return true if the algorithm was stopped by its {@link ExecutionLimits} before convergence,
+     * so the refactorings come from an intermediate state.
+     */
+    public boolean isPartial() {
+        return isPartial;
+    }
+
+    /**
+     * @return the merge history of a hierarchical algorithm, which allows to cut its communities at a different
+     * distance without a rerun, or null for other algorithms.
+     */
+    @Nullable
+    public Dendrogram getDendrogram() {
+        return dendrogram;
+    }
+
     public String getReport() {
         return "Results of " + algorithmName + " running" + System.lineSeparator() +
                 "  Found " + refactorings.size() + " refactorings" + System.lineSeparator() +
                 "  Execution time: " + executionTime + System.lineSeparator() +
-                "  Threads used: " + threadUsed;
+                "  Threads used: " + threadUsed + System.lineSeparator() +
+                "  Partial: " + isPartial;
     }
 }
@@ -16,6 +16,7 @@
 
 package org.ml_methods_group.algorithm;
 
+import com.intellij.openapi.progress.ProcessCanceledException;
 import org.apache.log4j.Logger;
 import org.ml_methods_group.algorithm.entity.Entity;
 import org.ml_methods_group.algorithm.entity.EntitySearchResult;
@@ -41,11 +42,16 @@ public class CCDA extends Algorithm {
 
     private double quality;
     private double edges;
-    private static final double eps = 5e-4;
+    static final double DEFAULT_EPS = 5e-4;
+    private final double eps;
 
-    public CCDA() {
+    public CCDA(double eps) {
         super("CCDA", true);
+        this.eps = eps;
+    }
 
+    public CCDA() {
+        this(DEFAULT_EPS);
     }
 
     private void init() {
@@ -106,16 +112,29 @@ public class CCDA extends Algorithm {
     @Override
     protected List<Refactoring> calculateRefactorings(ExecutionContext context, boolean enableFieldRefactorings) {
         this.context = context;
-        init();
+        final ExecutionTrace trace = context.getTrace();
+        trace.measure("graph build", this::init);
         final Map<Entity, String> refactorings = new HashMap<>();
         context.checkCanceled();
-        quality = calculateQualityIndex();
+        quality = trace.measure("quality index", this::calculateQualityIndex);
         double progress = 0;
-        while (true) {
-            final Holder optimum = runParallel(nodes, context, Holder::new, this::attempt, this::max);
+        int iteration = 0;
+        while (!context.isStopRequested(iteration)) {
+            final Holder optimum;
+            try {
+                optimum = trace.measure("iteration",
+                        () -> runParallel(nodes, context, Holder::new, this::attempt, this::max));
+            } catch (ProcessCanceledException e) {
+                // attempts don't change the state, so it is still consistent
+                if (context.isStopRequested(iteration)) {
+                    break;
+                }
+                throw e;
+            }
             if (optimum.delta <= eps) {
                 break;
             }
+            trace.count("moves", 1);
             refactorings.put(optimum.targetEntity, idCommunity.get(optimum.community - 1));
             move(optimum.targetEntity, optimum.community, false);
             communityIds.put(optimum.targetEntity.getName(), optimum.community);
@@ -123,7 +142,7 @@ public class CCDA extends Algorithm {
             progress = Math.max(progress, eps / optimum.delta);
             reportProgress(0.1 + 0.9 * progress, context);
             LOGGER.info("Finish iteration. Current quality is " + quality + " (delta is " + optimum.delta + ")");
-            context.checkCanceled();
+            iteration++;
         }
 
         final Map<Integer, List<Entity>> entities = entityCommunities.entrySet().stream()
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017 Machine Learning Methods in Software Engineering Group of JetBrains Research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ml_methods_group.algorithm;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.Map.Entry;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.ml_methods_group.utils.AlgorithmsUtil.getDensityBasedAccuracyRating;
+
+/**
+ * Merge history of {@link HAC}. Leaves are the entities in the order of the search result (classes, methods,
+ * fields), the node created by the k-th merge has id {@code leafCount + k}. Complete linkage never decreases
+ * the merge distance, so the communities of a stricter cut are obtained by ignoring the merges above it,
+ * in time linear in the number of nodes.
+ */
+public class Dendrogram {
+    private final String[] names;
+    private final String[] classNames;
+    private final BitSet fields;
+    private final boolean enableFieldRefactorings;
+    private final int[] parents;
+    private final double[] distances;
+    private int mergeCount = 0;
+
+    Dendrogram(String[] names, String[] classNames, BitSet fields, boolean enableFieldRefactorings) {
+        this.names = names;
+        this.classNames = classNames;
+        this.fields = fields;
+        this.enableFieldRefactorings = enableFieldRefactorings;
+        final int leafCount = names.length;
+        parents = new int[Math.max(2 * leafCount - 1, 0)];
+        Arrays.fill(parents, -1);
+        distances = new double[Math.max(leafCount - 1, 0)];
+    }
+
+    /**
+     * Records that nodes {@code first} and {@code second} were merged into node {@code leafCount + mergeCount}.
+     */
+    void addMerge(int first, int second, double distance) {
+        final int merged = names.length + mergeCount;
+        parents[first] = merged;
+        parents[second] = merged;
+        distances[mergeCount] = distance;
+        mergeCount++;
+    }
+
+    public int getLeafCount() {
+        return names.length;
+    }
+
+    public int getMergeCount() {
+        return mergeCount;
+    }
+
+    public double getMergeDistance(int merge) {
+        return distances[merge];
+    }
+
+    /**
+     * Assigns every leaf the id of its community after the merges with distance not greater than the threshold.
+     */
+    int[] cut(double threshold) {
+        final int leafCount = names.length;
+        final int nodeCount = leafCount + mergeCount;
+        final int[] communities = new int[nodeCount];
+        for (int node = nodeCount - 1; node >= 0; node--) {
+            final int parent = parents[node];
+            if (parent != -1 && distances[parent - leafCount] <= threshold) {
+                communities[node] = communities[parent];
+            } else {
+                communities[node] = node;
+            }
+        }
+        return Arrays.copyOf(communities, leafCount);
+    }
+
+    /**
+     * Moves the entities of every community of the cut to the dominant class of the community, the same way
+     * {@link HAC} does for its final communities.
+     */
+    @NotNull
+    public List<Refactoring> getRefactorings(double threshold) {
+        final int[] communities = cut(threshold);
+        final Map<Integer, List<Integer>> members = new HashMap<>();
+        for (int leaf = 0; leaf < communities.length; leaf++) {
+            members.computeIfAbsent(communities[leaf], id -> new ArrayList<>()).add(leaf);
+        }
+        final List<Refactoring> refactorings = new ArrayList<>();
+        for (List<Integer> community : members.values()) {
+            final Entry<String, Long> dominantClass = community.stream()
+                    .map(leaf -> classNames[leaf])
+                    .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()))
+                    .entrySet().stream()
+                    .max(Entry.comparingByValue())
+                    .orElseThrow(IllegalStateException::new);
+            final String className = dominantClass.getKey();
+            final double accuracy = getDensityBasedAccuracyRating(dominantClass.getValue(), community.size());
+            for (int leaf : community) {
+                if (!classNames[leaf].equals(className) && (enableFieldRefactorings || !fields.get(leaf))) {
+                    refactorings.add(new Refactoring(names[leaf], className, accuracy, fields.get(leaf)));
+                }
+            }
+        }
+        return refactorings;
+    }
+}
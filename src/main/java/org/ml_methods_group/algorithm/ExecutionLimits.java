@@ -0,0 +1,57 @@
+/*
+ * Copyright 2017 Machine Learning Methods in Software Engineering Group of JetBrains Research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ml_methods_group.algorithm;
+
+/**
+ * Bounds of one algorithm run. Iterative algorithms ({@link CCDA}, {@link HAC}, {@link Leiden}) check them
+ * between iterations, when their community state is consistent, and return the refactorings of that state marked
+ * as partial (see {@link AlgorithmResult#isPartial()}). Other algorithms ignore the limits.
+ */
+public final class ExecutionLimits {
+    public static final ExecutionLimits NONE = new ExecutionLimits(0, 0, false);
+
+    private final long timeLimit;
+    private final int maxIterations;
+    private final boolean partialOnCancel;
+
+    /**
+     * @param timeLimit       time in milliseconds after which the algorithm stops, 0 for no limit.
+     * @param maxIterations   number of iterations after which the algorithm stops, 0 for no limit.
+     * @param partialOnCancel if set, canceling the progress indicator stops the algorithm like the limits do
+     *                        instead of throwing {@link com.intellij.openapi.progress.ProcessCanceledException}.
+     */
+    public ExecutionLimits(long timeLimit, int maxIterations, boolean partialOnCancel) {
+        if (timeLimit < 0 || maxIterations < 0) {
+            throw new IllegalArgumentException("Limits must not be negative");
+        }
+        this.timeLimit = timeLimit;
+        this.maxIterations = maxIterations;
+        this.partialOnCancel = partialOnCancel;
+    }
+
+    public long getTimeLimit() {
+        return timeLimit;
+    }
+
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+
+    public boolean isPartialOnCancel() {
+        return partialOnCancel;
+    }
+}
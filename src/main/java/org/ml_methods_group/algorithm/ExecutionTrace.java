@@ -0,0 +1,137 @@
+/*
+ * Copyright 2017 Machine Learning Methods in Software Engineering Group of JetBrains Research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ml_methods_group.algorithm;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Time spent in the phases of one step of the refactorings search, together with named counters
+ * (number of distance calls, peak heap usage etc.). Phases recorded several times under the same name,
+ * e.g. iterations of an algorithm, are summed up. Safe to use from several threads.
+ */
+public class ExecutionTrace {
+    public static final String PEAK_HEAP_COUNTER = "peak heap, bytes";
+    public static final String DISTANCE_CALLS_COUNTER = "distance calls";
+
+    private final Map<String, Phase> phases = new LinkedHashMap<>();
+    private final Map<String, Long> counters = new LinkedHashMap<>();
+
+    public <T> T measure(String phase, Supplier<T> action) {
+        final long start = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            addTime(phase, System.nanoTime() - start);
+        }
+    }
+
+    public void measure(String phase, Runnable action) {
+        final long start = System.nanoTime();
+        try {
+            action.run();
+        } finally {
+            addTime(phase, System.nanoTime() - start);
+        }
+    }
+
+    public synchronized void addTime(String phase, long nanos) {
+        final Phase current = phases.computeIfAbsent(phase, Phase::new);
+        current.time += nanos;
+        current.count++;
+    }
+
+    public synchronized void count(String counter, long delta) {
+        counters.merge(counter, delta, Long::sum);
+    }
+
+    public synchronized void recordMax(String counter, long value) {
+        counters.merge(counter, value, Math::max);
+    }
+
+    /**
+     * Records the highest heap usage since the last {@link #resetHeapPeak()}. The value covers the whole JVM,
+     * so it is only an upper bound of the memory used by the search.
+     */
+    public void recordHeapPeak() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        recordMax(PEAK_HEAP_COUNTER, peak);
+    }
+
+    public static void resetHeapPeak() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    public synchronized List<Phase> getPhases() {
+        final List<Phase> result = new ArrayList<>();
+        for (Phase phase : phases.values()) {
+            result.add(phase.copy());
+        }
+        return result;
+    }
+
+    public synchronized Map<String, Long> getCounters() {
+        return new LinkedHashMap<>(counters);
+    }
+
+    public static class Phase {
+        private final String name;
+        private long time;
+        private int count;
+
+        private Phase(String name) {
+            this.name = name;
+        }
+
+        private Phase copy() {
+            final Phase copy = new Phase(name);
+            copy.time = time;
+            copy.count = count;
+            return copy;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return total time in milliseconds.
+         */
+        public long getTime() {
+            return time / 1_000_000;
+        }
+
+        /**
+         * @return how many times the phase was recorded.
+         */
+        public int getCount() {
+            return count;
+        }
+    }
+}
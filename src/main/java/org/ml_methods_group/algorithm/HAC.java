@@ -21,25 +21,29 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.ml_methods_group.algorithm.entity.Entity;
 import org.ml_methods_group.algorithm.entity.EntitySearchResult;
+import org.ml_methods_group.algorithm.entity.MinHashIndex;
+import org.ml_methods_group.algorithm.entity.SimilarityGraph;
 import org.ml_methods_group.config.Logging;
 import org.ml_methods_group.utils.AlgorithmsUtil;
 
 import java.util.*;
-import java.util.Map.Entry;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import static org.ml_methods_group.utils.AlgorithmsUtil.getDensityBasedAccuracyRating;
-
 public class HAC extends Algorithm {
     private static final Logger LOGGER = Logging.getLogger(HAC.class);
-    private static final double ACCURACY = 1;
 
     private final SortedSet<Triple> heap = new TreeSet<>();
     private final Map<Long, Triple> triples = new HashMap<>();
+    // released triples, reused by this instance only, since configurations of a sweep run in parallel
+    private final Queue<Triple> triplesPool = new ArrayDeque<>();
     private final Set<Community> communities = new HashSet<>();
     private final AtomicInteger progressCounter = new AtomicInteger();
+    private final List<Community> singletons = new ArrayList<>();
     private ExecutionContext context;
+    private MinHashIndex index;
+    private SimilarityGraph graph;
     private int idGenerator = 0;
 
     public HAC() {
@@ -50,14 +54,26 @@ public class HAC extends Algorithm {
         LOGGER.info("Init HAC");
         this.context = context;
         heap.clear();
+        triples.clear();
         communities.clear();
+        singletons.clear();
         idGenerator = 0;
         progressCounter.set(0);
         final EntitySearchResult entities = context.getEntities();
+        // ids of the singleton communities are equal to their positions in this list
         Stream.of(entities.getClasses(), entities.getMethods(), entities.getFields())
                 .flatMap(List::stream)
                 .map(this::singletonCommunity)
-                .forEach(communities::add);
+                .forEach(singletons::add);
+        communities.addAll(singletons);
+        index = null;
+        graph = null;
+        final LSHParameters approximation = context.getApproximation();
+        if (approximation != null) {
+            buildIndex(approximation);
+        } else {
+            graph = context.getSimilarityGraph(1);
+        }
         final List<Community> communitiesAsList = new ArrayList<>(communities);
         Collections.shuffle(communitiesAsList);
         final List<Triple> toInsert =
@@ -66,15 +82,47 @@ public class HAC extends Algorithm {
         LOGGER.info("Built heap (" + heap.size() + " triples)");
     }
 
+    private void buildIndex(LSHParameters approximation) {
+        final List<Entity> representatives = singletons.stream()
+                .map(community -> community.entities.get(0))
+                .collect(Collectors.toList());
+        final ExecutionTrace trace = context.getTrace();
+        index = trace.measure("MinHash index", () -> new MinHashIndex(representatives, approximation));
+        final double recall = trace.measure("recall estimation",
+                () -> index.estimateRecall(representatives, this::findCloseEntities));
+        trace.count("LSH recall, %", Math.round(recall * 100));
+        LOGGER.info("Approximate mode " + approximation + ", estimated recall is " + recall);
+    }
+
+    private int[] findCloseEntities(Entity entity) {
+        return singletons.stream()
+                .filter(community -> community.entities.get(0) != entity)
+                .filter(community -> context.distance(entity, community.entities.get(0)) < 1)
+                .mapToInt(community -> community.id)
+                .toArray();
+    }
+
     private List<Triple> findTriples(Community community, List<Triple> accumulator) {
         final Entity representative = community.entities.get(0);
-        for (Community another : communities) {
-            if (another == community) {
-                break;
+        if (index == null) {
+            // graph nodes are numbered in the same order as the singleton communities
+            final int node = graph.getIndex(representative);
+            for (int k = 0; k < graph.getDegree(node); k++) {
+                final int neighbor = graph.getNeighbor(node, k);
+                if (neighbor >= node) {
+                    break;
+                }
+                final double distance = graph.getWeight(node, k);
+                if (distance < 1) {
+                    accumulator.add(new Triple(distance, community, singletons.get(neighbor)));
+                }
             }
-            final double distance = representative.distance(another.entities.get(0));
-            if (distance < 1) {
-                accumulator.add(new Triple(distance, community, another));
+        } else {
+            for (int candidate : index.getCandidates(representative)) {
+                if (candidate >= community.id) {
+                    break;
+                }
+                addTripleIfClose(representative, community, singletons.get(candidate), accumulator);
             }
         }
         reportProgress(0.9 * (double) progressCounter.incrementAndGet() / communities.size(), context);
@@ -82,43 +130,63 @@ public class HAC extends Algorithm {
         return accumulator;
     }
 
+    private void addTripleIfClose(Entity representative, Community community, Community another,
+                                  List<Triple> accumulator) {
+        final double distance = context.distance(representative, another.entities.get(0));
+        if (distance < 1) {
+            accumulator.add(new Triple(distance, community, another));
+        }
+    }
+
     @Override
     protected List<Refactoring> calculateRefactorings(ExecutionContext context, boolean enableFieldRefactorings) {
-        init(context);
+        final ExecutionTrace trace = context.getTrace();
+        trace.measure("heap build", () -> init(context));
+        trace.count("heap triples", heap.size());
         final int initialCommunitiesCount = communities.size();
-        while (!heap.isEmpty()) {
-            final Triple minTriple = heap.first();
-            invalidateTriple(minTriple);
-            final Community first = minTriple.first;
-            final Community second = minTriple.second;
-            mergeCommunities(first, second);
-            reportProgress(1 - 0.1 * communities.size() / initialCommunitiesCount, context);
-            context.checkCanceled();
-        }
-
-        final List<Refactoring> refactorings = new ArrayList<>();
-        for (Community community : communities) {
-            final int entitiesCount = community.entities.size();
-            if (entitiesCount == 0) {
-                continue;
-            }
-            final Entry<String, Long> dominantClass = AlgorithmsUtil.getDominantClass(community.entities);
-            final String className = dominantClass.getKey();
-            LOGGER.info("Generate class name for community (id = " + community.id +"): " + className);
-            for (Entity entity : community.entities) {
-                if (!entity.getClassName().equals(className)) {
-                    if (enableFieldRefactorings || !entity.isField()) {
-                        refactorings.add(new Refactoring(entity.getName(), className,
-                                getDensityBasedAccuracyRating(dominantClass.getValue(), entitiesCount) * ACCURACY,
-                                entity.isField()));
-                    }
-                }
+        final Dendrogram dendrogram = createDendrogram(enableFieldRefactorings);
+        trace.measure("merge loop", () -> {
+            int merges = 0;
+            while (!heap.isEmpty() && !context.isStopRequested(merges)) {
+                final Triple minTriple = heap.first();
+                final double distance = minTriple.distance;
+                invalidateTriple(minTriple);
+                final Community first = minTriple.first;
+                final Community second = minTriple.second;
+                mergeCommunities(first, second);
+                dendrogram.addMerge(first.id, second.id, distance);
+                reportProgress(1 - 0.1 * communities.size() / initialCommunitiesCount, context);
+                merges++;
             }
-        }
-        Triple.clearPool();
+        });
+        trace.count("merges", initialCommunitiesCount - communities.size());
+        context.setDendrogram(dendrogram);
+
+        final List<Refactoring> refactorings = dendrogram.getRefactorings(Double.POSITIVE_INFINITY);
+        // a run stopped early leaves triples in the heap
+        heap.clear();
+        triples.clear();
+        triplesPool.clear();
+        singletons.clear();
+        communities.clear();
+        graph = null;
         return refactorings;
     }
 
+    private Dendrogram createDendrogram(boolean enableFieldRefactorings) {
+        final int leafCount = singletons.size();
+        final String[] names = new String[leafCount];
+        final String[] classNames = new String[leafCount];
+        final BitSet fields = new BitSet(leafCount);
+        for (Community singleton : singletons) {
+            final Entity entity = singleton.entities.get(0);
+            names[singleton.id] = entity.getName();
+            classNames[singleton.id] = entity.getClassName();
+            fields.set(singleton.id, entity.isField());
+        }
+        return new Dendrogram(names, classNames, fields, enableFieldRefactorings);
+    }
+
     private Community mergeCommunities(Community first, Community second) {
         final List<Entity> merged;
         if (first.entities.size() < second.entities.size()) {
@@ -133,16 +201,19 @@ public class HAC extends Algorithm {
         communities.remove(first);
         communities.remove(second);
 
-        for (Community community : communities) {
-            final long fromFirstID = getTripleID(first, community);
-            final long fromSecondID = getTripleID(second, community);
-            final Triple fromFirst = triples.get(fromFirstID);
-            final Triple fromSecond = triples.get(fromSecondID);
+        // complete linkage: a community without a triple to either of the merged ones stays unlinked,
+        // so only the neighbors of the first community have to be checked
+        for (Community community : new ArrayList<>(first.neighbors)) {
+            final Triple fromFirst = triples.get(getTripleID(first, community));
+            final Triple fromSecond = triples.get(getTripleID(second, community));
             final double newDistance = Math.max(getDistance(fromFirst), getDistance(fromSecond));
             invalidateTriple(fromFirst);
             invalidateTriple(fromSecond);
             insertTripleIfNecessary(newDistance, newCommunity, community);
         }
+        for (Community community : new ArrayList<>(second.neighbors)) {
+            invalidateTriple(triples.get(getTripleID(second, community)));
+        }
         communities.add(newCommunity);
         return newCommunity;
     }
@@ -161,13 +232,15 @@ public class HAC extends Algorithm {
     private void insertTriple(@NotNull Triple triple) {
         triples.put(getTripleID(triple.first, triple.second), triple);
         heap.add(triple);
+        triple.first.neighbors.add(triple.second);
+        triple.second.neighbors.add(triple.first);
     }
 
     private void insertTripleIfNecessary(double distance, Community first, Community second) {
         if (distance > 1.0) {
             return;
         }
-        final Triple triple = Triple.createTriple(distance, first, second);
+        final Triple triple = createTriple(distance, first, second);
         insertTriple(triple);
     }
 
@@ -178,7 +251,20 @@ public class HAC extends Algorithm {
         final long tripleID = getTripleID(triple.first, triple.second);
         triples.remove(tripleID);
         heap.remove(triple);
-        triple.release();
+        triple.first.neighbors.remove(triple.second);
+        triple.second.neighbors.remove(triple.first);
+        triplesPool.add(triple);
+    }
+
+    private Triple createTriple(double distance, Community first, Community second) {
+        final Triple triple = triplesPool.poll();
+        if (triple == null) {
+            return new Triple(distance, first, second);
+        }
+        triple.distance = distance;
+        triple.first = first;
+        triple.second = second;
+        return triple;
     }
 
     private Community singletonCommunity(Entity entity) {
@@ -190,6 +276,7 @@ public class HAC extends Algorithm {
     private class Community implements Comparable<Community> {
 
         private final List<Entity> entities;
+        private final Set<Community> neighbors = new HashSet<>();
         private final int id;
 
         Community(List<Entity> entities) {
@@ -214,8 +301,6 @@ public class HAC extends Algorithm {
     }
 
     private static class Triple implements Comparable<Triple> {
-        private static final Queue<Triple> triplesPoll = new ArrayDeque<>();
-
         private double distance;
         private Community first;
         private Community second;
@@ -226,25 +311,6 @@ public class HAC extends Algorithm {
             this.second = second;
         }
 
-        static Triple createTriple(double distance, Community first, Community second) {
-            if (triplesPoll.isEmpty()) {
-                return new Triple(distance, first, second);
-            }
-            final Triple triple = triplesPoll.poll();
-            triple.distance = distance;
-            triple.first = first;
-            triple.second = second;
-            return triple;
-        }
-
-        static void clearPool() {
-            triplesPoll.clear();
-        }
-
-        void release() {
-            triplesPoll.add(this);
-        }
-
         @Override
         public int compareTo(@NotNull Triple other) {
             if (other == this) {
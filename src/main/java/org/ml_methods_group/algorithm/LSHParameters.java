@@ -0,0 +1,74 @@
+/*
+ * Copyright 2017 Machine Learning Methods in Software Engineering Group of JetBrains Research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ml_methods_group.algorithm;
+
+/**
+ * Parameters of the approximate candidate search used by {@link ARI} and {@link HAC} on large projects.
+ * Every entity gets {@code bands * rows} MinHash values; two entities become a candidate pair if all values
+ * of at least one band are equal. A pair with weighted Jaccard similarity {@code s} is found with
+ * probability {@code 1 - (1 - s^rows)^bands}, so more bands raise the recall and more rows cut the number
+ * of candidates.
+ */
+public final class LSHParameters {
+    private static final long DEFAULT_SEED = 239;
+
+    private final int bands;
+    private final int rows;
+    private final long seed;
+
+    public LSHParameters(int bands, int rows) {
+        this(bands, rows, DEFAULT_SEED);
+    }
+
+    public LSHParameters(int bands, int rows, long seed) {
+        if (bands <= 0 || rows <= 0) {
+            throw new IllegalArgumentException("Bands and rows must be positive: " + bands + "x" + rows);
+        }
+        this.bands = bands;
+        this.rows = rows;
+        this.seed = seed;
+    }
+
+    /**
+     * Parses parameters in the form {@code <bands>x<rows>}, e.g. {@code 20x2}.
+     */
+    public static LSHParameters parse(String text) {
+        final int separator = text.indexOf('x');
+        if (separator == -1) {
+            throw new IllegalArgumentException("Expected <bands>x<rows>, but found " + text);
+        }
+        return new LSHParameters(Integer.parseInt(text.substring(0, separator).trim()),
+                Integer.parseInt(text.substring(separator + 1).trim()));
+    }
+
+    public int getBands() {
+        return bands;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    @Override
+    public String toString() {
+        return bands + "x" + rows;
+    }
+}
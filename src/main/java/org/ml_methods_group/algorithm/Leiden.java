@@ -0,0 +1,568 @@
+/*
+ * Copyright 2017 Machine Learning Methods in Software Engineering Group of JetBrains Research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ml_methods_group.algorithm;
+
+import com.intellij.openapi.progress.ProcessCanceledException;
+import gnu.trove.TDoubleArrayList;
+import gnu.trove.TIntArrayList;
+import gnu.trove.TLongArrayList;
+import gnu.trove.TObjectIntHashMap;
+import org.apache.log4j.Logger;
+import org.ml_methods_group.algorithm.entity.Entity;
+import org.ml_methods_group.algorithm.entity.EntitySearchResult;
+import org.ml_methods_group.algorithm.entity.RelevantProperties;
+import org.ml_methods_group.config.Logging;
+import org.ml_methods_group.utils.AlgorithmsUtil;
+
+import java.util.*;
+import java.util.Map.Entry;
+import java.util.stream.Stream;
+
+import static org.ml_methods_group.utils.AlgorithmsUtil.getDensityBasedAccuracyRating;
+
+/**
+ * Leiden community detection on the graph of {@link CCDA}: methods and fields are nodes, two of them are connected
+ * if one is a relevant property of the other. Starting from the partition by classes, every level
+ * <ul>
+ * <li>moves nodes to the neighboring community with the largest modularity gain, revisiting only the neighbors
+ * of moved nodes,</li>
+ * <li>splits every community into well-connected subcommunities by merging its nodes greedily,</li>
+ * <li>aggregates the subcommunities into the nodes of the next level.</li>
+ * </ul>
+ * CCDA applies one move per pass over all entities, while a level here is near-linear in the number of edges.
+ * Refactorings are derived like in {@link AKMeans}: entities are moved to the dominant class of their community.
+ */
+public class Leiden extends Algorithm {
+    private static final Logger LOGGER = Logging.getLogger(Leiden.class);
+    private static final double ACCURACY = 1;
+    private static final long SEED = 42;
+    /**
+     * Batches of queued nodes of at least this size are evaluated in parallel during local moving.
+     */
+    private static final int PARALLEL_BATCH_SIZE = 1024;
+
+    private final List<Entity> nodes = new ArrayList<>();
+    private ExecutionContext context;
+
+    public Leiden() {
+        super("Leiden", true);
+    }
+
+    @Override
+    protected List<Refactoring> calculateRefactorings(ExecutionContext context, boolean enableFieldRefactorings) {
+        this.context = context;
+        final ExecutionTrace trace = context.getTrace();
+        final int[] classes = init(context.getEntities());
+        final Graph graph = trace.measure("graph build", () -> buildGraph(nodes));
+        trace.count("graph edges", graph.getEdgesCount());
+        reportProgress(0.1, context);
+        final int[] communities = cluster(graph, classes);
+
+        final Map<Integer, List<Entity>> entities = new HashMap<>();
+        for (int node = 0; node < communities.length; node++) {
+            entities.computeIfAbsent(communities[node], k -> new ArrayList<>()).add(nodes.get(node));
+        }
+        trace.count("communities", entities.size());
+        final List<Refactoring> refactorings = new ArrayList<>();
+        for (List<Entity> community : entities.values()) {
+            final Entry<String, Long> dominant = AlgorithmsUtil.getDominantClass(community);
+            community.stream()
+                    .filter(e -> !e.getClassName().equals(dominant.getKey()))
+                    .filter(Entity::isMovable)
+                    .filter(e -> enableFieldRefactorings || !e.isField())
+                    .map(e -> new Refactoring(e.getName(), dominant.getKey(),
+                            getDensityBasedAccuracyRating(dominant.getValue(), community.size()) * ACCURACY,
+                            e.isField()))
+                    .forEach(refactorings::add);
+        }
+        nodes.clear();
+        this.context = null;
+        return refactorings;
+    }
+
+    /**
+     * Collects methods and fields of known classes into {@link #nodes}.
+     *
+     * @return indices of the classes of the nodes.
+     */
+    private int[] init(EntitySearchResult entities) {
+        LOGGER.info("Init Leiden");
+        nodes.clear();
+        final TObjectIntHashMap<String> classIds = new TObjectIntHashMap<>();
+        for (Entity entity : entities.getClasses()) {
+            if (!classIds.containsKey(entity.getName())) {
+                classIds.put(entity.getName(), classIds.size());
+            }
+        }
+        final TIntArrayList classes = new TIntArrayList();
+        Stream.of(entities.getFields(), entities.getMethods())
+                .flatMap(List::stream)
+                .filter(entity -> classIds.containsKey(entity.getClassName()))
+                .forEach(entity -> {
+                    nodes.add(entity);
+                    classes.add(classIds.get(entity.getClassName()));
+                });
+        return classes.toNativeArray();
+    }
+
+    private Graph buildGraph(List<Entity> nodes) {
+        LOGGER.info("Building graph");
+        final TObjectIntHashMap<String> indices = new TObjectIntHashMap<>();
+        for (Entity entity : nodes) {
+            indices.put(entity.getName(), indices.size());
+        }
+        final TLongArrayList edges = new TLongArrayList();
+        for (int node = 0; node < nodes.size(); node++) {
+            final RelevantProperties properties = nodes.get(node).getRelevantProperties();
+            for (String name : properties.getMethods()) {
+                addEdge(node, name, indices, edges);
+            }
+            for (String name : properties.getFields()) {
+                addEdge(node, name, indices, edges);
+            }
+            context.checkCanceled();
+        }
+        return Graph.build(nodes.size(), edges.toNativeArray());
+    }
+
+    private static void addEdge(int node, String name, TObjectIntHashMap<String> indices, TLongArrayList edges) {
+        if (!indices.containsKey(name)) {
+            return;
+        }
+        final int neighbor = indices.get(name);
+        if (neighbor != node) {
+            edges.add(Graph.edge(node, neighbor));
+        }
+    }
+
+    /**
+     * Runs Leiden levels until every community is a single aggregated node.
+     *
+     * @param initialCommunities community of every node, e.g. its class.
+     * @return community of every node. Ids are arbitrary, equal ids mean the same community.
+     */
+    int[] cluster(Graph graph, int[] initialCommunities) {
+        if (graph.totalDegree == 0) {
+            return initialCommunities.clone();
+        }
+        final Random random = new Random(SEED);
+        final int[] membership = new int[graph.size()];
+        for (int node = 0; node < membership.length; node++) {
+            membership[node] = node;
+        }
+        Graph level = graph;
+        int[] communities = initialCommunities.clone();
+        renumber(communities);
+        for (int iteration = 0; context == null || !context.isStopRequested(iteration); iteration++) {
+            final int communitiesCount;
+            try {
+                moveNodes(level, communities, random);
+                communitiesCount = renumber(communities);
+            } catch (ProcessCanceledException e) {
+                // moves are applied one by one, so the communities are still a valid partition
+                if (context.isStopRequested(iteration)) {
+                    break;
+                }
+                throw e;
+            }
+            if (communitiesCount == level.size()) {
+                break;
+            }
+            final int[] refined = refine(level, communities, communitiesCount, random);
+            final int refinedCount = renumber(refined);
+            if (refinedCount == level.size()) {
+                // aggregation wouldn't merge anything, so local moving can't improve the partition anymore
+                break;
+            }
+            final int[] aggregatedCommunities = new int[refinedCount];
+            for (int node = 0; node < refined.length; node++) {
+                aggregatedCommunities[refined[node]] = communities[node];
+            }
+            level = aggregate(level, refined, refinedCount);
+            for (int node = 0; node < membership.length; node++) {
+                membership[node] = refined[membership[node]];
+            }
+            communities = aggregatedCommunities;
+            if (context != null) {
+                context.getTrace().count("levels", 1);
+                reportProgress(0.1 + 0.9 * (1 - (double) level.size() / graph.size()), context);
+            }
+            LOGGER.info("Finish level. " + level.size() + " nodes, " + communitiesCount + " communities");
+        }
+        final int[] result = new int[membership.length];
+        for (int node = 0; node < membership.length; node++) {
+            result[node] = communities[membership[node]];
+        }
+        return result;
+    }
+
+    /**
+     * Moves nodes between communities while modularity grows. Nodes are processed in batches: the first batch is
+     * all nodes in random order, the next one consists of the neighbors of moved nodes which ended up outside
+     * of the new community. Large batches are evaluated in parallel against the state before the batch, and then
+     * every proposed move is checked against the current state before it is applied.
+     */
+    private void moveNodes(Graph graph, int[] communities, Random random) {
+        final int size = graph.size();
+        final double[] communityDegrees = new double[size];
+        for (int node = 0; node < size; node++) {
+            communityDegrees[communities[node]] += graph.degrees[node];
+        }
+        final boolean[] queued = new boolean[size];
+        TIntArrayList batch = new TIntArrayList(size);
+        for (int node : shuffledNodes(size, random)) {
+            batch.add(node);
+            queued[node] = true;
+        }
+        final Scratch scratch = new Scratch(size);
+        final int[] proposals = new int[size];
+        long moves = 0;
+        while (!batch.isEmpty()) {
+            final boolean parallel = context != null && batch.size() >= PARALLEL_BATCH_SIZE;
+            if (parallel) {
+                final List<Integer> batchNodes = new ArrayList<>(batch.size());
+                for (int i = 0; i < batch.size(); i++) {
+                    batchNodes.add(batch.get(i));
+                }
+                runParallel(batchNodes, context, () -> new Scratch(size), (node, taskScratch) -> {
+                    proposals[node] = bestCommunity(graph, node, communities, communityDegrees, taskScratch);
+                    return taskScratch;
+                }, (first, second) -> first);
+            } else if (context != null) {
+                context.checkCanceled();
+            }
+            final TIntArrayList nextBatch = new TIntArrayList();
+            for (int i = 0; i < batch.size(); i++) {
+                final int node = batch.get(i);
+                queued[node] = false;
+                final int current = communities[node];
+                final int target;
+                if (parallel) {
+                    target = proposals[node];
+                    if (target == current || !isImprovement(graph, node, target, communities, communityDegrees)) {
+                        continue;
+                    }
+                } else {
+                    target = bestCommunity(graph, node, communities, communityDegrees, scratch);
+                    if (target == current) {
+                        continue;
+                    }
+                }
+                communityDegrees[current] -= graph.degrees[node];
+                communityDegrees[target] += graph.degrees[node];
+                communities[node] = target;
+                moves++;
+                for (int edge = graph.offsets[node]; edge < graph.offsets[node + 1]; edge++) {
+                    final int neighbor = graph.targets[edge];
+                    if (!queued[neighbor] && communities[neighbor] != target) {
+                        queued[neighbor] = true;
+                        nextBatch.add(neighbor);
+                    }
+                }
+            }
+            batch = nextBatch;
+        }
+        if (context != null) {
+            context.getTrace().count("moves", moves);
+        }
+    }
+
+    /**
+     * Modularity gain of moving a node into community c, up to a constant factor, is
+     * {@code k(node, c) - degree(node) * degree(c) / (2m)}, where {@code k(node, c)} is the weight of the edges
+     * between the node and c and {@code degree(c)} doesn't include the node itself.
+     */
+    private static int bestCommunity(Graph graph, int node, int[] communities, double[] communityDegrees,
+                                     Scratch scratch) {
+        final int current = communities[node];
+        final double degree = graph.degrees[node];
+        for (int edge = graph.offsets[node]; edge < graph.offsets[node + 1]; edge++) {
+            scratch.add(communities[graph.targets[edge]], graph.weights[edge]);
+        }
+        int best = current;
+        double bestGain = scratch.weights[current]
+                - degree * (communityDegrees[current] - degree) / graph.totalDegree;
+        for (int i = 0; i < scratch.touched.size(); i++) {
+            final int community = scratch.touched.get(i);
+            final double gain = scratch.weights[community]
+                    - degree * communityDegrees[community] / graph.totalDegree;
+            if (gain > bestGain) {
+                best = community;
+                bestGain = gain;
+            }
+        }
+        scratch.clear();
+        return best;
+    }
+
+    private static boolean isImprovement(Graph graph, int node, int target, int[] communities,
+                                         double[] communityDegrees) {
+        final int current = communities[node];
+        final double degree = graph.degrees[node];
+        double toCurrent = 0;
+        double toTarget = 0;
+        for (int edge = graph.offsets[node]; edge < graph.offsets[node + 1]; edge++) {
+            final int community = communities[graph.targets[edge]];
+            if (community == current) {
+                toCurrent += graph.weights[edge];
+            } else if (community == target) {
+                toTarget += graph.weights[edge];
+            }
+        }
+        return toTarget - degree * communityDegrees[target] / graph.totalDegree
+                > toCurrent - degree * (communityDegrees[current] - degree) / graph.totalDegree;
+    }
+
+    /**
+     * Splits every community into subcommunities. Each node which is still a singleton and is well connected
+     * to the rest of its community joins the well-connected subcommunity of the same community with the largest
+     * positive modularity gain, so the subcommunities are connected and never span two communities.
+     */
+    private int[] refine(Graph graph, int[] communities, int communitiesCount, Random random) {
+        final int size = graph.size();
+        final double totalDegree = graph.totalDegree;
+        final double[] communityDegrees = new double[communitiesCount];
+        for (int node = 0; node < size; node++) {
+            communityDegrees[communities[node]] += graph.degrees[node];
+        }
+        final int[] refined = new int[size];
+        final int[] refinedSizes = new int[size];
+        final double[] refinedDegrees = graph.degrees.clone();
+        // weight of the edges between a subcommunity and the rest of its community
+        final double[] externalWeights = new double[size];
+        for (int node = 0; node < size; node++) {
+            refined[node] = node;
+            refinedSizes[node] = 1;
+            for (int edge = graph.offsets[node]; edge < graph.offsets[node + 1]; edge++) {
+                if (communities[graph.targets[edge]] == communities[node]) {
+                    externalWeights[node] += graph.weights[edge];
+                }
+            }
+        }
+        final Scratch scratch = new Scratch(size);
+        for (int node : shuffledNodes(size, random)) {
+            final int community = communities[node];
+            final double degree = graph.degrees[node];
+            if (refinedSizes[refined[node]] != 1
+                    || externalWeights[node] < degree * (communityDegrees[community] - degree) / totalDegree) {
+                continue;
+            }
+            for (int edge = graph.offsets[node]; edge < graph.offsets[node + 1]; edge++) {
+                final int neighbor = graph.targets[edge];
+                if (communities[neighbor] == community) {
+                    scratch.add(refined[neighbor], graph.weights[edge]);
+                }
+            }
+            int best = node;
+            double bestGain = 0;
+            double bestWeight = 0;
+            for (int i = 0; i < scratch.touched.size(); i++) {
+                final int candidate = scratch.touched.get(i);
+                final double candidateDegree = refinedDegrees[candidate];
+                if (candidate == node || externalWeights[candidate]
+                        < candidateDegree * (communityDegrees[community] - candidateDegree) / totalDegree) {
+                    continue;
+                }
+                final double gain = scratch.weights[candidate] - degree * candidateDegree / totalDegree;
+                if (gain > bestGain) {
+                    best = candidate;
+                    bestGain = gain;
+                    bestWeight = scratch.weights[candidate];
+                }
+            }
+            scratch.clear();
+            if (best != node) {
+                refined[node] = best;
+                refinedSizes[node]--;
+                refinedSizes[best]++;
+                refinedDegrees[best] += degree;
+                externalWeights[best] += externalWeights[node] - 2 * bestWeight;
+            }
+        }
+        return refined;
+    }
+
+    /**
+     * @return graph whose nodes are the given groups of nodes. Edges inside a group are dropped: they don't change
+     * when nodes of the new graph move, while the degrees of the nodes still count them.
+     */
+    private static Graph aggregate(Graph graph, int[] groups, int groupsCount) {
+        final int[] memberOffsets = new int[groupsCount + 1];
+        for (int group : groups) {
+            memberOffsets[group + 1]++;
+        }
+        for (int group = 0; group < groupsCount; group++) {
+            memberOffsets[group + 1] += memberOffsets[group];
+        }
+        final int[] members = new int[groups.length];
+        final int[] positions = Arrays.copyOf(memberOffsets, groupsCount);
+        for (int node = 0; node < groups.length; node++) {
+            members[positions[groups[node]]++] = node;
+        }
+        final int[] offsets = new int[groupsCount + 1];
+        final TIntArrayList targets = new TIntArrayList();
+        final TDoubleArrayList weights = new TDoubleArrayList();
+        final double[] degrees = new double[groupsCount];
+        final Scratch scratch = new Scratch(groupsCount);
+        for (int group = 0; group < groupsCount; group++) {
+            for (int i = memberOffsets[group]; i < memberOffsets[group + 1]; i++) {
+                final int node = members[i];
+                degrees[group] += graph.degrees[node];
+                for (int edge = graph.offsets[node]; edge < graph.offsets[node + 1]; edge++) {
+                    final int neighborGroup = groups[graph.targets[edge]];
+                    if (neighborGroup != group) {
+                        scratch.add(neighborGroup, graph.weights[edge]);
+                    }
+                }
+            }
+            for (int i = 0; i < scratch.touched.size(); i++) {
+                final int neighborGroup = scratch.touched.get(i);
+                targets.add(neighborGroup);
+                weights.add(scratch.weights[neighborGroup]);
+            }
+            scratch.clear();
+            offsets[group + 1] = targets.size();
+        }
+        return new Graph(offsets, targets.toNativeArray(), weights.toNativeArray(), degrees, graph.totalDegree);
+    }
+
+    /**
+     * Replaces non-negative ids with dense ones, keeping the order of first occurrence.
+     *
+     * @return number of distinct ids.
+     */
+    private static int renumber(int[] ids) {
+        int maxId = -1;
+        for (int id : ids) {
+            maxId = Math.max(maxId, id);
+        }
+        final int[] newIds = new int[maxId + 1];
+        Arrays.fill(newIds, -1);
+        int count = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (newIds[ids[i]] == -1) {
+                newIds[ids[i]] = count++;
+            }
+            ids[i] = newIds[ids[i]];
+        }
+        return count;
+    }
+
+    private static int[] shuffledNodes(int size, Random random) {
+        final int[] nodes = new int[size];
+        for (int i = 0; i < size; i++) {
+            final int j = random.nextInt(i + 1);
+            nodes[i] = nodes[j];
+            nodes[j] = i;
+        }
+        return nodes;
+    }
+
+    /**
+     * Sums of edge weights per community, cleared after each use in time proportional to the communities touched.
+     */
+    private static final class Scratch {
+        private final double[] weights;
+        private final TIntArrayList touched = new TIntArrayList();
+
+        Scratch(int size) {
+            weights = new double[size];
+        }
+
+        void add(int community, double weight) {
+            if (weights[community] == 0) {
+                touched.add(community);
+            }
+            weights[community] += weight;
+        }
+
+        void clear() {
+            for (int i = 0; i < touched.size(); i++) {
+                weights[touched.get(i)] = 0;
+            }
+            touched.resetQuick();
+        }
+    }
+
+    /**
+     * Undirected weighted graph in compressed sparse row form: the neighbors of node {@code i} are
+     * {@code targets[offsets[i]..offsets[i + 1])} with edge weights in the parallel {@code weights} array.
+     * Degrees of aggregated nodes include the weight of the edges inside them.
+     */
+    static final class Graph {
+        private final int[] offsets;
+        private final int[] targets;
+        private final double[] weights;
+        private final double[] degrees;
+        private final double totalDegree;
+
+        private Graph(int[] offsets, int[] targets, double[] weights, double[] degrees, double totalDegree) {
+            this.offsets = offsets;
+            this.targets = targets;
+            this.weights = weights;
+            this.degrees = degrees;
+            this.totalDegree = totalDegree;
+        }
+
+        static long edge(int first, int second) {
+            return first < second ? ((long) first << 32) | second : ((long) second << 32) | first;
+        }
+
+        /**
+         * @param edges edges created by {@link #edge(int, int)}, duplicates are merged into one edge of weight 1.
+         */
+        static Graph build(int size, long[] edges) {
+            final long[] sorted = edges.clone();
+            Arrays.sort(sorted);
+            int unique = 0;
+            for (int i = 0; i < sorted.length; i++) {
+                if (i == 0 || sorted[i] != sorted[i - 1]) {
+                    sorted[unique++] = sorted[i];
+                }
+            }
+            final int[] offsets = new int[size + 1];
+            for (int i = 0; i < unique; i++) {
+                offsets[(int) (sorted[i] >>> 32) + 1]++;
+                offsets[(int) sorted[i] + 1]++;
+            }
+            final double[] degrees = new double[size];
+            for (int node = 0; node < size; node++) {
+                degrees[node] = offsets[node + 1];
+                offsets[node + 1] += offsets[node];
+            }
+            final int[] targets = new int[2 * unique];
+            final double[] weights = new double[2 * unique];
+            Arrays.fill(weights, 1);
+            final int[] positions = Arrays.copyOf(offsets, size);
+            for (int i = 0; i < unique; i++) {
+                final int first = (int) (sorted[i] >>> 32);
+                final int second = (int) sorted[i];
+                targets[positions[first]++] = second;
+                targets[positions[second]++] = first;
+            }
+            return new Graph(offsets, targets, weights, degrees, 2 * unique);
+        }
+
+        int size() {
+            return degrees.length;
+        }
+
+        int getEdgesCount() {
+            return targets.length / 2;
+        }
+    }
+}
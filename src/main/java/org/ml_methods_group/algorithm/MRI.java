@@ -64,7 +64,7 @@ public class MRI extends Algorithm {
         for (Entity currentEntity : units) {
             context.checkCanceled();
             final Holder minHolder = runParallel(classes, context, Holder::new,
-                    (candidate, holder) -> getNearestClass(currentEntity, candidate, holder), this::min);
+                    (candidate, holder) -> getNearestClass(context, currentEntity, candidate, holder), this::min);
             progress++;
             reportProgress((double) progress / units.size(), context);
             if (minHolder.candidate == null) {
@@ -90,8 +90,9 @@ public class MRI extends Algorithm {
     }
 
     @Nullable
-    private Holder getNearestClass(Entity entity, ClassEntity targetClass, Holder holder) {
-        final double distance = entity.distance(targetClass);
+    private Holder getNearestClass(ExecutionContext context, Entity entity, ClassEntity targetClass,
+                                   Holder holder) {
+        final double distance = context.distance(entity, targetClass);
         if (holder.distance > distance) {
             holder.difference = holder.distance - distance;
             holder.distance = distance;
@@ -16,12 +16,15 @@
 
 package org.ml_methods_group.algorithm.entity;
 
-import com.intellij.psi.PsiClass;
 import com.sixrr.metrics.MetricCategory;
 
 public class ClassEntity extends Entity {
-    ClassEntity(PsiClass psiClass) {
-        super(psiClass);
+    ClassEntity(String name) {
+        super(name);
+    }
+
+    public ClassEntity(String name, RelevantProperties relevantProperties, double[] vector) {
+        super(name, relevantProperties, vector, true);
     }
 
     private ClassEntity(ClassEntity original) {
@@ -16,13 +16,11 @@
 
 package org.ml_methods_group.algorithm.entity;
 
-import com.intellij.psi.PsiElement;
 import com.sixrr.metrics.Metric;
 import com.sixrr.metrics.MetricCategory;
 import com.sixrr.metrics.metricModel.MetricsRun;
 import com.sixrr.stockmetrics.classMetrics.NumAttributesAddedMetric;
 import com.sixrr.stockmetrics.classMetrics.NumMethodsClassMetric;
-import org.ml_methods_group.utils.PsiSearchUtil;
 
 import java.util.Arrays;
 import java.util.HashSet;
@@ -57,11 +55,25 @@ public abstract class Entity {
     private double[] vector;
     protected boolean isMovable = true;
 
-    public Entity(PsiElement element) {
-        this.name = PsiSearchUtil.getHumanReadableName(element);
+    public Entity(String name) {
+        this.name = name;
         relevantProperties = new RelevantProperties();
     }
 
+    /**
+     * Creates an entity with precalculated properties and vector, without a metrics run.
+     * The vector must have {@link #getVectorDimension()} components.
+     */
+    protected Entity(String name, RelevantProperties relevantProperties, double[] vector, boolean isMovable) {
+        if (vector.length != DIMENSION) {
+            throw new IllegalArgumentException("Vector dimension should be " + DIMENSION + ", got " + vector.length);
+        }
+        this.name = name;
+        this.relevantProperties = relevantProperties;
+        this.vector = Arrays.copyOf(vector, DIMENSION);
+        this.isMovable = isMovable;
+    }
+
     protected Entity(Entity original) {
         relevantProperties = original.relevantProperties.copy();
         name = original.name;
@@ -73,6 +85,13 @@ public abstract class Entity {
         vector = getCalculatorForEntity().calculateVector(metricsRun, this);
     }
 
+    /**
+     * @return the vector of the entity, null if it wasn't calculated yet.
+     */
+    double[] getVector() {
+        return vector;
+    }
+
     private double square(double value) {
         return value * value;
     }
@@ -130,6 +149,10 @@ public abstract class Entity {
         throw new UnsupportedOperationException("Such type of entity isn't supported: " + getClass());
     }
 
+    public static int getVectorDimension() {
+        return DIMENSION;
+    }
+
     public static Set<Class<? extends Metric>> getRequestedMetrics() {
         final Set<Class<? extends Metric>> result = new HashSet<>();
         result.addAll(CLASS_ENTITY_CALCULATOR.getRequestedMetrics());
@@ -0,0 +1,478 @@
+/*
+ * Copyright 2017 Machine Learning Methods in Software Engineering Group of JetBrains Research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ml_methods_group.algorithm.entity;
+
+import com.intellij.analysis.AnalysisScope;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.project.Project;
+import com.sixrr.metrics.MetricCategory;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Entities found by {@link EntitySearcher}, grouped by the file they were declared in. Every file record keeps
+ * the modification stamp of the file, the stamps of the files its properties were resolved against and
+ * the properties added while the file was visited, in visiting order. When the records of unchanged files are
+ * replayed in the same order, the entities get exactly the properties a new search would give them, so only
+ * changed files have to be searched again. The properties of an entity also depend on the other entities of
+ * the scope, so the cache keeps the paths of the files in the scope and is only reused by a search of the same files.
+ * <p>
+ * The records are stored in a compact binary form: all names are written once to a string table and referenced
+ * by variable length indices. Entity vectors of the last search are stored too, which makes the file usable
+ * without a project (see {@link #toSearchResult()}), e.g. as input of the algorithm benchmarks.
+ */
+public class EntitySearchCache {
+    private static final int MAGIC = 0x41524543;
+    private static final int VERSION = 2;
+
+    static final byte CLASS_ENTITY = 0;
+    static final byte METHOD_ENTITY = 1;
+    static final byte FIELD_ENTITY = 2;
+
+    static final byte CLASS_PROPERTY = 0;
+    static final byte METHOD_PROPERTY = 1;
+    static final byte FIELD_PROPERTY = 2;
+    static final byte OVERRIDE_PROPERTY = 3;
+
+    private final String strategyName;
+    private final Set<String> scopeFiles;
+    private final Map<String, FileRecord> records = new LinkedHashMap<>();
+
+    EntitySearchCache(String strategyName, Collection<String> scopeFiles) {
+        this.strategyName = strategyName;
+        this.scopeFiles = new TreeSet<>(scopeFiles);
+    }
+
+    /**
+     * @return the file the entities found in the given scope of the project are cached in between IDE sessions.
+     * Each scope gets its own file, so searches in different scopes don't discard each other's cache.
+     */
+    public static File getDefaultFile(@NotNull Project project, @NotNull AnalysisScope scope) {
+        final String scopeKey = Integer.toHexString((scope.getScopeType() + ":" + scope.getDisplayName()).hashCode());
+        return new File(PathManager.getSystemPath(), "ArchitectureReloaded" + File.separator
+                + project.getLocationHash() + File.separator + "entities-" + scopeKey + ".bin");
+    }
+
+    /**
+     * @return name of the finder strategy the properties were found with, properties found with another strategy
+     * can't be reused.
+     */
+    public String getStrategyName() {
+        return strategyName;
+    }
+
+    /**
+     * @return paths of the files in the scope of the search.
+     */
+    Set<String> getScopeFiles() {
+        return Collections.unmodifiableSet(scopeFiles);
+    }
+
+    /**
+     * @return true if the records of the given cache were found by the same strategy in the same scope, so that
+     * this search may reuse the ones which are still valid.
+     */
+    boolean canReuse(EntitySearchCache previous) {
+        return strategyName.equals(previous.strategyName) && scopeFiles.equals(previous.scopeFiles);
+    }
+
+    FileRecord startFile(String path, long timeStamp, long length) {
+        final FileRecord record = new FileRecord(path, timeStamp, length);
+        records.put(path, record);
+        return record;
+    }
+
+    void addRecord(FileRecord record) {
+        records.put(record.path, record);
+    }
+
+    @Nullable
+    FileRecord getRecord(String path) {
+        return records.get(path);
+    }
+
+    Collection<FileRecord> getRecords() {
+        return Collections.unmodifiableCollection(records.values());
+    }
+
+    /**
+     * Selects the records which can be reused. A record is valid if its file and all files it depends on still have
+     * the stamps they had when the record was written. Resolution in an unchanged file is assumed to change only
+     * when one of the files it resolved into changes.
+     *
+     * @param currentStamps {@code [timeStamp, length]} of every file in the scope of the new search.
+     */
+    Map<String, FileRecord> findValidRecords(Map<String, long[]> currentStamps) {
+        final Map<String, FileRecord> result = new HashMap<>();
+        for (FileRecord record : records.values()) {
+            if (!record.isUpToDate(currentStamps)) {
+                continue;
+            }
+            final boolean valid = record.dependencies.entrySet().stream()
+                    .allMatch(dependency -> matches(dependency.getValue(), currentStamps.get(dependency.getKey())));
+            if (valid) {
+                result.put(record.path, record);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Restores the entities with the stored vectors. Entities which had no vector are skipped, like
+     * {@link EntitySearcher} skips entities it failed to calculate vectors for.
+     */
+    public EntitySearchResult toSearchResult() {
+        final Map<String, RelevantProperties> properties = new HashMap<>();
+        for (FileRecord record : records.values()) {
+            for (EntityRecord entity : record.entities) {
+                properties.put(key(entity.category, entity.name), new RelevantProperties());
+            }
+        }
+        for (FileRecord record : records.values()) {
+            for (Contribution contribution : record.contributions) {
+                final RelevantProperties target = properties.get(key(contribution.targetCategory, contribution.target));
+                if (target != null) {
+                    addProperty(target, contribution.kind, contribution.property, contribution.weight);
+                }
+            }
+        }
+        final List<ClassEntity> classes = new ArrayList<>();
+        final List<MethodEntity> methods = new ArrayList<>();
+        final List<FieldEntity> fields = new ArrayList<>();
+        for (FileRecord record : records.values()) {
+            for (EntityRecord entity : record.entities) {
+                final double[] vector = entity.getVector();
+                if (vector == null) {
+                    continue;
+                }
+                final RelevantProperties entityProperties = properties.get(key(entity.category, entity.name));
+                switch (entity.category) {
+                    case CLASS_ENTITY:
+                        classes.add(new ClassEntity(entity.name, entityProperties, vector));
+                        break;
+                    case METHOD_ENTITY:
+                        methods.add(new MethodEntity(entity.name, entityProperties, vector, entity.movable));
+                        break;
+                    default:
+                        fields.add(new FieldEntity(entity.name, entityProperties, vector, entity.movable));
+                        break;
+                }
+            }
+        }
+        return new EntitySearchResult(classes, methods, fields, 0);
+    }
+
+    /**
+     * Files with unsaved changes are stored with a negative time stamp, so they never match.
+     */
+    private static boolean matches(long[] stamp, @Nullable long[] currentStamp) {
+        return currentStamp != null && stamp[0] >= 0 && stamp[0] == currentStamp[0] && stamp[1] == currentStamp[1];
+    }
+
+    static void addProperty(RelevantProperties properties, byte kind, String name, int weight) {
+        switch (kind) {
+            case CLASS_PROPERTY:
+                properties.addClass(name, weight);
+                break;
+            case METHOD_PROPERTY:
+                properties.addMethod(name, weight);
+                break;
+            case FIELD_PROPERTY:
+                properties.addField(name, weight);
+                break;
+            case OVERRIDE_PROPERTY:
+                properties.addOverrideMethod(name, weight);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown property kind: " + kind);
+        }
+    }
+
+    static byte categoryOf(Entity entity) {
+        final MetricCategory category = entity.getCategory();
+        if (category == MetricCategory.Class) {
+            return CLASS_ENTITY;
+        } else if (category == MetricCategory.Method) {
+            return METHOD_ENTITY;
+        }
+        return FIELD_ENTITY;
+    }
+
+    /**
+     * @return key of the entity which doesn't clash with entities of other categories having the same name.
+     */
+    static String key(byte category, String name) {
+        return category + ":" + name;
+    }
+
+    public void write(@NotNull File file) throws IOException {
+        final File parent = file.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Could not create directory " + parent.getAbsolutePath());
+        }
+        final StringTable strings = new StringTable();
+        scopeFiles.forEach(strings::add);
+        for (FileRecord record : records.values()) {
+            record.collectStrings(strings);
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(strategyName);
+            writeVarInt(out, strings.names.size());
+            for (String name : strings.names) {
+                out.writeUTF(name);
+            }
+            writeVarInt(out, scopeFiles.size());
+            for (String path : scopeFiles) {
+                writeVarInt(out, strings.indexOf(path));
+            }
+            writeVarInt(out, records.size());
+            for (FileRecord record : records.values()) {
+                record.write(out, strings);
+            }
+        }
+    }
+
+    public static EntitySearchCache read(@NotNull File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(file.getAbsolutePath() + " is not an entities file");
+            }
+            final int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported entities file version: " + version);
+            }
+            final String strategyName = in.readUTF();
+            final String[] names = new String[readVarInt(in)];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = in.readUTF();
+            }
+            final List<String> scopeFiles = new ArrayList<>();
+            final int scopeFilesCount = readVarInt(in);
+            for (int i = 0; i < scopeFilesCount; i++) {
+                scopeFiles.add(names[readVarInt(in)]);
+            }
+            final EntitySearchCache cache = new EntitySearchCache(strategyName, scopeFiles);
+            final int recordsCount = readVarInt(in);
+            for (int i = 0; i < recordsCount; i++) {
+                cache.addRecord(FileRecord.read(in, names));
+            }
+            return cache;
+        } catch (EOFException | IndexOutOfBoundsException e) {
+            throw new IOException(file.getAbsolutePath() + " is corrupted", e);
+        }
+    }
+
+    static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            final byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable length integer");
+    }
+
+    private static class StringTable {
+        private final Map<String, Integer> indices = new HashMap<>();
+        private final List<String> names = new ArrayList<>();
+
+        void add(String name) {
+            if (!indices.containsKey(name)) {
+                indices.put(name, names.size());
+                names.add(name);
+            }
+        }
+
+        int indexOf(String name) {
+            return indices.get(name);
+        }
+    }
+
+    static class FileRecord {
+        final String path;
+        final long timeStamp;
+        final long length;
+        final Map<String, long[]> dependencies = new LinkedHashMap<>();
+        final List<String> classes = new ArrayList<>();
+        final List<EntityRecord> entities = new ArrayList<>();
+        final List<Contribution> contributions = new ArrayList<>();
+
+        FileRecord(String path, long timeStamp, long length) {
+            this.path = path;
+            this.timeStamp = timeStamp;
+            this.length = length;
+        }
+
+        boolean isUpToDate(Map<String, long[]> currentStamps) {
+            return matches(new long[]{timeStamp, length}, currentStamps.get(path));
+        }
+
+        private void collectStrings(StringTable strings) {
+            strings.add(path);
+            dependencies.keySet().forEach(strings::add);
+            classes.forEach(strings::add);
+            for (EntityRecord entity : entities) {
+                strings.add(entity.name);
+            }
+            for (Contribution contribution : contributions) {
+                strings.add(contribution.target);
+                strings.add(contribution.property);
+            }
+        }
+
+        private void write(DataOutputStream out, StringTable strings) throws IOException {
+            writeVarInt(out, strings.indexOf(path));
+            out.writeLong(timeStamp);
+            out.writeLong(length);
+            writeVarInt(out, dependencies.size());
+            for (Map.Entry<String, long[]> dependency : dependencies.entrySet()) {
+                writeVarInt(out, strings.indexOf(dependency.getKey()));
+                out.writeLong(dependency.getValue()[0]);
+                out.writeLong(dependency.getValue()[1]);
+            }
+            writeVarInt(out, classes.size());
+            for (String aClass : classes) {
+                writeVarInt(out, strings.indexOf(aClass));
+            }
+            writeVarInt(out, entities.size());
+            for (EntityRecord entity : entities) {
+                out.writeByte(entity.category);
+                writeVarInt(out, strings.indexOf(entity.name));
+                out.writeBoolean(entity.movable);
+                final double[] vector = entity.getVector();
+                if (vector == null) {
+                    writeVarInt(out, 0);
+                } else {
+                    writeVarInt(out, vector.length);
+                    for (double value : vector) {
+                        out.writeDouble(value);
+                    }
+                }
+            }
+            writeVarInt(out, contributions.size());
+            for (Contribution contribution : contributions) {
+                out.writeByte(contribution.targetCategory);
+                writeVarInt(out, strings.indexOf(contribution.target));
+                out.writeByte(contribution.kind);
+                writeVarInt(out, strings.indexOf(contribution.property));
+                writeVarInt(out, contribution.weight);
+            }
+        }
+
+        private static FileRecord read(DataInputStream in, String[] names) throws IOException {
+            final FileRecord record = new FileRecord(names[readVarInt(in)], in.readLong(), in.readLong());
+            final int dependenciesCount = readVarInt(in);
+            for (int i = 0; i < dependenciesCount; i++) {
+                record.dependencies.put(names[readVarInt(in)], new long[]{in.readLong(), in.readLong()});
+            }
+            final int classesCount = readVarInt(in);
+            for (int i = 0; i < classesCount; i++) {
+                record.classes.add(names[readVarInt(in)]);
+            }
+            final int entitiesCount = readVarInt(in);
+            for (int i = 0; i < entitiesCount; i++) {
+                final byte category = in.readByte();
+                final String name = names[readVarInt(in)];
+                final boolean movable = in.readBoolean();
+                final int dimension = readVarInt(in);
+                double[] vector = null;
+                if (dimension != 0) {
+                    vector = new double[dimension];
+                    for (int j = 0; j < dimension; j++) {
+                        vector[j] = in.readDouble();
+                    }
+                }
+                record.entities.add(new EntityRecord(category, name, movable, vector));
+            }
+            final int contributionsCount = readVarInt(in);
+            for (int i = 0; i < contributionsCount; i++) {
+                final byte targetCategory = in.readByte();
+                final String target = names[readVarInt(in)];
+                final byte kind = in.readByte();
+                final String property = names[readVarInt(in)];
+                record.contributions.add(new Contribution(targetCategory, target, kind, property, readVarInt(in)));
+            }
+            return record;
+        }
+    }
+
+    static class EntityRecord {
+        final byte category;
+        final String name;
+        final boolean movable;
+        @Nullable
+        private final double[] vector;
+        @Nullable
+        private Entity entity;
+
+        EntityRecord(byte category, String name, boolean movable, @Nullable double[] vector) {
+            this.category = category;
+            this.name = name;
+            this.movable = movable;
+            this.vector = vector;
+        }
+
+        EntityRecord(Entity entity) {
+            this(categoryOf(entity), entity.getName(), entity.isMovable(), null);
+            this.entity = entity;
+        }
+
+        /**
+         * Binds the record to the entity restored from it, so the vector calculated for the entity is written
+         * when the cache is saved again.
+         */
+        void setEntity(@Nullable Entity entity) {
+            this.entity = entity;
+        }
+
+        @Nullable
+        double[] getVector() {
+            return entity != null ? entity.getVector() : vector;
+        }
+    }
+
+    static class Contribution {
+        final byte targetCategory;
+        final String target;
+        final byte kind;
+        final String property;
+        final int weight;
+
+        Contribution(byte targetCategory, String target, byte kind, String property, int weight) {
+            this.targetCategory = targetCategory;
+            this.target = target;
+            this.kind = kind;
+            this.property = property;
+            this.weight = weight;
+        }
+    }
+}
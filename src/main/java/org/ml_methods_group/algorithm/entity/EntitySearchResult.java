@@ -16,8 +16,11 @@
 
 package org.ml_methods_group.algorithm.entity;
 
+import org.ml_methods_group.algorithm.ExecutionTrace;
+
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 public class EntitySearchResult {
@@ -26,13 +29,21 @@ public class EntitySearchResult {
     private final List<FieldEntity> fields;
     private final int propertiesCount;
     private final long searchTime;
+    private final ExecutionTrace trace;
+    private SimilarityGraph similarityGraph;
 
     public EntitySearchResult(List<ClassEntity> classes, List<MethodEntity> methods, List<FieldEntity> fields,
                               long searchTime) {
+        this(classes, methods, fields, searchTime, new ExecutionTrace());
+    }
+
+    public EntitySearchResult(List<ClassEntity> classes, List<MethodEntity> methods, List<FieldEntity> fields,
+                              long searchTime, ExecutionTrace trace) {
         this.classes = classes;
         this.methods = methods;
         this.fields = fields;
         this.searchTime = searchTime;
+        this.trace = trace;
         propertiesCount = Stream.of(classes, methods, fields)
                 .flatMap(List::stream)
                 .map(Entity::getRelevantProperties)
@@ -59,4 +70,29 @@ public class EntitySearchResult {
     public long getSearchTime() {
         return searchTime;
     }
+
+    /**
+     * @return time spent in the phases of the search, including the metrics calculation it was based on.
+     */
+    public ExecutionTrace getTrace() {
+        return trace;
+    }
+
+    /**
+     * Returns the similarity graph of these entities. The graph is built by the factory only if no graph with
+     * at least the given cutoff was built before, so all algorithms run on the same result share one graph.
+     */
+    public synchronized SimilarityGraph getSimilarityGraph(double cutoff, Supplier<SimilarityGraph> factory) {
+        if (similarityGraph == null || similarityGraph.getCutoff() < cutoff) {
+            similarityGraph = factory.get();
+        }
+        return similarityGraph;
+    }
+
+    /**
+     * Drops the similarity graph, the next request builds it again.
+     */
+    public synchronized void releaseSimilarityGraph() {
+        similarityGraph = null;
+    }
 }
@@ -17,38 +17,66 @@
 package org.ml_methods_group.algorithm.entity;
 
 import com.intellij.analysis.AnalysisScope;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
 import com.intellij.openapi.progress.EmptyProgressIndicator;
 import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.*;
 import com.intellij.psi.util.PsiUtil;
 import com.sixrr.metrics.metricModel.MetricsRun;
 import com.sixrr.metrics.utils.MethodUtils;
+import com.sixrr.metrics.utils.SymbolTable;
+import com.sixrr.stockmetrics.utils.TypeHierarchyIndex;
+import gnu.trove.TIntHashSet;
 import org.apache.log4j.Logger;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.Nullable;
+import org.ml_methods_group.algorithm.ExecutionTrace;
+import org.ml_methods_group.algorithm.entity.EntitySearchCache.Contribution;
+import org.ml_methods_group.algorithm.entity.EntitySearchCache.EntityRecord;
+import org.ml_methods_group.algorithm.entity.EntitySearchCache.FileRecord;
 import org.ml_methods_group.algorithm.properties.finder_strategy.FinderStrategy;
 import org.ml_methods_group.algorithm.properties.finder_strategy.NewStrategy;
 import org.ml_methods_group.config.Logging;
-import org.ml_methods_group.utils.PSIUtil;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
 
-import static org.ml_methods_group.utils.PsiSearchUtil.getHumanReadableName;
+import static org.ml_methods_group.algorithm.entity.EntitySearchCache.*;
 
 public class EntitySearcher {
 
     private static final Logger LOGGER = Logging.getLogger(EntitySearcher.class);
 
-    private final Map<String, PsiClass> classForName = new HashMap<>();
+    private final TIntHashSet projectClasses = new TIntHashSet();
     private final Map<PsiElement, Entity> entities = new HashMap<>();
     private final AnalysisScope scope;
     private final long startTime;
     private final FinderStrategy strategy;
     private final ProgressIndicator indicator;
+    private final SymbolTable symbols;
+    private final ExecutionTrace trace;
+    private TypeHierarchyIndex hierarchy;
 
-    private EntitySearcher(AnalysisScope scope) {
+    @Nullable
+    private final File cacheFile;
+    @Nullable
+    private EntitySearchCache newCache;
+    @Nullable
+    private FileRecord currentRecord;
+    private final Map<String, long[]> currentStamps = new HashMap<>();
+    private final Map<String, FileRecord> validRecords = new HashMap<>();
+    private final Set<String> restoredClasses = new HashSet<>();
+    private final List<Entity> restoredEntities = new ArrayList<>();
+    private final Map<String, Entity> entitiesByKey = new HashMap<>();
+
+    private EntitySearcher(AnalysisScope scope, SymbolTable symbols, ExecutionTrace trace, @Nullable File cacheFile) {
         this.scope = scope;
+        this.symbols = symbols;
+        this.trace = trace;
+        this.cacheFile = cacheFile;
         strategy = NewStrategy.getInstance();
         startTime = System.currentTimeMillis();
         if (ProgressManager.getInstance().hasProgressIndicator()) {
@@ -59,22 +87,101 @@ public class EntitySearcher {
     }
 
     public static EntitySearchResult analyze(AnalysisScope scope, MetricsRun metricsRun) {
-        final EntitySearcher finder = new EntitySearcher(scope);
-        return finder.runCalculations(metricsRun);
+        return analyze(scope, metricsRun, new ExecutionTrace());
+    }
+
+    /**
+     * Same as {@link #analyze(AnalysisScope, MetricsRun)}, but records the time of each search phase to the
+     * given trace. The trace is available from the result afterwards.
+     */
+    public static EntitySearchResult analyze(AnalysisScope scope, MetricsRun metricsRun, ExecutionTrace trace) {
+        return analyze(scope, metricsRun, trace, null);
+    }
+
+    /**
+     * Same as {@link #analyze(AnalysisScope, MetricsRun, ExecutionTrace)}, but reuses the entities of unchanged
+     * files stored in the given {@link EntitySearchCache} file and writes the entities found to it afterwards.
+     * A missing or unreadable file is ignored. Vectors are always calculated from the given metrics run.
+     */
+    public static EntitySearchResult analyze(AnalysisScope scope, MetricsRun metricsRun, ExecutionTrace trace,
+                                             @Nullable File cacheFile) {
+        final SymbolTable symbols = metricsRun.getSymbolTable();
+        final EntitySearcher finder = new EntitySearcher(scope, symbols, trace, cacheFile);
+        try {
+            return finder.runCalculations(metricsRun);
+        } finally {
+            symbols.releaseMembers();
+        }
     }
 
     private EntitySearchResult runCalculations(MetricsRun metricsRun) {
         indicator.pushState();
         indicator.setText("Searching entities");
         indicator.setIndeterminate(true);
+        if (cacheFile != null) {
+            trace.measure("entity cache loading", this::loadCache);
+        }
         LOGGER.info("Indexing entities...");
-        scope.accept(new UnitsFinder());
+        trace.measure("units finder", () -> scope.accept(new UnitsFinder()));
+        if (strategy.processSupers()) {
+            hierarchy = TypeHierarchyIndex.create(scope.getProject());
+        }
         indicator.setIndeterminate(false);
         LOGGER.info("Calculating properties...");
         indicator.setText("Calculating properties");
-        scope.accept(new PropertiesCalculator());
+        trace.measure("properties calculation", () -> scope.accept(new PropertiesCalculator()));
         indicator.popState();
-        return prepareResult(metricsRun);
+        final EntitySearchResult result = trace.measure("vector calculation", () -> prepareResult(metricsRun));
+        if (cacheFile != null) {
+            trace.measure("entity cache saving", this::saveCache);
+            trace.count("cached files", validRecords.size());
+        }
+        trace.count("entities", result.getClasses().size() + result.getMethods().size() + result.getFields().size());
+        trace.count("properties", result.getPropertiesCount());
+        trace.recordHeapPeak();
+        return result;
+    }
+
+    private void loadCache() {
+        scope.accept(file -> {
+            currentStamps.put(file.getPath(), getStamp(file));
+            return true;
+        });
+        newCache = new EntitySearchCache(strategy.getClass().getName(), currentStamps.keySet());
+        if (cacheFile == null || !cacheFile.exists()) {
+            return;
+        }
+        try {
+            final EntitySearchCache cache = EntitySearchCache.read(cacheFile);
+            if (newCache.canReuse(cache)) {
+                validRecords.putAll(cache.findValidRecords(currentStamps));
+            }
+            LOGGER.info("Reusing entities of " + validRecords.size() + " unchanged files");
+        } catch (IOException e) {
+            LOGGER.warn("Failed to read entities cache: " + e.getMessage());
+        }
+    }
+
+    private void saveCache() {
+        if (cacheFile == null || newCache == null) {
+            return;
+        }
+        try {
+            newCache.write(cacheFile);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to write entities cache: " + e.getMessage());
+        }
+    }
+
+    private static long[] getStamp(VirtualFile file) {
+        final boolean unsaved = FileDocumentManager.getInstance().isFileModified(file);
+        return new long[]{unsaved ? -1 : file.getTimeStamp(), file.getLength()};
+    }
+
+    @Nullable
+    private static String getPath(@Nullable PsiFile file) {
+        final VirtualFile virtualFile = file == null ? null : file.getVirtualFile();
+        return virtualFile == null ? null : virtualFile.getPath();
     }
 
     private EntitySearchResult prepareResult(MetricsRun metricsRun) {
@@ -83,7 +190,9 @@ public class EntitySearcher {
         final List<MethodEntity> methods = new ArrayList<>();
         final List<FieldEntity> fields = new ArrayList<>();
         final List<Entity> validEntities = new ArrayList<>();
-        for (Entity entity : entities.values()) {
+        final List<Entity> allEntities = new ArrayList<>(entities.values());
+        allEntities.addAll(restoredEntities);
+        for (Entity entity : allEntities) {
             indicator.checkCanceled();
             try {
                 entity.calculateVector(metricsRun);
@@ -108,7 +217,13 @@ public class EntitySearcher {
         LOGGER.info("Generated " + classes.size() + " class entities");
         LOGGER.info("Generated " + methods.size() + " method entities");
         LOGGER.info("Generated " + fields.size() + " field entities");
-        return new EntitySearchResult(classes, methods, fields, System.currentTimeMillis() - startTime);
+        return new EntitySearchResult(classes, methods, fields, System.currentTimeMillis() - startTime, trace);
+    }
+
+    @Nullable
+    private FileRecord findValidRecord(PsiFile file) {
+        final String path = getPath(file);
+        return path == null ? null : validRecords.get(path);
     }
 
     private class UnitsFinder extends JavaRecursiveElementVisitor {
@@ -117,19 +232,29 @@ public class EntitySearcher {
         public void visitFile(PsiFile file) {
             indicator.checkCanceled();
             if (strategy.acceptFile(file)) {
+                final FileRecord cachedRecord = findValidRecord(file);
+                if (cachedRecord != null) {
+                    restoreEntities(cachedRecord);
+                    return;
+                }
                 LOGGER.info("Indexing " + file.getName());
+                currentRecord = startRecord(file);
                 super.visitFile(file);
+                currentRecord = null;
             }
         }
 
         @Override
         public void visitClass(PsiClass aClass) {
             indicator.checkCanceled();
-            classForName.put(getHumanReadableName(aClass), aClass);
+            projectClasses.add(symbols.getId(aClass));
+            if (currentRecord != null) {
+                currentRecord.classes.add(symbols.getName(aClass));
+            }
             if (!strategy.acceptClass(aClass)) {
                 return;
             }
-            entities.put(aClass, new ClassEntity(aClass));
+            addEntity(aClass, new ClassEntity(symbols.getName(aClass)));
             super.visitClass(aClass);
         }
 
@@ -139,7 +264,7 @@ public class EntitySearcher {
                 return;
             }
             indicator.checkCanceled();
-            entities.put(field, new FieldEntity(field));
+            addEntity(field, new FieldEntity(field, symbols.getName(field)));
             super.visitField(field);
         }
 
@@ -149,9 +274,51 @@ public class EntitySearcher {
                 return;
             }
             indicator.checkCanceled();
-            entities.put(method, new MethodEntity(method));
+            addEntity(method, new MethodEntity(method, symbols.getName(method)));
             super.visitMethod(method);
         }
+
+        private void addEntity(PsiMember member, Entity entity) {
+            entities.put(member, entity);
+            entitiesByKey.putIfAbsent(key(EntitySearchCache.categoryOf(entity), entity.getName()), entity);
+            if (currentRecord != null) {
+                currentRecord.entities.add(new EntityRecord(entity));
+            }
+        }
+
+        @Nullable
+        private FileRecord startRecord(PsiFile file) {
+            final String path = getPath(file);
+            if (newCache == null || path == null) {
+                return null;
+            }
+            final long[] stamp = currentStamps.computeIfAbsent(path, p -> getStamp(file.getVirtualFile()));
+            return newCache.startFile(path, stamp[0], stamp[1]);
+        }
+
+        private void restoreEntities(FileRecord record) {
+            restoredClasses.addAll(record.classes);
+            for (EntityRecord entityRecord : record.entities) {
+                final Entity entity;
+                switch (entityRecord.category) {
+                    case CLASS_ENTITY:
+                        entity = new ClassEntity(entityRecord.name);
+                        break;
+                    case METHOD_ENTITY:
+                        entity = new MethodEntity(entityRecord.name, entityRecord.movable);
+                        break;
+                    default:
+                        entity = new FieldEntity(entityRecord.name, entityRecord.movable);
+                        break;
+                }
+                entityRecord.setEntity(entity);
+                restoredEntities.add(entity);
+                entitiesByKey.putIfAbsent(key(entityRecord.category, entityRecord.name), entity);
+            }
+            if (newCache != null) {
+                newCache.addRecord(record);
+            }
+        }
     }
 
     private class PropertiesCalculator extends JavaRecursiveElementVisitor {
@@ -163,7 +330,32 @@ public class EntitySearcher {
         public void visitFile(PsiFile file) {
             indicator.checkCanceled();
             if (strategy.acceptFile(file)) {
+                final FileRecord cachedRecord = findValidRecord(file);
+                if (cachedRecord != null) {
+                    replayProperties(cachedRecord);
+                    return;
+                }
+                final String path = getPath(file);
+                currentRecord = newCache == null || path == null ? null : newCache.getRecord(path);
                 super.visitFile(file);
+                currentRecord = null;
+            }
+        }
+
+        /**
+         * Adds the properties stored for an unchanged file in the order they were found, so they are merged
+         * with the properties found in other files exactly like in a full search.
+         */
+        private void replayProperties(FileRecord record) {
+            for (Contribution contribution : record.contributions) {
+                final Entity target = entitiesByKey.get(key(contribution.targetCategory, contribution.target));
+                if (target != null) {
+                    EntitySearchCache.addProperty(target.getRelevantProperties(), contribution.kind,
+                            contribution.property, contribution.weight);
+                }
+            }
+            for (int i = 0; i < record.entities.size(); i++) {
+                reportPropertiesCalculated();
             }
         }
 
@@ -175,23 +367,25 @@ public class EntitySearcher {
                 super.visitClass(aClass);
                 return;
             }
-            final RelevantProperties classProperties = entity.getRelevantProperties();
-            classProperties.addClass(aClass, strategy.getWeight(aClass, aClass));
+            addProperty(entity, aClass, CLASS_PROPERTY, aClass, strategy.getWeight(aClass, aClass));
             if (strategy.processSupers()) {
-                for (PsiClass superClass : PSIUtil.getAllSupers(aClass)) {
+                for (PsiClass superClass : hierarchy.getAllSupers(aClass)) {
                     if (superClass.isInterface()) {
-                        classProperties.addClass(superClass, strategy.getWeight(aClass, superClass));
+                        addProperty(entity, aClass, CLASS_PROPERTY, superClass, strategy.getWeight(aClass, superClass));
                     } else {
-                        propertiesFor(superClass).ifPresent(p -> p.addClass(aClass, strategy.getWeight(superClass, aClass)));
+                        addProperty(superClass, CLASS_PROPERTY, aClass, strategy.getWeight(superClass, aClass));
                     }
                 }
+            } else if (currentRecord != null) {
+                // methods of the class are movable only if they don't override, so the supers matter anyway
+                Arrays.stream(aClass.getSupers()).forEach(EntitySearcher.this::dependOn);
             }
             Arrays.stream(aClass.getMethods())
                     .filter(m -> isProperty(aClass, m))
-                    .forEach(m -> classProperties.addMethod(m, strategy.getWeight(aClass, m)));
+                    .forEach(m -> addProperty(entity, aClass, METHOD_PROPERTY, m, strategy.getWeight(aClass, m)));
             Arrays.stream(aClass.getFields())
                     .filter(f -> isProperty(aClass, f))
-                    .forEach(f -> classProperties.addField(f, strategy.getWeight(aClass, f)));
+                    .forEach(f -> addProperty(entity, aClass, FIELD_PROPERTY, f, strategy.getWeight(aClass, f)));
             reportPropertiesCalculated();
             super.visitClass(aClass);
         }
@@ -202,7 +396,8 @@ public class EntitySearcher {
 
         @Contract("null -> false")
         private boolean isClassInProject(final @Nullable PsiClass aClass) {
-            return aClass != null && classForName.containsKey(getHumanReadableName(aClass));
+            return aClass != null && (projectClasses.contains(symbols.getId(aClass))
+                    || !restoredClasses.isEmpty() && restoredClasses.contains(symbols.getName(aClass)));
         }
 
         @Override
@@ -214,20 +409,17 @@ public class EntitySearcher {
                 return;
 
             }
-            final RelevantProperties methodProperties = entity.getRelevantProperties();
-            methodProperties.addMethod(method, strategy.getWeight(method, method));
+            addProperty(entity, method, METHOD_PROPERTY, method, strategy.getWeight(method, method));
             Optional.ofNullable(method.getContainingClass())
-                    .ifPresent(c -> methodProperties.addClass(c, strategy.getWeight(method, c)));
+                    .ifPresent(c -> addProperty(entity, method, CLASS_PROPERTY, c, strategy.getWeight(method, c)));
             if (currentMethod == null) {
                 currentMethod = method;
             }
             if (strategy.processSupers()) {
-                PSIUtil.getAllSupers(method).stream()
-                        .map(entities::get)
-                        .filter(Objects::nonNull)
-                        .forEach(superMethod -> superMethod
-                                .getRelevantProperties()
-                                .addOverrideMethod(method, strategy.getWeight(superMethod, method)));
+                for (PsiMethod superMethod : hierarchy.getAllSuperMethods(method)) {
+                    entityFor(superMethod).ifPresent(superEntity -> addProperty(superEntity, superMethod,
+                            OVERRIDE_PROPERTY, method, strategy.getWeight(superEntity, method)));
+                }
             }
             reportPropertiesCalculated();
             super.visitMethod(method);
@@ -243,14 +435,13 @@ public class EntitySearcher {
             if (currentMethod != null && element instanceof PsiField
                     && isClassInProject(((PsiField) element).getContainingClass()) && strategy.isRelation(expression)) {
                 final PsiField field = (PsiField) element;
-                propertiesFor(currentMethod)
-                        .ifPresent(p -> p.addField(field, strategy.getWeight(currentMethod, field)));
+                addProperty(currentMethod, FIELD_PROPERTY, field, strategy.getWeight(currentMethod, field));
 //                propertiesFor(field)
 //                        .ifPresent(p -> p.addMethod(currentMethod, strategy.getWeight(field, currentMethod)));
                 final PsiClass fieldClass = PsiUtil.resolveClassInType(field.getType());
                 if (isClassInProject(fieldClass)) {
-                    propertiesFor(currentMethod)
-                            .ifPresent(p -> p.addClass(fieldClass, strategy.getWeight(currentMethod, fieldClass)));
+                    addProperty(currentMethod, CLASS_PROPERTY, fieldClass,
+                            strategy.getWeight(currentMethod, fieldClass));
                 }
             }
             super.visitReferenceExpression(expression);
@@ -264,14 +455,14 @@ public class EntitySearcher {
                 super.visitField(field);
                 return;
             }
-            RelevantProperties fieldProperties = entity.getRelevantProperties();
-            fieldProperties.addField(field, strategy.getWeight(field, field));
+            addProperty(entity, field, FIELD_PROPERTY, field, strategy.getWeight(field, field));
             final PsiClass containingClass = field.getContainingClass();
             if (containingClass != null) {
-                fieldProperties.addClass(containingClass, strategy.getWeight(field, containingClass));
+                addProperty(entity, field, CLASS_PROPERTY, containingClass, strategy.getWeight(field, containingClass));
                 final PsiClass fieldClass = PsiUtil.resolveClassInType(field.getType());
                 if (isClassInProject(fieldClass)) {
-                    entities.get(containingClass).getRelevantProperties().addClass(fieldClass, strategy.getWeight(containingClass, fieldClass));
+                    addProperty(containingClass, CLASS_PROPERTY, fieldClass,
+                            strategy.getWeight(containingClass, fieldClass));
                 }
             }
             reportPropertiesCalculated();
@@ -285,11 +476,8 @@ public class EntitySearcher {
             final PsiClass usedClass = called != null ? called.getContainingClass() : null;
             if (currentMethod != null && called != null && isClassInProject(usedClass)
                     && strategy.isRelation(expression)) {
-                propertiesFor(currentMethod)
-                        .ifPresent(p -> {
-                            p.addMethod(called, strategy.getWeight(currentMethod, called));
-                            p.addClass(usedClass, strategy.getWeight(currentMethod, usedClass));
-                        });
+                addProperty(currentMethod, METHOD_PROPERTY, called, strategy.getWeight(currentMethod, called));
+                addProperty(currentMethod, CLASS_PROPERTY, usedClass, strategy.getWeight(currentMethod, usedClass));
             }
             super.visitMethodCallExpression(expression);
         }
@@ -297,13 +485,53 @@ public class EntitySearcher {
         private void reportPropertiesCalculated() {
             propertiesCalculated++;
             if (indicator != null) {
-                indicator.setFraction((double) propertiesCalculated / entities.size());
+                indicator.setFraction((double) propertiesCalculated / (entities.size() + restoredEntities.size()));
             }
         }
     }
 
-    private Optional<RelevantProperties> propertiesFor(PsiElement element) {
-        return Optional.ofNullable(entities.get(element))
-                .map(Entity::getRelevantProperties);
+    private Optional<Entity> entityFor(PsiMember member) {
+        Entity entity = entities.get(member);
+        if (entity == null && !restoredEntities.isEmpty()) {
+            entity = entitiesByKey.get(key(categoryOf(member), symbols.getName(member)));
+        }
+        return Optional.ofNullable(entity);
+    }
+
+    private static byte categoryOf(PsiMember member) {
+        if (member instanceof PsiClass) {
+            return CLASS_ENTITY;
+        } else if (member instanceof PsiMethod) {
+            return METHOD_ENTITY;
+        }
+        return FIELD_ENTITY;
+    }
+
+    private void addProperty(PsiMember owner, byte kind, PsiMember property, int weight) {
+        entityFor(owner).ifPresent(entity -> addProperty(entity, owner, kind, property, weight));
+    }
+
+    /**
+     * Adds the property to the entity of the owner and, if the current file is recorded for the cache, records it
+     * together with the files of the owner and the property. The record of the current file stays valid only
+     * while those files don't change.
+     */
+    private void addProperty(Entity entity, PsiMember owner, byte kind, PsiMember property, int weight) {
+        final String name = symbols.getName(property);
+        EntitySearchCache.addProperty(entity.getRelevantProperties(), kind, name, weight);
+        if (currentRecord != null) {
+            currentRecord.contributions.add(new Contribution(EntitySearchCache.categoryOf(entity), entity.getName(),
+                    kind, name, weight));
+            dependOn(owner);
+            dependOn(property);
+        }
+    }
+
+    private void dependOn(PsiElement element) {
+        final String path = getPath(element.getContainingFile());
+        if (currentRecord != null && path != null && !path.equals(currentRecord.path)
+                && currentStamps.containsKey(path)) {
+            currentRecord.dependencies.put(path, currentStamps.get(path));
+        }
     }
 }
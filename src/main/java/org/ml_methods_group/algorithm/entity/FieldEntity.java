@@ -21,11 +21,20 @@ import com.sixrr.metrics.MetricCategory;
 import com.sixrr.metrics.utils.MethodUtils;
 
 public class FieldEntity extends Entity {
-    FieldEntity(PsiField field) {
-        super(field);
+    FieldEntity(PsiField field, String name) {
+        super(name);
         isMovable = MethodUtils.isStatic(field);
     }
 
+    FieldEntity(String name, boolean isMovable) {
+        super(name);
+        this.isMovable = isMovable;
+    }
+
+    public FieldEntity(String name, RelevantProperties relevantProperties, double[] vector, boolean isMovable) {
+        super(name, relevantProperties, vector, isMovable);
+    }
+
     private FieldEntity(FieldEntity original) {
         super(original);
     }
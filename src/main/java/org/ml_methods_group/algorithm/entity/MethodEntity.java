@@ -23,12 +23,21 @@ import org.ml_methods_group.utils.PSIUtil;
 
 public class MethodEntity extends Entity {
 
-    MethodEntity(PsiMethod method) {
-        super(method);
+    MethodEntity(PsiMethod method, String name) {
+        super(name);
         isMovable = !PSIUtil.isOverriding(method) &&
                 !MethodUtils.isAbstract(method) && !method.isConstructor();
     }
 
+    MethodEntity(String name, boolean isMovable) {
+        super(name);
+        this.isMovable = isMovable;
+    }
+
+    public MethodEntity(String name, RelevantProperties relevantProperties, double[] vector, boolean isMovable) {
+        super(name, relevantProperties, vector, isMovable);
+    }
+
     private MethodEntity(MethodEntity original) {
         super(original);
     }
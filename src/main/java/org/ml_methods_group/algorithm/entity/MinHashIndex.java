@@ -0,0 +1,165 @@
+/*
+ * Copyright 2017 Machine Learning Methods in Software Engineering Group of JetBrains Research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ml_methods_group.algorithm.entity;
+
+import gnu.trove.TIntArrayList;
+import gnu.trove.TIntHashSet;
+import gnu.trove.TLongObjectHashMap;
+import org.ml_methods_group.algorithm.LSHParameters;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Locality-sensitive index of entities by their relevant properties. Each entity gets a weighted MinHash
+ * signature (a property of weight {@code w} counts as {@code w} distinct elements, which matches the weighted
+ * intersection and union used by {@link Entity#distance}), and the signature is split into bands. Entities
+ * sharing all values of some band are candidates for each other, so only candidates have to be compared exactly.
+ * <p>
+ * Entities without properties are never candidates: their distance to anything is infinite anyway.
+ * The index is immutable after construction and may be queried from several threads.
+ */
+public class MinHashIndex {
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private static final int RECALL_SAMPLE_SIZE = 50;
+
+    private final int bands;
+    private final int rows;
+    private final long[] seeds;
+    private final List<TLongObjectHashMap<TIntArrayList>> buckets = new ArrayList<>();
+
+    public MinHashIndex(List<? extends Entity> entities, LSHParameters parameters) {
+        bands = parameters.getBands();
+        rows = parameters.getRows();
+        final Random random = new Random(parameters.getSeed());
+        seeds = new long[bands * rows];
+        for (int i = 0; i < seeds.length; i++) {
+            seeds[i] = random.nextLong();
+        }
+        for (int band = 0; band < bands; band++) {
+            buckets.add(new TLongObjectHashMap<>());
+        }
+        for (int i = 0; i < entities.size(); i++) {
+            final long[] signature = calculateSignature(entities.get(i));
+            if (signature == null) {
+                continue;
+            }
+            for (int band = 0; band < bands; band++) {
+                final TLongObjectHashMap<TIntArrayList> bandBuckets = buckets.get(band);
+                final long key = getBandKey(signature, band);
+                TIntArrayList bucket = bandBuckets.get(key);
+                if (bucket == null) {
+                    bucket = new TIntArrayList(1);
+                    bandBuckets.put(key, bucket);
+                }
+                bucket.add(i);
+            }
+        }
+    }
+
+    /**
+     * @return sorted indices (in the list the index was built from) of the entities sharing a band with the query.
+     * If the query itself was indexed, its own index is included.
+     */
+    public int[] getCandidates(Entity query) {
+        final long[] signature = calculateSignature(query);
+        if (signature == null) {
+            return new int[0];
+        }
+        final TIntHashSet candidates = new TIntHashSet();
+        for (int band = 0; band < bands; band++) {
+            final TIntArrayList bucket = buckets.get(band).get(getBandKey(signature, band));
+            if (bucket != null) {
+                candidates.addAll(bucket.toNativeArray());
+            }
+        }
+        final int[] result = candidates.toArray();
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Estimates which share of the exact answers is found among the candidates. Up to {@value RECALL_SAMPLE_SIZE}
+     * queries evenly spread over the given list are checked.
+     *
+     * @param exactAnswers indices of the indexed entities an exact search would use for the query.
+     * @return recall in [0, 1], or 1 if the sampled queries have no exact answers at all.
+     */
+    public double estimateRecall(List<? extends Entity> queries, Function<Entity, int[]> exactAnswers) {
+        final int step = Math.max(1, queries.size() / RECALL_SAMPLE_SIZE);
+        long expected = 0;
+        long found = 0;
+        for (int i = 0; i < queries.size(); i += step) {
+            final Entity query = queries.get(i);
+            final int[] exact = exactAnswers.apply(query);
+            final int[] candidates = getCandidates(query);
+            expected += exact.length;
+            for (int answer : exact) {
+                if (Arrays.binarySearch(candidates, answer) >= 0) {
+                    found++;
+                }
+            }
+        }
+        return expected == 0 ? 1.0 : (double) found / expected;
+    }
+
+    private long[] calculateSignature(Entity entity) {
+        final long[] signature = new long[seeds.length];
+        Arrays.fill(signature, Long.MAX_VALUE);
+        final boolean[] isEmpty = {true};
+        entity.getRelevantProperties().forEachProperty((kind, name, weight) -> {
+            final long element = hash(kind, name);
+            for (int copy = 0; copy < weight; copy++) {
+                final long value = element + copy * GOLDEN_GAMMA;
+                for (int i = 0; i < seeds.length; i++) {
+                    final long hash = mix(value ^ seeds[i]);
+                    if (hash < signature[i]) {
+                        signature[i] = hash;
+                    }
+                }
+                isEmpty[0] = false;
+            }
+        });
+        return isEmpty[0] ? null : signature;
+    }
+
+    private long getBandKey(long[] signature, int band) {
+        long key = band;
+        for (int row = 0; row < rows; row++) {
+            key = mix(key * GOLDEN_GAMMA + signature[band * rows + row]);
+        }
+        return key;
+    }
+
+    private static long hash(int kind, String name) {
+        long hash = 0xcbf29ce484222325L ^ kind; // FNV-1a
+        for (int i = 0; i < name.length(); i++) {
+            hash ^= name.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+        value = (value ^ (value >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return value ^ (value >>> 33);
+    }
+}
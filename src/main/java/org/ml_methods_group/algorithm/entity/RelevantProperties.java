@@ -16,18 +16,12 @@
 
 package org.ml_methods_group.algorithm.entity;
 
-import com.intellij.psi.PsiClass;
-import com.intellij.psi.PsiField;
-import com.intellij.psi.PsiMethod;
-
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.BinaryOperator;
 
-import static org.ml_methods_group.utils.PsiSearchUtil.getHumanReadableName;
-
 public class RelevantProperties {
 
     private final Map<String, Integer> methods = new HashMap<>();
@@ -41,55 +35,44 @@ public class RelevantProperties {
         methods.remove(method);
     }
 
-    void addMethod(String method) {
-        addMethod(method, DEFAULT_PROPERTY_WEIGHT);
-    }
-
-    void addMethod(PsiMethod method) {
+    public void addMethod(String method) {
         addMethod(method, DEFAULT_PROPERTY_WEIGHT);
     }
 
-    void addMethod(PsiMethod method, Integer weight) {
-        addMethod(getHumanReadableName(method), weight);
-    }
-
-    void addMethod(String method, Integer weight) {
+    public void addMethod(String method, Integer weight) {
         if (methods.getOrDefault(method, 0) < weight) {
             methods.put(method, weight);
             allMethods.put(method, weight);
         }
     }
 
-    void addClass(PsiClass aClass) {
-        addClass(aClass, DEFAULT_PROPERTY_WEIGHT);
+    public void addClass(String name) {
+        addClass(name, DEFAULT_PROPERTY_WEIGHT);
     }
 
-    void addClass(PsiClass aClass, Integer weight) {
-        String name = getHumanReadableName(aClass);
+    public void addClass(String name, Integer weight) {
         if (classes.getOrDefault(name, 0) < weight) {
             classes.put(name, weight);
         }
     }
 
-    void addField(PsiField field) {
-        addField(field, DEFAULT_PROPERTY_WEIGHT);
+    public void addField(String name) {
+        addField(name, DEFAULT_PROPERTY_WEIGHT);
     }
 
-    void addField(PsiField field, Integer weight) {
-        final String name = getHumanReadableName(field);
+    public void addField(String name, Integer weight) {
         if (fields.getOrDefault(name , 0) < weight) {
             fields.put(name, weight);
         }
     }
 
-    void addOverrideMethod(PsiMethod method) {
-        addOverrideMethod(method, DEFAULT_PROPERTY_WEIGHT);
+    public void addOverrideMethod(String name) {
+        addOverrideMethod(name, DEFAULT_PROPERTY_WEIGHT);
     }
 
-    void addOverrideMethod(PsiMethod method, Integer weight) {
-        String name = getHumanReadableName(method);
+    public void addOverrideMethod(String name, Integer weight) {
         if (allMethods.getOrDefault(name, 0) < weight) {
-            allMethods.put(getHumanReadableName(method), weight);
+            allMethods.put(name, weight);
         }
     }
 
@@ -156,6 +139,21 @@ public class RelevantProperties {
         return result;
     }
 
+    /**
+     * Passes every property used by {@link #sizeOfIntersection} to the visitor. Properties of different kinds
+     * may have equal names, so the kind is passed as well.
+     */
+    void forEachProperty(PropertyVisitor visitor) {
+        classes.forEach((name, weight) -> visitor.visit(0, name, weight));
+        allMethods.forEach((name, weight) -> visitor.visit(1, name, weight));
+        fields.forEach((name, weight) -> visitor.visit(2, name, weight));
+    }
+
+    @FunctionalInterface
+    interface PropertyVisitor {
+        void visit(int kind, String name, int weight);
+    }
+
     public RelevantProperties copy() {
         final RelevantProperties copy = new RelevantProperties();
         copy.classes.putAll(classes);
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2017 Machine Learning Methods in Software Engineering Group of JetBrains Research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ml_methods_group.algorithm.entity;
+
+import gnu.trove.TDoubleArrayList;
+import gnu.trove.TIntArrayList;
+import gnu.trove.TIntHashSet;
+import gnu.trove.TObjectIntHashMap;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Distances between the entities of one {@link EntitySearchResult}, kept only for pairs closer than a cutoff.
+ * Entities without a common relevant property are infinitely far from each other, so the pairs to compare are
+ * taken from an inverted index of properties instead of comparing all pairs. Edges are stored in compressed
+ * sparse row form: the neighbors of node {@code i} are {@code targets[offsets[i]..offsets[i + 1])}, sorted
+ * by index, with distances in the parallel {@code weights} array.
+ * <p>
+ * Nodes are numbered in the order classes, methods, fields. The graph is immutable and may be shared by
+ * several algorithms, see {@link EntitySearchResult#getSimilarityGraph}.
+ */
+public class SimilarityGraph {
+    private final List<Entity> nodes;
+    private final TObjectIntHashMap<Entity> indices;
+    private final double cutoff;
+    private final int[] offsets;
+    private final int[] targets;
+    private final double[] weights;
+
+    private SimilarityGraph(List<Entity> nodes, TObjectIntHashMap<Entity> indices, double cutoff,
+                            int[] offsets, int[] targets, double[] weights) {
+        this.nodes = nodes;
+        this.indices = indices;
+        this.cutoff = cutoff;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    public int getNodesCount() {
+        return nodes.size();
+    }
+
+    public int getEdgesCount() {
+        return targets.length / 2;
+    }
+
+    /**
+     * @return only pairs with distance strictly less than the cutoff are present in the graph.
+     */
+    public double getCutoff() {
+        return cutoff;
+    }
+
+    public Entity getEntity(int node) {
+        return nodes.get(node);
+    }
+
+    /**
+     * @return index of the node of the entity, -1 if the entity doesn't belong to the graph.
+     */
+    public int getIndex(Entity entity) {
+        return indices.containsKey(entity) ? indices.get(entity) : -1;
+    }
+
+    public int getDegree(int node) {
+        return offsets[node + 1] - offsets[node];
+    }
+
+    /**
+     * @return the {@code k}-th neighbor of the node, neighbors are sorted by index.
+     */
+    public int getNeighbor(int node, int k) {
+        return targets[offsets[node] + k];
+    }
+
+    /**
+     * @return the distance to the {@code k}-th neighbor of the node.
+     */
+    public double getWeight(int node, int k) {
+        return weights[offsets[node] + k];
+    }
+
+    /**
+     * @return distance between the nodes, {@link Double#POSITIVE_INFINITY} if they are not connected.
+     */
+    public double getDistance(int first, int second) {
+        final int position = Arrays.binarySearch(targets, offsets[first], offsets[first + 1], second);
+        return position < 0 ? Double.POSITIVE_INFINITY : weights[position];
+    }
+
+    /**
+     * Collects the graph row by row, so that the rows can be calculated in parallel. Each row keeps only the
+     * neighbors with greater indices; {@link #build} mirrors them.
+     */
+    public static class Builder {
+        private final List<Entity> nodes = new ArrayList<>();
+        private final TObjectIntHashMap<Entity> indices = new TObjectIntHashMap<>();
+        private final List<Map<String, TIntArrayList>> postings = new ArrayList<>();
+        private final double cutoff;
+
+        public Builder(EntitySearchResult entities, double cutoff) {
+            this.cutoff = cutoff;
+            Stream.of(entities.getClasses(), entities.getMethods(), entities.getFields())
+                    .flatMap(List::stream)
+                    .forEach(entity -> {
+                        indices.put(entity, nodes.size());
+                        nodes.add(entity);
+                    });
+            for (int node = 0; node < nodes.size(); node++) {
+                final int current = node;
+                nodes.get(node).getRelevantProperties().forEachProperty((kind, name, weight) -> {
+                    while (postings.size() <= kind) {
+                        postings.add(new HashMap<>());
+                    }
+                    postings.get(kind).computeIfAbsent(name, key -> new TIntArrayList()).add(current);
+                });
+            }
+        }
+
+        public List<Integer> getNodes() {
+            final List<Integer> result = new ArrayList<>(nodes.size());
+            for (int node = 0; node < nodes.size(); node++) {
+                result.add(node);
+            }
+            return result;
+        }
+
+        /**
+         * Compares the node with all nodes of greater index sharing a property with it. Safe to call from
+         * several threads.
+         *
+         * @param distanceCalls counts the distances calculated for the row.
+         */
+        public Row calculateRow(int node, LongAdder distanceCalls) {
+            final Entity entity = nodes.get(node);
+            final TIntHashSet candidates = new TIntHashSet();
+            entity.getRelevantProperties().forEachProperty((kind, name, weight) -> {
+                final TIntArrayList posting = postings.get(kind).get(name);
+                for (int i = posting.size() - 1; i >= 0 && posting.get(i) > node; i--) {
+                    candidates.add(posting.get(i));
+                }
+            });
+            final int[] sorted = candidates.toArray();
+            Arrays.sort(sorted);
+            final TIntArrayList rowTargets = new TIntArrayList();
+            final TDoubleArrayList rowWeights = new TDoubleArrayList();
+            distanceCalls.add(sorted.length);
+            for (int candidate : sorted) {
+                final double distance = entity.distance(nodes.get(candidate));
+                if (distance < cutoff && distance != Double.POSITIVE_INFINITY) {
+                    rowTargets.add(candidate);
+                    rowWeights.add(distance);
+                }
+            }
+            return new Row(node, rowTargets.toNativeArray(), rowWeights.toNativeArray());
+        }
+
+        public SimilarityGraph build(Collection<Row> rows) {
+            final int nodesCount = nodes.size();
+            final int[] offsets = new int[nodesCount + 1];
+            for (Row row : rows) {
+                offsets[row.node + 1] += row.targets.length;
+                for (int target : row.targets) {
+                    offsets[target + 1]++;
+                }
+            }
+            for (int node = 0; node < nodesCount; node++) {
+                offsets[node + 1] += offsets[node];
+            }
+            final int[] targets = new int[offsets[nodesCount]];
+            final double[] weights = new double[targets.length];
+            final int[] filled = Arrays.copyOf(offsets, nodesCount);
+            final Row[] rowsByNode = new Row[nodesCount];
+            for (Row row : rows) {
+                rowsByNode[row.node] = row;
+            }
+            // visiting rows in order of their nodes keeps every adjacency list sorted
+            for (Row row : rowsByNode) {
+                if (row == null) {
+                    continue;
+                }
+                for (int i = 0; i < row.targets.length; i++) {
+                    final int target = row.targets[i];
+                    targets[filled[target]] = row.node;
+                    weights[filled[target]++] = row.weights[i];
+                }
+                System.arraycopy(row.targets, 0, targets, filled[row.node], row.targets.length);
+                System.arraycopy(row.weights, 0, weights, filled[row.node], row.weights.length);
+                filled[row.node] += row.targets.length;
+            }
+            return new SimilarityGraph(nodes, indices, cutoff, offsets, targets, weights);
+        }
+    }
+
+    public static class Row {
+        private final int node;
+        private final int[] targets;
+        private final double[] weights;
+
+        private Row(int node, int[] targets, double[] weights) {
+            this.node = node;
+            this.targets = targets;
+            this.weights = weights;
+        }
+    }
+}
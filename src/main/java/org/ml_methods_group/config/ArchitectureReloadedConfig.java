@@ -35,6 +35,7 @@ public final class ArchitectureReloadedConfig implements PersistentStateComponen
     private final Set<String> selectedAlgorithms =
             new HashSet<>(Arrays.asList(RefactoringExecutionContext.getAvailableAlgorithms()));
     private boolean isFieldRefactoringAvailable = false;
+    private int timeLimit = 0;
 
     private ArchitectureReloadedConfig() {}
 
@@ -72,4 +73,15 @@ public final class ArchitectureReloadedConfig implements PersistentStateComponen
     public boolean isFieldRefactoringAvailable() {
         return isFieldRefactoringAvailable;
     }
+
+    /**
+     * @return time in seconds after which iterative algorithms stop and show their current results, 0 for no limit.
+     */
+    public int getTimeLimit() {
+        return timeLimit;
+    }
+
+    public void setTimeLimit(int timeLimit) {
+        this.timeLimit = timeLimit;
+    }
 }
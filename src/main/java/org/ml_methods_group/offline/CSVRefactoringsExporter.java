@@ -0,0 +1,73 @@
+/*
+ * Copyright 2017 Machine Learning Methods in Software Engineering Group of JetBrains Research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ml_methods_group.offline;
+
+import org.ml_methods_group.algorithm.AlgorithmResult;
+import org.ml_methods_group.algorithm.Refactoring;
+import org.ml_methods_group.refactoring.RefactoringExecutionContext;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Writes the phase timings followed by the found refactorings, one per line:
+ * <pre>
+ * phase,time
+ * metrics,...
+ * entity search,...
+ * &lt;algorithm&gt;,...
+ *
+ * algorithm,unit,target,accuracy,field
+ * ...
+ * </pre>
+ * Times are in milliseconds.
+ */
+public class CSVRefactoringsExporter implements RefactoringsExporter {
+
+    private final RefactoringExecutionContext context;
+
+    public CSVRefactoringsExporter(RefactoringExecutionContext context) {
+        this.context = context;
+    }
+
+    @Override
+    public void export(PrintWriter writer) throws IOException {
+        writer.println("phase,time");
+        writer.println("metrics," + context.getMetricsCalculationTime());
+        writer.println("entity search," + context.getEntitySearchResult().getSearchTime());
+        for (AlgorithmResult result : context.getAlgorithmResults()) {
+            writer.println(quote(result.getAlgorithmName()) + ',' + result.getExecutionTime());
+        }
+        writer.println();
+        writer.println("algorithm,unit,target,accuracy,field");
+        for (AlgorithmResult result : context.getAlgorithmResults()) {
+            final String algorithm = quote(result.getAlgorithmName());
+            for (Refactoring refactoring : result.getRefactorings()) {
+                writer.print(algorithm);
+                writer.print(',' + quote(refactoring.getUnit()));
+                writer.print(',' + quote(refactoring.getTarget()));
+                writer.print(',' + String.valueOf(refactoring.getAccuracy()));
+                writer.println(',' + String.valueOf(refactoring.isUnitField()));
+            }
+        }
+        writer.flush();
+    }
+
+    static String quote(String value) {
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2017 Machine Learning Methods in Software Engineering Group of JetBrains Research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ml_methods_group.offline;
+
+import com.google.gson.stream.JsonWriter;
+import org.ml_methods_group.algorithm.AlgorithmResult;
+import org.ml_methods_group.algorithm.ExecutionTrace;
+import org.ml_methods_group.algorithm.ExecutionTrace.Phase;
+import org.ml_methods_group.algorithm.entity.EntitySearchResult;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Map.Entry;
+
+/**
+ * Writes the phase breakdown of the entity search and of each algorithm:
+ * <pre>
+ * {"entitySearch": {"phases": [{"name": ..., "time": ..., "count": ...}], "counters": {...}},
+ *  "algorithms": [{"name": ..., "phases": [...], "counters": {...}}]}
+ * </pre>
+ * Times are in milliseconds.
+ */
+public class ExecutionTraceExporter {
+
+    private final EntitySearchResult searchResult;
+    private final List<AlgorithmResult> results;
+
+    public ExecutionTraceExporter(EntitySearchResult searchResult, List<AlgorithmResult> results) {
+        this.searchResult = searchResult;
+        this.results = results;
+    }
+
+    public void export(String fileName) throws IOException {
+        try (PrintWriter writer = new PrintWriter(fileName)) {
+            final JsonWriter json = new JsonWriter(writer);
+            json.setIndent("  ");
+            json.beginObject();
+            json.name("entitySearch");
+            writeTrace(json, searchResult.getTrace());
+            json.name("algorithms").beginArray();
+            for (AlgorithmResult result : results) {
+                json.beginObject();
+                json.name("name").value(result.getAlgorithmName());
+                writeTraceContent(json, result.getTrace());
+                json.endObject();
+            }
+            json.endArray();
+            json.endObject();
+            json.flush();
+            writer.println();
+        }
+    }
+
+    static void writeTrace(JsonWriter json, ExecutionTrace trace) throws IOException {
+        json.beginObject();
+        writeTraceContent(json, trace);
+        json.endObject();
+    }
+
+    /**
+     * Writes the phases and counters of the trace as members of the current JSON object.
+     */
+    static void writeTraceContent(JsonWriter json, ExecutionTrace trace) throws IOException {
+        json.name("phases").beginArray();
+        for (Phase phase : trace.getPhases()) {
+            json.beginObject();
+            json.name("name").value(phase.getName());
+            json.name("time").value(phase.getTime());
+            json.name("count").value(phase.getCount());
+            json.endObject();
+        }
+        json.endArray();
+        json.name("counters").beginObject();
+        for (Entry<String, Long> counter : trace.getCounters().entrySet()) {
+            json.name(counter.getKey()).value(counter.getValue());
+        }
+        json.endObject();
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2017 Machine Learning Methods in Software Engineering Group of JetBrains Research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ml_methods_group.offline;
+
+import com.google.gson.stream.JsonWriter;
+import org.ml_methods_group.algorithm.AlgorithmResult;
+import org.ml_methods_group.algorithm.Refactoring;
+import org.ml_methods_group.refactoring.RefactoringExecutionContext;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Writes the found refactorings together with the time spent on each phase of the search:
+ * <pre>
+ * {"project": ..., "scope": ..., "classes": ..., "methods": ..., "fields": ...,
+ *  "timings": {"metrics": ..., "entitySearch": ..., "algorithms": ..., "total": ...},
+ *  "entitySearch": {"phases": [...], "counters": {...}},
+ *  "algorithms": [{"name": ..., "time": ..., "threads": ..., "partial": ..., "error": ...,
+ *                  "phases": [...], "counters": {...},
+ *                  "refactorings": [{"unit": ..., "target": ..., "accuracy": ..., "field": ...}]}]}
+ * </pre>
+ * Times are in milliseconds. See {@link ExecutionTraceExporter} for the format of phases and counters.
+ */
+public class JSONRefactoringsExporter implements RefactoringsExporter {
+
+    private final RefactoringExecutionContext context;
+
+    public JSONRefactoringsExporter(RefactoringExecutionContext context) {
+        this.context = context;
+    }
+
+    @Override
+    public void export(PrintWriter writer) throws IOException {
+        final JsonWriter json = new JsonWriter(writer);
+        json.setIndent("  ");
+        json.beginObject();
+        json.name("project").value(context.getProject().getName());
+        json.name("scope").value(context.getScope().getDisplayName());
+        json.name("classes").value(context.getClassCount());
+        json.name("methods").value(context.getMethodsCount());
+        json.name("fields").value(context.getFieldsCount());
+        writeTimings(json);
+        json.name("entitySearch");
+        ExecutionTraceExporter.writeTrace(json, context.getEntitySearchResult().getTrace());
+        json.name("algorithms").beginArray();
+        for (AlgorithmResult result : context.getAlgorithmResults()) {
+            writeResult(result, json);
+        }
+        json.endArray();
+        json.endObject();
+        json.flush();
+        writer.println();
+    }
+
+    private void writeTimings(JsonWriter json) throws IOException {
+        final long metricsTime = context.getMetricsCalculationTime();
+        final long searchTime = context.getEntitySearchResult().getSearchTime();
+        long algorithmsTime = 0;
+        for (AlgorithmResult result : context.getAlgorithmResults()) {
+            algorithmsTime += result.getExecutionTime();
+        }
+        json.name("timings").beginObject();
+        json.name("metrics").value(metricsTime);
+        json.name("entitySearch").value(searchTime);
+        json.name("algorithms").value(algorithmsTime);
+        json.name("total").value(metricsTime + searchTime + algorithmsTime);
+        json.endObject();
+    }
+
+    private static void writeResult(AlgorithmResult result, JsonWriter json) throws IOException {
+        json.beginObject();
+        json.name("name").value(result.getAlgorithmName());
+        json.name("time").value(result.getExecutionTime());
+        json.name("threads").value(result.getThreadUsed());
+        json.name("partial").value(result.isPartial());
+        if (!result.isSuccess()) {
+            json.name("error").value(String.valueOf(result.getException()));
+        }
+        ExecutionTraceExporter.writeTraceContent(json, result.getTrace());
+        json.name("refactorings").beginArray();
+        for (Refactoring refactoring : result.getRefactorings()) {
+            json.beginObject();
+            json.name("unit").value(refactoring.getUnit());
+            json.name("target").value(refactoring.getTarget());
+            json.name("accuracy").value(refactoring.getAccuracy());
+            json.name("field").value(refactoring.isUnitField());
+            json.endObject();
+        }
+        json.endArray();
+        json.endObject();
+    }
+}
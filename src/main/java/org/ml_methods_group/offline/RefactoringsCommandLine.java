@@ -0,0 +1,334 @@
+/*
+ * Copyright 2017 Machine Learning Methods in Software Engineering Group of JetBrains Research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ml_methods_group.offline;
+
+import com.intellij.analysis.AnalysisScope;
+import com.intellij.ide.impl.PatchProjectUtil;
+import com.intellij.ide.impl.ProjectUtil;
+import com.intellij.openapi.application.ApplicationInfo;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ApplicationNamesInfo;
+import com.intellij.openapi.application.ApplicationStarter;
+import com.intellij.openapi.application.ex.ApplicationEx;
+import com.intellij.openapi.application.ex.ApplicationInfoEx;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.util.ProgressIndicatorBase;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.psi.PsiDirectory;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.search.GlobalSearchScopesCore;
+import com.intellij.psi.search.scope.packageSet.NamedScope;
+import com.intellij.psi.search.scope.packageSet.NamedScopesHolder;
+import com.sixrr.metrics.profile.MetricsProfile;
+import org.apache.log4j.Logger;
+import org.jetbrains.annotations.Contract;
+import org.kohsuke.args4j.*;
+import org.ml_methods_group.algorithm.AlgorithmConfiguration;
+import org.ml_methods_group.algorithm.ExecutionLimits;
+import org.ml_methods_group.algorithm.LSHParameters;
+import org.ml_methods_group.algorithm.entity.Entity;
+import org.ml_methods_group.algorithm.entity.EntitySearchCache;
+import org.ml_methods_group.config.Logging;
+import org.ml_methods_group.refactoring.RefactoringExecutionContext;
+import org.ml_methods_group.utils.MetricsProfilesUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Searches for refactorings without the UI and writes them, with the time spent on every phase, as JSON or CSV.
+ */
+public class RefactoringsCommandLine implements ApplicationStarter {
+
+    private static final Logger LOGGER = Logging.getLogger(RefactoringsCommandLine.class);
+    private static final String PROFILE_NAME = "refactorings command line";
+
+    @Argument(index = 0, required = true, metaVar = "<project_path>", usage = "the project to search refactorings in")
+    private String projectPath = null;
+
+    @Argument(index = 1, metaVar = "<output_path>",
+            usage = "the path to write the results to, default writes to STDOUT")
+    private String outputPath = null;
+
+    @Option(name = "-d", aliases = "--directory", metaVar = "<path>", forbids = "-s",
+            usage = "directory to search refactorings in, default is the whole project")
+    private String directory = null;
+
+    @Option(name = "-s", aliases = "--scope", metaVar = "<scope_name>", forbids = "-d",
+            usage = "name of scope to search refactorings in, default is the whole project")
+    private String scope = null;
+
+    @Option(name = "-a", aliases = "--algorithms", metaVar = "<names>",
+            usage = "comma separated algorithms to run, default runs all of them")
+    private String algorithms = null;
+
+    @Option(name = "-f", aliases = "--fields", usage = "search for field refactorings too")
+    private boolean fieldRefactorings = false;
+
+    @Option(name = "--lsh", metaVar = "<bands>x<rows>",
+            usage = "compare only MinHash candidate pairs in ARI and HAC, e.g. 20x2; default compares all pairs")
+    private String lsh = null;
+
+    private LSHParameters approximation = null;
+
+    @Option(name = "--time-limit", metaVar = "<seconds>",
+            usage = "stop CCDA, HAC and Leiden after the given time and report their results as partial")
+    private int timeLimit = 0;
+
+    @Option(name = "--max-iterations", metaVar = "<count>",
+            usage = "stop CCDA, HAC and Leiden after the given number of iterations and report their results "
+                    + "as partial")
+    private int maxIterations = 0;
+
+    @Option(name = "--format", metaVar = "json|csv", usage = "format of the results, default is json")
+    private String format = "json";
+
+    @Option(name = "--sweep", metaVar = "<grid>", forbids = {"-a", "--lsh", "--format"},
+            usage = "run every configuration of the grid on one entity search and write a CSV comparison table, " +
+                    "e.g. \"AKMeans:steps=10,25;CCDA:eps=1e-3,5e-4;HAC:lsh=exact,20x2\"")
+    private String sweep = null;
+
+    private List<AlgorithmConfiguration> configurations = null;
+
+    @Option(name = "--sweep-threads", metaVar = "<count>", depends = "--sweep",
+            usage = "number of configurations to run at once, default is the number of processors")
+    private int sweepThreads = Runtime.getRuntime().availableProcessors();
+
+    @Option(name = "--entities", metaVar = "<path>",
+            usage = "file to reuse the entities of unchanged files from and to write the found entities to, " +
+                    "e.g. as input of the algorithm benchmarks; default is the system directory of the IDE")
+    private String entitiesPath = null;
+
+    @Option(name = "-v", aliases = "--verbose", usage = "show more progress information", forbids = "-q")
+    private boolean verbose = false;
+
+    @Option(name = "-q", aliases = "--quiet", usage = "show less information", forbids = "-v")
+    private boolean quiet = false;
+
+    @Option(name = "-h", aliases = "--help", usage = "show this message", help = true)
+    private boolean help = false;
+
+    @Override
+    public String getCommandName() {
+        return "refactorings";
+    }
+
+    private static void printUsage(CmdLineParser parser, PrintStream out) {
+        final String scriptName = ApplicationNamesInfo.getInstance().getScriptName();
+        out.println("Usage: " + scriptName + " refactorings [options] <project_path> [<output_file>]");
+        out.println("Available algorithms: " + String.join(", ", RefactoringExecutionContext.getAvailableAlgorithms()));
+        parser.printUsage(out);
+    }
+
+    @Override
+    public void premain(String[] args) {
+        final ParserProperties properties = ParserProperties.defaults()
+                .withShowDefaults(false)
+                .withOptionSorter(null);
+        final CmdLineParser parser = new CmdLineParser(this, properties);
+        try {
+            parser.parseArgument(Arrays.copyOfRange(args, 1, args.length));
+            if (help) {
+                printUsage(parser, System.out);
+                System.exit(0);
+            }
+            if (!"json".equals(format) && !"csv".equals(format)) {
+                throw new CmdLineException(parser, "Unknown format: " + format);
+            }
+            if (timeLimit < 0 || maxIterations < 0) {
+                throw new CmdLineException(parser, "Limits must not be negative");
+            }
+            if (lsh != null) {
+                try {
+                    approximation = LSHParameters.parse(lsh);
+                } catch (IllegalArgumentException e) {
+                    throw new CmdLineException(parser, "Wrong LSH parameters: " + e.getMessage());
+                }
+            }
+            if (sweep != null) {
+                try {
+                    configurations = AlgorithmConfiguration.parseGrid(sweep);
+                } catch (IllegalArgumentException e) {
+                    throw new CmdLineException(parser, "Wrong sweep grid: " + e.getMessage());
+                }
+                if (sweepThreads <= 0) {
+                    throw new CmdLineException(parser, "Sweep threads must be positive");
+                }
+            }
+        } catch (CmdLineException e) {
+            System.err.println(e.getMessage());
+            printUsage(parser, System.err);
+            System.exit(1);
+        }
+    }
+
+    @Override
+    public void main(String[] args) {
+        if (outputPath != null) {
+            final File parentFile = new File(outputPath).getParentFile();
+            if (parentFile != null && !parentFile.exists()) {
+                error("Could not find directory " + parentFile.getAbsolutePath());
+            }
+        }
+        final List<String> requestedAlgorithms = getRequestedAlgorithms();
+        final ApplicationEx application = (ApplicationEx) ApplicationManager.getApplication();
+        try {
+            final ApplicationInfoEx applicationInfo = (ApplicationInfoEx) ApplicationInfo.getInstance();
+            info("ArchitectureReloaded running on " + applicationInfo.getFullApplicationName());
+            application.doNotSave();
+            info("Opening project...");
+            if (projectPath == null) {
+                projectPath = new File("").getAbsolutePath();
+            }
+            projectPath = projectPath.replace(File.separatorChar, '/');
+            final Project project = ProjectUtil.openOrImport(projectPath, null, false);
+            if (project == null) {
+                error("Unable to open project: " + projectPath);
+            }
+            application.runWriteAction(() -> VirtualFileManager.getInstance().refreshWithoutFileWatcher(false));
+            PatchProjectUtil.patchProject(project);
+            info("Project " + project.getName() + " opened.");
+
+            final AnalysisScope analysisScope = getAnalysisScope(project);
+            final MetricsProfile profile =
+                    MetricsProfilesUtil.createProfile(PROFILE_NAME, Entity.getRequestedMetrics());
+            info("Searching for refactorings");
+            ProgressManager.getInstance().runProcess(() -> {
+                final RefactoringExecutionContext context = new RefactoringExecutionContext(project, analysisScope,
+                        profile, requestedAlgorithms, fieldRefactorings, this::export);
+                context.setApproximation(approximation);
+                context.setLimits(new ExecutionLimits(timeLimit * 1000L, maxIterations, false));
+                context.setConfigurations(configurations, sweepThreads);
+                context.setEntitiesFile(entitiesPath != null ? new File(entitiesPath)
+                        : EntitySearchCache.getDefaultFile(project, analysisScope));
+                context.executeSynchronously();
+            }, new ProgressIndicatorBase() {
+                private int lastPercent = 0;
+
+                @Override
+                public void setText(String text) {
+                    super.setText(text);
+                    trace(text);
+                }
+
+                @Override
+                public void setFraction(double fraction) {
+                    final int percent = (int) (fraction * 100);
+                    if (lastPercent != percent && !isIndeterminate()) {
+                        lastPercent = percent;
+                        trace(getText() + " " + lastPercent + "%");
+                    }
+                }
+            });
+            info("Finished.");
+        } catch (Exception e) {
+            LOGGER.error("Refactorings search failed", e);
+            error(e);
+        }
+        application.exit(true, true);
+    }
+
+    private List<String> getRequestedAlgorithms() {
+        final List<String> available = Arrays.asList(RefactoringExecutionContext.getAvailableAlgorithms());
+        if (algorithms == null) {
+            return available;
+        }
+        final List<String> result = new ArrayList<>();
+        for (String name : algorithms.split(",")) {
+            final String algorithm = name.trim();
+            if (!available.contains(algorithm)) {
+                error("Unknown algorithm: " + algorithm);
+            }
+            result.add(algorithm);
+        }
+        return result;
+    }
+
+    private AnalysisScope getAnalysisScope(Project project) {
+        if (scope != null) {
+            final NamedScope namedScope = NamedScopesHolder.getScope(project, scope);
+            if (namedScope == null) {
+                error("Scope not found: " + scope);
+            }
+            return new AnalysisScope(GlobalSearchScopesCore.filterScope(project, namedScope), project);
+        } else if (directory != null) {
+            directory = directory.replace(File.separatorChar, '/');
+            final VirtualFile vfsDir = LocalFileSystem.getInstance().findFileByPath(directory);
+            if (vfsDir == null) {
+                error("Directory not found: " + directory);
+            }
+            final PsiDirectory psiDirectory = PsiManager.getInstance(project).findDirectory(vfsDir);
+            if (psiDirectory == null) {
+                error("Directory not found: " + directory);
+            }
+            return new AnalysisScope(psiDirectory);
+        }
+        return new AnalysisScope(project);
+    }
+
+    private void export(RefactoringExecutionContext context) {
+        final RefactoringsExporter exporter;
+        if (configurations != null) {
+            exporter = new SweepExporter(context);
+        } else if ("csv".equals(format)) {
+            exporter = new CSVRefactoringsExporter(context);
+        } else {
+            exporter = new JSONRefactoringsExporter(context);
+        }
+        try {
+            if (outputPath == null) {
+                exporter.export(new PrintWriter(System.out, true));
+            } else {
+                exporter.export(outputPath);
+            }
+        } catch (IOException e) {
+            error(e.getMessage());
+        }
+    }
+
+    @Contract("_ -> fail")
+    private static void error(Throwable throwable) {
+        System.err.println(throwable.getMessage());
+        System.exit(1);
+    }
+
+    @Contract("_ -> fail")
+    private static void error(String message) {
+        System.err.println(message);
+        System.exit(1);
+    }
+
+    private void info(String message) {
+        if (!quiet) {
+            System.out.println(message);
+        }
+    }
+
+    private void trace(String message) {
+        if (verbose) {
+            System.out.println(message);
+        }
+    }
+}
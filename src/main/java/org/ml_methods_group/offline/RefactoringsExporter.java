@@ -0,0 +1,31 @@
+/*
+ * Copyright 2017 Machine Learning Methods in Software Engineering Group of JetBrains Research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ml_methods_group.offline;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+public interface RefactoringsExporter {
+
+    default void export(String fileName) throws IOException {
+        try (PrintWriter writer = new PrintWriter(fileName)) {
+            export(writer);
+        }
+    }
+
+    void export(PrintWriter writer) throws IOException;
+}
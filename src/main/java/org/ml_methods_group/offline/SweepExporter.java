@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017 Machine Learning Methods in Software Engineering Group of JetBrains Research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ml_methods_group.offline;
+
+import org.ml_methods_group.algorithm.AlgorithmResult;
+import org.ml_methods_group.algorithm.Refactoring;
+import org.ml_methods_group.refactoring.RefactoringExecutionContext;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Writes the results of a parameter sweep as a comparison table: the shared phases first, then one line per
+ * configuration with its time, number of refactorings and the overlap (Jaccard similarity of the found
+ * refactorings) with every configuration:
+ * <pre>
+ * phase,time
+ * metrics,...
+ * entity search,...
+ *
+ * configuration,time,threads,partial,error,refactorings,&lt;configuration 1&gt;,&lt;configuration 2&gt;,...
+ * ...
+ * </pre>
+ * Times are in milliseconds.
+ */
+public class SweepExporter implements RefactoringsExporter {
+
+    private final RefactoringExecutionContext context;
+
+    public SweepExporter(RefactoringExecutionContext context) {
+        this.context = context;
+    }
+
+    @Override
+    public void export(PrintWriter writer) throws IOException {
+        writer.println("phase,time");
+        writer.println("metrics," + context.getMetricsCalculationTime());
+        writer.println("entity search," + context.getEntitySearchResult().getSearchTime());
+        writer.println();
+        final List<AlgorithmResult> results = context.getAlgorithmResults();
+        final List<Set<Refactoring>> refactorings = new ArrayList<>();
+        writer.print("configuration,time,threads,partial,error,refactorings");
+        for (AlgorithmResult result : results) {
+            writer.print(',' + CSVRefactoringsExporter.quote(result.getAlgorithmName()));
+            refactorings.add(new HashSet<>(result.getRefactorings()));
+        }
+        writer.println();
+        for (int i = 0; i < results.size(); i++) {
+            final AlgorithmResult result = results.get(i);
+            final Exception exception = result.getException();
+            writer.print(CSVRefactoringsExporter.quote(result.getAlgorithmName()));
+            writer.print(',' + String.valueOf(result.getExecutionTime()));
+            writer.print(',' + String.valueOf(result.getThreadUsed()));
+            writer.print(',' + String.valueOf(result.isPartial()));
+            writer.print(',');
+            if (exception != null) {
+                writer.print(CSVRefactoringsExporter.quote(String.valueOf(exception.getMessage())));
+            }
+            writer.print(',' + String.valueOf(refactorings.get(i).size()));
+            for (Set<Refactoring> other : refactorings) {
+                writer.print(',' + String.valueOf(overlap(refactorings.get(i), other)));
+            }
+            writer.println();
+        }
+        writer.flush();
+    }
+
+    static double overlap(Set<Refactoring> first, Set<Refactoring> second) {
+        if (first.isEmpty() && second.isEmpty()) {
+            return 1;
+        }
+        int intersection = 0;
+        for (Refactoring refactoring : first) {
+            if (second.contains(refactoring)) {
+                intersection++;
+            }
+        }
+        return (double) intersection / (first.size() + second.size() - intersection);
+    }
+}
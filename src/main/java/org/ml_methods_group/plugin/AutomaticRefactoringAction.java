@@ -21,6 +21,7 @@ import com.intellij.analysis.BaseAnalysisAction;
 import com.intellij.analysis.BaseAnalysisActionDialog;
 import com.intellij.codeInsight.daemon.DaemonCodeAnalyzer;
 import com.intellij.ide.plugins.PluginManager;
+import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.components.ServiceManager;
 import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.Task;
@@ -32,10 +33,13 @@ import org.apache.log4j.Logger;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.ml_methods_group.algorithm.AlgorithmResult;
+import org.ml_methods_group.algorithm.ExecutionLimits;
 import org.ml_methods_group.algorithm.entity.Entity;
+import org.ml_methods_group.algorithm.entity.EntitySearchCache;
 import org.ml_methods_group.config.ArchitectureReloadedConfig;
 import org.ml_methods_group.config.Logging;
 import org.ml_methods_group.refactoring.RefactoringExecutionContext;
+import org.ml_methods_group.refactoring.RefactoringHighlightingIndex;
 import org.ml_methods_group.ui.AlgorithmsSelectionPanel;
 import org.ml_methods_group.ui.RefactoringsToolWindow;
 import org.ml_methods_group.utils.ArchitectureReloadedBundle;
@@ -45,6 +49,7 @@ import org.ml_methods_group.utils.RefactoringUtil;
 import javax.swing.*;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 public class AutomaticRefactoringAction extends BaseAnalysisAction {
@@ -53,8 +58,10 @@ public class AutomaticRefactoringAction extends BaseAnalysisAction {
     private static final Map<String, ProgressIndicator> processes = new ConcurrentHashMap<>();
 
     private Map<String, Map<String, String>> results = new HashMap<>();
+    private volatile RefactoringHighlightingIndex highlightingIndex = RefactoringHighlightingIndex.EMPTY;
+    private final AtomicInteger highlightingIndexVersion = new AtomicInteger();
 
-    private static final Map<Project, AutomaticRefactoringAction> factory = new HashMap<>();
+    private static final Map<Project, AutomaticRefactoringAction> factory = new ConcurrentHashMap<>();
 
 //    private static ProjectManagerListener listener = new ProjectManagerListener() {
 //        @Override
@@ -81,11 +88,10 @@ public class AutomaticRefactoringAction extends BaseAnalysisAction {
 
     @NotNull
     public static AutomaticRefactoringAction getInstance(@NotNull Project project) {
-        if (!factory.containsKey(project)) {
+        return factory.computeIfAbsent(project, key -> {
             PluginManager.getLogger().info("Creating refactoring action for project " + project.getName());
-            factory.put(project, new AutomaticRefactoringAction());
-        }
-        return factory.get(project);
+            return new AutomaticRefactoringAction();
+        });
     }
 
 //    private static void deleteInstance(@NotNull Project project) {
@@ -99,8 +105,13 @@ public class AutomaticRefactoringAction extends BaseAnalysisAction {
         assert metricsProfile != null;
         final Collection<String> selectedAlgorithms = ArchitectureReloadedConfig.getInstance().getSelectedAlgorithms();
         final boolean isFieldRefactoringAvailable = ArchitectureReloadedConfig.getInstance().isFieldRefactoringAvailable();
-        new RefactoringExecutionContext(project, analysisScope, metricsProfile, selectedAlgorithms, isFieldRefactoringAvailable, this::showDialogs)
-                .executeAsync();
+        final long timeLimit = ArchitectureReloadedConfig.getInstance().getTimeLimit() * 1000L;
+        final RefactoringExecutionContext context = new RefactoringExecutionContext(project, analysisScope,
+                metricsProfile, selectedAlgorithms, isFieldRefactoringAvailable, this::showDialogs);
+        // canceling an interactive search still shows what was found so far
+        context.setLimits(new ExecutionLimits(timeLimit, 0, true));
+        context.setEntitiesFile(EntitySearchCache.getDefaultFile(project, analysisScope));
+        context.executeAsync();
     }
 
     public void analyzeBackground(@NotNull final Project project, @NotNull final AnalysisScope analysisScope,
@@ -109,6 +120,7 @@ public class AutomaticRefactoringAction extends BaseAnalysisAction {
         assert metricsProfile != null;
         final RefactoringExecutionContext context =
                 new RefactoringExecutionContext(project, analysisScope, metricsProfile, this::updateResults);
+        context.setEntitiesFile(EntitySearchCache.getDefaultFile(project, analysisScope));
         processes.computeIfPresent(identifier, (x, process) -> {
             process.cancel();
             return null;
@@ -131,9 +143,35 @@ public class AutomaticRefactoringAction extends BaseAnalysisAction {
     }
 
     private void updateResults(@NotNull RefactoringExecutionContext context) {
+        // the highlighting index locates members in the scope of this search only, so older results are dropped
+        results.clear();
         for (AlgorithmResult result : context.getAlgorithmResults()) {
             results.put(result.getAlgorithmName(), RefactoringUtil.toMap(result.getRefactorings()));
         }
+        final Map<String, Map<String, String>> snapshot = new LinkedHashMap<>();
+        for (String algorithm : RefactoringExecutionContext.getAvailableAlgorithms()) {
+            if (results.containsKey(algorithm)) {
+                snapshot.put(algorithm, new HashMap<>(results.get(algorithm)));
+            }
+        }
+        final int version = highlightingIndexVersion.incrementAndGet();
+        final Project project = context.getProject();
+        ApplicationManager.getApplication().executeOnPooledThread(() -> {
+            final RefactoringHighlightingIndex index = RefactoringHighlightingIndex.build(snapshot, context.getScope());
+            // results of an older search must not replace the newer ones
+            if (version == highlightingIndexVersion.get() && !project.isDisposed()) {
+                highlightingIndex = index;
+                DaemonCodeAnalyzer.getInstance(project).restart();
+            }
+        });
+    }
+
+    /**
+     * @return locations of the last found refactorings, empty until they are located.
+     */
+    @NotNull
+    public RefactoringHighlightingIndex getHighlightingIndex() {
+        return highlightingIndex;
     }
 
 
@@ -22,61 +22,50 @@ import com.intellij.lang.annotation.AnnotationHolder;
 import com.intellij.lang.annotation.Annotator;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.TextRange;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiElement;
-import com.intellij.psi.PsiIdentifier;
+import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiMember;
-import com.intellij.psi.util.PsiTreeUtil;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.annotations.Nullable;
 import org.ml_methods_group.plugin.AutomaticRefactoringAction;
+import org.ml_methods_group.refactoring.RefactoringHighlightingIndex.Suggestion;
 import org.ml_methods_group.utils.PsiSearchUtil;
 
-import java.util.Map;
+import java.util.Collections;
+import java.util.List;
 
 public class RefactoringAnnotator implements Annotator {
     @Override
-    public synchronized void annotate(@NotNull PsiElement psiElement, @NotNull AnnotationHolder annotationHolder) {
+    public void annotate(@NotNull PsiElement psiElement, @NotNull AnnotationHolder annotationHolder) {
+        if (!(psiElement instanceof PsiMember)) {
+            return;
+        }
         final Project project = psiElement.getProject();
-        final AnalysisScope scope = new AnalysisScope(project);
-
-        for (String algorithm : RefactoringExecutionContext.getAvailableAlgorithms()) {
-            try {
-                setAnnotations(psiElement,
-                        algorithm,
-                        AutomaticRefactoringAction.getInstance(project).getRefactoringsForName(algorithm),
-                        annotationHolder, scope);
-            } catch (IllegalArgumentException e) {
-                //ignore
-            }
+        final RefactoringHighlightingIndex index =
+                AutomaticRefactoringAction.getInstance(project).getHighlightingIndex();
+        if (index.isEmpty()) {
+            return;
         }
-    }
-
-    private static void setAnnotations(@NotNull PsiElement element,
-                                       @NotNull String algorithmName,
-                                       final Map<String, String> refactorings,
-                                       @NotNull AnnotationHolder holder,
-                                       @NotNull AnalysisScope scope) {
-        if (refactorings == null || refactorings.isEmpty()) {
+        final PsiFile file = psiElement.getContainingFile();
+        final VirtualFile virtualFile = file == null ? null : file.getVirtualFile();
+        if (virtualFile == null || !index.hasSuggestions(virtualFile)) {
             return;
         }
-        final String name = PsiSearchUtil.getHumanReadableName(element);
-        if (refactorings.containsKey(name)) {
-            final Annotation annotation = holder.createWarningAnnotation(
-                    getAnnotationPart(element),
-                    String.format("Can be moved to %s (%s)",
-                            refactorings.get(name), algorithmName));
-
-            annotation.registerFix(new RefactorIntentionAction(name, refactorings.get(name), scope));
+        final String name = PsiSearchUtil.getHumanReadableName(psiElement);
+        final List<Suggestion> suggestions =
+                name == null ? Collections.emptyList() : index.getSuggestions(virtualFile, name);
+        if (suggestions.isEmpty()) {
+            return;
         }
-    }
-
-    @NotNull
-    private static TextRange getAnnotationPart(@Nullable PsiElement element) {
-        if (element instanceof PsiMember) {
-            final PsiIdentifier identifier = PsiTreeUtil.getChildOfType(element, PsiIdentifier.class);
-            return identifier != null ? identifier.getTextRange() : TextRange.EMPTY_RANGE;
+        final TextRange range = RefactoringHighlightingIndex.getNameRange(psiElement);
+        AnalysisScope scope = null;
+        for (Suggestion suggestion : suggestions) {
+            if (scope == null) {
+                scope = new AnalysisScope(project);
+            }
+            final Annotation annotation = annotationHolder.createWarningAnnotation(range,
+                    String.format("Can be moved to %s (%s)", suggestion.getTarget(), suggestion.getAlgorithm()));
+            annotation.registerFix(new RefactorIntentionAction(name, suggestion.getTarget(), scope));
         }
-        return TextRange.EMPTY_RANGE;
     }
-
 }
@@ -20,6 +20,7 @@ import com.intellij.analysis.AnalysisScope;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.progress.EmptyProgressIndicator;
 import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.progress.Task;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Computable;
@@ -31,20 +32,25 @@ import org.apache.log4j.Logger;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.ml_methods_group.algorithm.*;
+import org.ml_methods_group.algorithm.entity.EntitySearchCache;
 import org.ml_methods_group.algorithm.entity.EntitySearchResult;
 import org.ml_methods_group.algorithm.entity.EntitySearcher;
 import org.ml_methods_group.config.Logging;
 
+import java.io.File;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public class RefactoringExecutionContext {
     private static final Logger LOGGER = Logging.getLogger(RefactoringExecutionContext.class);
 
     private static final List<Class<? extends Algorithm>> ALGORITHMS = Arrays.asList(ARI.class, AKMeans.class,
-            CCDA.class, HAC.class, MRI.class);
+            CCDA.class, HAC.class, MRI.class, Leiden.class);
 
     @NotNull
     private final MetricsRunImpl metricsRun = new MetricsRunImpl();
@@ -62,6 +68,16 @@ public class RefactoringExecutionContext {
     @NotNull
     private final Collection<String> requestedAlgorithms;
     private final boolean isFieldRefactoringAvailable;
+    private long metricsCalculationTime;
+    @Nullable
+    private LSHParameters approximation;
+    @NotNull
+    private ExecutionLimits limits = ExecutionLimits.NONE;
+    @Nullable
+    private List<AlgorithmConfiguration> configurations;
+    private int sweepThreads = 1;
+    @Nullable
+    private File entitiesFile;
 
     public RefactoringExecutionContext(@NotNull Project project, @NotNull AnalysisScope scope,
                                        @NotNull MetricsProfile profile,
@@ -83,6 +99,41 @@ public class RefactoringExecutionContext {
         metricsExecutionContext = new MetricsExecutionContextImpl(project, scope);
     }
 
+    /**
+     * Makes algorithms comparing all pairs of entities compare only MinHash candidates. Must be called before
+     * the execution starts.
+     */
+    public void setApproximation(@Nullable LSHParameters approximation) {
+        this.approximation = approximation;
+    }
+
+    /**
+     * Sets the limits of each algorithm run. If they allow partial results on cancel, canceling the search
+     * skips the remaining algorithms and the continuation still gets the results found so far.
+     */
+    public void setLimits(@NotNull ExecutionLimits limits) {
+        this.limits = limits;
+    }
+
+    /**
+     * Runs the given configurations instead of the requested algorithms, up to {@code threads} of them at once.
+     * Metrics and entities are calculated once and shared by all configurations. Must be called before
+     * the execution starts.
+     */
+    public void setConfigurations(@Nullable List<AlgorithmConfiguration> configurations, int threads) {
+        this.configurations = configurations;
+        sweepThreads = Math.max(1, threads);
+    }
+
+    /**
+     * Sets the {@link EntitySearchCache} file the entities of unchanged files are taken from and the found entities
+     * are written to, null (the default) disables the cache. The IDE actions and the command line use
+     * {@link EntitySearchCache#getDefaultFile} unless another file is given.
+     */
+    public void setEntitiesFile(@Nullable File entitiesFile) {
+        this.entitiesFile = entitiesFile;
+    }
+
     public void executeAsync() {
         Task.Modal task = new Task.Modal(project, "Search For Refactorings", true) {
             @Override
@@ -95,6 +146,13 @@ public class RefactoringExecutionContext {
             public void onSuccess() {
                 RefactoringExecutionContext.this.onFinish();
             }
+
+            @Override
+            public void onCancel() {
+                if (limits.isPartialOnCancel() && !algorithmsResults.isEmpty()) {
+                    RefactoringExecutionContext.this.onFinish();
+                }
+            }
         };
         task.queue();
     }
@@ -105,18 +163,59 @@ public class RefactoringExecutionContext {
     }
 
     private void execute(ProgressIndicator indicator) {
-        metricsExecutionContext.calculateMetrics(profile, metricsRun);
+        final ExecutionTrace trace = new ExecutionTrace();
+        ExecutionTrace.resetHeapPeak();
+        final long metricsStartTime = System.currentTimeMillis();
+        trace.measure("metrics calculation", () -> metricsExecutionContext.calculateMetrics(profile, metricsRun));
+        metricsCalculationTime = System.currentTimeMillis() - metricsStartTime;
         metricsRun.setProfileName(profile.getName());
         metricsRun.setContext(scope);
         metricsRun.setTimestamp(new TimeStamp());
-        entitySearchResult = ApplicationManager.getApplication()
-                .runReadAction((Computable<EntitySearchResult>) () -> EntitySearcher.analyze(scope, metricsRun));
-        for (String algorithm : requestedAlgorithms) {
-            calculateAlgorithmForName(algorithm);
+        entitySearchResult = ApplicationManager.getApplication().runReadAction(
+                (Computable<EntitySearchResult>) () -> EntitySearcher.analyze(scope, metricsRun, trace,
+                        entitiesFile));
+        if (configurations != null) {
+            calculateConfigurations(configurations);
+        } else {
+            for (String algorithm : requestedAlgorithms) {
+                if (limits.isPartialOnCancel() && isCanceled()) {
+                    break;
+                }
+                calculateAlgorithmForName(algorithm);
+            }
         }
         indicator.setText("Finish refactorings search...");
     }
 
+    private void calculateConfigurations(List<AlgorithmConfiguration> configurations) {
+        final int threads = Math.min(sweepThreads, configurations.size());
+        final ExecutorService sweepService = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<AlgorithmResult>> futures = new ArrayList<>();
+            for (AlgorithmConfiguration configuration : configurations) {
+                final Supplier<AlgorithmResult> run = () -> configuration.execute(entitySearchResult,
+                        executorService, isFieldRefactoringAvailable, limits);
+                // the heap peak is JVM-wide, so it can't be told apart for configurations running in parallel
+                futures.add(sweepService.submit(() -> threads == 1 ? withHeapPeak(run) : run.get()));
+            }
+            for (Future<AlgorithmResult> future : futures) {
+                algorithmsResults.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Parameter sweep was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Parameter sweep failed", e.getCause());
+        } finally {
+            sweepService.shutdownNow();
+        }
+    }
+
+
+    private static boolean isCanceled() {
+        final ProgressIndicator indicator = ProgressManager.getInstance().getProgressIndicator();
+        return indicator != null && indicator.isCanceled();
+    }
 
     private void onFinish() {
         if (continuation != null) {
@@ -135,10 +234,21 @@ public class RefactoringExecutionContext {
 
     private void calculate(Class<? extends Algorithm> algorithmClass) {
         final Algorithm algorithm = createInstance(algorithmClass);
-        final AlgorithmResult result = algorithm.execute(entitySearchResult, executorService, isFieldRefactoringAvailable);
+        final AlgorithmResult result = withHeapPeak(() -> algorithm.execute(entitySearchResult, executorService,
+                isFieldRefactoringAvailable, approximation, limits));
         algorithmsResults.add(result);
     }
 
+    /**
+     * Records the peak heap usage during the run in its trace. Only meaningful while no other search runs.
+     */
+    private static AlgorithmResult withHeapPeak(Supplier<AlgorithmResult> run) {
+        ExecutionTrace.resetHeapPeak();
+        final AlgorithmResult result = run.get();
+        result.getTrace().recordHeapPeak();
+        return result;
+    }
+
     private void calculateAlgorithmForName(String algorithm) {
         for (Class<? extends Algorithm> algorithmClass : ALGORITHMS) {
             if (algorithm.equals(algorithmClass.getSimpleName())) {
@@ -163,6 +273,13 @@ public class RefactoringExecutionContext {
         return entitySearchResult;
     }
 
+    /**
+     * @return time in milliseconds spent on calculating the metrics of the entities.
+     */
+    public long getMetricsCalculationTime() {
+        return metricsCalculationTime;
+    }
+
     public int getClassCount() {
         return entitySearchResult.getClasses().size();
     }
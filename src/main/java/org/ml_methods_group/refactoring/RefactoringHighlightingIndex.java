@@ -0,0 +1,135 @@
+/*
+ * Copyright 2017 Machine Learning Methods in Software Engineering Group of JetBrains Research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ml_methods_group.refactoring;
+
+import com.intellij.analysis.AnalysisScope;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiIdentifier;
+import com.intellij.psi.PsiMember;
+import com.intellij.psi.util.PsiTreeUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.ml_methods_group.utils.PsiSearchUtil;
+
+import java.util.*;
+
+/**
+ * Suggested moves by the file and the name of the member to move, used by {@link RefactoringAnnotator}. Files
+ * without suggestions are skipped without calculating the names of their members. The index is built once when
+ * the results of a search arrive and is never modified afterwards, so it can be read by highlighting threads
+ * without locking. Names don't depend on offsets, so members keep their highlighting while the file is edited.
+ */
+public final class RefactoringHighlightingIndex {
+    public static final RefactoringHighlightingIndex EMPTY = new RefactoringHighlightingIndex(Collections.emptyMap());
+
+    private final Map<VirtualFile, Map<String, List<Suggestion>>> suggestions;
+
+    private RefactoringHighlightingIndex(Map<VirtualFile, Map<String, List<Suggestion>>> suggestions) {
+        this.suggestions = suggestions;
+    }
+
+    /**
+     * Locates the members of all refactorings in the scope. Runs a read action.
+     *
+     * @param refactorings targets of moves by the member names for each algorithm, in the order the suggestions
+     *                     should be shown.
+     */
+    public static RefactoringHighlightingIndex build(@NotNull Map<String, Map<String, String>> refactorings,
+                                                     @NotNull AnalysisScope scope) {
+        final Set<String> units = new HashSet<>();
+        refactorings.values().forEach(moves -> units.addAll(moves.keySet()));
+        if (units.isEmpty()) {
+            return EMPTY;
+        }
+        final Map<String, VirtualFile> files =
+                PsiSearchUtil.findAllElements(units, scope, RefactoringHighlightingIndex::getFile);
+        final Map<VirtualFile, Map<String, List<Suggestion>>> suggestions = new HashMap<>();
+        refactorings.forEach((algorithm, moves) -> moves.forEach((unit, target) -> {
+            final VirtualFile file = files.get(unit);
+            if (file == null) {
+                return;
+            }
+            suggestions.computeIfAbsent(file, key -> new HashMap<>())
+                    .computeIfAbsent(unit, key -> new ArrayList<>(1))
+                    .add(new Suggestion(unit, target, algorithm));
+        }));
+        return new RefactoringHighlightingIndex(suggestions);
+    }
+
+    public boolean isEmpty() {
+        return suggestions.isEmpty();
+    }
+
+    public boolean hasSuggestions(@NotNull VirtualFile file) {
+        return suggestions.containsKey(file);
+    }
+
+    /**
+     * @param unit name of a member, see {@link PsiSearchUtil#getHumanReadableName}.
+     */
+    @NotNull
+    public List<Suggestion> getSuggestions(@NotNull VirtualFile file, @NotNull String unit) {
+        final Map<String, List<Suggestion>> fileSuggestions = suggestions.get(file);
+        final List<Suggestion> result = fileSuggestions == null ? null : fileSuggestions.get(unit);
+        return result == null ? Collections.emptyList() : Collections.unmodifiableList(result);
+    }
+
+    /**
+     * @return range of the name identifier of the member, {@link TextRange#EMPTY_RANGE} for other elements.
+     */
+    @NotNull
+    public static TextRange getNameRange(@Nullable PsiElement element) {
+        if (element instanceof PsiMember) {
+            final PsiIdentifier identifier = PsiTreeUtil.getChildOfType(element, PsiIdentifier.class);
+            return identifier != null ? identifier.getTextRange() : TextRange.EMPTY_RANGE;
+        }
+        return TextRange.EMPTY_RANGE;
+    }
+
+    @Nullable
+    private static VirtualFile getFile(PsiElement element) {
+        final PsiFile file = element.getContainingFile();
+        return file == null ? null : file.getVirtualFile();
+    }
+
+    public static class Suggestion {
+        private final String unit;
+        private final String target;
+        private final String algorithm;
+
+        private Suggestion(String unit, String target, String algorithm) {
+            this.unit = unit;
+            this.target = target;
+            this.algorithm = algorithm;
+        }
+
+        public String getUnit() {
+            return unit;
+        }
+
+        public String getTarget() {
+            return target;
+        }
+
+        public String getAlgorithm() {
+            return algorithm;
+        }
+    }
+}
@@ -18,6 +18,7 @@ package org.ml_methods_group.ui;
 
 import com.intellij.ui.TitledSeparator;
 import com.intellij.ui.components.JBCheckBox;
+import com.intellij.ui.components.JBLabel;
 import org.ml_methods_group.config.ArchitectureReloadedConfig;
 import org.ml_methods_group.refactoring.RefactoringExecutionContext;
 import org.ml_methods_group.utils.ArchitectureReloadedBundle;
@@ -66,5 +67,14 @@ public class AlgorithmsSelectionPanel extends JPanel {
         checkBox.addActionListener(e -> config.setFieldRefactoringsAvailable());
         constraints.gridy++;
         add(checkBox, constraints);
+
+        final JPanel timeLimitPanel = new JPanel(new FlowLayout(FlowLayout.LEADING, 0, 0));
+        timeLimitPanel.add(new JBLabel(ArchitectureReloadedBundle.message("time.limit") + " "));
+        final JSpinner timeLimit =
+                new JSpinner(new SpinnerNumberModel(config.getTimeLimit(), 0, Integer.MAX_VALUE, 10));
+        timeLimit.addChangeListener(e -> config.setTimeLimit((Integer) timeLimit.getValue()));
+        timeLimitPanel.add(timeLimit);
+        constraints.gridy++;
+        add(timeLimitPanel, constraints);
     }
 }
@@ -17,6 +17,13 @@
 package org.ml_methods_group.ui;
 
 import com.intellij.analysis.AnalysisScope;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.progress.impl.BackgroundableProcessIndicator;
 import com.intellij.ui.ScrollPaneFactory;
 import com.intellij.ui.TableSpeedSearch;
 import com.intellij.ui.components.JBPanel;
@@ -34,6 +41,8 @@ import java.awt.*;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Predicate;
@@ -42,12 +51,15 @@ import static javax.swing.ListSelectionModel.SINGLE_SELECTION;
 import static org.ml_methods_group.ui.RefactoringsTableModel.ACCURACY_COLUMN_INDEX;
 import static org.ml_methods_group.ui.RefactoringsTableModel.SELECTION_COLUMN_INDEX;
 
-class ClassRefactoringPanel extends JPanel {
+class ClassRefactoringPanel extends JPanel implements Disposable {
     private static final String SELECT_ALL_BUTTON_TEXT_KEY = "select.all.button";
     private static final String DESELECT_ALL_BUTTON_TEXT_KEY = "deselect.all.button";
     private static final String REFACTOR_BUTTON_TEXT_KEY = "refactor.button";
     private static final String EXPORT_BUTTON_TEXT_KEY = "export.button";
+    private static final String LOADING_TEXT_KEY = "refactorings.loading";
+    private static final String LOADING_TASK_TITLE_KEY = "refactorings.loading.task";
     private static final int DEFAULT_THRESHOLD = 80; // percents
+    private static final int LOADING_BATCH_SIZE = 100;
 
     @NotNull
     private final AnalysisScope scope;
@@ -62,19 +74,71 @@ class ClassRefactoringPanel extends JPanel {
     private final JSlider thresholdSlider = new JSlider(0, 100, 0);
     private final JLabel info = new JLabel();
 
-    private final Map<Refactoring, String> warnings;
+    private final Map<Refactoring, String> warnings = new HashMap<>();
     private boolean isFieldDisabled;
     private final List<Refactoring> refactorings;
+    private final ProgressIndicator loadingIndicator;
 
     ClassRefactoringPanel(List<Refactoring> refactorings, @NotNull AnalysisScope scope) {
         this.scope = scope;
         this.refactorings = refactorings;
         setLayout(new BorderLayout());
-        model = new RefactoringsTableModel(RefactoringUtil.filter(refactorings, scope));
-        warnings = RefactoringUtil.getWarnings(refactorings, scope);
+        model = new RefactoringsTableModel(Collections.emptyList());
         isFieldDisabled = false;
-        model.filter(getCurrentPredicate(DEFAULT_THRESHOLD));
         setupGUI();
+        loadingIndicator = startLoading();
+    }
+
+    /**
+     * Validity checks and warnings need PSI of the whole scope, so they are calculated in background.
+     * Valid refactorings are added to the table batch by batch, the threshold is adjusted when all of them are known.
+     */
+    private ProgressIndicator startLoading() {
+        final String emptyText = table.getEmptyText().getText();
+        table.getEmptyText().setText(ArchitectureReloadedBundle.message(LOADING_TEXT_KEY));
+        thresholdSlider.setEnabled(false);
+        doRefactorButton.setEnabled(false);
+        final Task.Backgroundable task = new Task.Backgroundable(scope.getProject(),
+                ArchitectureReloadedBundle.message(LOADING_TASK_TITLE_KEY), true) {
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                RefactoringUtil.validate(refactorings, scope, LOADING_BATCH_SIZE, indicator,
+                        (batch, batchWarnings) -> ApplicationManager.getApplication().invokeLater(
+                                () -> addRefactorings(batch, batchWarnings), ModalityState.any(),
+                                ignored -> indicator.isCanceled()));
+            }
+
+            @Override
+            public void onFinished() {
+                table.getEmptyText().setText(emptyText);
+                thresholdSlider.setValue(getRecommendedThreshold());
+                thresholdSlider.setEnabled(true);
+                doRefactorButton.setEnabled(true);
+            }
+        };
+        final ProgressIndicator indicator = new BackgroundableProcessIndicator(task);
+        ProgressManager.getInstance().runProcessWithProgressAsynchronously(task, indicator);
+        return indicator;
+    }
+
+    private void addRefactorings(List<Refactoring> batch, Map<Refactoring, String> batchWarnings) {
+        warnings.putAll(batchWarnings);
+        model.addRefactorings(batch, getCurrentPredicate(thresholdSlider.getValue()));
+        infoLabel.setText("Total: " + model.getRowCount());
+    }
+
+    private int getRecommendedThreshold() {
+        final double maxAccuracy = model.getRefactorings()
+                .stream()
+                .mapToDouble(Refactoring::getAccuracy)
+                .max()
+                .orElse(1);
+        return (int) (maxAccuracy * 80);
+    }
+
+    @Override
+    public void dispose() {
+        loadingIndicator.cancel();
     }
 
     public void setEnableHighlighting(boolean isEnabled) {
@@ -128,17 +192,11 @@ class ClassRefactoringPanel extends JPanel {
         final JPanel buttonsPanel = new JBPanel<>();
         buttonsPanel.setLayout(new FlowLayout(FlowLayout.RIGHT));
 
-        final double maxAccuracy = model.getRefactorings()
-                .stream()
-                .mapToDouble(Refactoring::getAccuracy)
-                .max()
-                .orElse(1);
-        final int recommendedPercents = (int) (maxAccuracy * 80);
         thresholdSlider.setToolTipText("Accuracy filter");
         thresholdSlider.addChangeListener(e -> {
             refreshTable();
         });
-        thresholdSlider.setValue(recommendedPercents);
+        thresholdSlider.setValue(DEFAULT_THRESHOLD);
         buttonsPanel.add(thresholdSlider);
 
         infoLabel.setText("Total: " + model.getRowCount());
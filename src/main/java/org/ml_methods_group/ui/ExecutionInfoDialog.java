@@ -18,16 +18,23 @@ package org.ml_methods_group.ui;
 
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.DialogWrapper;
+import com.intellij.openapi.ui.Messages;
 import com.intellij.ui.TitledSeparator;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.ml_methods_group.algorithm.AlgorithmResult;
+import org.ml_methods_group.algorithm.ExecutionTrace;
+import org.ml_methods_group.algorithm.ExecutionTrace.Phase;
 import org.ml_methods_group.algorithm.entity.EntitySearchResult;
+import org.ml_methods_group.offline.ExecutionTraceExporter;
 import org.ml_methods_group.utils.ArchitectureReloadedBundle;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.io.IOException;
 import java.util.List;
+import java.util.Map.Entry;
 
 public class ExecutionInfoDialog extends DialogWrapper {
     private final List<AlgorithmResult> results;
@@ -79,6 +86,11 @@ public class ExecutionInfoDialog extends DialogWrapper {
         panel.add(new JLabel("Threads used: " + result.getThreadUsed()), constraints);
         constraints.gridy++;
         panel.add(new JLabel("Refactorings found: " + result.getRefactorings().size()), constraints);
+        if (result.isPartial()) {
+            constraints.gridy++;
+            panel.add(new JLabel("Stopped before convergence, results are partial"), constraints);
+        }
+        addTrace(panel, constraints, result.getTrace());
         return panel;
     }
 
@@ -108,12 +120,49 @@ public class ExecutionInfoDialog extends DialogWrapper {
         panel.add(new JLabel("Fields found: " + result.getFields().size()), constraints);
         constraints.gridy++;
         panel.add(new JLabel("Total number of properties: " + result.getPropertiesCount()), constraints);
+        addTrace(panel, constraints, result.getTrace());
         return panel;
     }
 
+    private static void addTrace(JPanel panel, GridBagConstraints constraints, ExecutionTrace trace) {
+        for (Phase phase : trace.getPhases()) {
+            constraints.gridy++;
+            final String count = phase.getCount() > 1 ? " (" + phase.getCount() + " times)" : "";
+            panel.add(new JLabel("  " + phase.getName() + ": " + phase.getTime() + " ms" + count), constraints);
+        }
+        for (Entry<String, Long> counter : trace.getCounters().entrySet()) {
+            constraints.gridy++;
+            panel.add(new JLabel("  " + counter.getKey() + ": " + counter.getValue()), constraints);
+        }
+    }
+
+    private void export() {
+        final JFileChooser fileChooser = new JFileChooser();
+        if (fileChooser.showSaveDialog(getContentPanel()) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        try {
+            new ExecutionTraceExporter(searchResult, results).export(fileChooser.getSelectedFile().getCanonicalPath());
+        } catch (IOException e) {
+            Messages.showErrorDialog(getContentPanel(), e.getMessage(),
+                    ArchitectureReloadedBundle.message("execution.info.export.failed"));
+        }
+    }
+
     @NotNull
     @Override
     protected Action[] createActions() {
-        return new Action[]{new OkAction(){}};
+        return new Action[]{new ExportAction(), new OkAction(){}};
+    }
+
+    private class ExportAction extends DialogWrapperAction {
+        ExportAction() {
+            super(ArchitectureReloadedBundle.message("execution.info.export.action"));
+        }
+
+        @Override
+        protected void doAction(ActionEvent e) {
+            export();
+        }
     }
 }
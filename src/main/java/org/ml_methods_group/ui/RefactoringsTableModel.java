@@ -50,8 +50,8 @@ public class RefactoringsTableModel extends AbstractTableModel {
 
     private final List<Refactoring> refactorings = new ArrayList<>();
     private final List<Integer> virtualRows = new ArrayList<>();
-    private final boolean[] isSelected;
-    private final boolean[] isActive;
+    private boolean[] isSelected;
+    private boolean[] isActive;
     private boolean enableHighlighting;
 
     RefactoringsTableModel(List<Refactoring> refactorings) {
@@ -63,6 +63,25 @@ public class RefactoringsTableModel extends AbstractTableModel {
                 .forEachOrdered(virtualRows::add);
     }
 
+    /**
+     * Appends refactorings to the model. Only the new refactorings which satisfy the predicate are shown,
+     * rows which are already in the table keep their selection.
+     */
+    void addRefactorings(List<Refactoring> added, Predicate<Refactoring> predicate) {
+        final int firstIndex = refactorings.size();
+        final int firstRow = virtualRows.size();
+        refactorings.addAll(added);
+        isSelected = Arrays.copyOf(isSelected, refactorings.size());
+        isActive = Arrays.copyOf(isActive, refactorings.size());
+        Arrays.fill(isActive, firstIndex, refactorings.size(), true);
+        IntStream.range(firstIndex, refactorings.size())
+                .filter(i -> predicate.test(refactorings.get(i)))
+                .forEachOrdered(virtualRows::add);
+        if (virtualRows.size() > firstRow) {
+            fireTableRowsInserted(firstRow, virtualRows.size() - 1);
+        }
+    }
+
     void selectAll() {
         virtualRows.forEach(i -> isSelected[i] = true);
         fireTableDataChanged();
@@ -87,7 +106,7 @@ public class RefactoringsTableModel extends AbstractTableModel {
     }
 
     List<Refactoring> pullSelected() {
-        final List<Refactoring> result = IntStream.range(0, isSelected.length)
+        final List<Refactoring> result = IntStream.range(0, refactorings.size())
                 .filter(i -> isSelected[i] && isActive[i])
                 .mapToObj(refactorings::get)
                 .collect(Collectors.toList());
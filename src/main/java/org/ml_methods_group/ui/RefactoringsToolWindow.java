@@ -22,6 +22,8 @@ import com.intellij.openapi.Disposable;
 import com.intellij.openapi.actionSystem.*;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.DialogWrapper;
+import com.intellij.openapi.ui.InputValidator;
+import com.intellij.openapi.ui.Messages;
 import com.intellij.openapi.util.IconLoader;
 import com.intellij.openapi.wm.ToolWindow;
 import com.intellij.openapi.wm.ToolWindowAnchor;
@@ -29,6 +31,7 @@ import com.intellij.openapi.wm.ToolWindowManager;
 import com.intellij.ui.content.Content;
 import org.jetbrains.annotations.NotNull;
 import org.ml_methods_group.algorithm.AlgorithmResult;
+import org.ml_methods_group.algorithm.Dendrogram;
 import org.ml_methods_group.algorithm.Refactoring;
 import org.ml_methods_group.algorithm.entity.EntitySearchResult;
 import org.ml_methods_group.utils.ArchitectureReloadedBundle;
@@ -78,6 +81,7 @@ public final class RefactoringsToolWindow implements Disposable {
         final Content content = myToolWindow.getContentManager().getFactory()
                 .createContent(contentPanel, tabName, true);
         content.setCloseable(isClosable);
+        content.setDisposer(panel);
         contents.add(panel);
         myToolWindow.getContentManager().addContent(content);
     }
@@ -85,6 +89,7 @@ public final class RefactoringsToolWindow implements Disposable {
     private ActionToolbar createToolbar() {
         final DefaultActionGroup toolbarGroup = new DefaultActionGroup();
         toolbarGroup.add(new IntersectAction());
+        toolbarGroup.add(new RecutAction());
         toolbarGroup.add(new ColorAction());
         toolbarGroup.add(new InfoAction());
         toolbarGroup.add(new ExcludeFieldRefactoringsAction());
@@ -154,6 +159,59 @@ public final class RefactoringsToolWindow implements Disposable {
         }
     }
 
+    private class RecutAction extends AnAction {
+        RecutAction() {
+            super(ArchitectureReloadedBundle.message("recut.action.text"),
+                    ArchitectureReloadedBundle.message("recut.action.description"),
+                    AllIcons.Actions.Refresh);
+        }
+
+        @Override
+        public void update(AnActionEvent e) {
+            e.getPresentation().setEnabled(results != null
+                    && results.stream().anyMatch(result -> result.getDendrogram() != null));
+        }
+
+        @Override
+        public void actionPerformed(AnActionEvent e) {
+            if (results == null) {
+                return;
+            }
+            final String input = Messages.showInputDialog(project,
+                    ArchitectureReloadedBundle.message("recut.dialog.message"),
+                    ArchitectureReloadedBundle.message("recut.action.text"), null, "1.0", new ThresholdValidator());
+            if (input == null) {
+                return;
+            }
+            final double threshold = Double.parseDouble(input.trim());
+            for (AlgorithmResult result : results) {
+                final Dendrogram dendrogram = result.getDendrogram();
+                if (dendrogram != null) {
+                    final String tabName = ArchitectureReloadedBundle.message("recut.tab.name",
+                            result.getAlgorithmName(), input.trim());
+                    addTab(tabName, dendrogram.getRefactorings(threshold), true);
+                }
+            }
+        }
+    }
+
+    private static class ThresholdValidator implements InputValidator {
+        @Override
+        public boolean checkInput(String inputString) {
+            try {
+                final double threshold = Double.parseDouble(inputString.trim());
+                return threshold > 0 && threshold <= 1;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public boolean canClose(String inputString) {
+            return checkInput(inputString);
+        }
+    }
+
     private class InfoAction extends AnAction {
         InfoAction() {
             super(ArchitectureReloadedBundle.message("info.action.text"),
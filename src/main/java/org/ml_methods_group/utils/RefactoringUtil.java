@@ -19,6 +19,7 @@ package org.ml_methods_group.utils;
 import com.intellij.analysis.AnalysisScope;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.application.TransactionGuard;
+import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.ui.DialogWrapper;
 import com.intellij.openapi.util.Computable;
 import com.intellij.psi.*;
@@ -35,6 +36,7 @@ import org.ml_methods_group.ui.RefactoringsTableModel;
 
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -234,6 +236,41 @@ public final class RefactoringUtil {
         return validRefactorings;
     }
 
+    /**
+     * Filters out refactorings which can't be applied and calculates warnings for the rest, like
+     * {@link #filter} and {@link #getWarnings} together. The scope is walked once, then refactorings are checked
+     * in batches, each under its own read action, so write actions aren't blocked for long. Every non-empty batch
+     * of valid refactorings is passed to the consumer on the calling thread together with their warnings.
+     */
+    public static void validate(@NotNull List<Refactoring> refactorings, @NotNull AnalysisScope scope, int batchSize,
+                                @NotNull ProgressIndicator indicator,
+                                @NotNull BiConsumer<List<Refactoring>, Map<Refactoring, String>> consumer) {
+        final Set<String> allUnits = refactorings.stream()
+                .map(Refactoring::getUnit)
+                .collect(Collectors.toSet());
+        final Map<String, PsiElement> psiElements = PsiSearchUtil.findAllElements(allUnits, scope, Function.identity());
+        for (int from = 0; from < refactorings.size(); from += batchSize) {
+            indicator.checkCanceled();
+            indicator.setFraction((double) from / refactorings.size());
+            final List<Refactoring> batch = refactorings.subList(from, Math.min(from + batchSize, refactorings.size()));
+            final List<Refactoring> valid = new ArrayList<>();
+            final Map<Refactoring, String> warnings = new HashMap<>();
+            ApplicationManager.getApplication().runReadAction(() -> {
+                for (Refactoring refactoring : batch) {
+                    final PsiElement element = psiElements.get(refactoring.getUnit());
+                    if (element != null && element.isValid() && isMovable(element)) {
+                        valid.add(refactoring);
+                        warnings.put(refactoring, getWarning(element, refactoring.getTarget()));
+                    }
+                }
+            });
+            if (!valid.isEmpty()) {
+                consumer.accept(valid, warnings);
+            }
+        }
+        indicator.setFraction(1);
+    }
+
     private static boolean isMovable(PsiElement psiElement) {
         if (psiElement instanceof PsiField) {
             return MethodUtils.isStatic((PsiField) psiElement);
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2005-2017 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.metricModel;
+
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.psi.*;
+import com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase;
+import com.sixrr.metrics.*;
+import com.sixrr.stockmetrics.methodMetrics.NumTimesCalledMetric;
+import com.sixrr.stockmetrics.utils.TypeHierarchyIndex;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class MetricsQueryServiceTest extends LightCodeInsightFixtureTestCase {
+
+    public void testValuesAreCachedUntilTheFileChanges() {
+        final PsiClass aClass = myFixture.addClass("public class A { void a() {} void b() {} }");
+        final MethodCountMetric metric = new MethodCountMetric();
+        final MetricsQueryService service = MetricsQueryService.getInstance(getProject());
+
+        assertEquals(2.0, service.valueOf(metric, aClass), 0.0);
+        assertEquals(2.0, service.valueOf(metric, aClass), 0.0);
+        assertEquals(1, metric.hierarchies.size());
+
+        addMethod(aClass, "void c() {}");
+        assertEquals(3.0, service.valueOf(metric, aClass), 0.0);
+        assertEquals(2, metric.hierarchies.size());
+    }
+
+    public void testTypeHierarchyIsKeptUntilDeclarationsChange() {
+        final PsiClass aClass = myFixture.addClass("public class B { void a() { int x = 0; } }");
+        final MethodCountMetric metric = new MethodCountMetric();
+        final MetricsQueryService service = MetricsQueryService.getInstance(getProject());
+        service.valueOf(metric, aClass);
+
+        final PsiCodeBlock body = aClass.getMethods()[0].getBody();
+        assertNotNull(body);
+        WriteCommandAction.runWriteCommandAction(getProject(), () -> {
+            final PsiElementFactory factory = JavaPsiFacade.getElementFactory(getProject());
+            body.add(factory.createStatementFromText("x++;", body));
+        });
+        service.valueOf(metric, aClass);
+        assertEquals(2, metric.hierarchies.size());
+        assertSame(metric.hierarchies.get(0), metric.hierarchies.get(1));
+
+        addMethod(aClass, "void b() {}");
+        service.valueOf(metric, aClass);
+        assertEquals(3, metric.hierarchies.size());
+        assertNotSame(metric.hierarchies.get(0), metric.hierarchies.get(2));
+    }
+
+    public void testValuesDependingOnOtherFilesFollowTheirEdits() {
+        final PsiClass callee = myFixture.addClass("public class C { public void m() {} }");
+        final PsiClass caller = myFixture.addClass("public class D { void a() { } }");
+        final PsiMethod method = callee.getMethods()[0];
+        final MetricsQueryService service = MetricsQueryService.getInstance(getProject());
+        assertEquals(0.0, service.valueOf(new NumTimesCalledMetric(), method), 0.0);
+
+        final PsiCodeBlock body = caller.getMethods()[0].getBody();
+        assertNotNull(body);
+        WriteCommandAction.runWriteCommandAction(getProject(), () -> {
+            final PsiElementFactory factory = JavaPsiFacade.getElementFactory(getProject());
+            body.add(factory.createStatementFromText("new C().m();", body));
+        });
+        assertEquals(1.0, service.valueOf(new NumTimesCalledMetric(), method), 0.0);
+    }
+
+    private void addMethod(PsiClass aClass, String text) {
+        WriteCommandAction.runWriteCommandAction(getProject(), () -> {
+            final PsiElementFactory factory = JavaPsiFacade.getElementFactory(getProject());
+            aClass.add(factory.createMethodFromText(text, aClass));
+        });
+    }
+
+    /**
+     * Counts the methods of classes and remembers the type hierarchy each of its calculators got.
+     */
+    private static class MethodCountMetric implements Metric {
+        private final List<TypeHierarchyIndex> hierarchies = new ArrayList<TypeHierarchyIndex>();
+
+        @NotNull
+        @Override
+        public String getID() {
+            return "MethodCount";
+        }
+
+        @NotNull
+        @Override
+        public String getDisplayName() {
+            return "Method count";
+        }
+
+        @NotNull
+        @Override
+        public String getAbbreviation() {
+            return "MC";
+        }
+
+        @NotNull
+        @Override
+        public MetricCategory getCategory() {
+            return MetricCategory.Class;
+        }
+
+        @NotNull
+        @Override
+        public MetricType getType() {
+            return MetricType.Count;
+        }
+
+        @Nullable
+        @Override
+        public String getHelpURL() {
+            return null;
+        }
+
+        @Nullable
+        @Override
+        public String getHelpDisplayString() {
+            return null;
+        }
+
+        @NotNull
+        @Override
+        public MetricCalculator createCalculator() {
+            return new MetricCalculator() {
+                private MetricsResultsHolder resultsHolder;
+
+                @Override
+                public void beginMetricsRun(Metric metric, MetricsResultsHolder resultsHolder,
+                                            MetricsExecutionContext executionContext) {
+                    this.resultsHolder = resultsHolder;
+                    hierarchies.add(TypeHierarchyIndex.getInstance(executionContext));
+                }
+
+                @Override
+                public void processFile(PsiFile file) {
+                    for (PsiClass aClass : ((PsiJavaFile) file).getClasses()) {
+                        resultsHolder.postClassMetric(MethodCountMetric.this, aClass, aClass.getMethods().length);
+                    }
+                }
+
+                @Override
+                public void endMetricsRun() {
+                }
+            };
+        }
+    }
+}
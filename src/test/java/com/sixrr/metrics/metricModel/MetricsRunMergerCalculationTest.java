@@ -0,0 +1,100 @@
+/*
+ * Copyright 2005-2017 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.metricModel;
+
+import com.intellij.analysis.AnalysisScope;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase;
+import com.sixrr.metrics.Metric;
+import com.sixrr.metrics.MetricCategory;
+import com.sixrr.metrics.profile.MetricsProfile;
+import com.sixrr.stockmetrics.classMetrics.NumDependentsClassMetric;
+import com.sixrr.stockmetrics.packageMetrics.DistanceMetric;
+import com.sixrr.stockmetrics.packageMetrics.InstabilityMetric;
+import com.sixrr.stockmetrics.packageMetrics.NumClassesPackageMetric;
+import com.sixrr.stockmetrics.projectMetrics.AverageCyclomaticComplexityProjectMetric;
+import com.sixrr.stockmetrics.projectMetrics.NumClassesProjectMetric;
+import com.sixrr.stockmetrics.projectMetrics.NumMethodsProjectMetric;
+import com.sixrr.stockmetrics.projectMetrics.NumPackagesMetric;
+import org.ml_methods_group.utils.MetricsProfilesUtil;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+public class MetricsRunMergerCalculationTest extends LightCodeInsightFixtureTestCase {
+
+    private static final List<Class<? extends Metric>> METRICS = Arrays.asList(
+            NumClassesProjectMetric.class, NumMethodsProjectMetric.class,
+            AverageCyclomaticComplexityProjectMetric.class, NumClassesPackageMetric.class,
+            NumPackagesMetric.class, InstabilityMetric.class, DistanceMetric.class, NumDependentsClassMetric.class);
+
+    @Override
+    protected String getTestDataPath() {
+        return "testdata/metricsMerge";
+    }
+
+    public void testMergeOfTwoParts() {
+        final VirtualFile a = myFixture.copyFileToProject("a/A.java");
+        final VirtualFile b = myFixture.copyFileToProject("a/B.java");
+        final VirtualFile c = myFixture.copyFileToProject("b/C.java");
+        final MetricsProfile profile = MetricsProfilesUtil.createProfile("merge_profile", METRICS);
+
+        final MetricsRunImpl whole = calculate(profile, a, b, c);
+        final MetricsRunMerger merger = new MetricsRunMerger();
+        // package a is split between the parts
+        merger.add(calculate(profile, a, c));
+        merger.add(calculate(profile, b));
+        final MetricsRunImpl merged = merger.merge();
+
+        final Set<Metric> inexactMetrics = merger.getInexactMetrics();
+        assertTrue(inexactMetrics.contains(new NumPackagesMetric()));
+        assertTrue(inexactMetrics.contains(new DistanceMetric()));
+        assertEquals(2, inexactMetrics.size());
+
+        assertSameValue(whole, merged, new NumClassesProjectMetric(), MetricCategory.Project, "project");
+        assertSameValue(whole, merged, new NumMethodsProjectMetric(), MetricCategory.Project, "project");
+        assertSameValue(whole, merged, new AverageCyclomaticComplexityProjectMetric(),
+                MetricCategory.Project, "project");
+        assertSameValue(whole, merged, new NumClassesPackageMetric(), MetricCategory.Package, "a");
+        assertEquals(2.0, merged.getResultsForCategory(MetricCategory.Package)
+                .getValueForMetric(new NumClassesPackageMetric(), "a"), 0.0);
+        assertSameValue(whole, merged, new InstabilityMetric(), MetricCategory.Package, "a");
+        // C is measured by the first part, its dependents A and B are in different parts
+        assertSameValue(whole, merged, new NumDependentsClassMetric(), MetricCategory.Class, "b.C");
+        assertEquals(2.0, merged.getResultsForCategory(MetricCategory.Class)
+                .getValueForMetric(new NumDependentsClassMetric(), "b.C"), 0.0);
+    }
+
+    private MetricsRunImpl calculate(MetricsProfile profile, VirtualFile... files) {
+        final AnalysisScope scope = new AnalysisScope(getProject(), Arrays.asList(files));
+        final MetricsRunImpl run = new MetricsRunImpl();
+        run.setProfileName(profile.getName());
+        run.setTimestamp(new TimeStamp());
+        run.setContext(scope);
+        new MetricsExecutionContextImpl(getProject(), scope).calculateMetrics(profile, run);
+        return run;
+    }
+
+    private static void assertSameValue(MetricsRunImpl expected, MetricsRunImpl actual, Metric metric,
+                                        MetricCategory category, String measuredObject) {
+        final Double expectedValue = expected.getResultsForCategory(category).getValueForMetric(metric, measuredObject);
+        assertNotNull(expectedValue);
+        assertEquals(expectedValue, actual.getResultsForCategory(category).getValueForMetric(metric, measuredObject),
+                1.0e-9);
+    }
+}
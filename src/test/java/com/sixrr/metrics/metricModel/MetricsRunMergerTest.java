@@ -0,0 +1,54 @@
+/*
+ * Copyright 2005-2017 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.metricModel;
+
+import com.sixrr.metrics.MetricType;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MetricsRunMergerTest {
+
+    private static final double EPSILON = 1.0e-9;
+
+    @Test
+    public void testCountsAreAdded() {
+        final MetricsRunMerger.Fraction fraction = new MetricsRunMerger.Fraction(3.0, 1.0);
+        assertTrue(fraction.add(MetricType.Count, 4.0, 1.0));
+        assertTrue(fraction.add(MetricType.RecursiveCount, 5.0, 1.0));
+        assertEquals(12.0, fraction.getValue(), EPSILON);
+    }
+
+    @Test
+    public void testRatiosAreMergedFromPartialSums() {
+        // average of {1, 2, 3} in one part and {10} in another
+        final MetricsRunMerger.Fraction fraction = new MetricsRunMerger.Fraction(6.0, 3.0);
+        assertTrue(fraction.add(MetricType.Average, 10.0, 1.0));
+        assertEquals(4.0, fraction.getValue(), EPSILON);
+
+        final MetricsRunMerger.Fraction ratio = new MetricsRunMerger.Fraction(0.0, 0.0);
+        assertTrue(ratio.add(MetricType.Ratio, 1.0, 4.0));
+        assertEquals(0.25, ratio.getValue(), EPSILON);
+    }
+
+    @Test
+    public void testScoresKeepMaximum() {
+        final MetricsRunMerger.Fraction fraction = new MetricsRunMerger.Fraction(2.0, 1.0);
+        assertFalse(fraction.add(MetricType.Score, 7.0, 1.0));
+        assertEquals(7.0, fraction.getValue(), EPSILON);
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2005-2017 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.ui.metricdisplay;
+
+import org.junit.Test;
+
+import java.util.BitSet;
+
+import static org.junit.Assert.*;
+
+public class MetricColumnTest {
+
+    @Test
+    public void testCalculateRanks() {
+        final double[] values = {3.0, 1.0, 0.0, 3.0, 2.0};
+        final BitSet present = new BitSet();
+        present.set(0, 5);
+        present.clear(2);
+        assertArrayEquals(new int[]{3, 1, 0, 3, 2}, MetricColumn.calculateRanks(values, present));
+    }
+
+    @Test
+    public void testSortByRanks() {
+        final int[] ranks = {3, 1, 0, 3, 2};
+        assertArrayEquals(new int[]{2, 1, 4, 0, 3}, MetricColumn.sortByRanks(ranks, true));
+        assertArrayEquals(new int[]{0, 3, 4, 1, 2}, MetricColumn.sortByRanks(ranks, false));
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2017 Machine Learning Methods in Software Engineering Group of JetBrains Research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ml_methods_group.algorithm;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class AlgorithmConfigurationTest {
+
+    private static List<String> names(String grid) {
+        return AlgorithmConfiguration.parseGrid(grid).stream()
+                .map(AlgorithmConfiguration::getName)
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testParseGrid() {
+        assertEquals(Arrays.asList("AKMeans steps=10", "AKMeans steps=25", "CCDA eps=1e-3", "MRI"),
+                names("AKMeans:steps=10,25; CCDA:eps=1e-3;MRI"));
+        assertEquals(Arrays.asList("HAC lsh=exact", "HAC lsh=20x2"), names("HAC:lsh=exact,20x2"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownParameter() {
+        AlgorithmConfiguration.parseGrid("MRI:steps=10");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownAlgorithm() {
+        AlgorithmConfiguration.parseGrid("KMeans");
+    }
+}
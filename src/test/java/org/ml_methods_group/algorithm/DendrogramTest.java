@@ -0,0 +1,66 @@
+/*
+ * Copyright 2017 Machine Learning Methods in Software Engineering Group of JetBrains Research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ml_methods_group.algorithm;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class DendrogramTest {
+
+    private static Dendrogram createDendrogram() {
+        final String[] names = {"A", "B", "A.m1()", "B.m2()", "A.f"};
+        final String[] classNames = {"A", "B", "A", "B", "A"};
+        final BitSet fields = new BitSet();
+        fields.set(4);
+        final Dendrogram dendrogram = new Dendrogram(names, classNames, fields, false);
+        dendrogram.addMerge(0, 2, 0.1); // node 5 = {A, A.m1()}
+        dendrogram.addMerge(5, 4, 0.2); // node 6 = {A, A.m1(), A.f}
+        dendrogram.addMerge(6, 3, 0.5); // node 7 = {A, A.m1(), A.f, B.m2()}
+        dendrogram.addMerge(7, 1, 0.9); // node 8 = everything
+        return dendrogram;
+    }
+
+    @Test
+    public void testCut() {
+        final Dendrogram dendrogram = createDendrogram();
+        assertEquals(4, dendrogram.getMergeCount());
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4}, dendrogram.cut(0.05));
+        assertArrayEquals(new int[]{6, 1, 6, 3, 6}, dendrogram.cut(0.2));
+        assertArrayEquals(new int[]{8, 8, 8, 8, 8}, dendrogram.cut(Double.POSITIVE_INFINITY));
+    }
+
+    @Test
+    public void testRefactorings() {
+        final Dendrogram dendrogram = createDendrogram();
+        assertTrue(dendrogram.getRefactorings(0.2).isEmpty());
+
+        final List<Refactoring> refactorings = dendrogram.getRefactorings(0.5);
+        assertEquals(1, refactorings.size());
+        assertEquals("B.m2()", refactorings.get(0).getUnit());
+        assertEquals("A", refactorings.get(0).getTarget());
+        assertEquals(0.75, refactorings.get(0).getAccuracy(), 1.0e-9);
+
+        final Set<String> units = new HashSet<>();
+        for (Refactoring refactoring : dendrogram.getRefactorings(1.0)) {
+            units.add(refactoring.getUnit());
+        }
+        assertEquals(new HashSet<>(Arrays.asList("B", "B.m2()")), units);
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2017 Machine Learning Methods in Software Engineering Group of JetBrains Research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ml_methods_group.algorithm;
+
+import gnu.trove.TLongArrayList;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.ml_methods_group.algorithm.Leiden.Graph.edge;
+
+public class LeidenTest {
+
+    private static Leiden.Graph cliques(int count, int size) {
+        final TLongArrayList edges = new TLongArrayList();
+        for (int clique = 0; clique < count; clique++) {
+            final int first = clique * size;
+            for (int i = first; i < first + size; i++) {
+                for (int j = i + 1; j < first + size; j++) {
+                    edges.add(edge(i, j));
+                }
+            }
+            // cliques form a ring
+            edges.add(edge(first + size - 1, (first + size) % (count * size)));
+        }
+        return Leiden.Graph.build(count * size, edges.toNativeArray());
+    }
+
+    @Test
+    public void testBuildMergesDuplicateEdges() {
+        final Leiden.Graph graph = Leiden.Graph.build(4, new long[]{edge(0, 1), edge(1, 0), edge(1, 2), edge(0, 1)});
+        assertEquals(4, graph.size());
+        assertEquals(2, graph.getEdgesCount());
+    }
+
+    @Test
+    public void testMovesMisplacedNodes() {
+        final Leiden.Graph graph = cliques(2, 5);
+        final int[] communities = new Leiden().cluster(graph, new int[]{0, 0, 0, 1, 1, 1, 1, 1, 0, 0});
+        for (int node = 0; node < 10; node++) {
+            assertEquals(communities[node / 5 * 5], communities[node]);
+        }
+        assertNotEquals(communities[0], communities[5]);
+    }
+
+    @Test
+    public void testMergesSingletons() {
+        final Leiden.Graph graph = cliques(6, 4);
+        final int[] singletons = new int[24];
+        for (int node = 0; node < singletons.length; node++) {
+            singletons[node] = node;
+        }
+        final int[] communities = new Leiden().cluster(graph, singletons);
+        for (int node = 0; node < 24; node++) {
+            assertEquals(communities[node / 4 * 4], communities[node]);
+            if (node % 4 == 0 && node > 0) {
+                assertNotEquals(communities[node - 4], communities[node]);
+            }
+        }
+    }
+
+    @Test
+    public void testKeepsCommunitiesWithoutEdges() {
+        final Leiden.Graph graph = Leiden.Graph.build(3, new long[0]);
+        assertArrayEquals(new int[]{2, 0, 2}, new Leiden().cluster(graph, new int[]{2, 0, 2}));
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2017 Machine Learning Methods in Software Engineering Group of JetBrains Research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ml_methods_group.algorithm.entity;
+
+import org.junit.Test;
+import org.ml_methods_group.algorithm.entity.EntitySearchCache.Contribution;
+import org.ml_methods_group.algorithm.entity.EntitySearchCache.EntityRecord;
+import org.ml_methods_group.algorithm.entity.EntitySearchCache.FileRecord;
+
+import java.io.*;
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static org.ml_methods_group.algorithm.entity.EntitySearchCache.*;
+
+public class EntitySearchCacheTest {
+
+    private static EntitySearchCache createCache() {
+        final EntitySearchCache cache = new EntitySearchCache("strategy", Arrays.asList("/src/B.java", "/src/A.java"));
+        final double[] vector = new double[Entity.getVectorDimension()];
+        final FileRecord first = cache.startFile("/src/A.java", 10, 100);
+        first.classes.add("A");
+        first.entities.add(new EntityRecord(CLASS_ENTITY, "A", true, vector));
+        first.entities.add(new EntityRecord(METHOD_ENTITY, "A.m()", false, vector));
+        first.contributions.add(new Contribution(CLASS_ENTITY, "A", CLASS_PROPERTY, "A", 1));
+        first.contributions.add(new Contribution(CLASS_ENTITY, "A", METHOD_PROPERTY, "A.m()", 1));
+        first.contributions.add(new Contribution(METHOD_ENTITY, "A.m()", METHOD_PROPERTY, "A.m()", 1));
+        first.contributions.add(new Contribution(METHOD_ENTITY, "A.m()", OVERRIDE_PROPERTY, "B.m()", 2));
+        final FileRecord second = cache.startFile("/src/B.java", 20, 200);
+        second.dependencies.put("/src/A.java", new long[]{10, 100});
+        second.classes.add("B");
+        second.entities.add(new EntityRecord(FIELD_ENTITY, "B.f", true, vector));
+        second.entities.add(new EntityRecord(METHOD_ENTITY, "B.broken()", true, null));
+        second.contributions.add(new Contribution(FIELD_ENTITY, "B.f", FIELD_PROPERTY, "B.f", 1));
+        second.contributions.add(new Contribution(CLASS_ENTITY, "A", CLASS_PROPERTY, "B", 3));
+        return cache;
+    }
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        final File file = File.createTempFile("entities", ".bin");
+        try {
+            createCache().write(file);
+            final EntitySearchCache cache = EntitySearchCache.read(file);
+            assertEquals("strategy", cache.getStrategyName());
+            assertEquals(Arrays.asList("/src/A.java", "/src/B.java"), new ArrayList<>(cache.getScopeFiles()));
+            assertEquals(2, cache.getRecords().size());
+            final FileRecord second = cache.getRecord("/src/B.java");
+            assertNotNull(second);
+            assertEquals(20, second.timeStamp);
+            assertEquals(200, second.length);
+            assertArrayEquals(new long[]{10, 100}, second.dependencies.get("/src/A.java"));
+            assertEquals(Collections.singletonList("B"), second.classes);
+            assertEquals(2, second.entities.size());
+            assertNull(second.entities.get(1).getVector());
+
+            final EntitySearchResult result = cache.toSearchResult();
+            assertEquals(1, result.getClasses().size());
+            assertEquals(1, result.getMethods().size());
+            assertEquals(1, result.getFields().size());
+            final ClassEntity aClass = result.getClasses().get(0);
+            assertEquals(new HashSet<>(Arrays.asList("A", "B")), aClass.getRelevantProperties().getClasses());
+            assertEquals(3, aClass.getRelevantProperties().getWeight("B"));
+            final MethodEntity method = result.getMethods().get(0);
+            assertFalse(method.isMovable());
+            assertEquals(new HashSet<>(Arrays.asList("A.m()", "B.m()")),
+                    method.getRelevantProperties().getAllMethods());
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    @Test
+    public void testFindValidRecords() {
+        final EntitySearchCache cache = createCache();
+        final Map<String, long[]> stamps = new HashMap<>();
+        stamps.put("/src/A.java", new long[]{10, 100});
+        stamps.put("/src/B.java", new long[]{20, 200});
+        assertEquals(2, cache.findValidRecords(stamps).size());
+
+        stamps.put("/src/B.java", new long[]{21, 200});
+        assertEquals(Collections.singleton("/src/A.java"), cache.findValidRecords(stamps).keySet());
+
+        stamps.put("/src/B.java", new long[]{20, 200});
+        stamps.put("/src/A.java", new long[]{10, 101});
+        assertTrue(cache.findValidRecords(stamps).isEmpty());
+
+        stamps.put("/src/A.java", new long[]{-1, 100});
+        assertTrue(cache.findValidRecords(stamps).isEmpty());
+    }
+
+    @Test
+    public void testCanReuse() {
+        final EntitySearchCache cache = createCache();
+        assertTrue(new EntitySearchCache("strategy", Arrays.asList("/src/A.java", "/src/B.java")).canReuse(cache));
+        assertFalse(new EntitySearchCache("strategy", Collections.singletonList("/src/A.java")).canReuse(cache));
+        assertFalse(new EntitySearchCache("other", Arrays.asList("/src/A.java", "/src/B.java")).canReuse(cache));
+    }
+
+    @Test
+    public void testVarInt() throws IOException {
+        final int[] values = {0, 1, 127, 128, 300, 1 << 20, Integer.MAX_VALUE, -1};
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        for (int value : values) {
+            EntitySearchCache.writeVarInt(out, value);
+        }
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        for (int value : values) {
+            assertEquals(value, EntitySearchCache.readVarInt(in));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2017 Machine Learning Methods in Software Engineering Group of JetBrains Research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ml_methods_group.algorithm.entity;
+
+import com.intellij.analysis.AnalysisScope;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase;
+import com.sixrr.metrics.profile.MetricsProfile;
+import org.ml_methods_group.refactoring.RefactoringExecutionContext;
+import org.ml_methods_group.utils.MetricsProfilesUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class EntitySearcherCacheTest extends LightCodeInsightFixtureTestCase {
+
+    @Override
+    protected String getTestDataPath() {
+        return "testdata/moveMethod";
+    }
+
+    public void testCacheOfAnotherScopeIsDiscarded() throws IOException {
+        final VirtualFile file1 = myFixture.copyFileToProject("ClassA.java");
+        final VirtualFile file2 = myFixture.copyFileToProject("ClassB.java");
+        final File cacheFile = File.createTempFile("entities", ".bin");
+        try {
+            search(Collections.singletonList(file1), cacheFile);
+
+            final EntitySearchResult projectResult = search(Arrays.asList(file1, file2), cacheFile);
+            assertEquals(0L, getCachedFiles(projectResult));
+
+            final EntitySearchResult cachedResult = search(Arrays.asList(file1, file2), cacheFile);
+            assertEquals(2L, getCachedFiles(cachedResult));
+            assertEquals(projectResult.getClasses().size(), cachedResult.getClasses().size());
+            assertEquals(projectResult.getMethods().size(), cachedResult.getMethods().size());
+            assertEquals(projectResult.getFields().size(), cachedResult.getFields().size());
+            assertEquals(projectResult.getPropertiesCount(), cachedResult.getPropertiesCount());
+        } finally {
+            assertTrue(cacheFile.delete());
+        }
+    }
+
+    private EntitySearchResult search(List<VirtualFile> files, File cacheFile) {
+        final AnalysisScope scope = new AnalysisScope(getProject(), files);
+        final MetricsProfile profile = MetricsProfilesUtil.createProfile("test_profile", Entity.getRequestedMetrics());
+        final RefactoringExecutionContext context = new RefactoringExecutionContext(getProject(), scope, profile,
+                Collections.emptyList(), false, null);
+        context.setEntitiesFile(cacheFile);
+        context.executeSynchronously();
+        return context.getEntitySearchResult();
+    }
+
+    private static long getCachedFiles(EntitySearchResult result) {
+        return result.getTrace().getCounters().getOrDefault("cached files", 0L);
+    }
+}
@@ -33,63 +33,74 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
+import static com.sixrr.stockmetrics.MetricClassNames.*;
+
 public class DefaultMetricProvider implements MetricProvider {
 
     @NotNull
     @Override
-    public List<Metric> getMetrics() {
-        final List<Metric> metrics = new ArrayList<Metric>(38);
+    public List<String> getMetricClassNames() {
+        final List<String> metrics = new ArrayList<String>(38);
         initializeFileTypeMetrics(metrics);
         initializeModuleMetrics(metrics);
         initializeProjectMetrics(metrics);
         return metrics;
     }
 
-    private static void initializeFileTypeMetrics(Collection<Metric> metrics) {
-        metrics.add(new CommentLinesOfCodeFileTypeMetric());
-        metrics.add(new CommentRatioFileTypeMetric());
-        metrics.add(new LinesOfCodeFileTypeMetric());
-        metrics.add(new NonCommentLinesOfCodeFileTypeMetric());
-        metrics.add(new NumFilesFileTypeMetric());
-        metrics.add(new TodoCommentCountFileTypeMetric());
+    @NotNull
+    @Override
+    public List<Metric> getMetrics() {
+        return MetricProvider.createMetrics(this);
+    }
+
+    private static void initializeFileTypeMetrics(Collection<String> metrics) {
+        addMetrics(metrics, FILE_TYPE_METRICS,
+                "CommentLinesOfCodeFileTypeMetric",
+                "CommentRatioFileTypeMetric",
+                "LinesOfCodeFileTypeMetric",
+                "NonCommentLinesOfCodeFileTypeMetric",
+                "NumFilesFileTypeMetric",
+                "TodoCommentCountFileTypeMetric");
     }
 
-    private static void initializeModuleMetrics(Collection<Metric> metrics) {
-        metrics.add(new CommentLinesOfCodeModuleMetric());
-        metrics.add(new CommentRatioModuleMetric());
-        metrics.add(new LinesOfCodeModuleMetric());
-        metrics.add(new LinesOfHTMLModuleMetric());
-        metrics.add(new LinesOfProductCodeModuleMetric());
-        metrics.add(new LinesOfTestCodeModuleMetric());
-        metrics.add(new LinesOfXMLModuleMetric());
-        metrics.add(new NumFilesModuleMetric());
-        metrics.add(new NumHTMLFilesModuleMetric());
-        metrics.add(new NumXMLFilesModuleMetric());
-        metrics.add(new SourceLinesOfCodeModuleMetric());
-        metrics.add(new SourceLinesOfCodeProductModuleMetric());
-        metrics.add(new SourceLinesOfCodeTestModuleMetric());
-        metrics.add(new TestRatioModuleMetric());
-        metrics.add(new TodoCommentCountModuleMetric());
-        metrics.add(new TrueCommentRatioModuleMetric());
+    private static void initializeModuleMetrics(Collection<String> metrics) {
+        addMetrics(metrics, MODULE_METRICS,
+                "CommentLinesOfCodeModuleMetric",
+                "CommentRatioModuleMetric",
+                "LinesOfCodeModuleMetric",
+                "LinesOfHTMLModuleMetric",
+                "LinesOfProductCodeModuleMetric",
+                "LinesOfTestCodeModuleMetric",
+                "LinesOfXMLModuleMetric",
+                "NumFilesModuleMetric",
+                "NumHTMLFilesModuleMetric",
+                "NumXMLFilesModuleMetric",
+                "SourceLinesOfCodeModuleMetric",
+                "SourceLinesOfCodeProductModuleMetric",
+                "SourceLinesOfCodeTestModuleMetric",
+                "TestRatioModuleMetric",
+                "TodoCommentCountModuleMetric",
+                "TrueCommentRatioModuleMetric");
     }
 
-    private static void initializeProjectMetrics(Collection<Metric> metrics) {
-        metrics.add(new CommentLinesOfCodeProjectMetric());
-        metrics.add(new CommentRatioProjectMetric());
-        metrics.add(new LinesOfCodeProjectMetric());
-        metrics.add(new LinesOfHTMLProjectMetric());
-        metrics.add(new LinesOfProductCodeProjectMetric());
-        metrics.add(new LinesOfTestCodeProjectMetric());
-        metrics.add(new LinesOfXMLProjectMetric());
-        metrics.add(new NumFilesProjectMetric());
-        metrics.add(new NumHTMLFilesProjectMetric());
-        metrics.add(new NumXMLFilesProjectMetric());
-        metrics.add(new SourceLinesOfCodeProductProjectMetric());
-        metrics.add(new SourceLinesOfCodeProjectMetric());
-        metrics.add(new SourceLinesOfCodeTestProjectMetric());
-        metrics.add(new TestRatioProjectMetric());
-        metrics.add(new TodoCommentCountProjectMetric());
-        metrics.add(new TrueCommentRatioProjectMetric());
+    private static void initializeProjectMetrics(Collection<String> metrics) {
+        addMetrics(metrics, PROJECT_METRICS,
+                "CommentLinesOfCodeProjectMetric",
+                "CommentRatioProjectMetric",
+                "LinesOfCodeProjectMetric",
+                "LinesOfHTMLProjectMetric",
+                "LinesOfProductCodeProjectMetric",
+                "LinesOfTestCodeProjectMetric",
+                "LinesOfXMLProjectMetric",
+                "NumFilesProjectMetric",
+                "NumHTMLFilesProjectMetric",
+                "NumXMLFilesProjectMetric",
+                "SourceLinesOfCodeProductProjectMetric",
+                "SourceLinesOfCodeProjectMetric",
+                "SourceLinesOfCodeTestProjectMetric",
+                "TestRatioProjectMetric",
+                "TodoCommentCountProjectMetric",
+                "TrueCommentRatioProjectMetric");
     }
 
     @NotNull
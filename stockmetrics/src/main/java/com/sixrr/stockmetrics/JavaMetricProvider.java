@@ -31,6 +31,8 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
+import static com.sixrr.stockmetrics.MetricClassNames.*;
+
 /**
  * @author Bas Leijdekkers
  */
@@ -38,8 +40,8 @@ public class JavaMetricProvider implements MetricProvider {
 
     @NotNull
     @Override
-    public List<Metric> getMetrics() {
-        final List<Metric> metrics = new ArrayList<Metric>(284);
+    public List<String> getMetricClassNames() {
+        final List<String> metrics = new ArrayList<String>(284);
         initializeClassMetrics(metrics);
         initializeInterfaceMetrics(metrics);
         initializeMethodMetrics(metrics);
@@ -49,306 +51,318 @@ public class JavaMetricProvider implements MetricProvider {
         return metrics;
     }
 
-    private static void initializeClassMetrics(Collection<Metric> metrics) {
-        metrics.add(new AdjustedLevelOrderClassMetric());
-        metrics.add(new AverageOperationComplexityMetric());
-        metrics.add(new AverageOperationParametersMetric());
-        metrics.add(new AverageOperationSizeMetric());
-        metrics.add(new ClassSizeAttributesMetric());
-        metrics.add(new ClassSizeOperationsAttributesMetric());
-        metrics.add(new ClassSizeOperationsMetric());
-        metrics.add(new CommentLinesOfCodeClassMetric());
-        metrics.add(new CommentRatioClassMetric());
-        metrics.add(new CouplingBetweenObjectsClassMetric());
-        metrics.add(new DepthOfInheritanceMetric());
-        metrics.add(new HalsteadBugsClassMetric());
-        metrics.add(new HalsteadDifficultyClassMetric());
-        metrics.add(new HalsteadEffortClassMetric());
-        metrics.add(new HalsteadLengthClassMetric());
-        metrics.add(new HalsteadVocabularyClassMetric());
-        metrics.add(new HalsteadVolumeClassMetric());
-        metrics.add(new JavadocLinesOfCodeClassMetric());
-        metrics.add(new LackOfCohesionOfMethodsClassMetric());
-        metrics.add(new LevelOrderClassMetric());
-        metrics.add(new LinesOfCodeClassMetric());
-        metrics.add(new MaximumOperationComplexityMetric());
-        metrics.add(new MaximumOperationSizeMetric());
-        metrics.add(new MessagePassingCouplingClassMetric());
-        metrics.add(new NumAttributesAddedMetric());
-        metrics.add(new NumAttributesInheritedMetric());
-        metrics.add(new NumChildrenMetric());
-        metrics.add(new NumCommandsClassMetric());
-        metrics.add(new NumConstructorsMetric());
-        metrics.add(new NumCyclicDependenciesClassMetric());
-        metrics.add(new NumDependenciesClassMetric());
-        metrics.add(new NumDependentsClassMetric());
-        metrics.add(new NumInnerClassesMetric());
-        metrics.add(new NumInterfacesImplementedMetric());
-        metrics.add(new NumOperationsAddedMetric());
-        metrics.add(new NumOperationsInheritedMetric());
-        metrics.add(new NumOperationsOverriddenMetric());
-        metrics.add(new NumPackageDependenciesClassMetric());
-        metrics.add(new NumPackageDependentsClassMetric());
-        metrics.add(new NumQueriesClassMetric());
-        metrics.add(new NumStatementsClassMetric());
-        metrics.add(new NumSubclassesMetric());
-        metrics.add(new NumTestAssertsClassMetric());
-        metrics.add(new NumTestMethodsClassMetric());
-        metrics.add(new NumTransitiveDependenciesClassMetric());
-        metrics.add(new NumTransitiveDependentsClassMetric());
-        metrics.add(new NumTypeParametersClassMetric());
-        metrics.add(new PercentFieldsJavadocedClassMetric());
-        metrics.add(new PercentMethodsJavadocedClassMetric());
-        metrics.add(new ResponseForClassMetric());
-        metrics.add(new SourceLinesOfCodeClassMetric());
-        metrics.add(new TodoCommentCountClassMetric());
-        metrics.add(new TrueCommentRatioClassMetric());
-        metrics.add(new WeightedMethodComplexityMetric());
-        metrics.add(new InformationFlowBasedCohesionClassMetric());
-        metrics.add(new NumMethodsClassMetric());
-        metrics.add(new DataAbstractionCouplingClassMetric());
-        metrics.add(new TightClassCouplingMetric());
-        metrics.add(new LooseClassCouplingMetric());
-        metrics.add(new LackOfCohesionInMethods1ClassMetric());
-        metrics.add(new LackOfCohesionInMethods2ClassMetric());
-        metrics.add(new LackOfCohesionInMethods5ClassMetric());
-        metrics.add(new LocalityOfDataClassMetric());
-        metrics.add(new FanInClassMetric());
-        metrics.add(new FanOutClassMetric());
-        metrics.add(new BlankLinesCountClassMetric());
+    @NotNull
+    @Override
+    public List<Metric> getMetrics() {
+        return MetricProvider.createMetrics(this);
+    }
+
+    private static void initializeClassMetrics(Collection<String> metrics) {
+        addMetrics(metrics, CLASS_METRICS,
+                "AdjustedLevelOrderClassMetric",
+                "AverageOperationComplexityMetric",
+                "AverageOperationParametersMetric",
+                "AverageOperationSizeMetric",
+                "ClassSizeAttributesMetric",
+                "ClassSizeOperationsAttributesMetric",
+                "ClassSizeOperationsMetric",
+                "CommentLinesOfCodeClassMetric",
+                "CommentRatioClassMetric",
+                "CouplingBetweenObjectsClassMetric",
+                "DepthOfInheritanceMetric",
+                "HalsteadBugsClassMetric",
+                "HalsteadDifficultyClassMetric",
+                "HalsteadEffortClassMetric",
+                "HalsteadLengthClassMetric",
+                "HalsteadVocabularyClassMetric",
+                "HalsteadVolumeClassMetric",
+                "JavadocLinesOfCodeClassMetric",
+                "LackOfCohesionOfMethodsClassMetric",
+                "LevelOrderClassMetric",
+                "LinesOfCodeClassMetric",
+                "MaximumOperationComplexityMetric",
+                "MaximumOperationSizeMetric",
+                "MessagePassingCouplingClassMetric",
+                "NumAttributesAddedMetric",
+                "NumAttributesInheritedMetric",
+                "NumChildrenMetric",
+                "NumCommandsClassMetric",
+                "NumConstructorsMetric",
+                "NumCyclicDependenciesClassMetric",
+                "NumDependenciesClassMetric",
+                "NumDependentsClassMetric",
+                "NumInnerClassesMetric",
+                "NumInterfacesImplementedMetric",
+                "NumOperationsAddedMetric",
+                "NumOperationsInheritedMetric",
+                "NumOperationsOverriddenMetric",
+                "NumPackageDependenciesClassMetric",
+                "NumPackageDependentsClassMetric",
+                "NumQueriesClassMetric",
+                "NumStatementsClassMetric",
+                "NumSubclassesMetric",
+                "NumTestAssertsClassMetric",
+                "NumTestMethodsClassMetric",
+                "NumTransitiveDependenciesClassMetric",
+                "NumTransitiveDependentsClassMetric",
+                "NumTypeParametersClassMetric",
+                "PercentFieldsJavadocedClassMetric",
+                "PercentMethodsJavadocedClassMetric",
+                "ResponseForClassMetric",
+                "SourceLinesOfCodeClassMetric",
+                "TodoCommentCountClassMetric",
+                "TrueCommentRatioClassMetric",
+                "WeightedMethodComplexityMetric",
+                "InformationFlowBasedCohesionClassMetric",
+                "NumMethodsClassMetric",
+                "DataAbstractionCouplingClassMetric",
+                "TightClassCouplingMetric",
+                "LooseClassCouplingMetric",
+                "LackOfCohesionInMethods1ClassMetric",
+                "LackOfCohesionInMethods2ClassMetric",
+                "LackOfCohesionInMethods5ClassMetric",
+                "LocalityOfDataClassMetric",
+                "FanInClassMetric",
+                "FanOutClassMetric",
+                "BlankLinesCountClassMetric");
     }
 
-    private static void initializeInterfaceMetrics(Collection<Metric> metrics) {
-        metrics.add(new AdjustedLevelOrderInterfaceMetric());
-        metrics.add(new CommentLinesOfCodeInterfaceMetric());
-        metrics.add(new CommentRatioInterfaceMetric());
-        metrics.add(new CouplingBetweenObjectsInterfaceMetric());
-        metrics.add(new InterfaceSizeAttributesMetric());
-        metrics.add(new InterfaceSizeOperationsAttributesMetric());
-        metrics.add(new InterfaceSizeOperationsMetric());
-        metrics.add(new JavadocLinesOfCodeInterfaceMetric());
-        metrics.add(new LevelOrderInterfaceMetric());
-        metrics.add(new LinesOfCodeInterfaceMetric());
-        metrics.add(new NumCommandsInterfaceMetric());
-        metrics.add(new NumCyclicDependenciesInterfaceMetric());
-        metrics.add(new NumDependenciesInterfaceMetric());
-        metrics.add(new NumDependentsInterfaceMetric());
-        metrics.add(new NumImplementationsMetric());
-        metrics.add(new NumPackageDependenciesInterfaceMetric());
-        metrics.add(new NumPackageDependentsInterfaceMetric());
-        metrics.add(new NumQueriesInterfaceMetric());
-        metrics.add(new NumSubinterfacesMetric());
-        metrics.add(new NumTransitiveDependenciesInterfaceMetric());
-        metrics.add(new NumTransitiveDependentsInterfaceMetric());
-        metrics.add(new NumTypeParametersInterfaceMetric());
-        metrics.add(new PercentFieldsJavadocedInterfaceMetric());
-        metrics.add(new PercentMethodsJavadocedInterfaceMetric());
-        metrics.add(new SourceLinesOfCodeInterfaceMetric());
-        metrics.add(new TodoCommentCountInterfaceMetric());
-        metrics.add(new TrueCommentRatioInterfaceMetric());
+    private static void initializeInterfaceMetrics(Collection<String> metrics) {
+        addMetrics(metrics, INTERFACE_METRICS,
+                "AdjustedLevelOrderInterfaceMetric",
+                "CommentLinesOfCodeInterfaceMetric",
+                "CommentRatioInterfaceMetric",
+                "CouplingBetweenObjectsInterfaceMetric",
+                "InterfaceSizeAttributesMetric",
+                "InterfaceSizeOperationsAttributesMetric",
+                "InterfaceSizeOperationsMetric",
+                "JavadocLinesOfCodeInterfaceMetric",
+                "LevelOrderInterfaceMetric",
+                "LinesOfCodeInterfaceMetric",
+                "NumCommandsInterfaceMetric",
+                "NumCyclicDependenciesInterfaceMetric",
+                "NumDependenciesInterfaceMetric",
+                "NumDependentsInterfaceMetric",
+                "NumImplementationsMetric",
+                "NumPackageDependenciesInterfaceMetric",
+                "NumPackageDependentsInterfaceMetric",
+                "NumQueriesInterfaceMetric",
+                "NumSubinterfacesMetric",
+                "NumTransitiveDependenciesInterfaceMetric",
+                "NumTransitiveDependentsInterfaceMetric",
+                "NumTypeParametersInterfaceMetric",
+                "PercentFieldsJavadocedInterfaceMetric",
+                "PercentMethodsJavadocedInterfaceMetric",
+                "SourceLinesOfCodeInterfaceMetric",
+                "TodoCommentCountInterfaceMetric",
+                "TrueCommentRatioInterfaceMetric");
     }
 
-    private static void initializeMethodMetrics(Collection<Metric> metrics) {
-        metrics.add(new CommentLinesOfCodeMethodMetric());
-        metrics.add(new CommentRatioMethodMetric());
-        metrics.add(new ConditionalNestingDepthMetric());
-        metrics.add(new ControlDensityMetric());
-        metrics.add(new CyclomaticComplexityMetric());
-        metrics.add(new DesignComplexityMetric());
-        metrics.add(new EssentialCyclomaticComplexityMetric());
-        metrics.add(new HalsteadBugsMethodMetric());
-        metrics.add(new HalsteadDifficultyMethodMetric());
-        metrics.add(new HalsteadEffortMethodMetric());
-        metrics.add(new HalsteadLengthMethodMetric());
-        metrics.add(new HalsteadVocabularyMethodMetric());
-        metrics.add(new HalsteadVolumeMethodMetric());
-        metrics.add(new HalsteadProgramLevelMetric());
-        metrics.add(new JavadocLinesOfCodeMethodMetric());
-        metrics.add(new LinesOfCodeMethodMetric());
-        metrics.add(new LoopNestingDepthMetric());
-        metrics.add(new NestingDepthMetric());
-        metrics.add(new NumAssertsMetric());
-        metrics.add(new NumBranchStatementsMetric());
-        metrics.add(new NumControlStatementsMetric());
-        metrics.add(new NumExceptionsCaughtMetric());
-        metrics.add(new NumExceptionsThrownMetric());
-        metrics.add(new NumExecutableStatementsMetric());
-        metrics.add(new NumExpressionsMetric());
-        metrics.add(new NumImplementationsMethodMetric());
-        metrics.add(new NumLoopsMetric());
-        metrics.add(new NumMethodCallsMetric());
-        metrics.add(new NumNullChecksMetric());
-        metrics.add(new NumOverridesMethodMetric());
-        metrics.add(new NumParametersMetric());
-        metrics.add(new NumReturnPointsMetric());
-        metrics.add(new NumStatementsMetric());
-        metrics.add(new NumTimesCalledMetric());
-        metrics.add(new NumTimesCalledProductMetric());
-        metrics.add(new NumTimesCalledTestMetric());
-        metrics.add(new NumTypecastExpressionsMetric());
-        metrics.add(new NumTypeParametersMetric());
-        metrics.add(new QCPCorrectnessMetric());
-        metrics.add(new QCPMaintainabilityMetric());
-        metrics.add(new QCPReliabilityMetric());
-        metrics.add(new RelativeLinesOfCodeMetric());
-        metrics.add(new SourceLinesOfCodeMethodMetric());
-        metrics.add(new TodoCommentCountMethodMetric());
-        metrics.add(new TrueCommentRatioMethodMetric());
-        metrics.add(new FanInMethodMetric());
-        metrics.add(new FanOutMethodMetric());
-        metrics.add(new ConditionCountMetric());
-        metrics.add(new DecisionCountMetric());
-        metrics.add(new OperandsCountMetric());
-        metrics.add(new OperatorsCountMetric());
-        metrics.add(new DistinctOperandsMetric());
-        metrics.add(new DistinctOperatorsMetric());
-        metrics.add(new BranchCountMetric());
-        metrics.add(new FormalParametersCountMethodMetric());
-        metrics.add(new BlankLinesCountMethodMetric());
-        metrics.add(new DesignDensityMetric());
+    private static void initializeMethodMetrics(Collection<String> metrics) {
+        addMetrics(metrics, METHOD_METRICS,
+                "CommentLinesOfCodeMethodMetric",
+                "CommentRatioMethodMetric",
+                "ConditionalNestingDepthMetric",
+                "ControlDensityMetric",
+                "CyclomaticComplexityMetric",
+                "DesignComplexityMetric",
+                "EssentialCyclomaticComplexityMetric",
+                "HalsteadBugsMethodMetric",
+                "HalsteadDifficultyMethodMetric",
+                "HalsteadEffortMethodMetric",
+                "HalsteadLengthMethodMetric",
+                "HalsteadVocabularyMethodMetric",
+                "HalsteadVolumeMethodMetric",
+                "HalsteadProgramLevelMetric",
+                "JavadocLinesOfCodeMethodMetric",
+                "LinesOfCodeMethodMetric",
+                "LoopNestingDepthMetric",
+                "NestingDepthMetric",
+                "NumAssertsMetric",
+                "NumBranchStatementsMetric",
+                "NumControlStatementsMetric",
+                "NumExceptionsCaughtMetric",
+                "NumExceptionsThrownMetric",
+                "NumExecutableStatementsMetric",
+                "NumExpressionsMetric",
+                "NumImplementationsMethodMetric",
+                "NumLoopsMetric",
+                "NumMethodCallsMetric",
+                "NumNullChecksMetric",
+                "NumOverridesMethodMetric",
+                "NumParametersMetric",
+                "NumReturnPointsMetric",
+                "NumStatementsMetric",
+                "NumTimesCalledMetric",
+                "NumTimesCalledProductMetric",
+                "NumTimesCalledTestMetric",
+                "NumTypecastExpressionsMetric",
+                "NumTypeParametersMetric",
+                "QCPCorrectnessMetric",
+                "QCPMaintainabilityMetric",
+                "QCPReliabilityMetric",
+                "RelativeLinesOfCodeMetric",
+                "SourceLinesOfCodeMethodMetric",
+                "TodoCommentCountMethodMetric",
+                "TrueCommentRatioMethodMetric",
+                "FanInMethodMetric",
+                "FanOutMethodMetric",
+                "ConditionCountMetric",
+                "DecisionCountMetric",
+                "OperandsCountMetric",
+                "OperatorsCountMetric",
+                "DistinctOperandsMetric",
+                "DistinctOperatorsMetric",
+                "BranchCountMetric",
+                "FormalParametersCountMethodMetric",
+                "BlankLinesCountMethodMetric",
+                "DesignDensityMetric");
     }
 
-    private static void initializeModuleMetrics(Collection<Metric> metrics) {
-        metrics.add(new AverageCyclomaticComplexityModuleMetric());
-        metrics.add(new EncapsulationRatioModuleMetric());
-        metrics.add(new JavadocLinesOfCodeModuleMetric());
-        metrics.add(new LinesOfJavaModuleMetric());
-        metrics.add(new NumAbstractClassesModuleMetric());
-        metrics.add(new NumAnnotationClassesModuleMetric());
-        metrics.add(new NumClassesModuleMetric());
-        metrics.add(new NumConcreteClassesModuleMetric());
-        metrics.add(new NumEnumClassesModuleMetric());
-        metrics.add(new NumInterfacesModuleMetric());
-        metrics.add(new NumJavaFilesModuleMetric());
-        metrics.add(new NumLeafClassesModuleMetric());
-        metrics.add(new NumMethodsModuleMetric());
-        metrics.add(new NumProductClassesModuleMetric());
-        metrics.add(new NumRootClassesModuleMetric());
-        metrics.add(new NumTestAssertsModuleMetric());
-        metrics.add(new NumTestCasesModuleMetric());
-        metrics.add(new NumTestClassesModuleMetric());
-        metrics.add(new NumTestMethodsModuleMetric());
-        metrics.add(new NumTopLevelClassesModuleMetric());
-        metrics.add(new NumTopLevelInterfacesModuleMetric());
-        metrics.add(new PercentClassesJavadocedModuleMetric());
-        metrics.add(new PercentFieldsJavadocedModuleMetric());
-        metrics.add(new PercentMethodsJavadocedModuleMetric());
-        metrics.add(new TotalCyclomaticComplexityModuleMetric());
+    private static void initializeModuleMetrics(Collection<String> metrics) {
+        addMetrics(metrics, MODULE_METRICS,
+                "AverageCyclomaticComplexityModuleMetric",
+                "EncapsulationRatioModuleMetric",
+                "JavadocLinesOfCodeModuleMetric",
+                "LinesOfJavaModuleMetric",
+                "NumAbstractClassesModuleMetric",
+                "NumAnnotationClassesModuleMetric",
+                "NumClassesModuleMetric",
+                "NumConcreteClassesModuleMetric",
+                "NumEnumClassesModuleMetric",
+                "NumInterfacesModuleMetric",
+                "NumJavaFilesModuleMetric",
+                "NumLeafClassesModuleMetric",
+                "NumMethodsModuleMetric",
+                "NumProductClassesModuleMetric",
+                "NumRootClassesModuleMetric",
+                "NumTestAssertsModuleMetric",
+                "NumTestCasesModuleMetric",
+                "NumTestClassesModuleMetric",
+                "NumTestMethodsModuleMetric",
+                "NumTopLevelClassesModuleMetric",
+                "NumTopLevelInterfacesModuleMetric",
+                "PercentClassesJavadocedModuleMetric",
+                "PercentFieldsJavadocedModuleMetric",
+                "PercentMethodsJavadocedModuleMetric",
+                "TotalCyclomaticComplexityModuleMetric");
     }
 
-    private static void initializePackageMetrics(Collection<Metric> metrics) {
-        metrics.add(new AbstractnessMetric());
-        metrics.add(new AdjustedLevelOrderPackageMetric());
-        metrics.add(new AfferentCouplingMetric());
-        metrics.add(new AverageCyclomaticComplexityPackageMetric());
-        metrics.add(new CommentLinesOfCodePackageMetric());
-        metrics.add(new CommentLinesOfCodeRecursivePackageMetric());
-        metrics.add(new CommentRatioPackageMetric());
-        metrics.add(new CommentRatioRecursivePackageMetric());
-        metrics.add(new DistanceMetric());
-        metrics.add(new EfferentCouplingMetric());
-        metrics.add(new EncapsulationRatioPackageMetric());
-        metrics.add(new InstabilityMetric());
-        metrics.add(new JavadocLinesOfCodePackageMetric());
-        metrics.add(new JavadocLinesOfCodeRecursivePackageMetric());
-        metrics.add(new LevelOrderPackageMetric());
-        metrics.add(new LinesOfCodePackageMetric());
-        metrics.add(new LinesOfCodeRecursivePackageMetric());
-        metrics.add(new LinesOfProductCodePackageMetric());
-        metrics.add(new LinesOfProductCodeRecursivePackageMetric());
-        metrics.add(new LinesOfTestCodePackageMetric());
-        metrics.add(new LinesOfTestCodeRecursivePackageMetric());
-        metrics.add(new NumAbstractClassesPackageMetric());
-        metrics.add(new NumAbstractClassesRecursivePackageMetric());
-        metrics.add(new NumAnnotationClassesPackageMetric());
-        metrics.add(new NumAnnotationClassesRecursivePackageMetric());
-        metrics.add(new NumAnonymousClassesPackageMetric());
-        metrics.add(new NumClassesPackageMetric());
-        metrics.add(new NumClassesRecursivePackageMetric());
-        metrics.add(new NumConcreteClassesPackageMetric());
-        metrics.add(new NumConcreteClassesRecursivePackageMetric());
-        metrics.add(new NumCyclicDependenciesPackageMetric());
-        metrics.add(new NumDependencyPackagesPackageMetric());
-        metrics.add(new NumDependentPackagesPackageMetric());
-        metrics.add(new NumEnumClassesPackageMetric());
-        metrics.add(new NumEnumClassesRecursivePackageMetric());
-        metrics.add(new NumInterfacesPackageMetric());
-        metrics.add(new NumInterfacesRecursivePackageMetric());
-        metrics.add(new NumLambdasPackageMetric());
-        metrics.add(new NumLeafClassesPackageMetric());
-        metrics.add(new NumLeafClassesRecursivePackageMetric());
-        metrics.add(new NumMethodsPackageMetric());
-        metrics.add(new NumMethodsRecursivePackageMetric());
-        metrics.add(new NumProductClassesPackageMetric());
-        metrics.add(new NumProductClassesRecursivePackageMetric());
-        metrics.add(new NumRootClassesPackageMetric());
-        metrics.add(new NumRootClassesRecursivePackageMetric());
-        metrics.add(new NumTestAssertsPackageMetric());
-        metrics.add(new NumTestAssertsRecursivePackageMetric());
-        metrics.add(new NumTestCasesPackageMetric());
-        metrics.add(new NumTestCasesRecursivePackageMetric());
-        metrics.add(new NumTestClassesPackageMetric());
-        metrics.add(new NumTestClassesRecursivePackageMetric());
-        metrics.add(new NumTestMethodsPackageMetric());
-        metrics.add(new NumTestMethodsRecursivePackageMetric());
-        metrics.add(new NumTopLevelClassesPackageMetric());
-        metrics.add(new NumTopLevelClassesRecursivePackageMetric());
-        metrics.add(new NumTopLevelInterfacesPackageMetric());
-        metrics.add(new NumTopLevelInterfacesRecursivePackageMetric());
-        metrics.add(new NumTransitiveDependencyPackagesPackageMetric());
-        metrics.add(new NumTransitiveDependentPackagesPackageMetric());
-        metrics.add(new PercentClassesJavadocedPackageMetric());
-        metrics.add(new PercentClassesJavadocedRecursivePackageMetric());
-        metrics.add(new PercentFieldsJavadocedPackageMetric());
-        metrics.add(new PercentFieldsJavadocedRecursivePackageMetric());
-        metrics.add(new PercentMethodsJavadocedPackageMetric());
-        metrics.add(new PercentMethodsJavadocedRecursivePackageMetric());
-        metrics.add(new SourceLinesOfCodePackageMetric());
-        metrics.add(new SourceLinesOfCodeProductPackageMetric());
-        metrics.add(new SourceLinesOfCodeProductRecursivePackageMetric());
-        metrics.add(new SourceLinesOfCodeRecursivePackageMetric());
-        metrics.add(new SourceLinesOfCodeTestPackageMetric());
-        metrics.add(new SourceLinesOfCodeTestRecursivePackageMetric());
-        metrics.add(new TestRatioPackageMetric());
-        metrics.add(new TodoCommentCountPackageMetric());
-        metrics.add(new TodoCommentCountRecursivePackageMetric());
-        metrics.add(new TotalCyclomaticComplexityPackageMetric());
-        metrics.add(new TrueCommentRatioPackageMetric());
-        metrics.add(new TrueCommentRatioRecursivePackageMetric());
+    private static void initializePackageMetrics(Collection<String> metrics) {
+        addMetrics(metrics, PACKAGE_METRICS,
+                "AbstractnessMetric",
+                "AdjustedLevelOrderPackageMetric",
+                "AfferentCouplingMetric",
+                "AverageCyclomaticComplexityPackageMetric",
+                "CommentLinesOfCodePackageMetric",
+                "CommentLinesOfCodeRecursivePackageMetric",
+                "CommentRatioPackageMetric",
+                "CommentRatioRecursivePackageMetric",
+                "DistanceMetric",
+                "EfferentCouplingMetric",
+                "EncapsulationRatioPackageMetric",
+                "InstabilityMetric",
+                "JavadocLinesOfCodePackageMetric",
+                "JavadocLinesOfCodeRecursivePackageMetric",
+                "LevelOrderPackageMetric",
+                "LinesOfCodePackageMetric",
+                "LinesOfCodeRecursivePackageMetric",
+                "LinesOfProductCodePackageMetric",
+                "LinesOfProductCodeRecursivePackageMetric",
+                "LinesOfTestCodePackageMetric",
+                "LinesOfTestCodeRecursivePackageMetric",
+                "NumAbstractClassesPackageMetric",
+                "NumAbstractClassesRecursivePackageMetric",
+                "NumAnnotationClassesPackageMetric",
+                "NumAnnotationClassesRecursivePackageMetric",
+                "NumAnonymousClassesPackageMetric",
+                "NumClassesPackageMetric",
+                "NumClassesRecursivePackageMetric",
+                "NumConcreteClassesPackageMetric",
+                "NumConcreteClassesRecursivePackageMetric",
+                "NumCyclicDependenciesPackageMetric",
+                "NumDependencyPackagesPackageMetric",
+                "NumDependentPackagesPackageMetric",
+                "NumEnumClassesPackageMetric",
+                "NumEnumClassesRecursivePackageMetric",
+                "NumInterfacesPackageMetric",
+                "NumInterfacesRecursivePackageMetric",
+                "NumLambdasPackageMetric",
+                "NumLeafClassesPackageMetric",
+                "NumLeafClassesRecursivePackageMetric",
+                "NumMethodsPackageMetric",
+                "NumMethodsRecursivePackageMetric",
+                "NumProductClassesPackageMetric",
+                "NumProductClassesRecursivePackageMetric",
+                "NumRootClassesPackageMetric",
+                "NumRootClassesRecursivePackageMetric",
+                "NumTestAssertsPackageMetric",
+                "NumTestAssertsRecursivePackageMetric",
+                "NumTestCasesPackageMetric",
+                "NumTestCasesRecursivePackageMetric",
+                "NumTestClassesPackageMetric",
+                "NumTestClassesRecursivePackageMetric",
+                "NumTestMethodsPackageMetric",
+                "NumTestMethodsRecursivePackageMetric",
+                "NumTopLevelClassesPackageMetric",
+                "NumTopLevelClassesRecursivePackageMetric",
+                "NumTopLevelInterfacesPackageMetric",
+                "NumTopLevelInterfacesRecursivePackageMetric",
+                "NumTransitiveDependencyPackagesPackageMetric",
+                "NumTransitiveDependentPackagesPackageMetric",
+                "PercentClassesJavadocedPackageMetric",
+                "PercentClassesJavadocedRecursivePackageMetric",
+                "PercentFieldsJavadocedPackageMetric",
+                "PercentFieldsJavadocedRecursivePackageMetric",
+                "PercentMethodsJavadocedPackageMetric",
+                "PercentMethodsJavadocedRecursivePackageMetric",
+                "SourceLinesOfCodePackageMetric",
+                "SourceLinesOfCodeProductPackageMetric",
+                "SourceLinesOfCodeProductRecursivePackageMetric",
+                "SourceLinesOfCodeRecursivePackageMetric",
+                "SourceLinesOfCodeTestPackageMetric",
+                "SourceLinesOfCodeTestRecursivePackageMetric",
+                "TestRatioPackageMetric",
+                "TodoCommentCountPackageMetric",
+                "TodoCommentCountRecursivePackageMetric",
+                "TotalCyclomaticComplexityPackageMetric",
+                "TrueCommentRatioPackageMetric",
+                "TrueCommentRatioRecursivePackageMetric");
     }
 
-    private static void initializeProjectMetrics(Collection<Metric> metrics) {
-        metrics.add(new AttributeHidingFactorProjectMetric());
-        metrics.add(new AttributeInheritanceFactorProjectMetric());
-        metrics.add(new AverageCyclomaticComplexityProjectMetric());
-        metrics.add(new CouplingFactorProjectMetric());
-        metrics.add(new JavadocLinesOfCodeProjectMetric());
-        metrics.add(new LinesOfJavaProjectMetric());
-        metrics.add(new MethodHidingFactorProjectMetric());
-        metrics.add(new MethodInheritanceFactorProjectMetric());
-        metrics.add(new NumAbstractClassesProjectMetric());
-        metrics.add(new NumAnnotationClassesProjectMetric());
-        metrics.add(new NumClassesProjectMetric());
-        metrics.add(new NumConcreteClassesProjectMetric());
-        metrics.add(new NumEnumClassesProjectMetric());
-        metrics.add(new NumInterfacesProjectMetric());
-        metrics.add(new NumJavaFilesProjectMetric());
-        metrics.add(new NumLeafClassesProjectMetric());
-        metrics.add(new NumMethodsProjectMetric());
-        metrics.add(new NumPackagesMetric());
-        metrics.add(new NumProductClassesProjectMetric());
-        metrics.add(new NumRootClassesProjectMetric());
-        metrics.add(new NumTestAssertsProjectMetric());
-        metrics.add(new NumTestCasesProjectMetric());
-        metrics.add(new NumTestClassesProjectMetric());
-        metrics.add(new NumTestMethodsProjectMetric());
-        metrics.add(new NumTopLevelClassesProjectMetric());
-        metrics.add(new NumTopLevelInterfacesProjectMetric());
-        metrics.add(new PercentClassesJavadocedProjectMetric());
-        metrics.add(new PercentFieldsJavadocedProjectMetric());
-        metrics.add(new PercentMethodsJavadocedProjectMetric());
-        metrics.add(new PolymorphismFactorProjectMetric());
-        metrics.add(new TotalCyclomaticComplexityProjectMetric());
+    private static void initializeProjectMetrics(Collection<String> metrics) {
+        addMetrics(metrics, PROJECT_METRICS,
+                "AttributeHidingFactorProjectMetric",
+                "AttributeInheritanceFactorProjectMetric",
+                "AverageCyclomaticComplexityProjectMetric",
+                "CouplingFactorProjectMetric",
+                "JavadocLinesOfCodeProjectMetric",
+                "LinesOfJavaProjectMetric",
+                "MethodHidingFactorProjectMetric",
+                "MethodInheritanceFactorProjectMetric",
+                "NumAbstractClassesProjectMetric",
+                "NumAnnotationClassesProjectMetric",
+                "NumClassesProjectMetric",
+                "NumConcreteClassesProjectMetric",
+                "NumEnumClassesProjectMetric",
+                "NumInterfacesProjectMetric",
+                "NumJavaFilesProjectMetric",
+                "NumLeafClassesProjectMetric",
+                "NumMethodsProjectMetric",
+                "NumPackagesMetric",
+                "NumProductClassesProjectMetric",
+                "NumRootClassesProjectMetric",
+                "NumTestAssertsProjectMetric",
+                "NumTestCasesProjectMetric",
+                "NumTestClassesProjectMetric",
+                "NumTestMethodsProjectMetric",
+                "NumTopLevelClassesProjectMetric",
+                "NumTopLevelInterfacesProjectMetric",
+                "PercentClassesJavadocedProjectMetric",
+                "PercentFieldsJavadocedProjectMetric",
+                "PercentMethodsJavadocedProjectMetric",
+                "PolymorphismFactorProjectMetric",
+                "TotalCyclomaticComplexityProjectMetric");
     }
 
     @NotNull
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2005-2017 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.stockmetrics;
+
+import org.jetbrains.annotations.NonNls;
+
+import java.util.Collection;
+
+/**
+ * Package prefixes of the stock metrics. Providers list their metrics by class name, so the metric classes are
+ * loaded only when the metrics are first used.
+ */
+final class MetricClassNames {
+    @NonNls
+    static final String CLASS_METRICS = "com.sixrr.stockmetrics.classMetrics.";
+    @NonNls
+    static final String FILE_TYPE_METRICS = "com.sixrr.stockmetrics.fileTypeMetrics.";
+    @NonNls
+    static final String INTERFACE_METRICS = "com.sixrr.stockmetrics.interfaceMetrics.";
+    @NonNls
+    static final String METHOD_METRICS = "com.sixrr.stockmetrics.methodMetrics.";
+    @NonNls
+    static final String MODULE_METRICS = "com.sixrr.stockmetrics.moduleMetrics.";
+    @NonNls
+    static final String PACKAGE_METRICS = "com.sixrr.stockmetrics.packageMetrics.";
+    @NonNls
+    static final String PROJECT_METRICS = "com.sixrr.stockmetrics.projectMetrics.";
+
+    private MetricClassNames() {}
+
+    static void addMetrics(Collection<String> metrics, String packagePrefix, String... simpleNames) {
+        for (String simpleName : simpleNames) {
+            metrics.add(packagePrefix + simpleName);
+        }
+    }
+}
@@ -16,15 +16,10 @@
 
 package com.sixrr.stockmetrics.classCalculators;
 
-import com.intellij.psi.*;
-
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
-
-import static com.sixrr.stockmetrics.utils.MethodsCohesionUtils.calculateFieldToMethodUsage;
-import static com.sixrr.stockmetrics.utils.MethodsCohesionUtils.getApplicableMethods;
+import com.intellij.psi.JavaRecursiveElementVisitor;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiElementVisitor;
+import com.sixrr.stockmetrics.utils.ClassCohesionModel;
 
 public class LackOfCohesionInMethods2ClassCalculator extends ClassCalculator {
     @Override
@@ -40,20 +35,17 @@ public class LackOfCohesionInMethods2ClassCalculator extends ClassCalculator {
                 return;
             }
 
-            final Set<PsiMethod> applicableMethods = getApplicableMethods(aClass);
-            final int n = applicableMethods.size();
+            final ClassCohesionModel model = ClassCohesionModel.getInstance(aClass, executionContext);
+            final int n = model.getMethodCount();
             if (n <= 1) {
                 postMetric(aClass, 0);
                 return;
             }
 
-            final Set<PsiField> fields = new HashSet<PsiField>(Arrays.asList(aClass.getFields()));
-            final int fieldsNumber = fields.size();
-            final Map<PsiField, Set<PsiMethod>> fieldToMethods =
-                    calculateFieldToMethodUsage(fields, applicableMethods);
+            final int fieldsNumber = model.getOwnFieldCount();
             int fieldsUsagesSum = 0;
-            for (final Map.Entry<PsiField, Set<PsiMethod>> e : fieldToMethods.entrySet()) {
-                fieldsUsagesSum += e.getValue().size();
+            for (int field = 0; field < fieldsNumber; field++) {
+                fieldsUsagesSum += model.countFieldUsers(field);
             }
 
             final double averageFieldUsage = fieldsNumber == 0 ? 0.0 : (double) fieldsUsagesSum / fieldsNumber;
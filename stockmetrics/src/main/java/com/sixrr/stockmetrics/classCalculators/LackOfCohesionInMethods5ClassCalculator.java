@@ -16,16 +16,10 @@
 
 package com.sixrr.stockmetrics.classCalculators;
 
-import com.intellij.psi.*;
-import com.sixrr.stockmetrics.utils.SetUtil;
-
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
-
-import static com.sixrr.stockmetrics.utils.MethodsCohesionUtils.calculateFieldToMethodUsage;
-import static com.sixrr.stockmetrics.utils.MethodsCohesionUtils.getApplicableMethods;
+import com.intellij.psi.JavaRecursiveElementVisitor;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiElementVisitor;
+import com.sixrr.stockmetrics.utils.ClassCohesionModel;
 
 public class LackOfCohesionInMethods5ClassCalculator extends ClassCalculator {
     @Override
@@ -41,24 +35,21 @@ public class LackOfCohesionInMethods5ClassCalculator extends ClassCalculator {
                 return;
             }
 
-            final Map<PsiField, Set<PsiMethod>> fieldToMethods = calculateFieldToMethodUsage(
-                            new HashSet<PsiField>(Arrays.asList(aClass.getFields())), getApplicableMethods(aClass));
-            final PsiField[] fields = aClass.getFields();
-            if (fields.length < 2) {
+            final ClassCohesionModel model = ClassCohesionModel.getInstance(aClass, executionContext);
+            final int fieldsNumber = model.getOwnFieldCount();
+            if (fieldsNumber < 2) {
                 postMetric(aClass, 0);
                 return;
             }
 
             double sumOfJaccardDistances = 0.0;
-            for (int i = 0; i < fields.length; i++) {
-                for (int j = i + 1; j < fields.length; j++) {
-                    final Set<PsiMethod> a = fieldToMethods.get(fields[i]);
-                    final Set<PsiMethod> b = fieldToMethods.get(fields[j]);
-                    sumOfJaccardDistances += SetUtil.jaccardDistance(a, b);
+            for (int i = 0; i < fieldsNumber; i++) {
+                for (int j = i + 1; j < fieldsNumber; j++) {
+                    sumOfJaccardDistances += model.calculateFieldJaccardDistance(i, j);
                 }
             }
 
-            postMetric(aClass, sumOfJaccardDistances / (double) (fields.length * (fields.length - 1) / 2));
+            postMetric(aClass, sumOfJaccardDistances / (double) (fieldsNumber * (fieldsNumber - 1) / 2));
         }
     }
 }
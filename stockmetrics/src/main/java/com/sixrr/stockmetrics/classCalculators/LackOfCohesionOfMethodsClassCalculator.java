@@ -16,12 +16,10 @@
 
 package com.sixrr.stockmetrics.classCalculators;
 
-import com.intellij.psi.*;
-
-import java.util.Map;
-import java.util.Set;
-
-import static com.sixrr.stockmetrics.utils.MethodsCohesionUtils.*;
+import com.intellij.psi.JavaRecursiveElementVisitor;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiElementVisitor;
+import com.sixrr.stockmetrics.utils.ClassCohesionModel;
 
 public class LackOfCohesionOfMethodsClassCalculator extends ClassCalculator {
     @Override
@@ -35,12 +33,8 @@ public class LackOfCohesionOfMethodsClassCalculator extends ClassCalculator {
         public void visitClass(PsiClass aClass) {
             super.visitClass(aClass);
             if (isConcreteClass(aClass)) {
-                final Set<PsiMethod> applicableMethods = getApplicableMethods(aClass);
-                final Map<PsiMethod, Set<PsiField>> fieldsPerMethod = calculateFieldUsage(applicableMethods);
-                final Map<PsiMethod, Set<PsiMethod>> linkedMethods = calculateMethodLinkage(applicableMethods);
-                final Set<Set<PsiMethod>> components =
-                        calculateComponents(applicableMethods, fieldsPerMethod, linkedMethods);
-                final int numComponents = components.size();
+                final ClassCohesionModel model = ClassCohesionModel.getInstance(aClass, executionContext);
+                final int numComponents = model.calculateComponentSizes(true).length;
                 postMetric(aClass, numComponents);
             }
         }
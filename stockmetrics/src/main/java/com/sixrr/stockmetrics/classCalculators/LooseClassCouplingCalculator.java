@@ -16,13 +16,10 @@
 
 package com.sixrr.stockmetrics.classCalculators;
 
-import com.intellij.psi.*;
-
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Set;
-
-import static com.sixrr.stockmetrics.utils.MethodsCohesionUtils.*;
+import com.intellij.psi.JavaRecursiveElementVisitor;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiElementVisitor;
+import com.sixrr.stockmetrics.utils.ClassCohesionModel;
 
 public class LooseClassCouplingCalculator extends ClassCalculator {
     @Override
@@ -38,15 +35,11 @@ public class LooseClassCouplingCalculator extends ClassCalculator {
                 return;
             }
 
-            final Set<PsiMethod> applicableMethods = getApplicableMethods(aClass);
-            final int allPairs = applicableMethods.size() * (applicableMethods.size() - 1) / 2;
-            final Map<PsiMethod, Set<PsiField>> fieldsPerMethod = calculateFieldUsage(applicableMethods);
-            final Set<Set<PsiMethod>> components = calculateComponents(applicableMethods, fieldsPerMethod,
-                    new HashMap<PsiMethod, Set<PsiMethod>>());
+            final ClassCohesionModel model = ClassCohesionModel.getInstance(aClass, executionContext);
+            final int allPairs = model.getMethodCount() * (model.getMethodCount() - 1) / 2;
 
             int metric = 0;
-            for (final Set<PsiMethod> methods : components) {
-                final int n = methods.size();
+            for (final int n : model.calculateComponentSizes(false)) {
                 metric += n * (n - 1) / 2;
             }
 
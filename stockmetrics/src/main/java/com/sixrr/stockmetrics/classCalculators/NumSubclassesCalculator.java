@@ -19,7 +19,8 @@ package com.sixrr.stockmetrics.classCalculators;
 import com.intellij.psi.JavaRecursiveElementVisitor;
 import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiElementVisitor;
-import com.sixrr.metrics.utils.ClassUtils;
+import com.intellij.psi.PsiModifier;
+import com.sixrr.stockmetrics.utils.TypeHierarchyIndex;
 
 public class NumSubclassesCalculator extends ClassCalculator {
 
@@ -36,7 +37,11 @@ public class NumSubclassesCalculator extends ClassCalculator {
             if (!isConcreteClass(aClass) || aClass.isEnum()) {
                 return;
             }
-            postMetric(aClass, ClassUtils.calculateSubclassCount(aClass));
+            if (aClass.hasModifierProperty(PsiModifier.FINAL)) {
+                postMetric(aClass, 0);
+                return;
+            }
+            postMetric(aClass, TypeHierarchyIndex.getInstance(executionContext).getInheritors(aClass, true).size());
         }
     }
 }
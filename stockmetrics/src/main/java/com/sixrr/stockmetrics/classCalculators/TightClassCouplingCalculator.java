@@ -19,12 +19,7 @@ package com.sixrr.stockmetrics.classCalculators;
 import com.intellij.psi.JavaRecursiveElementVisitor;
 import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiElementVisitor;
-import com.intellij.psi.PsiMethod;
-
-import java.util.Set;
-
-import static com.sixrr.stockmetrics.utils.MethodsCohesionUtils.calculateConnectedMethods;
-import static com.sixrr.stockmetrics.utils.MethodsCohesionUtils.getApplicableMethods;
+import com.sixrr.stockmetrics.utils.ClassCohesionModel;
 
 public class TightClassCouplingCalculator extends ClassCalculator {
     @Override
@@ -40,9 +35,9 @@ public class TightClassCouplingCalculator extends ClassCalculator {
                 return;
             }
 
-            final Set<PsiMethod> applicableMethods = getApplicableMethods(aClass);
-            final int allPairs = applicableMethods.size() * (applicableMethods.size() - 1) / 2;
-            final int connectedPairs = calculateConnectedMethods(applicableMethods);
+            final ClassCohesionModel model = ClassCohesionModel.getInstance(aClass, executionContext);
+            final int allPairs = model.getMethodCount() * (model.getMethodCount() - 1) / 2;
+            final int connectedPairs = model.countConnectedPairs();
 
             postMetric(aClass, connectedPairs, allPairs);
         }
@@ -35,7 +35,7 @@ public class TodoCommentCountClassCalculator extends ClassCalculator {
         public void visitClass(PsiClass aClass) {
             super.visitClass(aClass);
             if (!ClassUtils.isAnonymous(aClass) && !aClass.isInterface()) {
-                postMetric(aClass, TodoUtil.getTodoItemsCount(aClass));
+                postMetric(aClass, TodoUtil.getTodoItemsCount(aClass, executionContext));
             }
         }
     }
@@ -17,11 +17,11 @@
 package com.sixrr.stockmetrics.classMetrics;
 
 import com.intellij.psi.*;
-import com.intellij.psi.search.searches.ClassInheritorsSearch;
 import com.sixrr.metrics.MetricCalculator;
 import com.sixrr.metrics.MetricType;
 import com.sixrr.stockmetrics.classCalculators.ClassCalculator;
 import com.sixrr.stockmetrics.i18n.StockMetricsBundle;
+import com.sixrr.stockmetrics.utils.TypeHierarchyIndex;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -85,7 +85,7 @@ public class NumChildrenMetric extends ClassMetric {
                 if (aClass.hasModifierProperty(PsiModifier.FINAL)) {
                     return 0;
                 }
-                return ClassInheritorsSearch.search(aClass, false).findAll().size();
+                return TypeHierarchyIndex.getInstance(executionContext).getInheritors(aClass, false).size();
             }
         }
     }
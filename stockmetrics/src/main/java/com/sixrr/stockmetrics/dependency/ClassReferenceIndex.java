@@ -0,0 +1,48 @@
+/*
+ * Copyright 2005-2017 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.stockmetrics.dependency;
+
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * References to the source classes of the project, collected together with the dependency map.
+ */
+public interface ClassReferenceIndex {
+
+    int getReferenceCount(PsiClass aClass);
+
+    /**
+     * Passes every place referencing the given class to the processor, grouped by referencing class and file.
+     *
+     * @return false if the processor stopped the iteration, true otherwise.
+     */
+    boolean processReferences(PsiClass aClass, ReferenceProcessor processor);
+
+    interface ReferenceProcessor {
+
+        /**
+         * @param referencingClass innermost class containing the references, null for references outside of
+         *                         any class (e.g. imports).
+         * @param count            number of references from this class and file.
+         * @return false to stop the iteration.
+         */
+        boolean process(@Nullable PsiClass referencingClass, @NotNull PsiFile file, int count);
+    }
+}
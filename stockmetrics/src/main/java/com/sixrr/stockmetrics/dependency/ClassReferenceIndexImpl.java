@@ -0,0 +1,122 @@
+/*
+ * Copyright 2005-2017 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.stockmetrics.dependency;
+
+import com.intellij.psi.*;
+import gnu.trove.TIntObjectHashMap;
+import gnu.trove.TLongIntHashMap;
+import gnu.trove.TLongIntProcedure;
+import gnu.trove.TObjectIntHashMap;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stores references as counts per (target class, referencing class, file) triple of int ids, so the memory used
+ * does not depend on the number of references.
+ */
+public class ClassReferenceIndexImpl implements ClassReferenceIndex {
+
+    private static final int NO_CLASS = -1;
+
+    private final TObjectIntHashMap<PsiClass> classIds = new TObjectIntHashMap<PsiClass>();
+    private final List<PsiClass> classes = new ArrayList<PsiClass>();
+    private final TObjectIntHashMap<PsiFile> fileIds = new TObjectIntHashMap<PsiFile>();
+    private final List<PsiFile> files = new ArrayList<PsiFile>();
+    private final TIntObjectHashMap<TLongIntHashMap> referencesPerClass = new TIntObjectHashMap<TLongIntHashMap>();
+
+    @Override
+    public int getReferenceCount(PsiClass aClass) {
+        final TLongIntHashMap references = getReferences(aClass);
+        if (references == null) {
+            return 0;
+        }
+        int count = 0;
+        for (int value : references.getValues()) {
+            count += value;
+        }
+        return count;
+    }
+
+    @Override
+    public boolean processReferences(PsiClass aClass, final ReferenceProcessor processor) {
+        final TLongIntHashMap references = getReferences(aClass);
+        if (references == null) {
+            return true;
+        }
+        return references.forEachEntry(new TLongIntProcedure() {
+            @Override
+            public boolean execute(long key, int count) {
+                final int classId = (int) (key >> 32);
+                final PsiClass referencingClass = classId == NO_CLASS ? null : classes.get(classId);
+                return processor.process(referencingClass, files.get((int) key), count);
+            }
+        });
+    }
+
+    /**
+     * Starts recording the references of a file. References are reported by the visitor building
+     * {@link DependencyMapImpl}, so the file is walked and its references are resolved only once.
+     *
+     * @return id of the file to pass to {@link #recordReference(PsiElement, PsiClass, int)}.
+     */
+    int startFile(PsiFile file) {
+        return getId(file, fileIds, files);
+    }
+
+    /**
+     * @param target            resolved target of a reference, only references of source classes are recorded.
+     * @param referencingClass  innermost class containing the reference, including anonymous classes.
+     */
+    void recordReference(@Nullable PsiElement target, @Nullable PsiClass referencingClass, int fileId) {
+        if (target instanceof PsiClass && !(target instanceof PsiCompiledElement)) {
+            addReference((PsiClass) target, referencingClass, fileId);
+        }
+    }
+
+    private TLongIntHashMap getReferences(PsiClass aClass) {
+        if (!classIds.containsKey(aClass)) {
+            return null;
+        }
+        return referencesPerClass.get(classIds.get(aClass));
+    }
+
+    private void addReference(PsiClass referencedClass, PsiClass referencingClass, int fileId) {
+        final int referencedId = getId(referencedClass, classIds, classes);
+        final int referencingId = referencingClass == null ? NO_CLASS : getId(referencingClass, classIds, classes);
+        TLongIntHashMap references = referencesPerClass.get(referencedId);
+        if (references == null) {
+            references = new TLongIntHashMap();
+            referencesPerClass.put(referencedId, references);
+        }
+        final long key = ((long) referencingId << 32) | fileId;
+        if (!references.adjustValue(key, 1)) {
+            references.put(key, 1);
+        }
+    }
+
+    private static <T> int getId(T element, TObjectIntHashMap<T> ids, List<T> elements) {
+        if (ids.containsKey(element)) {
+            return ids.get(element);
+        }
+        final int id = elements.size();
+        ids.put(element, id);
+        elements.add(element);
+        return id;
+    }
+}
@@ -376,17 +376,37 @@ public class DependencyMapImpl implements DependencyMap, DependentsMap {
     }
 
     public void build(PsiElement element) {
-        final DependenciesVisitor visitor = new DependenciesVisitor();
+        final DependenciesVisitor visitor = new DependenciesVisitor(null, -1);
         element.accept(visitor);
     }
 
+    /**
+     * Builds the dependencies of the file and records its class references in the given index during the same walk.
+     */
+    public void build(PsiFile file, ClassReferenceIndexImpl classReferenceIndex) {
+        final DependenciesVisitor visitor = new DependenciesVisitor(classReferenceIndex,
+                classReferenceIndex.startFile(file));
+        file.accept(visitor);
+    }
+
     private class DependenciesVisitor extends JavaRecursiveElementVisitor {
 
         private final Stack<PsiClass> classStack = new Stack<PsiClass>();
         private PsiClass currentClass = null;
+        @Nullable
+        private final ClassReferenceIndexImpl classReferenceIndex;
+        private final int fileId;
+        // unlike classStack, includes anonymous classes
+        private final Stack<PsiClass> referencingClasses = new Stack<PsiClass>();
+
+        DependenciesVisitor(@Nullable ClassReferenceIndexImpl classReferenceIndex, int fileId) {
+            this.classReferenceIndex = classReferenceIndex;
+            this.fileId = fileId;
+        }
 
         @Override
         public void visitClass(PsiClass aClass) {
+            referencingClasses.push(aClass);
             if (!ClassUtils.isAnonymous(aClass)) {
                 classStack.push(currentClass);
                 currentClass = aClass;
@@ -397,6 +417,16 @@ public class DependencyMapImpl implements DependencyMap, DependentsMap {
             if (!ClassUtils.isAnonymous(aClass)) {
                 currentClass = classStack.pop();
             }
+            referencingClasses.pop();
+        }
+
+        @Override
+        public void visitReferenceElement(PsiJavaCodeReferenceElement reference) {
+            super.visitReferenceElement(reference);
+            // reference expressions are handled by visitReferenceExpression()
+            if (classReferenceIndex != null && !(reference instanceof PsiReferenceExpression)) {
+                addReference(reference.resolve());
+            }
         }
 
         @Override
@@ -414,6 +444,9 @@ public class DependencyMapImpl implements DependencyMap, DependentsMap {
         public void visitReferenceExpression(PsiReferenceExpression expression) {
             super.visitReferenceExpression(expression);
             final PsiElement element = expression.resolve();
+            if (classReferenceIndex != null) {
+                addReference(element);
+            }
             if (element == null) {
                 return;
             }
@@ -480,6 +513,11 @@ public class DependencyMapImpl implements DependencyMap, DependentsMap {
             addDependencyForType(expression.getFunctionalInterfaceType());
         }
 
+        private void addReference(@Nullable PsiElement target) {
+            final PsiClass referencingClass = referencingClasses.isEmpty() ? null : referencingClasses.peek();
+            classReferenceIndex.recordReference(target, referencingClass, fileId);
+        }
+
         private void addDependencyForTypeParameters(PsiTypeParameter[] parameters) {
             for (PsiTypeParameter parameter : parameters) {
                 final PsiReferenceList extendsList = parameter.getExtendsList();
@@ -36,6 +36,8 @@ import com.sixrr.metrics.Metric;
 import com.sixrr.metrics.MetricCalculator;
 import com.sixrr.metrics.MetricsExecutionContext;
 import com.sixrr.metrics.MetricsResultsHolder;
+import com.sixrr.stockmetrics.dependency.ClassReferenceIndex;
+import com.sixrr.stockmetrics.dependency.ClassReferenceIndexImpl;
 import com.sixrr.stockmetrics.dependency.DependencyMap;
 import com.sixrr.stockmetrics.dependency.DependencyMapImpl;
 import com.sixrr.stockmetrics.dependency.DependentsMap;
@@ -45,6 +47,7 @@ import com.sixrr.stockmetrics.metricModel.BaseMetric;
 public abstract class BaseMetricsCalculator implements MetricCalculator {
 
     private static final Key<DependencyMapImpl> dependencyMapKey = new Key<>("dependencyMap");
+    private static final Key<ClassReferenceIndexImpl> classReferenceIndexKey = new Key<>("classReferenceIndex");
 
     protected Metric metric = null;
     protected MetricsResultsHolder resultsHolder = null;
@@ -58,7 +61,10 @@ public abstract class BaseMetricsCalculator implements MetricCalculator {
         this.resultsHolder = resultsHolder;
         this.executionContext = executionContext;
         if (((BaseMetric) metric).requiresDependents() && getDependencyMap() == null) {
-            calculateDependencies();
+            executionContext.buildSharedStructure("dependency map", () -> {
+                calculateDependencies();
+                return null;
+            });
         }
         visitor = createVisitor();
     }
@@ -87,12 +93,18 @@ public abstract class BaseMetricsCalculator implements MetricCalculator {
         return executionContext.getUserData(dependencyMapKey);
     }
 
+    public ClassReferenceIndex getClassReferenceIndex() {
+        return executionContext.getUserData(classReferenceIndexKey);
+    }
+
     private void calculateDependencies() {
         final DependencyMapImpl dependencyMap = new DependencyMapImpl();
+        final ClassReferenceIndexImpl classReferenceIndex = new ClassReferenceIndexImpl();
         final ProgressManager progressManager = ProgressManager.getInstance();
         final ProgressIndicator progressIndicator = progressManager.getProgressIndicator();
 
         final Project project = executionContext.getProject();
+        // dependents of the measured classes may be anywhere in the project, also in other shards of a sharded run
         final AnalysisScope analysisScope = new AnalysisScope(project);
         final int allFilesCount = analysisScope.getFileCount();
         final PsiManager psiManager = PsiManager.getInstance(project);
@@ -120,7 +132,7 @@ public abstract class BaseMetricsCalculator implements MetricCalculator {
                     if (!(file instanceof PsiJavaFile)) {
                         return true;
                     }
-                    dependencyMap.build(file);
+                    dependencyMap.build(file, classReferenceIndex);
                 } finally {
                     token.finish();
                 }
@@ -128,5 +140,6 @@ public abstract class BaseMetricsCalculator implements MetricCalculator {
             }
         });
         executionContext.putUserData(dependencyMapKey, dependencyMap);
+        executionContext.putUserData(classReferenceIndexKey, classReferenceIndex);
     }
 }
@@ -19,8 +19,7 @@ package com.sixrr.stockmetrics.interfaceCalculators;
 import com.intellij.psi.JavaRecursiveElementVisitor;
 import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiElementVisitor;
-import com.intellij.psi.search.searches.ClassInheritorsSearch;
-import com.intellij.util.Query;
+import com.sixrr.stockmetrics.utils.TypeHierarchyIndex;
 
 public class NumSubinterfacesCalculator extends InterfaceCalculator {
 
@@ -37,9 +36,9 @@ public class NumSubinterfacesCalculator extends InterfaceCalculator {
             if (!isInterface(aClass)) {
                 return;
             }
-            final Query<PsiClass> query = ClassInheritorsSearch.search(aClass);
+            final TypeHierarchyIndex hierarchy = TypeHierarchyIndex.getInstance(executionContext);
             int numSubInterfaces = 0;
-            for (final PsiClass inheritor : query) {
+            for (final PsiClass inheritor : hierarchy.getInheritors(aClass, true)) {
                 if (inheritor.isInterface()) {
                     numSubInterfaces++;
                 }
@@ -34,7 +34,7 @@ public class TodoCommentCountInterfaceCalculator extends InterfaceCalculator {
         public void visitClass(PsiClass aClass) {
             super.visitClass(aClass);
             if (isInterface(aClass)) {
-                postMetric(aClass, TodoUtil.getTodoItemsCount(aClass));
+                postMetric(aClass, TodoUtil.getTodoItemsCount(aClass, executionContext));
             }
         }
     }
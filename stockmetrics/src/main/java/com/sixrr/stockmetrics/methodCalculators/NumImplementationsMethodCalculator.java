@@ -19,9 +19,8 @@ package com.sixrr.stockmetrics.methodCalculators;
 import com.intellij.psi.JavaRecursiveElementVisitor;
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiMethod;
-import com.intellij.psi.search.searches.OverridingMethodsSearch;
-import com.intellij.util.Query;
 import com.sixrr.metrics.utils.MethodUtils;
+import com.sixrr.stockmetrics.utils.TypeHierarchyIndex;
 
 public class NumImplementationsMethodCalculator extends MethodCalculator {
 
@@ -40,8 +39,8 @@ public class NumImplementationsMethodCalculator extends MethodCalculator {
             }
 
             int numImplementations = 0;
-            final Query<PsiMethod> query = OverridingMethodsSearch.search(method);
-            for (final PsiMethod overridingMethod : query) {
+            final TypeHierarchyIndex hierarchy = TypeHierarchyIndex.getInstance(executionContext);
+            for (final PsiMethod overridingMethod : hierarchy.getOverridingMethods(method)) {
                 if (!MethodUtils.isAbstract(overridingMethod)) {
                     numImplementations++;
                 }
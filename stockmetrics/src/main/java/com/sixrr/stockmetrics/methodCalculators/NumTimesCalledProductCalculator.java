@@ -16,7 +16,6 @@
 
 package com.sixrr.stockmetrics.methodCalculators;
 
-import com.intellij.openapi.util.Key;
 import com.intellij.psi.JavaRecursiveElementVisitor;
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiMethod;
@@ -39,13 +38,7 @@ public class NumTimesCalledProductCalculator extends MethodCalculator {
         @Override
         public void visitMethod(PsiMethod method) {
             if (methodNestingDepth == 0) {
-                final Key<MethodCallMap> key = new Key<MethodCallMap>("MethodCallMap");
-
-                MethodCallMap methodCallMap = executionContext.getUserData(key);
-                if (methodCallMap == null) {
-                    methodCallMap = new MethodCallMapImpl();
-                    executionContext.putUserData(key, methodCallMap);
-                }
+                final MethodCallMap methodCallMap = MethodCallMapImpl.getInstance(executionContext);
                 final Set<PsiReference> methodCalls = methodCallMap.calculateProductMethodCallPoints(method);
                 final int calls = methodCalls.size();
                 postMetric(method, calls);
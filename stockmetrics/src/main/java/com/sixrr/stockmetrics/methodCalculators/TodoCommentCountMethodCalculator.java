@@ -32,7 +32,7 @@ public class TodoCommentCountMethodCalculator extends MethodCalculator {
 
         @Override
         public void visitMethod(PsiMethod method) {
-            postMetric(method, TodoUtil.getTodoItemsCount(method));
+            postMetric(method, TodoUtil.getTodoItemsCount(method, executionContext));
         }
     }
 }
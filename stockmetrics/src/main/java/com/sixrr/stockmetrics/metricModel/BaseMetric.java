@@ -70,4 +70,9 @@ public abstract class BaseMetric implements Metric {
     public boolean requiresDependents() {
         return false;
     }
+
+    @Override
+    public boolean dependsOnOtherFiles() {
+        return requiresDependents();
+    }
 }
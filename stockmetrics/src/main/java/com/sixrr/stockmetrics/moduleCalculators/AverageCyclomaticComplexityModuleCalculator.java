@@ -16,52 +16,12 @@
 
 package com.sixrr.stockmetrics.moduleCalculators;
 
-import com.intellij.openapi.module.Module;
-import com.intellij.psi.JavaRecursiveElementVisitor;
-import com.intellij.psi.PsiElementVisitor;
-import com.intellij.psi.PsiMethod;
-import com.sixrr.metrics.utils.BucketedCount;
-import com.sixrr.metrics.utils.ClassUtils;
-import com.sixrr.metrics.utils.MethodUtils;
-import com.sixrr.stockmetrics.utils.CyclomaticComplexityUtil;
+import com.sixrr.stockmetrics.rollup.RollUp;
+import com.sixrr.stockmetrics.rollup.RollUpSources;
 
-import java.util.Set;
+public class AverageCyclomaticComplexityModuleCalculator extends RollUpModuleCalculator {
 
-public class AverageCyclomaticComplexityModuleCalculator extends ModuleCalculator {
-
-    private final BucketedCount<Module> totalComplexityPerModule = new BucketedCount<Module>();
-    private final BucketedCount<Module> numMethodsPerModule = new BucketedCount<Module>();
-
-    @Override
-    public void endMetricsRun() {
-        final Set<Module> modules = numMethodsPerModule.getBuckets();
-        for (final Module module : modules) {
-            final int numMethods = numMethodsPerModule.getBucketValue(module);
-            final int totalComplexity = totalComplexityPerModule.getBucketValue(module);
-
-            postMetric(module, totalComplexity, numMethods);
-        }
-    }
-
-    @Override
-    protected PsiElementVisitor createVisitor() {
-        return new Visitor();
-    }
-
-    private class Visitor extends JavaRecursiveElementVisitor {
-
-        @Override
-        public void visitMethod(PsiMethod method) {
-            if (MethodUtils.isAbstract(method)) {
-                return;
-            }
-            final Module module = ClassUtils.calculateModule(method);
-            if (module == null) {
-                return;
-            }
-            final int complexity = CyclomaticComplexityUtil.calculateComplexity(method);
-            totalComplexityPerModule.incrementBucketValue(module, complexity);
-            numMethodsPerModule.incrementBucketValue(module);
-        }
+    public AverageCyclomaticComplexityModuleCalculator() {
+        super(RollUp.average(RollUpSources.CYCLOMATIC_COMPLEXITY));
     }
 }
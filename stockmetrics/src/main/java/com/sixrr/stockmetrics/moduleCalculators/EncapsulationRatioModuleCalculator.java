@@ -16,11 +16,12 @@
 
 package com.sixrr.stockmetrics.moduleCalculators;
 
-import com.intellij.openapi.util.Key;
 import com.intellij.psi.*;
 import com.sixrr.metrics.utils.ClassUtils;
 import com.sixrr.metrics.utils.TestUtils;
-import com.sixrr.stockmetrics.utils.ClassReferenceCache;
+import com.sixrr.stockmetrics.dependency.ClassReferenceIndex;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 public class EncapsulationRatioModuleCalculator extends ElementRatioModuleCalculator {
 
@@ -44,25 +45,16 @@ public class EncapsulationRatioModuleCalculator extends ElementRatioModuleCalcul
 
         private boolean isInternal(PsiClass aClass) {
             final String moduleName = ClassUtils.calculateModuleName(aClass);
-            final Key<ClassReferenceCache> key = new Key<ClassReferenceCache>("ClassReferenceCache");
-
-            ClassReferenceCache classReferenceCache = executionContext.getUserData(key);
-            if (classReferenceCache == null) {
-                classReferenceCache = new ClassReferenceCache();
-                executionContext.putUserData(key, classReferenceCache);
-            }
-            for (final PsiReference reference : classReferenceCache.findClassReferences(aClass)) {
-                final PsiElement element = reference.getElement();
-                final PsiFile containingFile = element.getContainingFile();
-                if (containingFile == null || TestUtils.isTest(containingFile)) {
-                    continue;
+            return getClassReferenceIndex().processReferences(aClass, new ClassReferenceIndex.ReferenceProcessor() {
+                @Override
+                public boolean process(@Nullable PsiClass referencingClass, @NotNull PsiFile file, int count) {
+                    if (TestUtils.isTest(file)) {
+                        return true;
+                    }
+                    final String referencingModuleName = ClassUtils.calculateModuleName(file);
+                    return moduleName.equals(referencingModuleName);
                 }
-                final String referencingModuleName = ClassUtils.calculateModuleName(containingFile);
-                if (!moduleName.equals(referencingModuleName)) {
-                    return false;
-                }
-            }
-            return true;
+            });
         }
 
         @Override
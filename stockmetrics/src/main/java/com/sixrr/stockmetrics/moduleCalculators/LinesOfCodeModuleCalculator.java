@@ -17,34 +17,12 @@
 package com.sixrr.stockmetrics.moduleCalculators;
 
 import com.intellij.openapi.fileTypes.FileType;
-import com.intellij.psi.PsiElementVisitor;
-import com.intellij.psi.PsiFile;
-import com.intellij.psi.PsiRecursiveElementVisitor;
-import com.sixrr.stockmetrics.utils.LineUtil;
+import com.sixrr.stockmetrics.rollup.RollUp;
+import com.sixrr.stockmetrics.rollup.RollUpSources;
 
-public class LinesOfCodeModuleCalculator extends ElementCountModuleCalculator {
-
-    private final FileType fileType;
+public class LinesOfCodeModuleCalculator extends RollUpModuleCalculator {
 
     public LinesOfCodeModuleCalculator(FileType fileType) {
-        this.fileType = fileType;
-    }
-
-    @Override
-    protected PsiElementVisitor createVisitor() {
-        return new Visitor();
-    }
-
-    private class Visitor extends PsiRecursiveElementVisitor {
-
-        @Override
-        public void visitFile(PsiFile file) {
-            super.visitFile(file);
-            createCount(file);
-            if (fileType == null || file.getFileType() == fileType) {
-                final int lineCount = LineUtil.countLines(file);
-                incrementCount(file, lineCount);
-            }
-        }
+        super(RollUp.sum(RollUpSources.linesOfCode(fileType)));
     }
 }
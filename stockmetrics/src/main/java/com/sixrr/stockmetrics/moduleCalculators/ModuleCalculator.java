@@ -28,4 +28,12 @@ public abstract class ModuleCalculator extends BaseMetricsCalculator {
     void postMetric(Module module, int value) {
         resultsHolder.postModuleMetric(metric, module, (double) value);
     }
+
+    void postMetric(Module module, double numerator, double denominator) {
+        resultsHolder.postModuleMetric(metric, module, numerator, denominator);
+    }
+
+    void postMetric(Module module, double value) {
+        resultsHolder.postModuleMetric(metric, module, value);
+    }
 }
@@ -16,30 +16,12 @@
 
 package com.sixrr.stockmetrics.moduleCalculators;
 
-import com.intellij.psi.JavaRecursiveElementVisitor;
-import com.intellij.psi.PsiElementVisitor;
-import com.intellij.psi.PsiJavaFile;
-import com.intellij.psi.PsiMethod;
+import com.sixrr.stockmetrics.rollup.RollUp;
+import com.sixrr.stockmetrics.rollup.RollUpSources;
 
-public class NumMethodsModuleCalculator extends ElementCountModuleCalculator {
+public class NumMethodsModuleCalculator extends RollUpModuleCalculator {
 
-    @Override
-    protected PsiElementVisitor createVisitor() {
-        return new Visitor();
-    }
-
-    private class Visitor extends JavaRecursiveElementVisitor {
-
-        @Override
-        public void visitMethod(PsiMethod method) {
-            super.visitMethod(method);
-            incrementCount(method, 1);
-        }
-
-        @Override
-        public void visitJavaFile(PsiJavaFile file) {
-            super.visitJavaFile(file);
-            createCount(file);
-        }
+    public NumMethodsModuleCalculator() {
+        super(RollUp.sum(RollUpSources.METHODS));
     }
 }
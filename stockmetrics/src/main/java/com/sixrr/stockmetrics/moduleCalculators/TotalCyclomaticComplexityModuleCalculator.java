@@ -16,28 +16,12 @@
 
 package com.sixrr.stockmetrics.moduleCalculators;
 
-import com.intellij.psi.JavaRecursiveElementVisitor;
-import com.intellij.psi.PsiElementVisitor;
-import com.intellij.psi.PsiMethod;
-import com.sixrr.metrics.utils.MethodUtils;
-import com.sixrr.stockmetrics.utils.CyclomaticComplexityUtil;
+import com.sixrr.stockmetrics.rollup.RollUp;
+import com.sixrr.stockmetrics.rollup.RollUpSources;
 
-public class TotalCyclomaticComplexityModuleCalculator extends ElementCountModuleCalculator {
+public class TotalCyclomaticComplexityModuleCalculator extends RollUpModuleCalculator {
 
-    @Override
-    protected PsiElementVisitor createVisitor() {
-        return new Visitor();
-    }
-
-    private class Visitor extends JavaRecursiveElementVisitor {
-
-        @Override
-        public void visitMethod(PsiMethod method) {
-            if (MethodUtils.isAbstract(method)) {
-                return;
-            }
-            final int complexity = CyclomaticComplexityUtil.calculateComplexity(method);
-            incrementCount(method, complexity);
-        }
+    public TotalCyclomaticComplexityModuleCalculator() {
+        super(RollUp.sum(RollUpSources.CYCLOMATIC_COMPLEXITY));
     }
 }
@@ -16,53 +16,12 @@
 
 package com.sixrr.stockmetrics.packageCalculators;
 
-import com.intellij.psi.JavaRecursiveElementVisitor;
-import com.intellij.psi.PsiElementVisitor;
-import com.intellij.psi.PsiMethod;
-import com.intellij.psi.PsiPackage;
-import com.sixrr.metrics.utils.BucketedCount;
-import com.sixrr.metrics.utils.ClassUtils;
-import com.sixrr.metrics.utils.MethodUtils;
-import com.sixrr.stockmetrics.utils.CyclomaticComplexityUtil;
+import com.sixrr.stockmetrics.rollup.RollUp;
+import com.sixrr.stockmetrics.rollup.RollUpSources;
 
-import java.util.Set;
+public class AverageCyclomaticComplexityPackageCalculator extends RollUpPackageCalculator {
 
-public class AverageCyclomaticComplexityPackageCalculator extends PackageCalculator {
-
-    private final BucketedCount<PsiPackage> totalComplexityPerPackage = new BucketedCount<PsiPackage>();
-    private final BucketedCount<PsiPackage> numMethodsPerPackage = new BucketedCount<PsiPackage>();
-
-    @Override
-    public void endMetricsRun() {
-        final Set<PsiPackage> packages = numMethodsPerPackage.getBuckets();
-        for (final PsiPackage aPackage : packages) {
-            final int numClasses = numMethodsPerPackage.getBucketValue(aPackage);
-            final int numAbstractClasses = totalComplexityPerPackage.getBucketValue(aPackage);
-
-            postMetric(aPackage, numAbstractClasses, numClasses);
-        }
-    }
-
-    @Override
-    protected PsiElementVisitor createVisitor() {
-        return new Visitor();
-    }
-
-    private class Visitor extends JavaRecursiveElementVisitor {
-
-        @Override
-        public void visitMethod(PsiMethod method) {
-            // don't recurse into methods of anonymous or nested classes
-            if (MethodUtils.isAbstract(method)) {
-                return;
-            }
-            final PsiPackage aPackage = ClassUtils.findPackage(method);
-            if (aPackage == null) {
-                return;
-            }
-            final int complexity = CyclomaticComplexityUtil.calculateComplexity(method);
-            totalComplexityPerPackage.incrementBucketValue(aPackage, complexity);
-            numMethodsPerPackage.incrementBucketValue(aPackage);
-        }
+    public AverageCyclomaticComplexityPackageCalculator() {
+        super(RollUp.average(RollUpSources.CYCLOMATIC_COMPLEXITY), false);
     }
 }
@@ -16,55 +16,12 @@
 
 package com.sixrr.stockmetrics.packageCalculators;
 
-import com.intellij.psi.*;
-import com.sixrr.metrics.utils.BucketedCount;
-import com.sixrr.metrics.utils.ClassUtils;
-import com.sixrr.stockmetrics.utils.LineUtil;
+import com.sixrr.stockmetrics.rollup.RollUp;
+import com.sixrr.stockmetrics.rollup.RollUpSources;
 
-import java.util.Set;
+public class CommentRatioPackageCalculator extends RollUpPackageCalculator {
 
-public class CommentRatioPackageCalculator extends PackageCalculator {
-
-    private final BucketedCount<PsiPackage> numLinesPerPackage = new BucketedCount<PsiPackage>();
-    private final BucketedCount<PsiPackage> numCommentLinesPerPackage = new BucketedCount<PsiPackage>();
-
-    @Override
-    public void endMetricsRun() {
-        final Set<PsiPackage> packages = numLinesPerPackage.getBuckets();
-        for (PsiPackage aPackage : packages) {
-            final int numLines = numLinesPerPackage.getBucketValue(aPackage);
-            final int numCommentLines = numCommentLinesPerPackage.getBucketValue(aPackage);
-            postMetric(aPackage, numCommentLines, numLines);
-        }
-    }
-
-    @Override
-    protected PsiElementVisitor createVisitor() {
-        return new Visitor();
-    }
-
-    private class Visitor extends PsiRecursiveElementVisitor {
-
-        @Override
-        public void visitFile(PsiFile file) {
-            super.visitFile(file);
-            final PsiPackage aPackage = ClassUtils.findPackage(file);
-            final int lineCount = LineUtil.countLines(file);
-            if (aPackage == null) {
-                return;
-            }
-            numLinesPerPackage.incrementBucketValue(aPackage, lineCount);
-        }
-
-        @Override
-        public void visitComment(PsiComment comment) {
-            super.visitComment(comment);
-            final PsiPackage aPackage = ClassUtils.findPackage(comment);
-            final int lineCount = LineUtil.countLines(comment);
-            if (aPackage == null) {
-                return;
-            }
-            numCommentLinesPerPackage.incrementBucketValue(aPackage, lineCount);
-        }
+    public CommentRatioPackageCalculator() {
+        super(RollUp.ratio(RollUpSources.COMMENT_LINES, RollUpSources.LINES_OF_CODE), false);
     }
 }
@@ -16,53 +16,12 @@
 
 package com.sixrr.stockmetrics.packageCalculators;
 
-import com.intellij.psi.*;
-import com.sixrr.metrics.utils.BucketedCount;
-import com.sixrr.metrics.utils.ClassUtils;
-import com.sixrr.stockmetrics.utils.LineUtil;
+import com.sixrr.stockmetrics.rollup.RollUp;
+import com.sixrr.stockmetrics.rollup.RollUpSources;
 
-import java.util.Set;
+public class CommentRatioRecursivePackageCalculator extends RollUpPackageCalculator {
 
-public class CommentRatioRecursivePackageCalculator extends PackageCalculator {
-
-    private final BucketedCount<PsiPackage> numLinesPerPackage = new BucketedCount<PsiPackage>();
-    private final BucketedCount<PsiPackage> numCommentLinesPerPackage = new BucketedCount<PsiPackage>();
-
-    @Override
-    public void endMetricsRun() {
-        final Set<PsiPackage> packages = numLinesPerPackage.getBuckets();
-        for (PsiPackage packageName : packages) {
-            final int numLines = numLinesPerPackage.getBucketValue(packageName);
-            final int numCommentLines = numCommentLinesPerPackage.getBucketValue(packageName);
-            postMetric(packageName, numCommentLines, numLines);
-        }
-    }
-
-    @Override
-    protected PsiElementVisitor createVisitor() {
-        return new Visitor();
-    }
-
-    private class Visitor extends PsiRecursiveElementVisitor {
-
-        @Override
-        public void visitFile(PsiFile file) {
-            super.visitFile(file);
-            final int lineCount = LineUtil.countLines(file);
-            final PsiPackage[] packageNames = ClassUtils.calculatePackagesRecursive(file);
-            for (PsiPackage packageName : packageNames) {
-                numLinesPerPackage.incrementBucketValue(packageName, lineCount);
-            }
-        }
-
-        @Override
-        public void visitComment(PsiComment comment) {
-            super.visitComment(comment);
-            final PsiPackage[] packages = ClassUtils.calculatePackagesRecursive(comment);
-            final int lineCount = LineUtil.countLines(comment);
-            for (PsiPackage aPackage : packages) {
-                numCommentLinesPerPackage.incrementBucketValue(aPackage, lineCount);
-            }
-        }
+    public CommentRatioRecursivePackageCalculator() {
+        super(RollUp.ratio(RollUpSources.COMMENT_LINES, RollUpSources.LINES_OF_CODE), true);
     }
 }
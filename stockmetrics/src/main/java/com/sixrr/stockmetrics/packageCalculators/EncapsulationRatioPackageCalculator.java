@@ -16,13 +16,13 @@
 
 package com.sixrr.stockmetrics.packageCalculators;
 
-import com.intellij.openapi.util.Key;
 import com.intellij.psi.*;
-import com.intellij.psi.util.PsiTreeUtil;
 import com.sixrr.metrics.utils.BucketedCount;
 import com.sixrr.metrics.utils.ClassUtils;
 import com.sixrr.metrics.utils.TestUtils;
-import com.sixrr.stockmetrics.utils.ClassReferenceCache;
+import com.sixrr.stockmetrics.dependency.ClassReferenceIndex;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Set;
 
@@ -69,26 +69,16 @@ public class EncapsulationRatioPackageCalculator extends PackageCalculator {
                 return true;
             }
             final String packageName = ClassUtils.calculatePackageName(aClass);
-            final Key<ClassReferenceCache> key = new Key<ClassReferenceCache>("ClassReferenceCache");
-
-            ClassReferenceCache classReferenceCache = executionContext.getUserData(key);
-            if (classReferenceCache == null) {
-                classReferenceCache = new ClassReferenceCache();
-                executionContext.putUserData(key, classReferenceCache);
-            }
-            for (final PsiReference reference : classReferenceCache.findClassReferences(aClass)) {
-                final PsiElement element = reference.getElement();
-                final PsiClass referencingClass = PsiTreeUtil.getParentOfType(element, PsiClass.class);
-
-                if (referencingClass == null || TestUtils.isTest(referencingClass)) {
-                    continue;
+            return getClassReferenceIndex().processReferences(aClass, new ClassReferenceIndex.ReferenceProcessor() {
+                @Override
+                public boolean process(@Nullable PsiClass referencingClass, @NotNull PsiFile file, int count) {
+                    if (referencingClass == null || TestUtils.isTest(referencingClass)) {
+                        return true;
+                    }
+                    final String referencingPackageName = ClassUtils.calculatePackageName(referencingClass);
+                    return packageName.equals(referencingPackageName);
                 }
-                final String referencingPackageName = ClassUtils.calculatePackageName(referencingClass);
-                if (!packageName.equals(referencingPackageName)) {
-                    return false;
-                }
-            }
-            return true;
+            });
         }
     }
 }
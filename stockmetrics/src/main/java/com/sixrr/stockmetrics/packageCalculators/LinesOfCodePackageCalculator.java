@@ -16,25 +16,12 @@
 
 package com.sixrr.stockmetrics.packageCalculators;
 
-import com.intellij.psi.PsiElementVisitor;
-import com.intellij.psi.PsiFile;
-import com.intellij.psi.PsiRecursiveElementVisitor;
-import com.sixrr.stockmetrics.utils.LineUtil;
+import com.sixrr.stockmetrics.rollup.RollUp;
+import com.sixrr.stockmetrics.rollup.RollUpSources;
 
-public class LinesOfCodePackageCalculator extends ElementCountPackageCalculator {
+public class LinesOfCodePackageCalculator extends RollUpPackageCalculator {
 
-    @Override
-    protected PsiElementVisitor createVisitor() {
-        return new Visitor();
-    }
-
-    private class Visitor extends PsiRecursiveElementVisitor {
-
-        @Override
-        public void visitFile(PsiFile file) {
-            super.visitFile(file);
-            final int lineCount = LineUtil.countLines(file);
-            incrementCount(file, lineCount);
-        }
+    public LinesOfCodePackageCalculator() {
+        super(RollUp.sum(RollUpSources.LINES_OF_CODE), false);
     }
 }
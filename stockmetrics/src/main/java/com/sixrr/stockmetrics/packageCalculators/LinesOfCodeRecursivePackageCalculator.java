@@ -16,25 +16,12 @@
 
 package com.sixrr.stockmetrics.packageCalculators;
 
-import com.intellij.psi.PsiElementVisitor;
-import com.intellij.psi.PsiFile;
-import com.intellij.psi.PsiRecursiveElementVisitor;
-import com.sixrr.stockmetrics.utils.LineUtil;
+import com.sixrr.stockmetrics.rollup.RollUp;
+import com.sixrr.stockmetrics.rollup.RollUpSources;
 
-public class LinesOfCodeRecursivePackageCalculator extends ElementCountPackageCalculator {
+public class LinesOfCodeRecursivePackageCalculator extends RollUpPackageCalculator {
 
-    @Override
-    protected PsiElementVisitor createVisitor() {
-        return new Visitor();
-    }
-
-    private class Visitor extends PsiRecursiveElementVisitor {
-
-        @Override
-        public void visitFile(PsiFile file) {
-            super.visitFile(file);
-            final int lineCount = LineUtil.countLines(file);
-            incrementCountRecursive(file, lineCount);
-        }
+    public LinesOfCodeRecursivePackageCalculator() {
+        super(RollUp.sum(RollUpSources.LINES_OF_CODE), true);
     }
 }
@@ -16,33 +16,15 @@
 
 package com.sixrr.stockmetrics.packageCalculators;
 
-import com.intellij.psi.JavaRecursiveElementVisitor;
-import com.intellij.psi.PsiElementVisitor;
-import com.intellij.psi.PsiJavaFile;
-import com.intellij.psi.PsiMethod;
+import com.sixrr.stockmetrics.rollup.RollUp;
+import com.sixrr.stockmetrics.rollup.RollUpSources;
 
 /**
  * @author Bas Leijdekkers
  */
-public class NumMethodsPackageCalculator extends ElementCountPackageCalculator {
+public class NumMethodsPackageCalculator extends RollUpPackageCalculator {
 
-    @Override
-    protected PsiElementVisitor createVisitor() {
-        return new Visitor();
-    }
-
-    private class Visitor extends JavaRecursiveElementVisitor {
-
-        @Override
-        public void visitJavaFile(PsiJavaFile file) {
-            super.visitJavaFile(file);
-            createCount(file);
-        }
-
-        @Override
-        public void visitMethod(PsiMethod method) {
-            super.visitMethod(method);
-            incrementCount(method, 1);
-        }
+    public NumMethodsPackageCalculator() {
+        super(RollUp.sum(RollUpSources.METHODS), false);
     }
 }
@@ -16,30 +16,12 @@
 
 package com.sixrr.stockmetrics.packageCalculators;
 
-import com.intellij.psi.JavaRecursiveElementVisitor;
-import com.intellij.psi.PsiElementVisitor;
-import com.intellij.psi.PsiJavaFile;
-import com.intellij.psi.PsiMethod;
+import com.sixrr.stockmetrics.rollup.RollUp;
+import com.sixrr.stockmetrics.rollup.RollUpSources;
 
-public class NumMethodsRecursivePackageCalculator extends ElementCountPackageCalculator {
+public class NumMethodsRecursivePackageCalculator extends RollUpPackageCalculator {
 
-    @Override
-    protected PsiElementVisitor createVisitor() {
-        return new Visitor();
-    }
-
-    private class Visitor extends JavaRecursiveElementVisitor {
-
-        @Override
-        public void visitJavaFile(PsiJavaFile file) {
-            super.visitJavaFile(file);
-            createCountRecursive(file);
-        }
-
-        @Override
-        public void visitMethod(PsiMethod method) {
-            super.visitMethod(method);
-            incrementCountRecursive(method, 1);
-        }
+    public NumMethodsRecursivePackageCalculator() {
+        super(RollUp.sum(RollUpSources.METHODS), true);
     }
 }
@@ -29,6 +29,10 @@ public abstract class PackageCalculator extends BaseMetricsCalculator {
         resultsHolder.postPackageMetric(metric, aPackage, (double) value);
     }
 
+    void postMetric(PsiPackage aPackage, double numerator, double denominator) {
+        resultsHolder.postPackageMetric(metric, aPackage, numerator, denominator);
+    }
+
     void postMetric(PsiPackage aPackage, double value) {
         resultsHolder.postPackageMetric(metric, aPackage, value);
     }
@@ -18,7 +18,6 @@ package com.sixrr.stockmetrics.packageCalculators;
 
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiFile;
-import com.intellij.psi.PsiRecursiveElementVisitor;
 import com.sixrr.stockmetrics.utils.TodoUtil;
 
 public class TodoCommentCountPackageCalculator extends ElementCountPackageCalculator {
@@ -28,12 +27,11 @@ public class TodoCommentCountPackageCalculator extends ElementCountPackageCalcul
         return new Visitor();
     }
 
-    private class Visitor extends PsiRecursiveElementVisitor {
+    private class Visitor extends PsiElementVisitor {
 
         @Override
         public void visitFile(PsiFile file) {
-            super.visitFile(file);
-            incrementCount(file, TodoUtil.getTodoItemsCount(file));
+            incrementCount(file, TodoUtil.getTodoItemsCount(file, executionContext));
         }
     }
 }
@@ -18,7 +18,6 @@ package com.sixrr.stockmetrics.packageCalculators;
 
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiFile;
-import com.intellij.psi.PsiRecursiveElementVisitor;
 import com.sixrr.stockmetrics.utils.TodoUtil;
 
 public class TodoCommentCountRecursivePackageCalculator extends ElementCountPackageCalculator {
@@ -28,11 +27,11 @@ public class TodoCommentCountRecursivePackageCalculator extends ElementCountPack
         return new Visitor();
     }
 
-    private class Visitor extends PsiRecursiveElementVisitor {
+    private class Visitor extends PsiElementVisitor {
 
         @Override
         public void visitFile(PsiFile file) {
-            incrementCountRecursive(file, TodoUtil.getTodoItemsCount(file));
+            incrementCountRecursive(file, TodoUtil.getTodoItemsCount(file, executionContext));
         }
     }
 }
@@ -60,6 +60,12 @@ public class DistanceMetric extends PackageMetric {
         return true;
     }
 
+    @Override
+    public boolean isAdditive() {
+        // the distance of a package is derived from its totals, not a sum over its classes
+        return false;
+    }
+
     @NotNull
     @Override
     public MetricCalculator createCalculator() {
@@ -42,6 +42,11 @@ public class EncapsulationRatioPackageMetric extends PackageMetric {
         return MetricType.Ratio;
     }
 
+    @Override
+    public boolean requiresDependents() {
+        return true;
+    }
+
     @NotNull
     @Override
     public MetricCalculator createCalculator() {
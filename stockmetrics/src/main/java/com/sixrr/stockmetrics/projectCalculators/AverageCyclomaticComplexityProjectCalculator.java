@@ -16,37 +16,12 @@
 
 package com.sixrr.stockmetrics.projectCalculators;
 
-import com.intellij.psi.JavaRecursiveElementVisitor;
-import com.intellij.psi.PsiElementVisitor;
-import com.intellij.psi.PsiMethod;
-import com.sixrr.metrics.utils.MethodUtils;
-import com.sixrr.stockmetrics.utils.CyclomaticComplexityUtil;
+import com.sixrr.stockmetrics.rollup.RollUp;
+import com.sixrr.stockmetrics.rollup.RollUpSources;
 
-public class AverageCyclomaticComplexityProjectCalculator extends ProjectCalculator {
+public class AverageCyclomaticComplexityProjectCalculator extends RollUpProjectCalculator {
 
-    private int totalComplexity = 0;
-    private int numMethods = 0;
-
-    @Override
-    public void endMetricsRun() {
-        postMetric(totalComplexity, numMethods);
-    }
-
-    @Override
-    protected PsiElementVisitor createVisitor() {
-        return new Visitor();
-    }
-
-    private class Visitor extends JavaRecursiveElementVisitor {
-
-        @Override
-        public void visitMethod(PsiMethod method) {
-            // don't recurse into methods of anonymous or nested classes
-            if (MethodUtils.isAbstract(method)) {
-                return;
-            }
-            totalComplexity += CyclomaticComplexityUtil.calculateComplexity(method);
-            numMethods++;
-        }
+    public AverageCyclomaticComplexityProjectCalculator() {
+        super(RollUp.average(RollUpSources.CYCLOMATIC_COMPLEXITY));
     }
 }
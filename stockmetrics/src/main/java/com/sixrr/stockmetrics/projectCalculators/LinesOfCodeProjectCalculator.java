@@ -17,31 +17,12 @@
 package com.sixrr.stockmetrics.projectCalculators;
 
 import com.intellij.openapi.fileTypes.FileType;
-import com.intellij.psi.PsiElementVisitor;
-import com.intellij.psi.PsiFile;
-import com.sixrr.stockmetrics.utils.LineUtil;
+import com.sixrr.stockmetrics.rollup.RollUp;
+import com.sixrr.stockmetrics.rollup.RollUpSources;
 
-public class LinesOfCodeProjectCalculator extends ElementCountProjectCalculator {
-
-    private final FileType fileType;
+public class LinesOfCodeProjectCalculator extends RollUpProjectCalculator {
 
     public LinesOfCodeProjectCalculator(FileType fileType) {
-        this.fileType = fileType;
-    }
-
-    @Override
-    protected PsiElementVisitor createVisitor() {
-        return new Visitor();
-    }
-
-    private class Visitor extends PsiElementVisitor {
-
-        @Override
-        public void visitFile(PsiFile file) {
-            super.visitFile(file);
-            if (fileType == null || file.getFileType() == fileType) {
-                incrementCount(LineUtil.countLines(file));
-            }
-        }
+        super(RollUp.sum(RollUpSources.linesOfCode(fileType)));
     }
 }
@@ -16,14 +16,10 @@
 
 package com.sixrr.stockmetrics.projectCalculators;
 
-import com.intellij.openapi.progress.ProgressManager;
-import com.intellij.openapi.project.Project;
 import com.intellij.psi.*;
-import com.intellij.psi.search.GlobalSearchScope;
-import com.intellij.psi.search.searches.ClassInheritorsSearch;
-import com.intellij.util.Query;
 import com.sixrr.metrics.utils.Bag;
 import com.sixrr.metrics.utils.ClassUtils;
+import com.sixrr.stockmetrics.utils.TypeHierarchyIndex;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -80,25 +76,14 @@ public class MethodHidingFactorProjectCalculator extends ProjectCalculator {
         if (subclassesPerClass.containsKey(aClass)) {
             return subclassesPerClass.get(aClass);
         }
-        final int[] numSubclasses = new int[1];
-        final Runnable runnable = new Runnable() {
-            @Override
-            public void run() {
-                final Project project = executionContext.getProject();
-                final GlobalSearchScope globalScope = GlobalSearchScope.allScope(project);
-                final Query<PsiClass> query = ClassInheritorsSearch.search(
-                        aClass, globalScope, true, true, true);
-                for (final PsiClass inheritor : query) {
-                    if (!inheritor.isInterface()) {
-                        numSubclasses[0]++;
-                    }
-                }
+        int numSubclasses = 0;
+        for (final PsiClass inheritor : TypeHierarchyIndex.getInstance(executionContext).getInheritors(aClass, true)) {
+            if (!inheritor.isInterface()) {
+                numSubclasses++;
             }
-        };
-        final ProgressManager progressManager = ProgressManager.getInstance();
-        progressManager.runProcess(runnable, null);
-        subclassesPerClass.put(aClass, numSubclasses[0]);
-        return numSubclasses[0];
+        }
+        subclassesPerClass.put(aClass, numSubclasses);
+        return numSubclasses;
     }
 
     @Override
@@ -16,15 +16,11 @@
 
 package com.sixrr.stockmetrics.projectCalculators;
 
-import com.intellij.openapi.progress.ProgressManager;
-import com.intellij.openapi.project.Project;
 import com.intellij.psi.JavaRecursiveElementVisitor;
 import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiMethod;
-import com.intellij.psi.search.GlobalSearchScope;
-import com.intellij.psi.search.searches.ClassInheritorsSearch;
-import com.intellij.util.Query;
+import com.sixrr.stockmetrics.utils.TypeHierarchyIndex;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -43,10 +39,10 @@ public class PolymorphismFactorProjectCalculator extends ProjectCalculator {
         @Override
         public void visitClass(PsiClass aClass) {
             super.visitClass(aClass);
+            final TypeHierarchyIndex hierarchy = TypeHierarchyIndex.getInstance(executionContext);
             final PsiMethod[] methods = aClass.getMethods();
             for (PsiMethod method : methods) {
-                final PsiMethod[] superMethods = method.findSuperMethods();
-                if (superMethods.length == 0) {
+                if (!hierarchy.hasSuperMethods(method)) {
                     numOverridePotentials += getSubclassCount(aClass);
                 } else {
                     numOverridingMethods++;
@@ -64,24 +60,13 @@ public class PolymorphismFactorProjectCalculator extends ProjectCalculator {
         if (subclassesPerClass.containsKey(aClass)) {
             return subclassesPerClass.get(aClass);
         }
-        final int[] numSubclasses = new int[1];
-        final Runnable runnable = new Runnable() {
-            @Override
-            public void run() {
-                final Project project = executionContext.getProject();
-                final GlobalSearchScope globalScope = GlobalSearchScope.allScope(project);
-                final Query<PsiClass> query = ClassInheritorsSearch.search(
-                        aClass, globalScope, true, true, true);
-                for (final PsiClass inheritor : query) {
-                    if (!inheritor.isInterface()) {
-                        numSubclasses[0]++;
-                    }
-                }
+        int numSubclasses = 0;
+        for (final PsiClass inheritor : TypeHierarchyIndex.getInstance(executionContext).getInheritors(aClass, true)) {
+            if (!inheritor.isInterface()) {
+                numSubclasses++;
             }
-        };
-        final ProgressManager progressManager = ProgressManager.getInstance();
-        progressManager.runProcess(runnable, null);
-        subclassesPerClass.put(aClass, numSubclasses[0]);
-        return numSubclasses[0];
+        }
+        subclassesPerClass.put(aClass, numSubclasses);
+        return numSubclasses;
     }
 }
@@ -27,4 +27,12 @@ public abstract class ProjectCalculator extends BaseMetricsCalculator {
     void postMetric(int value) {
         resultsHolder.postProjectMetric(metric, (double) value);
     }
+
+    void postMetric(double numerator, double denominator) {
+        resultsHolder.postProjectMetric(metric, numerator, denominator);
+    }
+
+    void postMetric(double value) {
+        resultsHolder.postProjectMetric(metric, value);
+    }
 }
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2005-2017 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.stockmetrics.projectCalculators;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiElementVisitor;
+import com.intellij.psi.PsiFile;
+import com.sixrr.metrics.Metric;
+import com.sixrr.metrics.MetricsExecutionContext;
+import com.sixrr.metrics.MetricsResultsHolder;
+import com.sixrr.stockmetrics.rollup.RollUp;
+import com.sixrr.stockmetrics.rollup.RollUpIndex;
+import com.sixrr.stockmetrics.rollup.RollUpSource;
+import com.sixrr.stockmetrics.rollup.RollUpTotal;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Project metric rolled up from per-file measurements shared with the other aggregate metrics of the run.
+ */
+public abstract class RollUpProjectCalculator extends ProjectCalculator implements RollUp.Poster<Project> {
+
+    private final RollUp rollUp;
+    private RollUpIndex index = null;
+
+    protected RollUpProjectCalculator(RollUp rollUp) {
+        this.rollUp = rollUp;
+    }
+
+    @Override
+    public void beginMetricsRun(Metric metric, MetricsResultsHolder resultsHolder,
+                                MetricsExecutionContext executionContext) {
+        super.beginMetricsRun(metric, resultsHolder, executionContext);
+        index = RollUpIndex.getInstance(executionContext);
+    }
+
+    @Override
+    public final void processFile(PsiFile file) {
+        rollUp.record(index, file);
+    }
+
+    @Override
+    public final void endMetricsRun() {
+        rollUp.post(new RollUp.Totals<Project>() {
+            @Override
+            public Map<Project, RollUpTotal> get(RollUpSource source) {
+                return Collections.singletonMap(executionContext.getProject(), index.getProjectTotal(source));
+            }
+        }, this);
+    }
+
+    @Override
+    protected final PsiElementVisitor createVisitor() {
+        return PsiElementVisitor.EMPTY_VISITOR;
+    }
+
+    @Override
+    public void postValue(Project project, double value) {
+        postMetric(value);
+    }
+
+    @Override
+    public void postRatio(Project project, double numerator, double denominator) {
+        postMetric(numerator, denominator);
+    }
+}
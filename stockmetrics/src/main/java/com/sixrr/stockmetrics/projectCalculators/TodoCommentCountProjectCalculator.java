@@ -18,7 +18,6 @@ package com.sixrr.stockmetrics.projectCalculators;
 
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiFile;
-import com.intellij.psi.PsiRecursiveElementVisitor;
 import com.sixrr.stockmetrics.utils.TodoUtil;
 
 public class TodoCommentCountProjectCalculator extends ElementCountProjectCalculator {
@@ -28,11 +27,11 @@ public class TodoCommentCountProjectCalculator extends ElementCountProjectCalcul
         return new Visitor();
     }
 
-    private class Visitor extends PsiRecursiveElementVisitor {
+    private class Visitor extends PsiElementVisitor {
 
         @Override
         public void visitFile(PsiFile file) {
-            incrementCount(TodoUtil.getTodoItemsCount(file));
+            incrementCount(TodoUtil.getTodoItemsCount(file, executionContext));
         }
     }
 }
@@ -16,34 +16,12 @@
 
 package com.sixrr.stockmetrics.projectCalculators;
 
-import com.intellij.psi.JavaRecursiveElementVisitor;
-import com.intellij.psi.PsiElementVisitor;
-import com.intellij.psi.PsiMethod;
-import com.sixrr.metrics.utils.MethodUtils;
-import com.sixrr.stockmetrics.utils.CyclomaticComplexityUtil;
+import com.sixrr.stockmetrics.rollup.RollUp;
+import com.sixrr.stockmetrics.rollup.RollUpSources;
 
-public class TotalCyclomaticComplexityProjectCalculator extends ProjectCalculator {
+public class TotalCyclomaticComplexityProjectCalculator extends RollUpProjectCalculator {
 
-    private int totalComplexity = 0;
-
-    @Override
-    public void endMetricsRun() {
-        postMetric(totalComplexity);
-    }
-
-    @Override
-    protected PsiElementVisitor createVisitor() {
-        return new Visitor();
-    }
-
-    private class Visitor extends JavaRecursiveElementVisitor {
-
-        @Override
-        public void visitMethod(PsiMethod method) {
-            if (MethodUtils.isAbstract(method)) {
-                return;
-            }
-            totalComplexity += CyclomaticComplexityUtil.calculateComplexity(method);
-        }
+    public TotalCyclomaticComplexityProjectCalculator() {
+        super(RollUp.sum(RollUpSources.CYCLOMATIC_COMPLEXITY));
     }
 }
@@ -53,6 +53,12 @@ public class AttributeHidingFactorProjectMetric extends ProjectMetric {
         return HelpURLs.MOOD_DISPLAY_STRING;
     }
 
+    @Override
+    public boolean isAdditive() {
+        // the visibility of a field depends on the number of classes in the whole project
+        return false;
+    }
+
     @NotNull
     @Override
     public MetricCalculator createCalculator() {
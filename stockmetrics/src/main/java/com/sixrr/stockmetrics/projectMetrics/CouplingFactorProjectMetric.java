@@ -58,6 +58,12 @@ public class CouplingFactorProjectMetric extends ProjectMetric {
         return true;
     }
 
+    @Override
+    public boolean isAdditive() {
+        // the number of possible couplings depends on the number of classes in the whole project
+        return false;
+    }
+
     @NotNull
     @Override
     public MetricCalculator createCalculator() {
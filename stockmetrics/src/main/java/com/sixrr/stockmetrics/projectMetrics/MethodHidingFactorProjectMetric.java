@@ -53,6 +53,12 @@ public class MethodHidingFactorProjectMetric extends ProjectMetric {
         return HelpURLs.MOOD_DISPLAY_STRING;
     }
 
+    @Override
+    public boolean isAdditive() {
+        // the visibility of a method depends on the number of classes in the whole project
+        return false;
+    }
+
     @NotNull
     @Override
     public MetricCalculator createCalculator() {
@@ -42,6 +42,12 @@ public class NumPackagesMetric extends ProjectMetric {
         return MetricType.Count;
     }
 
+    @Override
+    public boolean isAdditive() {
+        // a package may have files in several parts
+        return false;
+    }
+
     @NotNull
     @Override
     public MetricCalculator createCalculator() {
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2005-2017 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.stockmetrics.rollup;
+
+import com.intellij.psi.PsiFile;
+
+import java.util.Map;
+
+/**
+ * Declares how an aggregate metric is computed from a {@link RollUpSource}.
+ */
+public final class RollUp {
+
+    private enum Operation {SUM, COUNT, AVERAGE, RATIO}
+
+    private final Operation operation;
+    private final RollUpSource source;
+    private final RollUpSource denominatorSource;
+
+    private RollUp(Operation operation, RollUpSource source, RollUpSource denominatorSource) {
+        this.operation = operation;
+        this.source = source;
+        this.denominatorSource = denominatorSource;
+    }
+
+    /**
+     * Sum of the measured values.
+     */
+    public static RollUp sum(RollUpSource source) {
+        return new RollUp(Operation.SUM, source, null);
+    }
+
+    /**
+     * Number of the measured values.
+     */
+    public static RollUp count(RollUpSource source) {
+        return new RollUp(Operation.COUNT, source, null);
+    }
+
+    /**
+     * Sum of the measured values divided by their number.
+     */
+    public static RollUp average(RollUpSource source) {
+        return new RollUp(Operation.AVERAGE, source, null);
+    }
+
+    /**
+     * Sum of the values measured by one source divided by the sum of the values measured by another, posted for
+     * every element the denominator source is present for.
+     */
+    public static RollUp ratio(RollUpSource numeratorSource, RollUpSource denominatorSource) {
+        return new RollUp(Operation.RATIO, numeratorSource, denominatorSource);
+    }
+
+    public void record(RollUpIndex index, PsiFile file) {
+        index.record(source, file);
+        if (denominatorSource != null) {
+            index.record(denominatorSource, file);
+        }
+    }
+
+    public <T> void post(Totals<T> totals, Poster<T> poster) {
+        if (operation == Operation.RATIO) {
+            final Map<T, RollUpTotal> numerators = totals.get(source);
+            for (Map.Entry<T, RollUpTotal> entry : totals.get(denominatorSource).entrySet()) {
+                final RollUpTotal numerator = numerators.get(entry.getKey());
+                poster.postRatio(entry.getKey(), numerator == null ? 0.0 : numerator.getValue(),
+                        entry.getValue().getValue());
+            }
+            return;
+        }
+        for (Map.Entry<T, RollUpTotal> entry : totals.get(source).entrySet()) {
+            final RollUpTotal total = entry.getValue();
+            switch (operation) {
+                case SUM:
+                    poster.postValue(entry.getKey(), total.getValue());
+                    break;
+                case COUNT:
+                    poster.postValue(entry.getKey(), (double) total.getCount());
+                    break;
+                case AVERAGE:
+                    poster.postRatio(entry.getKey(), total.getValue(), (double) total.getCount());
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Totals of one level (packages, recursive packages, modules or the project) per source.
+     */
+    public interface Totals<T> {
+
+        Map<T, RollUpTotal> get(RollUpSource source);
+    }
+
+    public interface Poster<T> {
+
+        void postValue(T element, double value);
+
+        void postRatio(T element, double numerator, double denominator);
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2005-2017 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.stockmetrics.rollup;
+
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiPackage;
+import com.sixrr.metrics.MetricsExecutionContext;
+import com.sixrr.metrics.utils.ClassUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-file measurements of every {@link RollUpSource} used in a metrics run, summed per package, per module and
+ * for the project while the files are processed. Recursive package totals are derived in one bottom-up pass over
+ * the package tree when they are first requested.
+ */
+public final class RollUpIndex {
+
+    private static final Key<RollUpIndex> rollUpIndexKey = new Key<>("rollUpIndex");
+
+    private final Map<RollUpSource, SourceTotals> totalsPerSource = new HashMap<>();
+    private PsiFile currentFile = null;
+    private PsiPackage currentPackage = null;
+    private Module currentModule = null;
+    private final MetricsExecutionContext executionContext;
+
+    private RollUpIndex(MetricsExecutionContext executionContext) {
+        this.executionContext = executionContext;
+    }
+
+    public static RollUpIndex getInstance(MetricsExecutionContext executionContext) {
+        RollUpIndex index = executionContext.getUserData(rollUpIndexKey);
+        if (index == null) {
+            index = new RollUpIndex(executionContext);
+            executionContext.putUserData(rollUpIndexKey, index);
+        }
+        return index;
+    }
+
+    /**
+     * Measures the file with the given source, unless another calculator has already done so.
+     */
+    public void record(final RollUpSource source, final PsiFile file) {
+        SourceTotals totals = totalsPerSource.get(source);
+        if (totals == null) {
+            totals = new SourceTotals();
+            totalsPerSource.put(source, totals);
+        }
+        if (totals.lastFile == file) {
+            return;
+        }
+        totals.lastFile = file;
+        final SourceTotals sourceTotals = totals;
+        executionContext.buildSharedStructure("roll-up totals", () -> {
+            measure(source, file, sourceTotals);
+            return null;
+        });
+    }
+
+    private void measure(RollUpSource source, PsiFile file, SourceTotals totals) {
+        if (file != currentFile) {
+            currentFile = file;
+            currentPackage = ClassUtils.findPackage(file);
+            currentModule = ClassUtils.calculateModule(file);
+        }
+        final RollUpTotal fileTotal = new RollUpTotal();
+        ProgressManager.getInstance().runProcess(() -> source.measure(file, fileTotal), new EmptyProgressIndicator());
+        totals.project.addAll(fileTotal);
+        if (!fileTotal.isPresent()) {
+            return;
+        }
+        if (currentPackage != null) {
+            getOrCreate(totals.perPackage, currentPackage).addAll(fileTotal);
+        }
+        if (currentModule != null) {
+            getOrCreate(totals.perModule, currentModule).addAll(fileTotal);
+        }
+    }
+
+    public Map<PsiPackage, RollUpTotal> getPackageTotals(RollUpSource source) {
+        return getTotals(source).perPackage;
+    }
+
+    /**
+     * @return totals of every package including all of its subpackages.
+     */
+    public Map<PsiPackage, RollUpTotal> getRecursivePackageTotals(RollUpSource source) {
+        final SourceTotals totals = getTotals(source);
+        if (totals.perPackageRecursive == null) {
+            totals.perPackageRecursive = executionContext.buildSharedStructure("roll-up totals",
+                    () -> rollUpPackageTree(totals.perPackage));
+        }
+        return totals.perPackageRecursive;
+    }
+
+    public Map<Module, RollUpTotal> getModuleTotals(RollUpSource source) {
+        return getTotals(source).perModule;
+    }
+
+    public RollUpTotal getProjectTotal(RollUpSource source) {
+        return getTotals(source).project;
+    }
+
+    private SourceTotals getTotals(RollUpSource source) {
+        final SourceTotals totals = totalsPerSource.get(source);
+        return totals == null ? new SourceTotals() : totals;
+    }
+
+    private static Map<PsiPackage, RollUpTotal> rollUpPackageTree(Map<PsiPackage, RollUpTotal> perPackage) {
+        final Map<PsiPackage, RollUpTotal> result = new HashMap<>();
+        final List<List<PsiPackage>> packagesPerDepth = new ArrayList<>();
+        for (Map.Entry<PsiPackage, RollUpTotal> entry : perPackage.entrySet()) {
+            getOrCreate(result, entry.getKey()).addAll(entry.getValue());
+            addToDepth(packagesPerDepth, entry.getKey());
+        }
+        // a parent is shallower than its children, so it is complete before it is rolled up itself
+        for (int depth = packagesPerDepth.size() - 1; depth > 0; depth--) {
+            for (PsiPackage aPackage : packagesPerDepth.get(depth)) {
+                final PsiPackage parent = aPackage.getParentPackage();
+                if (parent == null) {
+                    continue;
+                }
+                RollUpTotal parentTotal = result.get(parent);
+                if (parentTotal == null) {
+                    parentTotal = new RollUpTotal();
+                    result.put(parent, parentTotal);
+                    addToDepth(packagesPerDepth, parent);
+                }
+                parentTotal.addAll(result.get(aPackage));
+            }
+        }
+        return result;
+    }
+
+    private static void addToDepth(List<List<PsiPackage>> packagesPerDepth, PsiPackage aPackage) {
+        final String name = aPackage.getQualifiedName();
+        int depth = name.isEmpty() ? 0 : 1;
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) == '.') {
+                depth++;
+            }
+        }
+        while (packagesPerDepth.size() <= depth) {
+            packagesPerDepth.add(new ArrayList<PsiPackage>());
+        }
+        packagesPerDepth.get(depth).add(aPackage);
+    }
+
+    private static <T> RollUpTotal getOrCreate(Map<T, RollUpTotal> totals, T key) {
+        RollUpTotal total = totals.get(key);
+        if (total == null) {
+            total = new RollUpTotal();
+            totals.put(key, total);
+        }
+        return total;
+    }
+
+    private static final class SourceTotals {
+        private final Map<PsiPackage, RollUpTotal> perPackage = new HashMap<>();
+        private final Map<Module, RollUpTotal> perModule = new HashMap<>();
+        private final RollUpTotal project = new RollUpTotal();
+        private Map<PsiPackage, RollUpTotal> perPackageRecursive = null;
+        private PsiFile lastFile = null;
+    }
+}
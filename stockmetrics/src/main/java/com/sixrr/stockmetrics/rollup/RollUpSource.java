@@ -0,0 +1,29 @@
+/*
+ * Copyright 2005-2017 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.stockmetrics.rollup;
+
+import com.intellij.psi.PsiFile;
+
+/**
+ * A per-file measurement that package, module and project metrics are rolled up from. Every file is measured at
+ * most once per metrics run, however many aggregate metrics use the source, so sources used with different
+ * parameters must implement {@code equals()} and {@code hashCode()}.
+ */
+public interface RollUpSource {
+
+    void measure(PsiFile file, RollUpTotal total);
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2005-2017 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.stockmetrics.rollup;
+
+import com.intellij.openapi.fileTypes.FileType;
+import com.intellij.psi.*;
+import com.sixrr.metrics.utils.MethodUtils;
+import com.sixrr.stockmetrics.utils.CyclomaticComplexityUtil;
+import com.sixrr.stockmetrics.utils.LineUtil;
+import org.jetbrains.annotations.Nullable;
+
+public final class RollUpSources {
+
+    /**
+     * Lines of every file.
+     */
+    public static final RollUpSource LINES_OF_CODE = new LinesOfCodeSource(null);
+
+    /**
+     * Lines of every comment.
+     */
+    public static final RollUpSource COMMENT_LINES = new RollUpSource() {
+        @Override
+        public void measure(PsiFile file, final RollUpTotal total) {
+            file.accept(new PsiRecursiveElementVisitor() {
+                @Override
+                public void visitComment(PsiComment comment) {
+                    super.visitComment(comment);
+                    total.add(LineUtil.countLines(comment));
+                }
+            });
+        }
+    };
+
+    /**
+     * One for every method, including methods of anonymous and local classes. Touches every Java file.
+     */
+    public static final RollUpSource METHODS = new RollUpSource() {
+        @Override
+        public void measure(PsiFile file, final RollUpTotal total) {
+            file.accept(new JavaRecursiveElementVisitor() {
+                @Override
+                public void visitJavaFile(PsiJavaFile javaFile) {
+                    super.visitJavaFile(javaFile);
+                    total.touch();
+                }
+
+                @Override
+                public void visitMethod(PsiMethod method) {
+                    super.visitMethod(method);
+                    total.add(1);
+                }
+            });
+        }
+    };
+
+    /**
+     * Cyclomatic complexity of every non-abstract method, not including methods of anonymous and local classes.
+     */
+    public static final RollUpSource CYCLOMATIC_COMPLEXITY = new RollUpSource() {
+        @Override
+        public void measure(PsiFile file, final RollUpTotal total) {
+            file.accept(new JavaRecursiveElementVisitor() {
+                @Override
+                public void visitMethod(PsiMethod method) {
+                    if (MethodUtils.isAbstract(method)) {
+                        return;
+                    }
+                    total.add(CyclomaticComplexityUtil.calculateComplexity(method));
+                }
+            });
+        }
+    };
+
+    private RollUpSources() {}
+
+    /**
+     * Lines of every file of the given type, or of every file if the type is {@code null}. Touches every file.
+     */
+    public static RollUpSource linesOfCode(@Nullable FileType fileType) {
+        return fileType == null ? LINES_OF_CODE : new LinesOfCodeSource(fileType);
+    }
+
+    private static final class LinesOfCodeSource implements RollUpSource {
+        private final FileType fileType;
+
+        LinesOfCodeSource(@Nullable FileType fileType) {
+            this.fileType = fileType;
+        }
+
+        @Override
+        public void measure(PsiFile file, RollUpTotal total) {
+            if (fileType == null || file.getFileType() == fileType) {
+                total.add(LineUtil.countLines(file));
+            } else {
+                total.touch();
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof LinesOfCodeSource && ((LinesOfCodeSource) o).fileType == fileType;
+        }
+
+        @Override
+        public int hashCode() {
+            return fileType == null ? 0 : fileType.hashCode();
+        }
+    }
+}
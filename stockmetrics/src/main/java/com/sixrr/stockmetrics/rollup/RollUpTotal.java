@@ -0,0 +1,56 @@
+/*
+ * Copyright 2005-2017 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.stockmetrics.rollup;
+
+/**
+ * Sum and number of the values measured by a {@link RollUpSource} for one file, package, module or the project.
+ * A total is present if the source touched it at least once, even if nothing was added.
+ */
+public final class RollUpTotal {
+
+    private double value = 0.0;
+    private int count = 0;
+    private boolean present = false;
+
+    public void touch() {
+        present = true;
+    }
+
+    public void add(double value) {
+        this.value += value;
+        count++;
+        present = true;
+    }
+
+    void addAll(RollUpTotal total) {
+        value += total.value;
+        count += total.count;
+        present |= total.present;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public boolean isPresent() {
+        return present;
+    }
+}
@@ -0,0 +1,333 @@
+/*
+ * Copyright 2005-2017 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.stockmetrics.utils;
+
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.*;
+import com.sixrr.metrics.MetricsExecutionContext;
+import gnu.trove.TLongArrayList;
+import gnu.trove.TObjectIntHashMap;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Method/field usage of one class, shared by all cohesion calculators of a metrics run. Applicable methods
+ * (see {@link MethodsCohesionUtils#getApplicableMethods}) and the fields they use get dense indices; the fields
+ * declared by the class itself come first. Usage and method call linkage are kept as {@code long[]} bit matrices,
+ * so the cohesion metrics reduce to bit operations.
+ */
+public final class ClassCohesionModel {
+
+    private static final Key<ModelCache> modelCacheKey = new Key<>("classCohesionModelCache");
+
+    private final int methodCount;
+    private final int fieldCount;
+    private final int ownFieldCount;
+    private final int methodWords;
+    private final int fieldWords;
+    private final long[] fieldsPerMethod;
+    private final long[] methodsPerField;
+    private final long[] linkedMethods;
+
+    ClassCohesionModel(int methodCount, int fieldCount, int ownFieldCount,
+                       long[] fieldsPerMethod, long[] linkedMethods) {
+        this.methodCount = methodCount;
+        this.fieldCount = fieldCount;
+        this.ownFieldCount = ownFieldCount;
+        methodWords = words(methodCount);
+        fieldWords = words(fieldCount);
+        this.fieldsPerMethod = fieldsPerMethod;
+        this.linkedMethods = linkedMethods;
+        methodsPerField = new long[fieldCount * methodWords];
+        for (int method = 0; method < methodCount; method++) {
+            for (int field = 0; field < fieldCount; field++) {
+                if (isSet(fieldsPerMethod, method * fieldWords, field)) {
+                    set(methodsPerField, field * methodWords, method);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the model of the given class, building it on first request. Calculators process a file one after
+     * another, so only the models of the file currently being processed are kept.
+     */
+    public static ClassCohesionModel getInstance(@NotNull PsiClass aClass, MetricsExecutionContext executionContext) {
+        ModelCache cache = executionContext.getUserData(modelCacheKey);
+        if (cache == null) {
+            cache = new ModelCache(executionContext);
+            executionContext.putUserData(modelCacheKey, cache);
+        }
+        return cache.get(aClass);
+    }
+
+    public static ClassCohesionModel build(@NotNull PsiClass aClass) {
+        final Set<PsiMethod> applicableMethods = MethodsCohesionUtils.getApplicableMethods(aClass);
+        final TObjectIntHashMap<PsiMethod> methodIndices = new TObjectIntHashMap<PsiMethod>();
+        for (PsiMethod method : applicableMethods) {
+            methodIndices.put(method, methodIndices.size());
+        }
+        final TObjectIntHashMap<PsiField> fieldIndices = new TObjectIntHashMap<PsiField>();
+        for (PsiField field : aClass.getFields()) {
+            if (!fieldIndices.containsKey(field)) {
+                fieldIndices.put(field, fieldIndices.size());
+            }
+        }
+        final int ownFieldCount = fieldIndices.size();
+
+        final int methodCount = methodIndices.size();
+        final int methodWords = words(methodCount);
+        final long[] linkedMethods = new long[methodCount * methodWords];
+        final UsageVisitor visitor = new UsageVisitor(methodIndices, fieldIndices, linkedMethods, methodWords);
+        for (PsiMethod method : applicableMethods) {
+            visitor.currentMethod = methodIndices.get(method);
+            method.accept(visitor);
+        }
+
+        final int fieldCount = fieldIndices.size();
+        final int fieldWords = words(fieldCount);
+        final long[] fieldsPerMethod = new long[methodCount * fieldWords];
+        for (int i = 0; i < visitor.usages.size(); i++) {
+            final long usage = visitor.usages.get(i);
+            final int method = (int) (usage >>> 32);
+            final int field = (int) usage;
+            set(fieldsPerMethod, method * fieldWords, field);
+        }
+        return new ClassCohesionModel(methodCount, fieldCount, ownFieldCount, fieldsPerMethod, linkedMethods);
+    }
+
+    public int getMethodCount() {
+        return methodCount;
+    }
+
+    /**
+     * @return the number of fields declared by the class. These fields have indices {@code 0..ownFieldCount-1}.
+     */
+    public int getOwnFieldCount() {
+        return ownFieldCount;
+    }
+
+    /**
+     * @return the number of unordered pairs of applicable methods which use at least one common field.
+     */
+    public int countConnectedPairs() {
+        int connectedPairs = 0;
+        for (int i = 0; i < methodCount; i++) {
+            for (int j = i + 1; j < methodCount; j++) {
+                if (intersects(fieldsPerMethod, i * fieldWords, fieldsPerMethod, j * fieldWords, fieldWords)) {
+                    connectedPairs++;
+                }
+            }
+        }
+        return connectedPairs;
+    }
+
+    /**
+     * Splits applicable methods into connected components. Two methods are connected if they use a common field
+     * or, when {@code followCalls} is set, if one of them calls the other.
+     *
+     * @return the sizes of the components.
+     */
+    public int[] calculateComponentSizes(boolean followCalls) {
+        final int[] parents = new int[methodCount];
+        for (int i = 0; i < methodCount; i++) {
+            parents[i] = i;
+        }
+        for (int field = 0; field < fieldCount; field++) {
+            unionAll(parents, methodsPerField, field * methodWords);
+        }
+        if (followCalls) {
+            for (int method = 0; method < methodCount; method++) {
+                final int offset = method * methodWords;
+                for (int word = 0; word < methodWords; word++) {
+                    long bits = linkedMethods[offset + word];
+                    while (bits != 0) {
+                        final int linked = (word << 6) + Long.numberOfTrailingZeros(bits);
+                        union(parents, method, linked);
+                        bits &= bits - 1;
+                    }
+                }
+            }
+        }
+        final int[] sizes = new int[methodCount];
+        int componentCount = 0;
+        for (int i = 0; i < methodCount; i++) {
+            if (sizes[find(parents, i)]++ == 0) {
+                componentCount++;
+            }
+        }
+        final int[] result = new int[componentCount];
+        int next = 0;
+        for (int size : sizes) {
+            if (size != 0) {
+                result[next++] = size;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of applicable methods using the given field.
+     */
+    public int countFieldUsers(int field) {
+        return popCount(methodsPerField, field * methodWords, methodWords);
+    }
+
+    /**
+     * @return Jaccard distance between the sets of applicable methods using the given fields,
+     * 0 if neither field is used.
+     */
+    public double calculateFieldJaccardDistance(int first, int second) {
+        int intersection = 0;
+        int union = 0;
+        final int firstOffset = first * methodWords;
+        final int secondOffset = second * methodWords;
+        for (int word = 0; word < methodWords; word++) {
+            final long a = methodsPerField[firstOffset + word];
+            final long b = methodsPerField[secondOffset + word];
+            intersection += Long.bitCount(a & b);
+            union += Long.bitCount(a | b);
+        }
+        return union == 0 ? 0.0 : 1.0 - (double) intersection / (double) union;
+    }
+
+    private static void unionAll(int[] parents, long[] matrix, int offset) {
+        final int words = words(parents.length);
+        int first = -1;
+        for (int word = 0; word < words; word++) {
+            long bits = matrix[offset + word];
+            while (bits != 0) {
+                final int element = (word << 6) + Long.numberOfTrailingZeros(bits);
+                if (first == -1) {
+                    first = element;
+                } else {
+                    union(parents, first, element);
+                }
+                bits &= bits - 1;
+            }
+        }
+    }
+
+    private static int find(int[] parents, int element) {
+        while (parents[element] != element) {
+            parents[element] = parents[parents[element]];
+            element = parents[element];
+        }
+        return element;
+    }
+
+    private static void union(int[] parents, int first, int second) {
+        final int firstRoot = find(parents, first);
+        final int secondRoot = find(parents, second);
+        if (firstRoot != secondRoot) {
+            parents[secondRoot] = firstRoot;
+        }
+    }
+
+    private static boolean intersects(long[] a, int aOffset, long[] b, int bOffset, int words) {
+        for (int word = 0; word < words; word++) {
+            if ((a[aOffset + word] & b[bOffset + word]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int popCount(long[] matrix, int offset, int words) {
+        int count = 0;
+        for (int word = 0; word < words; word++) {
+            count += Long.bitCount(matrix[offset + word]);
+        }
+        return count;
+    }
+
+    private static boolean isSet(long[] matrix, int offset, int bit) {
+        return (matrix[offset + (bit >>> 6)] & (1L << bit)) != 0;
+    }
+
+    private static void set(long[] matrix, int offset, int bit) {
+        matrix[offset + (bit >>> 6)] |= 1L << bit;
+    }
+
+    private static int words(int bits) {
+        return (bits + 63) >>> 6;
+    }
+
+    private static class UsageVisitor extends JavaRecursiveElementVisitor {
+        private final TObjectIntHashMap<PsiMethod> methodIndices;
+        private final TObjectIntHashMap<PsiField> fieldIndices;
+        private final long[] linkedMethods;
+        private final int methodWords;
+        private final TLongArrayList usages = new TLongArrayList();
+        private int currentMethod;
+
+        UsageVisitor(TObjectIntHashMap<PsiMethod> methodIndices, TObjectIntHashMap<PsiField> fieldIndices,
+                     long[] linkedMethods, int methodWords) {
+            this.methodIndices = methodIndices;
+            this.fieldIndices = fieldIndices;
+            this.linkedMethods = linkedMethods;
+            this.methodWords = methodWords;
+        }
+
+        @Override
+        public void visitReferenceExpression(PsiReferenceExpression referenceExpression) {
+            super.visitReferenceExpression(referenceExpression);
+            final PsiElement referent = referenceExpression.resolve();
+            if (referent instanceof PsiField) {
+                final PsiField field = (PsiField) referent;
+                if (!fieldIndices.containsKey(field)) {
+                    fieldIndices.put(field, fieldIndices.size());
+                }
+                usages.add(((long) currentMethod << 32) | fieldIndices.get(field));
+            } else if (referent instanceof PsiMethod
+                    && referenceExpression.getParent() instanceof PsiMethodCallExpression
+                    && methodIndices.containsKey(referent)) {
+                final int calledMethod = methodIndices.get((PsiMethod) referent);
+                // linkage is undirected
+                set(linkedMethods, currentMethod * methodWords, calledMethod);
+                set(linkedMethods, calledMethod * methodWords, currentMethod);
+            }
+        }
+    }
+
+    private static class ModelCache {
+        private final Map<PsiClass, ClassCohesionModel> models = new HashMap<>();
+        private final MetricsExecutionContext executionContext;
+        private PsiFile currentFile = null;
+
+        ModelCache(MetricsExecutionContext executionContext) {
+            this.executionContext = executionContext;
+        }
+
+        ClassCohesionModel get(PsiClass aClass) {
+            final PsiFile file = aClass.getContainingFile();
+            if (file != currentFile) {
+                models.clear();
+                currentFile = file;
+            }
+            ClassCohesionModel model = models.get(aClass);
+            if (model == null) {
+                model = executionContext.buildSharedStructure("class cohesion model", () -> build(aClass));
+                models.put(aClass, model);
+            }
+            return model;
+        }
+    }
+}
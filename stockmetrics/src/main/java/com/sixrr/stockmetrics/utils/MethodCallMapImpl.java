@@ -16,10 +16,12 @@
 
 package com.sixrr.stockmetrics.utils;
 
+import com.intellij.openapi.util.Key;
 import com.intellij.psi.*;
 import com.intellij.psi.search.searches.ReferencesSearch;
 import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.util.Query;
+import com.sixrr.metrics.MetricsExecutionContext;
 import com.sixrr.metrics.utils.TestUtils;
 
 import java.util.HashMap;
@@ -28,6 +30,8 @@ import java.util.Map;
 import java.util.Set;
 
 public class MethodCallMapImpl implements MethodCallMap {
+    private static final Key<MethodCallMap> methodCallMapKey = new Key<>("methodCallMap");
+
     private final Map<SmartPsiElementPointer<PsiMethod>, Set<PsiReference>> methodToCallPointMap =
             new HashMap<SmartPsiElementPointer<PsiMethod>, Set<PsiReference>>(1024);
     private final Map<SmartPsiElementPointer<PsiMethod>, Set<PsiReference>> methodToTestCallPointMap =
@@ -35,6 +39,18 @@ public class MethodCallMapImpl implements MethodCallMap {
     private final Map<SmartPsiElementPointer<PsiMethod>, Set<PsiReference>> methodToProductCallPointMap =
             new HashMap<SmartPsiElementPointer<PsiMethod>, Set<PsiReference>>(1024);
 
+    /**
+     * @return the call map shared by the calculators of the run, the calls of a method are searched on first use.
+     */
+    public static MethodCallMap getInstance(MetricsExecutionContext executionContext) {
+        MethodCallMap map = executionContext.getUserData(methodCallMapKey);
+        if (map == null) {
+            map = executionContext.buildSharedStructure("method call map", MethodCallMapImpl::new);
+            executionContext.putUserData(methodCallMapKey, map);
+        }
+        return map;
+    }
+
     @Override
     public Set<PsiReference> calculateMethodCallPoints(PsiMethod method) {
         final SmartPointerManager manager = SmartPointerManager.getInstance(method.getProject());
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2005-2017 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.stockmetrics.utils;
+
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.search.PsiTodoSearchHelper;
+import com.intellij.psi.search.TodoItem;
+import com.sixrr.metrics.MetricsExecutionContext;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Offsets of the TODO items of every file seen during a metrics run. The items of a file are fetched from
+ * {@link PsiTodoSearchHelper} once, and the number of items inside any element of the file is then answered
+ * with two binary searches over the sorted offsets.
+ */
+public final class TodoOffsetIndex {
+
+    private static final Key<TodoOffsetIndex> todoOffsetIndexKey = new Key<>("todoOffsetIndex");
+
+    private final Map<VirtualFile, FileOffsets> offsetsPerFile = new HashMap<>();
+    private final MetricsExecutionContext executionContext;
+
+    private TodoOffsetIndex(MetricsExecutionContext executionContext) {
+        this.executionContext = executionContext;
+    }
+
+    public static TodoOffsetIndex getInstance(MetricsExecutionContext executionContext) {
+        TodoOffsetIndex index = executionContext.getUserData(todoOffsetIndexKey);
+        if (index == null) {
+            index = new TodoOffsetIndex(executionContext);
+            executionContext.putUserData(todoOffsetIndexKey, index);
+        }
+        return index;
+    }
+
+    public int getTodoItemsCount(PsiFile file) {
+        return getOffsets(file).starts.length;
+    }
+
+    public int getTodoItemsCount(PsiFile file, int startOffset, int endOffset) {
+        final FileOffsets offsets = getOffsets(file);
+        return countItemsInRange(offsets.starts, offsets.ends, startOffset, endOffset);
+    }
+
+    private FileOffsets getOffsets(PsiFile file) {
+        final VirtualFile virtualFile = file.getViewProvider().getVirtualFile();
+        FileOffsets offsets = offsetsPerFile.get(virtualFile);
+        if (offsets == null) {
+            offsets = executionContext.buildSharedStructure("TODO offsets", () -> calculateOffsets(file));
+            offsetsPerFile.put(virtualFile, offsets);
+        }
+        return offsets;
+    }
+
+    private static FileOffsets calculateOffsets(PsiFile file) {
+        final PsiTodoSearchHelper todoSearchHelper = PsiTodoSearchHelper.SERVICE.getInstance(file.getProject());
+        final TodoItem[] items = todoSearchHelper.findTodoItems(file);
+        final TextRange[] ranges = new TextRange[items.length];
+        for (int i = 0; i < items.length; i++) {
+            ranges[i] = items[i].getTextRange();
+        }
+        Arrays.sort(ranges, Comparator.comparingInt(TextRange::getStartOffset)
+                .thenComparingInt(TextRange::getEndOffset));
+        final int[] starts = new int[ranges.length];
+        final int[] ends = new int[ranges.length];
+        for (int i = 0; i < ranges.length; i++) {
+            starts[i] = ranges[i].getStartOffset();
+            ends[i] = ranges[i].getEndOffset();
+        }
+        return new FileOffsets(starts, ends);
+    }
+
+    /**
+     * Counts the items lying completely inside [startOffset, endOffset]. TODO items never nest, so when they are
+     * sorted by start offset their end offsets are sorted as well and the matching items form one contiguous run.
+     */
+    static int countItemsInRange(int[] starts, int[] ends, int startOffset, int endOffset) {
+        final int first = lowerBound(starts, startOffset);
+        final int last = upperBound(ends, endOffset);
+        return Math.max(0, last - first);
+    }
+
+    private static int lowerBound(int[] values, int key) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (values[middle] < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static int upperBound(int[] values, int key) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (values[middle] <= key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static final class FileOffsets {
+        private final int[] starts;
+        private final int[] ends;
+
+        private FileOffsets(int[] starts, int[] ends) {
+            this.starts = starts;
+            this.ends = ends;
+        }
+    }
+}
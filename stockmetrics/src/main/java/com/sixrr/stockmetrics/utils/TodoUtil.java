@@ -18,16 +18,19 @@ package com.sixrr.stockmetrics.utils;
 
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
-import com.intellij.psi.search.PsiTodoSearchHelper;
+import com.sixrr.metrics.MetricsExecutionContext;
 
 public final class TodoUtil {
 
     private TodoUtil() {}
 
-    public static int getTodoItemsCount(PsiElement element) {
+    public static int getTodoItemsCount(PsiElement element, MetricsExecutionContext executionContext) {
+        final TodoOffsetIndex index = TodoOffsetIndex.getInstance(executionContext);
+        if (element instanceof PsiFile) {
+            return index.getTodoItemsCount((PsiFile) element);
+        }
         final PsiFile file = element.getContainingFile();
-        final PsiTodoSearchHelper todoSearchHelper = PsiTodoSearchHelper.SERVICE.getInstance(file.getProject());
         final int offset = element.getTextOffset();
-        return todoSearchHelper.findTodoItems(file, offset, offset + element.getTextLength()).length;
+        return index.getTodoItemsCount(file, offset, offset + element.getTextLength());
     }
 }
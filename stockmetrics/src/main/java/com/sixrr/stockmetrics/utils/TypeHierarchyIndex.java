@@ -0,0 +1,268 @@
+/*
+ * Copyright 2005-2017 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.stockmetrics.utils;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.*;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.searches.DirectClassInheritorsSearch;
+import com.intellij.psi.util.MethodSignatureUtil;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.psi.util.PsiUtil;
+import com.sixrr.metrics.MetricsExecutionContext;
+import com.sixrr.metrics.SharedStructure;
+import gnu.trove.TIntArrayList;
+import gnu.trove.TIntHashSet;
+import gnu.trove.TObjectIntHashMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Type hierarchy of the project, filled lazily for the classes asked about. Classes get int ids, direct
+ * super/sub edges are stored as id lists, and transitive ancestors and inheritors are memoized per class, so
+ * the hierarchy of a diamond is expanded once. Direct inheritors come from {@link DirectClassInheritorsSearch},
+ * which works on the stub indices, so no source file is parsed just to build the index. Overriding methods
+ * are looked up by name in the inheritors and checked with {@link MethodSignatureUtil#isSuperMethod}.
+ * <p>
+ * Inheritors are only searched in the project sources, ancestors are followed into libraries as well. In a
+ * metrics run the searches for supertypes and inheritors are measured as the shared "type hierarchy" structure,
+ * not as part of the calculator which happens to trigger them.
+ * Public methods are synchronized, since calculators sharing the index may run in parallel. They must be
+ * called in a read action.
+ */
+public final class TypeHierarchyIndex implements SharedStructure {
+
+    private static final Key<TypeHierarchyIndex> typeHierarchyIndexKey = new Key<>("typeHierarchyIndex");
+    private static final int[] IN_PROGRESS = new int[0];
+
+    private final Project project;
+    @Nullable
+    private final MetricsExecutionContext executionContext;
+    private final GlobalSearchScope projectScope;
+    private final TObjectIntHashMap<PsiClass> ids = new TObjectIntHashMap<>();
+    private final List<PsiClass> classes = new ArrayList<>();
+    private final List<int[]> supers = new ArrayList<>();
+    private final List<int[]> subs = new ArrayList<>();
+    private final List<int[]> ancestors = new ArrayList<>();
+    private final List<int[]> inheritors = new ArrayList<>();
+
+    private TypeHierarchyIndex(Project project, @Nullable MetricsExecutionContext executionContext) {
+        this.project = project;
+        this.executionContext = executionContext;
+        projectScope = GlobalSearchScope.projectScope(project);
+    }
+
+    public static TypeHierarchyIndex getInstance(MetricsExecutionContext executionContext) {
+        TypeHierarchyIndex index = executionContext.getUserData(typeHierarchyIndexKey);
+        if (index == null) {
+            index = new TypeHierarchyIndex(executionContext.getProject(), executionContext);
+            executionContext.putUserData(typeHierarchyIndexKey, index);
+        }
+        return index;
+    }
+
+    /**
+     * Creates an empty index, classes are added on first use.
+     */
+    public static TypeHierarchyIndex create(@NotNull Project project) {
+        return new TypeHierarchyIndex(project, null);
+    }
+
+    private <T> T measure(Computable<T> lookup) {
+        return executionContext == null ? lookup.compute()
+                : executionContext.buildSharedStructure("type hierarchy", lookup);
+    }
+
+    /**
+     * The index only depends on declarations, edits in code blocks don't invalidate it.
+     */
+    @Override
+    public long getModificationCount() {
+        return PsiModificationTracker.SERVICE.getInstance(project).getOutOfCodeBlockModificationCount();
+    }
+
+    private int getId(PsiClass aClass) {
+        if (ids.containsKey(aClass)) {
+            return ids.get(aClass);
+        }
+        final int id = classes.size();
+        ids.put(aClass, id);
+        classes.add(aClass);
+        supers.add(null);
+        subs.add(null);
+        ancestors.add(null);
+        inheritors.add(null);
+        return id;
+    }
+
+    private int[] getSupers(int id) {
+        int[] result = supers.get(id);
+        if (result == null) {
+            final PsiClass[] superClasses = measure(() -> classes.get(id).getSupers());
+            result = new int[superClasses.length];
+            for (int i = 0; i < superClasses.length; i++) {
+                result[i] = getId(superClasses[i]);
+            }
+            supers.set(id, result);
+        }
+        return result;
+    }
+
+    private int[] getSubs(int id) {
+        int[] result = subs.get(id);
+        if (result == null) {
+            final TIntArrayList direct = new TIntArrayList();
+            final Collection<PsiClass> found =
+                    measure(() -> DirectClassInheritorsSearch.search(classes.get(id), projectScope).findAll());
+            for (PsiClass inheritor : found) {
+                direct.add(getId(inheritor));
+            }
+            result = direct.toNativeArray();
+            subs.set(id, result);
+        }
+        return result;
+    }
+
+    private int[] getAncestors(int id) {
+        final int[] memoized = ancestors.get(id);
+        if (memoized != null) {
+            return memoized;
+        }
+        ancestors.set(id, IN_PROGRESS); // cyclic inheritance in broken code
+        final TIntHashSet result = new TIntHashSet();
+        for (int superId : getSupers(id)) {
+            result.add(superId);
+            result.addAll(getAncestors(superId));
+        }
+        final int[] sorted = result.toArray();
+        Arrays.sort(sorted);
+        ancestors.set(id, sorted);
+        return sorted;
+    }
+
+    private int[] getInheritors(int id) {
+        final int[] memoized = inheritors.get(id);
+        if (memoized != null) {
+            return memoized;
+        }
+        inheritors.set(id, IN_PROGRESS);
+        final TIntHashSet result = new TIntHashSet();
+        for (int subId : getSubs(id)) {
+            result.add(subId);
+            result.addAll(getInheritors(subId));
+        }
+        final int[] sorted = result.toArray();
+        Arrays.sort(sorted);
+        inheritors.set(id, sorted);
+        return sorted;
+    }
+
+    /**
+     * @return all transitive supertypes of the class, including library ones, like {@link PsiClass#getSupers}
+     * applied recursively.
+     */
+    public synchronized List<PsiClass> getAllSupers(@NotNull PsiClass aClass) {
+        return toClasses(getAncestors(getId(aClass)));
+    }
+
+    /**
+     * @return project classes which extend or implement the given one, directly or through other classes if
+     * {@code deep} is set. Anonymous classes are included.
+     */
+    public synchronized List<PsiClass> getInheritors(@NotNull PsiClass aClass, boolean deep) {
+        final int id = getId(aClass);
+        if (deep) {
+            return toClasses(getInheritors(id));
+        }
+        return toClasses(getSubs(id));
+    }
+
+    public synchronized boolean isInheritor(@NotNull PsiClass aClass, @NotNull PsiClass base) {
+        return Arrays.binarySearch(getInheritors(getId(base)), getId(aClass)) >= 0;
+    }
+
+    /**
+     * @return project methods which override or implement the given one, directly or transitively.
+     */
+    public synchronized List<PsiMethod> getOverridingMethods(@NotNull PsiMethod method) {
+        final PsiClass containingClass = method.getContainingClass();
+        if (containingClass == null || !PsiUtil.canBeOverriden(method)) {
+            return Collections.emptyList();
+        }
+        final List<PsiMethod> result = new ArrayList<>();
+        for (int inheritor : getInheritors(getId(containingClass))) {
+            for (PsiMethod candidate : classes.get(inheritor).findMethodsByName(method.getName(), false)) {
+                if (overrides(candidate, method)) {
+                    result.add(candidate);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return all methods the given one overrides or implements, like {@link PsiMethod#findSuperMethods()}
+     * applied recursively.
+     */
+    public synchronized List<PsiMethod> getAllSuperMethods(@NotNull PsiMethod method) {
+        final PsiClass containingClass = method.getContainingClass();
+        if (containingClass == null || method.isConstructor() || method.hasModifierProperty(PsiModifier.STATIC)
+                || method.hasModifierProperty(PsiModifier.PRIVATE)) {
+            return Collections.emptyList();
+        }
+        final List<PsiMethod> result = new ArrayList<>();
+        for (int ancestor : getAncestors(getId(containingClass))) {
+            for (PsiMethod candidate : classes.get(ancestor).findMethodsByName(method.getName(), false)) {
+                if (overrides(method, candidate)) {
+                    result.add(candidate);
+                }
+            }
+        }
+        return result;
+    }
+
+    public boolean hasSuperMethods(@NotNull PsiMethod method) {
+        return !getAllSuperMethods(method).isEmpty();
+    }
+
+    private boolean overrides(PsiMethod method, PsiMethod superMethod) {
+        if (method.isConstructor() || superMethod.isConstructor()
+                || method.hasModifierProperty(PsiModifier.STATIC)
+                || superMethod.hasModifierProperty(PsiModifier.STATIC)
+                || superMethod.hasModifierProperty(PsiModifier.PRIVATE)) {
+            return false;
+        }
+        if (superMethod.hasModifierProperty(PsiModifier.PACKAGE_LOCAL)
+                && !JavaPsiFacade.getInstance(project).arePackagesTheSame(superMethod, method)) {
+            return false;
+        }
+        return superMethod.getParameterList().getParametersCount() == method.getParameterList().getParametersCount()
+                && MethodSignatureUtil.isSuperMethod(superMethod, method);
+    }
+
+    private List<PsiClass> toClasses(int[] classIds) {
+        final List<PsiClass> result = new ArrayList<>(classIds.length);
+        for (int id : classIds) {
+            result.add(classes.get(id));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2005-2017 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.stockmetrics;
+
+import com.sixrr.metrics.Metric;
+import com.sixrr.metrics.MetricProvider;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class MetricProvidersTest {
+
+    @Test
+    public void testJavaMetricsAreCreated() {
+        checkMetricsAreCreated(new JavaMetricProvider());
+    }
+
+    @Test
+    public void testDefaultMetricsAreCreated() {
+        checkMetricsAreCreated(new DefaultMetricProvider());
+    }
+
+    private static void checkMetricsAreCreated(MetricProvider provider) {
+        final List<String> classNames = provider.getMetricClassNames();
+        final List<Metric> metrics = MetricProvider.createMetrics(provider);
+        assertFalse(classNames.isEmpty());
+        assertEquals(classNames.size(), metrics.size());
+        final Set<String> ids = new HashSet<String>();
+        for (int i = 0; i < metrics.size(); i++) {
+            assertEquals(classNames.get(i), metrics.get(i).getClass().getName());
+            assertTrue("Duplicate metric " + metrics.get(i).getID(), ids.add(metrics.get(i).getID()));
+        }
+    }
+}
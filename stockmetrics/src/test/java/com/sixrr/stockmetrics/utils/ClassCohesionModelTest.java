@@ -0,0 +1,56 @@
+/*
+ * Copyright 2005-2017 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.stockmetrics.utils;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class ClassCohesionModelTest {
+
+    // m0 uses f0, m1 uses f0 and f1, m2 uses the foreign field f2 and calls m0
+    private static final ClassCohesionModel MODEL = new ClassCohesionModel(3, 3, 2,
+            new long[]{0b001L, 0b011L, 0b100L}, new long[]{0b100L, 0L, 0b001L});
+
+    @Test
+    public void testCounts() {
+        assertEquals(3, MODEL.getMethodCount());
+        assertEquals(2, MODEL.getOwnFieldCount());
+        assertEquals(1, MODEL.countConnectedPairs());
+        assertEquals(2, MODEL.countFieldUsers(0));
+        assertEquals(1, MODEL.countFieldUsers(1));
+        assertEquals(1, MODEL.countFieldUsers(2));
+    }
+
+    @Test
+    public void testComponentSizes() {
+        final int[] byFields = MODEL.calculateComponentSizes(false);
+        Arrays.sort(byFields);
+        assertArrayEquals(new int[]{1, 2}, byFields);
+        assertArrayEquals(new int[]{3}, MODEL.calculateComponentSizes(true));
+    }
+
+    @Test
+    public void testFieldJaccardDistance() {
+        assertEquals(0.5, MODEL.calculateFieldJaccardDistance(0, 1), 1e-9);
+        assertEquals(1.0, MODEL.calculateFieldJaccardDistance(1, 2), 1e-9);
+        assertEquals(0.0, new ClassCohesionModel(1, 2, 2, new long[]{0L}, new long[]{0L})
+                .calculateFieldJaccardDistance(0, 1), 1e-9);
+    }
+}
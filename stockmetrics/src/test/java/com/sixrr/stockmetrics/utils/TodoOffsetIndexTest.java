@@ -0,0 +1,38 @@
+/*
+ * Copyright 2005-2017 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.stockmetrics.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TodoOffsetIndexTest {
+
+    private static final int[] STARTS = {10, 40, 42, 100};
+    private static final int[] ENDS = {20, 50, 50, 120};
+
+    @Test
+    public void testCountItemsInRange() {
+        assertEquals(4, TodoOffsetIndex.countItemsInRange(STARTS, ENDS, 0, 200));
+        assertEquals(1, TodoOffsetIndex.countItemsInRange(STARTS, ENDS, 10, 20));
+        assertEquals(2, TodoOffsetIndex.countItemsInRange(STARTS, ENDS, 30, 60));
+        assertEquals(0, TodoOffsetIndex.countItemsInRange(STARTS, ENDS, 41, 49));
+        assertEquals(0, TodoOffsetIndex.countItemsInRange(STARTS, ENDS, 60, 90));
+        assertEquals(0, TodoOffsetIndex.countItemsInRange(STARTS, ENDS, 110, 115));
+        assertEquals(0, TodoOffsetIndex.countItemsInRange(new int[0], new int[0], 0, 100));
+    }
+}
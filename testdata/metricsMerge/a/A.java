@@ -0,0 +1,13 @@
+package a;
+
+import b.C;
+
+public abstract class A {
+    private C c;
+
+    public abstract void run();
+
+    public C getC() {
+        return c;
+    }
+}
@@ -0,0 +1,10 @@
+package a;
+
+import b.C;
+
+public class B extends A {
+    @Override
+    public void run() {
+        new C().print("run");
+    }
+}
@@ -0,0 +1,7 @@
+package b;
+
+public class C {
+    public void print(String text) {
+        System.out.println(text);
+    }
+}
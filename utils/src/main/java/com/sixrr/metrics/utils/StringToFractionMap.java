@@ -148,6 +148,15 @@ public class StringToFractionMap {
         }
     }
 
+    public void forEachEntry(EntryProcedure procedure) {
+        for (int i = 0; i < m_keys.length; i++) {
+            final String key = m_keys[i];
+            if (key != null) {
+                procedure.execute(key, m_numerators[i], m_denominators[i]);
+            }
+        }
+    }
+
     public double getMinimum() {
         double minimum = Double.POSITIVE_INFINITY;
         for (int i = 0; i < m_numerators.length; i++) {
@@ -196,4 +205,9 @@ public class StringToFractionMap {
             return totalNumerator / totalDenominator;
         }
     }
+
+    @FunctionalInterface
+    public interface EntryProcedure {
+        void execute(String key, double numerator, double denominator);
+    }
 }
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2005-2017 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.utils;
+
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiField;
+import com.intellij.psi.PsiMember;
+import com.intellij.psi.PsiMethod;
+import gnu.trove.TObjectIntHashMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Canonical names of the classes, methods and fields seen during one run. The name of a member is calculated
+ * once, interned, and given a dense id; members sharing a name (e.g. the same method reached through different
+ * PSI instances) share the id. Names follow the format used for measured objects: qualified name for classes,
+ * {@link MethodUtils#calculateSignature} for methods, class name + "." + field name for fields.
+ */
+public final class SymbolTable {
+
+    public static final int NO_ID = -1;
+
+    private static final String UNKNOWN_NAME = "???";
+
+    private final TObjectIntHashMap<PsiMember> memberIds = new TObjectIntHashMap<PsiMember>();
+    private final TObjectIntHashMap<String> nameIds = new TObjectIntHashMap<String>();
+    private final List<String> names = new ArrayList<>();
+
+    /**
+     * @return id of the member's name, or {@link #NO_ID} if the member has no name (e.g. an anonymous class).
+     */
+    public synchronized int getId(@NotNull PsiMember member) {
+        if (memberIds.containsKey(member)) {
+            return memberIds.get(member);
+        }
+        final String name = calculateName(member);
+        final int id = name == null ? NO_ID : register(name);
+        memberIds.put(member, id);
+        return id;
+    }
+
+    /**
+     * @return id of the given name, or {@link #NO_ID} if no member with this name was seen.
+     */
+    public synchronized int findId(@NotNull String name) {
+        return nameIds.containsKey(name) ? nameIds.get(name) : NO_ID;
+    }
+
+    @Nullable
+    public String getName(@NotNull PsiMember member) {
+        return getName(getId(member));
+    }
+
+    @Nullable
+    public synchronized String getName(int id) {
+        return id == NO_ID ? null : names.get(id);
+    }
+
+    public synchronized int size() {
+        return names.size();
+    }
+
+    /**
+     * Forgets the ids of members, keeping the names and their ids. Should be called when no more members are
+     * expected, so the table doesn't keep the PSI of every member alive as long as the run it belongs to.
+     * Members seen later get the ids of their names again.
+     */
+    public synchronized void releaseMembers() {
+        memberIds.clear();
+    }
+
+    private int register(String name) {
+        if (nameIds.containsKey(name)) {
+            return nameIds.get(name);
+        }
+        final int id = names.size();
+        final String interned = name.intern();
+        names.add(interned);
+        nameIds.put(interned, id);
+        return id;
+    }
+
+    @Nullable
+    private String calculateName(PsiMember member) {
+        if (member instanceof PsiMethod) {
+            return MethodUtils.calculateSignature((PsiMethod) member);
+        } else if (member instanceof PsiClass) {
+            return ((PsiClass) member).getQualifiedName();
+        } else if (member instanceof PsiField) {
+            final PsiClass containingClass = member.getContainingClass();
+            final String className = containingClass == null ? UNKNOWN_NAME : getName(containingClass);
+            return className + '.' + member.getName();
+        }
+        return UNKNOWN_NAME;
+    }
+}